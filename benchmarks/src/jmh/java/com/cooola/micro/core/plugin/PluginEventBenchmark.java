@@ -0,0 +1,71 @@
+package com.cooola.micro.core.plugin;
+
+import com.cooola.micro.core.api.EventChannel;
+import com.cooola.micro.core.api.EventType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PluginManager.publishEvent と型付きチャネルのリスナー数別ファンアウトのベンチマーク
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PluginEventBenchmark {
+
+    private static final String EVENT_TYPE = "product.created";
+    private static final String TYPED_EVENT_TYPE = "benchmark.product.created";
+    private static final EventType<ProductCreated> PRODUCT_CREATED = EventType.of(TYPED_EVENT_TYPE, ProductCreated.class);
+
+    @Param({"1", "10", "100"})
+    private int listeners;
+
+    private PluginManager pluginManager;
+    private Map<String, Object> payload;
+    private EventChannel<ProductCreated> channel;
+    private ProductCreated typedPayload;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        pluginManager = new PluginManager();
+        for (int i = 0; i < listeners; i++) {
+            pluginManager.addEventListener(EVENT_TYPE, (eventType, data) -> blackhole.consume(data));
+        }
+        payload = Map.of("productId", 1L, "code", "P-0001");
+
+        channel = pluginManager.channel(PRODUCT_CREATED);
+        for (int i = 0; i < listeners; i++) {
+            channel.subscribe(blackhole::consume);
+        }
+        typedPayload = new ProductCreated(1L, "P-0001");
+    }
+
+    @Benchmark
+    public void publishEvent() {
+        pluginManager.publishEvent(EVENT_TYPE, payload);
+    }
+
+    @Benchmark
+    public void publishTyped() {
+        channel.publish(typedPayload);
+    }
+
+    public record ProductCreated(long productId, String code) {
+    }
+}
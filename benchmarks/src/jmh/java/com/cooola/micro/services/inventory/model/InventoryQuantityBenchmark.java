@@ -0,0 +1,52 @@
+package com.cooola.micro.services.inventory.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 在庫エンティティの数量更新（予約・減少）のベンチマーク
+ * 1回の操作ごとに逆操作で元に戻し、数量が尽きないようにしている
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InventoryQuantityBenchmark {
+
+    private Inventory inventory;
+
+    @Setup
+    public void setUp() {
+        inventory = new Inventory();
+        inventory.setProductId(1L);
+        inventory.setWarehouseId(1L);
+        inventory.setQuantity(1_000_000);
+        inventory.setReservedQuantity(0);
+    }
+
+    @Benchmark
+    public boolean reserveQuantity() {
+        boolean reserved = inventory.reserveQuantity(3);
+        inventory.releaseReservedQuantity(3);
+        return reserved;
+    }
+
+    @Benchmark
+    public boolean reduceQuantity() {
+        boolean reduced = inventory.reduceQuantity(3);
+        inventory.addQuantity(3);
+        return reduced;
+    }
+}
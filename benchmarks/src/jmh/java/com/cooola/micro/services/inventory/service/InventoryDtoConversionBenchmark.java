@@ -0,0 +1,58 @@
+package com.cooola.micro.services.inventory.service;
+
+import com.cooola.micro.services.inventory.dto.InventoryDto;
+import com.cooola.micro.services.inventory.model.Inventory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 在庫エンティティ → DTO 変換（一覧API・エクスポートの主経路）のベンチマーク
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InventoryDtoConversionBenchmark {
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    private List<Inventory> inventories;
+
+    @Setup
+    public void setUp() {
+        inventories = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Inventory inventory = new Inventory();
+            inventory.setId((long) i);
+            inventory.setProductId((long) i);
+            inventory.setWarehouseId((long) (i % 8));
+            inventory.setQuantity(100 + i % 50);
+            inventory.setReservedQuantity(i % 10);
+            inventories.add(inventory);
+        }
+    }
+
+    @Benchmark
+    public List<InventoryDto> convertToDto() {
+        return inventories.stream()
+                .map(inventory -> InventoryService.convertToDto(inventory, 0))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,79 @@
+package com.cooola.micro.services.report.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 入出庫レポートのCSV出力のベンチマーク
+ * 行データは少数の行を使い回す仮想リストで与え、行データ自体の生成・保持コストを計測から除く
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportCsvBenchmark {
+
+    private static final int DISTINCT_ROWS = 1024;
+
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    private ReportService reportService;
+    private Map<String, Object> reportData;
+
+    @Setup
+    public void setUp() {
+        reportService = new ReportService(null);
+
+        Map<?, ?>[] distinct = new Map<?, ?>[DISTINCT_ROWS];
+        for (int i = 0; i < DISTINCT_ROWS; i++) {
+            Map<String, Object> transaction = new HashMap<>();
+            transaction.put("transactionId", (i % 2 == 0 ? "IN" : "OUT") + i);
+            transaction.put("type", i % 2 == 0 ? "入庫" : "出庫");
+            transaction.put("productName", i % 7 == 0 ? "商品\"特価\",セット" : "商品" + i);
+            transaction.put("quantity", i % 500);
+            transaction.put("date", "2024-01-15");
+            distinct[i] = transaction;
+        }
+        int size = rows;
+        List<Map<?, ?>> transactions = new AbstractList<>() {
+            @Override
+            public Map<?, ?> get(int index) {
+                return distinct[index % DISTINCT_ROWS];
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+
+        reportData = new HashMap<>();
+        reportData.put("reportType", "transaction_report");
+        reportData.put("transactions", transactions);
+    }
+
+    @Benchmark
+    public void writeCsv() throws IOException {
+        reportService.writeCsv(reportData, OutputStream.nullOutputStream());
+    }
+}
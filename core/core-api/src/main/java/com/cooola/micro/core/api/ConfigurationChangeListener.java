@@ -0,0 +1,17 @@
+package com.cooola.micro.core.api;
+
+import java.util.Set;
+
+/**
+ * 設定変更リスナー
+ */
+@FunctionalInterface
+public interface ConfigurationChangeListener {
+
+    /**
+     * 設定が変更された時の処理（変更した側のスレッドで、新しいスナップショットへの切り替え後に呼び出される）
+     * @param current 変更後のスナップショット
+     * @param changedKeys 追加・変更・削除された設定キー
+     */
+    void onConfigurationChanged(PluginConfiguration current, Set<String> changedKeys);
+}
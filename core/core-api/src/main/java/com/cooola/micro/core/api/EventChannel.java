@@ -0,0 +1,34 @@
+package com.cooola.micro.core.api;
+
+/**
+ * 型付きイベントチャネル
+ * 配信先は取得時に解決済みのため、発行時にイベント名の検索やペイロードの変換を行わない。
+ * 同じイベント名への {@link PluginContext#publishEvent(String, Object)} と購読者を共有する。
+ *
+ * @param <T> ペイロードの型
+ */
+public interface EventChannel<T> {
+
+    /**
+     * イベントタイプ
+     */
+    EventType<T> type();
+
+    /**
+     * イベントを発行
+     * @param payload ペイロード
+     */
+    void publish(T payload);
+
+    /**
+     * リスナーを登録
+     * @param listener リスナー
+     */
+    void subscribe(TypedEventListener<T> listener);
+
+    /**
+     * リスナーを削除
+     * @param listener リスナー
+     */
+    void unsubscribe(TypedEventListener<T> listener);
+}
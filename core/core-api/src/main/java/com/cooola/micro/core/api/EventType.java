@@ -0,0 +1,78 @@
+package com.cooola.micro.core.api;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * イベントタイプのハンドル
+ * イベント名ごとに1インスタンスに集約され、ペイロードの型を固定する。
+ * 定数として保持し、{@link PluginContext#channel(EventType)} で配信先を一度だけ解決して使う。
+ *
+ * @param <T> ペイロードの型
+ */
+public final class EventType<T> {
+
+    private static final Map<String, EventType<?>> TYPES = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final Class<T> payloadType;
+
+    private EventType(String name, Class<T> payloadType) {
+        this.name = name;
+        this.payloadType = payloadType;
+    }
+
+    /**
+     * イベントタイプを取得（同じ名前には常に同じインスタンスを返す）
+     * @param name イベント名
+     * @param payloadType ペイロードの型
+     * @return イベントタイプ
+     * @throws IllegalArgumentException 同じ名前が別のペイロード型で登録済みの場合
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> EventType<T> of(String name, Class<T> payloadType) {
+        EventType<?> type = TYPES.computeIfAbsent(name, key -> new EventType<>(key, payloadType));
+        if (type.payloadType != payloadType) {
+            throw new IllegalArgumentException("Event type " + name + " is already registered with payload "
+                    + type.payloadType.getName());
+        }
+        return (EventType<T>) type;
+    }
+
+    /**
+     * 登録済みのイベントタイプを取得
+     * @param name イベント名
+     * @return イベントタイプ（未登録の場合は null）
+     */
+    public static EventType<?> find(String name) {
+        return TYPES.get(name);
+    }
+
+    /**
+     * 指定したクラスローダーで定義されたペイロード型のイベントタイプを登録から外す
+     * （プラグインのクラスローダーを破棄する前に呼び出し、新しいクラスローダーのペイロード型で登録し直せるようにする）
+     * @param classLoader プラグインのクラスローダー
+     */
+    public static void release(ClassLoader classLoader) {
+        TYPES.values().removeIf(type -> type.payloadType.getClassLoader() == classLoader);
+    }
+
+    /**
+     * イベント名
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * ペイロードの型
+     */
+    public Class<T> payloadType() {
+        return payloadType;
+    }
+
+    @Override
+    public String toString() {
+        return name + "<" + payloadType.getSimpleName() + ">";
+    }
+}
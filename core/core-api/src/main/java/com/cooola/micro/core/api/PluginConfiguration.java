@@ -0,0 +1,40 @@
+package com.cooola.micro.core.api;
+
+import java.util.Map;
+
+/**
+ * 設定のスナップショット
+ * 取得後に内容は変わらない。設定が変更されると新しい版のスナップショットに置き換わる。
+ */
+public interface PluginConfiguration {
+
+    /**
+     * 版（変更のたびに増える）
+     * @return 版
+     */
+    long version();
+
+    /**
+     * 設定値を取得
+     * @param key 設定キー
+     * @return 設定値（未設定の場合は null）
+     */
+    String get(String key);
+
+    /**
+     * 設定値を取得（デフォルト値付き）
+     * @param key 設定キー
+     * @param defaultValue デフォルト値
+     * @return 設定値
+     */
+    default String get(String key, String defaultValue) {
+        String value = get(key);
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * 全設定を取得
+     * @return 変更できない設定マップ
+     */
+    Map<String, String> asMap();
+}
@@ -32,12 +32,30 @@ public interface PluginContext {
     
     /**
      * 全設定を取得
-     * @return 設定マップ
+     * @return 変更できない設定マップ（取得時点のスナップショット）
      */
     Map<String, String> getAllConfiguration();
     
     /**
-     * イベントを発行
+     * 設定のスナップショットを取得（複数の設定値を一貫した版で読む場合に使う）
+     * @return 設定のスナップショット
+     */
+    PluginConfiguration getConfigurationSnapshot();
+    
+    /**
+     * 設定変更リスナーを登録
+     * @param listener 設定変更リスナー
+     */
+    void addConfigurationListener(ConfigurationChangeListener listener);
+    
+    /**
+     * 設定変更リスナーを削除
+     * @param listener 設定変更リスナー
+     */
+    void removeConfigurationListener(ConfigurationChangeListener listener);
+    
+    /**
+     * イベントを発行（型付きイベントの場合は同名のチャネルへ配信する）
      * @param eventType イベントタイプ
      * @param data イベントデータ
      */
@@ -45,7 +63,8 @@ public interface PluginContext {
     
     /**
      * イベントリスナーを登録
-     * @param eventType イベントタイプ
+     * イベントタイプには「.」区切りのパターンも指定できる（「*」は任意の1セグメント、末尾の「**」は残りの任意のセグメントに一致）
+     * @param eventType イベントタイプまたは購読パターン
      * @param listener イベントリスナー
      */
     void addEventListener(String eventType, EventListener listener);
@@ -57,6 +76,13 @@ public interface PluginContext {
      */
     void removeEventListener(String eventType, EventListener listener);
     
+    /**
+     * 型付きイベントチャネルを取得（取得したチャネルは保持して再利用する）
+     * @param type イベントタイプ
+     * @return イベントチャネル
+     */
+    <T> EventChannel<T> channel(EventType<T> type);
+    
     /**
      * ログを出力
      * @param level ログレベル
@@ -0,0 +1,20 @@
+package com.cooola.micro.core.api;
+
+/**
+ * コアが定義するイベントタイプ
+ */
+public final class PluginEvents {
+
+    /**
+     * プラグイン開始
+     */
+    public static final EventType<PluginLifecycleEvent> PLUGIN_STARTED = EventType.of("plugin.started", PluginLifecycleEvent.class);
+
+    /**
+     * プラグイン停止
+     */
+    public static final EventType<PluginLifecycleEvent> PLUGIN_STOPPED = EventType.of("plugin.stopped", PluginLifecycleEvent.class);
+
+    private PluginEvents() {
+    }
+}
@@ -0,0 +1,8 @@
+package com.cooola.micro.core.api;
+
+/**
+ * プラグインの開始・停止イベントのペイロード
+ * @param plugin プラグイン名
+ */
+public record PluginLifecycleEvent(String plugin) {
+}
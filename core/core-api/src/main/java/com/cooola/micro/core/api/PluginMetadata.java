@@ -13,6 +13,8 @@ public class PluginMetadata {
     private String author;
     private String vendor;
     private List<String> dependencies;
+    // 遅延登録したプラグインを起動するイベントタイプ（購読パターン可）
+    private List<String> activationEvents;
     private Map<String, String> properties;
     
     public PluginMetadata() {}
@@ -42,6 +44,9 @@ public class PluginMetadata {
     public List<String> getDependencies() { return dependencies; }
     public void setDependencies(List<String> dependencies) { this.dependencies = dependencies; }
     
+    public List<String> getActivationEvents() { return activationEvents; }
+    public void setActivationEvents(List<String> activationEvents) { this.activationEvents = activationEvents; }
+    
     public Map<String, String> getProperties() { return properties; }
     public void setProperties(Map<String, String> properties) { this.properties = properties; }
 } 
\ No newline at end of file
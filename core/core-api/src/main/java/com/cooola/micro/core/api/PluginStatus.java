@@ -24,6 +24,11 @@ public enum PluginStatus {
      */
     RUNNING,
     
+    /**
+     * 実行中（実行予算の超過が続いている）
+     */
+    DEGRADED,
+    
     /**
      * 停止中
      */
@@ -0,0 +1,16 @@
+package com.cooola.micro.core.api;
+
+/**
+ * 型付きイベントリスナー
+ *
+ * @param <T> ペイロードの型
+ */
+@FunctionalInterface
+public interface TypedEventListener<T> {
+
+    /**
+     * イベントが発生した時の処理
+     * @param payload ペイロード
+     */
+    void onEvent(T payload);
+}
@@ -3,7 +3,6 @@ package com.cooola.micro.core.plugin;
 import com.cooola.micro.core.api.*;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -14,7 +13,6 @@ public class DefaultPluginContext implements PluginContext {
     
     private final PluginManager pluginManager;
     private final String pluginName;
-    private final Map<String, String> configuration = new HashMap<>();
     
     public DefaultPluginContext(PluginManager pluginManager, String pluginName) {
         this.pluginManager = pluginManager;
@@ -23,11 +21,7 @@ public class DefaultPluginContext implements PluginContext {
     
     @Override
     public String getConfiguration(String key) {
-        String value = configuration.get(key);
-        if (value == null) {
-            value = pluginManager.getConfiguration(key);
-        }
-        return value;
+        return pluginManager.getConfiguration(key);
     }
     
     @Override
@@ -38,13 +32,27 @@ public class DefaultPluginContext implements PluginContext {
     
     @Override
     public void setConfiguration(String key, String value) {
-        configuration.put(key, value);
         pluginManager.setConfiguration(key, value);
     }
     
     @Override
     public Map<String, String> getAllConfiguration() {
-        return new HashMap<>(configuration);
+        return pluginManager.getConfigurationSnapshot().asMap();
+    }
+    
+    @Override
+    public PluginConfiguration getConfigurationSnapshot() {
+        return pluginManager.getConfigurationSnapshot();
+    }
+    
+    @Override
+    public void addConfigurationListener(ConfigurationChangeListener listener) {
+        pluginManager.addConfigurationListener(listener);
+    }
+    
+    @Override
+    public void removeConfigurationListener(ConfigurationChangeListener listener) {
+        pluginManager.removeConfigurationListener(listener);
     }
     
     @Override
@@ -54,7 +62,7 @@ public class DefaultPluginContext implements PluginContext {
     
     @Override
     public void addEventListener(String eventType, EventListener listener) {
-        pluginManager.addEventListener(eventType, listener);
+        pluginManager.addEventListener(pluginName, eventType, listener);
     }
     
     @Override
@@ -62,6 +70,11 @@ public class DefaultPluginContext implements PluginContext {
         pluginManager.removeEventListener(eventType, listener);
     }
     
+    @Override
+    public <T> EventChannel<T> channel(EventType<T> type) {
+        return pluginManager.channel(type, pluginName);
+    }
+    
     @Override
     public void log(String level, String message) {
         switch (level.toLowerCase()) {
@@ -0,0 +1,141 @@
+package com.cooola.micro.core.plugin;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ワイルドカード購読の経路表
+ * 購読パターンをイベント名のセグメント（「.」区切り）単位のトライに展開し、一致する購読先を階層の深さに比例する手数で求める。
+ * パターンのセグメントは完全一致、「*」は任意の1セグメント、末尾の「**」は0個以上の残りのセグメントに一致する。
+ * 構築後は変更しない（パターンが増えた場合は作り直す）。
+ *
+ * @param <T> 購読先
+ */
+final class EventRouteTable<T> {
+
+    private static final String ANY_SEGMENT = "*";
+    private static final String ANY_SUFFIX = "**";
+
+    private final Node<T> root;
+    private final boolean empty;
+
+    private EventRouteTable(Node<T> root, boolean empty) {
+        this.root = root;
+        this.empty = empty;
+    }
+
+    /**
+     * 空の経路表
+     */
+    static <T> EventRouteTable<T> empty() {
+        return new EventRouteTable<>(new Node<>(), true);
+    }
+
+    /**
+     * パターンと購読先の組から経路表を構築
+     *
+     * @param targets パターン → 購読先
+     * @return 経路表
+     */
+    static <T> EventRouteTable<T> of(Map<String, T> targets) {
+        return of(targets.entrySet());
+    }
+
+    /**
+     * パターンと購読先の組から経路表を構築（同じパターンに複数の購読先を指定できる）
+     *
+     * @param routes パターンと購読先の組
+     * @return 経路表
+     */
+    static <T> EventRouteTable<T> of(Collection<? extends Map.Entry<String, T>> routes) {
+        Node<T> root = new Node<>();
+        routes.forEach(route -> add(root, route.getKey(), route.getValue()));
+        return new EventRouteTable<>(root, routes.isEmpty());
+    }
+
+    private static <T> void add(Node<T> root, String pattern, T target) {
+        Node<T> node = root;
+        for (String segment : pattern.split("\\.")) {
+            if (ANY_SUFFIX.equals(segment)) {
+                node.anySuffix.add(target);
+                return;
+            }
+            node = ANY_SEGMENT.equals(segment)
+                    ? (node.anySegment == null ? node.anySegment = new Node<>() : node.anySegment)
+                    : node.children.computeIfAbsent(segment, key -> new Node<>());
+        }
+        node.terminal.add(target);
+    }
+
+    /**
+     * ワイルドカードを含むイベントタイプかどうか
+     */
+    static boolean isPattern(String eventType) {
+        return eventType.indexOf('*') >= 0;
+    }
+
+    /**
+     * パターンの書式を検証
+     *
+     * @param pattern 購読パターン
+     * @throws IllegalArgumentException 空のセグメントを含む場合、「*」がセグメントの一部に含まれる場合、「**」が末尾以外にある場合
+     */
+    static void validate(String pattern) {
+        String[] segments = pattern.split("\\.", -1);
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            boolean wildcard = ANY_SEGMENT.equals(segment) || ANY_SUFFIX.equals(segment);
+            if (segment.isEmpty() || (!wildcard && segment.indexOf('*') >= 0)
+                    || (ANY_SUFFIX.equals(segment) && i != segments.length - 1)) {
+                throw new IllegalArgumentException("Invalid event pattern: " + pattern);
+            }
+        }
+    }
+
+    boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * イベント名に一致する購読先を取得
+     *
+     * @param eventType イベント名
+     * @return 一致した購読先（一致しない場合は空）
+     */
+    List<T> match(String eventType) {
+        if (empty) {
+            return Collections.emptyList();
+        }
+        List<T> matched = new ArrayList<>();
+        match(root, eventType.split("\\."), 0, matched);
+        return matched;
+    }
+
+    private static <T> void match(Node<T> node, String[] segments, int index, List<T> matched) {
+        matched.addAll(node.anySuffix);
+        if (index == segments.length) {
+            matched.addAll(node.terminal);
+            return;
+        }
+        Node<T> child = node.children.get(segments[index]);
+        if (child != null) {
+            match(child, segments, index + 1, matched);
+        }
+        if (node.anySegment != null) {
+            match(node.anySegment, segments, index + 1, matched);
+        }
+    }
+
+    private static final class Node<T> {
+        private final Map<String, Node<T>> children = new HashMap<>();
+        private Node<T> anySegment;
+        // このノードで終わるパターンの購読先
+        private final List<T> terminal = new ArrayList<>(1);
+        // このノード以降の任意のセグメント列（「**」）に一致する購読先
+        private final List<T> anySuffix = new ArrayList<>(1);
+    }
+}
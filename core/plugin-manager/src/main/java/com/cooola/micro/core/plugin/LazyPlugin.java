@@ -0,0 +1,106 @@
+package com.cooola.micro.core.plugin;
+
+import com.cooola.micro.core.api.CooolaPlugin;
+import com.cooola.micro.core.api.PluginContext;
+import com.cooola.micro.core.api.PluginMetadata;
+import com.cooola.micro.core.api.PluginStatus;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 遅延登録したプラグインの代理
+ * 名前・バージョン・メタデータは登録時のメタデータから返し、実体のプラグインは初期化時に初めて生成する。
+ */
+final class LazyPlugin implements CooolaPlugin {
+
+    private final PluginMetadata metadata;
+    private final Supplier<? extends CooolaPlugin> factory;
+    private volatile CooolaPlugin delegate;
+    private volatile PluginContext context;
+    private Duration instantiation = Duration.ZERO;
+
+    LazyPlugin(PluginMetadata metadata, Supplier<? extends CooolaPlugin> factory) {
+        this.metadata = metadata;
+        this.factory = factory;
+    }
+
+    /**
+     * 実体のプラグインを生成済みか
+     */
+    boolean isActivated() {
+        return delegate != null;
+    }
+
+    /**
+     * 実体の生成にかかった時間
+     */
+    Duration getInstantiation() {
+        return instantiation;
+    }
+
+    /**
+     * 初期化時に受け取ったコンテキスト（未初期化の場合は null）
+     */
+    PluginContext getContext() {
+        return context;
+    }
+
+    @Override
+    public String getName() {
+        return metadata.getName();
+    }
+
+    @Override
+    public String getVersion() {
+        return delegate != null ? delegate.getVersion() : metadata.getVersion();
+    }
+
+    @Override
+    public synchronized void initialize(PluginContext context) {
+        if (delegate == null) {
+            long started = System.nanoTime();
+            CooolaPlugin created = factory.get();
+            instantiation = Duration.ofNanos(System.nanoTime() - started);
+            if (!metadata.getName().equals(created.getName())) {
+                throw new IllegalStateException("Lazy plugin " + metadata.getName() + " created plugin " + created.getName());
+            }
+            delegate = created;
+        }
+        this.context = context;
+        delegate.initialize(context);
+    }
+
+    @Override
+    public void start() {
+        CooolaPlugin current = delegate;
+        if (current == null) {
+            throw new IllegalStateException("Lazy plugin is not initialized: " + getName());
+        }
+        current.start();
+    }
+
+    @Override
+    public void stop() {
+        CooolaPlugin current = delegate;
+        if (current != null) {
+            current.stop();
+        }
+    }
+
+    @Override
+    public PluginMetadata getMetadata() {
+        return delegate != null ? delegate.getMetadata() : metadata;
+    }
+
+    @Override
+    public PluginStatus getStatus() {
+        return delegate != null ? delegate.getStatus() : PluginStatus.UNINITIALIZED;
+    }
+
+    @Override
+    public Map<String, Object> getConfiguration() {
+        return delegate != null ? delegate.getConfiguration() : Map.of();
+    }
+}
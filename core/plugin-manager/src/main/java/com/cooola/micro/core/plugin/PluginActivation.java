@@ -0,0 +1,26 @@
+package com.cooola.micro.core.plugin;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * 遅延登録したプラグインの起動結果
+ *
+ * @param name          プラグイン名
+ * @param trigger       起動のきっかけ（dependency: 依存解決、event:&lt;イベントタイプ&gt;: イベント発行）
+ * @param activatedAt   起動した日時
+ * @param instantiation 実体の生成の所要時間
+ * @param initialize    初期化の所要時間（生成を含む）
+ * @param start         開始の所要時間
+ * @param error         起動に失敗した場合のエラー（成功した場合は null。失敗した段階以降の所要時間は 0）
+ */
+public record PluginActivation(String name, String trigger, Instant activatedAt, Duration instantiation,
+                               Duration initialize, Duration start, String error) {
+
+    /**
+     * 起動に成功したか
+     */
+    public boolean succeeded() {
+        return error == null;
+    }
+}
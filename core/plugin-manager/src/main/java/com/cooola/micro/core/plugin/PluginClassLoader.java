@@ -0,0 +1,63 @@
+package com.cooola.micro.core.plugin;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+/**
+ * プラグインJARごとのクラスローダー
+ * プラグインのクラスはJARを優先して読み込み（子優先）、コアAPI・JDK・ログ・Spring のクラスは常に親から読み込む。
+ * プラグインとコアで型を共有するため、CooolaPlugin などのコアAPIをJARに同梱しても親のクラスが使われる。
+ */
+final class PluginClassLoader extends URLClassLoader {
+
+    private static final String[] PARENT_FIRST = {
+            "java.", "javax.", "jdk.", "sun.",
+            "com.cooola.micro.core.api.",
+            "org.slf4j.", "org.springframework.", "io.micrometer."
+    };
+
+    static {
+        registerAsParallelCapable();
+    }
+
+    private final String jarName;
+
+    PluginClassLoader(String jarName, URL jar, ClassLoader parent) {
+        super("plugin:" + jarName, new URL[]{jar}, parent);
+        this.jarName = jarName;
+    }
+
+    String getJarName() {
+        return jarName;
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        if (isParentFirst(name)) {
+            return super.loadClass(name, resolve);
+        }
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> loaded = findLoadedClass(name);
+            if (loaded == null) {
+                try {
+                    loaded = findClass(name);
+                } catch (ClassNotFoundException e) {
+                    return super.loadClass(name, resolve);
+                }
+            }
+            if (resolve) {
+                resolveClass(loaded);
+            }
+            return loaded;
+        }
+    }
+
+    private static boolean isParentFirst(String name) {
+        for (String prefix : PARENT_FIRST) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,182 @@
+package com.cooola.micro.core.plugin;
+
+import com.cooola.micro.core.api.ConfigurationChangeListener;
+import com.cooola.micro.core.api.PluginConfiguration;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * プラグイン設定のストア
+ * 設定は変更できないスナップショットとして保持し、変更時は新しい版に丸ごと置き換える。
+ * 読み取りはロックも割り当ても伴わない（volatile 参照の読み取りと不変マップの検索のみ）。
+ * 書き込みは版の順序と変更通知の順序を一致させるため直列化する。
+ * Spring の環境にある plugin.config.* のプロパティを接頭辞を除いたキーで取り込み、設定の再読み込み（EnvironmentChangeEvent）に追従する。
+ */
+@Slf4j
+@Component
+public class PluginConfigurationStore {
+
+    static final String PROPERTY_PREFIX = "plugin.config.";
+
+    private final ConfigurableEnvironment environment;
+    private final List<ConfigurationChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile Snapshot current = new Snapshot(0, Map.of());
+
+    /**
+     * 空の設定で生成
+     */
+    public PluginConfigurationStore() {
+        this.environment = null;
+    }
+
+    @Autowired
+    public PluginConfigurationStore(ConfigurableEnvironment environment) {
+        this.environment = environment;
+        Map<String, String> values = new HashMap<>();
+        environment.getPropertySources().forEach(source -> {
+            if (source instanceof EnumerablePropertySource<?> enumerable) {
+                for (String name : enumerable.getPropertyNames()) {
+                    if (name.startsWith(PROPERTY_PREFIX)) {
+                        values.putIfAbsent(name.substring(PROPERTY_PREFIX.length()), environment.getProperty(name));
+                    }
+                }
+            }
+        });
+        values.values().removeIf(Objects::isNull);
+        update(values);
+    }
+
+    /**
+     * 現在のスナップショットを取得
+     */
+    public PluginConfiguration snapshot() {
+        return current;
+    }
+
+    /**
+     * 設定値を取得
+     *
+     * @param key 設定キー
+     * @return 設定値（未設定の場合は null）
+     */
+    public String get(String key) {
+        return current.values().get(key);
+    }
+
+    /**
+     * 設定値を設定
+     *
+     * @param key   設定キー
+     * @param value 設定値（null の場合は削除）
+     */
+    public void set(String key, String value) {
+        Map<String, String> changes = new HashMap<>();
+        changes.put(key, value);
+        update(changes);
+    }
+
+    /**
+     * 複数の設定をまとめて変更（1つの版として反映し、変更通知も1回にまとめる）
+     *
+     * @param changes 設定キー → 設定値（null の場合は削除）
+     */
+    public void update(Map<String, String> changes) {
+        Snapshot next;
+        Set<String> changed = new LinkedHashSet<>();
+        synchronized (this) {
+            Snapshot previous = current;
+            Map<String, String> values = new HashMap<>(previous.values());
+            changes.forEach((key, value) -> {
+                String old = value == null ? values.remove(key) : values.put(key, value);
+                if (!Objects.equals(old, value)) {
+                    changed.add(key);
+                }
+            });
+            if (changed.isEmpty()) {
+                return;
+            }
+            next = new Snapshot(previous.version() + 1, Map.copyOf(values));
+            current = next;
+            // 変更通知の順序を版の順序に揃えるため、通知もロック内で行う
+            Set<String> changedKeys = Set.copyOf(changed);
+            for (ConfigurationChangeListener listener : listeners) {
+                try {
+                    listener.onConfigurationChanged(next, changedKeys);
+                } catch (Exception e) {
+                    log.error("Error in configuration listener for keys: {}", changedKeys, e);
+                }
+            }
+        }
+        log.debug("Plugin configuration updated to version {}: {}", next.version(), changed);
+    }
+
+    /**
+     * 設定変更リスナーを登録
+     */
+    public void addListener(ConfigurationChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 設定変更リスナーを削除
+     */
+    public void removeListener(ConfigurationChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 指定したクラスローダーで定義されたリスナーをすべて削除（プラグインの入れ替え前に使う）
+     */
+    public void removeListeners(ClassLoader classLoader) {
+        listeners.removeIf(listener -> listener.getClass().getClassLoader() == classLoader);
+    }
+
+    /**
+     * 設定の再読み込みで変わった plugin.config.* を反映
+     */
+    @EventListener(EnvironmentChangeEvent.class)
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        if (environment == null) {
+            return;
+        }
+        Map<String, String> changes = new HashMap<>();
+        event.getKeys().stream()
+                .filter(name -> name.startsWith(PROPERTY_PREFIX))
+                .forEach(name -> changes.put(name.substring(PROPERTY_PREFIX.length()), environment.getProperty(name)));
+        if (!changes.isEmpty()) {
+            update(changes);
+        }
+    }
+
+    /**
+     * 設定のスナップショット
+     *
+     * @param version 版
+     * @param values  変更できない設定マップ
+     */
+    private record Snapshot(long version, Map<String, String> values) implements PluginConfiguration {
+
+        @Override
+        public String get(String key) {
+            return values.get(key);
+        }
+
+        @Override
+        public Map<String, String> asMap() {
+            return values;
+        }
+    }
+}
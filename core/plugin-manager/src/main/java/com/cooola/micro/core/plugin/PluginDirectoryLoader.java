@@ -0,0 +1,309 @@
+package com.cooola.micro.core.plugin;
+
+import com.cooola.micro.core.api.CooolaPlugin;
+import com.cooola.micro.core.api.EventType;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * プラグインディレクトリからのJAR読み込み
+ * JARごとに独立したクラスローダーで読み込み（META-INF/services/com.cooola.micro.core.api.CooolaPlugin に実装クラスを記載）、
+ * ディレクトリの監視でJARの追加・更新・削除を検知してサービスを再起動せずに入れ替える。
+ * 入れ替えは、未配信イベントの配信完了を待つ → 停止 → 登録解除・クラスローダー破棄 → 新しいJARで登録・起動 の順に行う。
+ * 読み込み中のJARの上書きで読み込みが壊れないよう、JARは作業ディレクトリへ複製してから読み込む。
+ */
+@Slf4j
+@Component
+public class PluginDirectoryLoader {
+
+    private final PluginManager pluginManager;
+    private final PluginRegistrar registrar;
+    private final PluginEventBus eventBus;
+    private final PluginConfigurationStore configurationStore;
+    private final PluginStartupOrchestrator orchestrator;
+    private final Path directory;
+    private final boolean watch;
+    private final Duration drainTimeout;
+    private final long reloadDelayMillis;
+
+    private final Map<Path, LoadedJar> loaded = new ConcurrentHashMap<>();
+    // 破棄したがまだ回収されていないクラスローダー → JAR名（回収されない場合はリークの疑いがある）
+    private final Map<WeakReference<ClassLoader>, String> released = new ConcurrentHashMap<>();
+    private final ReferenceQueue<ClassLoader> collected = new ReferenceQueue<>();
+    private Path workDirectory;
+    private WatchService watchService;
+    private Thread watcher;
+
+    public PluginDirectoryLoader(PluginManager pluginManager,
+                                 PluginRegistrar registrar,
+                                 PluginEventBus eventBus,
+                                 PluginConfigurationStore configurationStore,
+                                 PluginStartupOrchestrator orchestrator,
+                                 @Value("${plugin.directory.path:}") String directory,
+                                 @Value("${plugin.directory.watch:true}") boolean watch,
+                                 @Value("${plugin.directory.drain-timeout-ms:5000}") long drainTimeoutMillis,
+                                 @Value("${plugin.directory.reload-delay-ms:500}") long reloadDelayMillis) {
+        this.pluginManager = pluginManager;
+        this.registrar = registrar;
+        this.eventBus = eventBus;
+        this.configurationStore = configurationStore;
+        this.orchestrator = orchestrator;
+        this.directory = directory.isBlank() ? null : Path.of(directory).toAbsolutePath().normalize();
+        this.watch = watch;
+        this.drainTimeout = Duration.ofMillis(drainTimeoutMillis);
+        this.reloadDelayMillis = reloadDelayMillis;
+    }
+
+    /**
+     * 起動時にディレクトリ内の全JARを読み込み、監視を開始（plugin.directory.path 未設定の場合は何もしない）
+     * 読み込んだプラグインの起動は {@link PluginStartupOrchestrator} の起動時の一括起動に任せる（plugin.startup.auto-start に従う）。
+     * そのため一括起動より先に読み込む。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public synchronized void start() {
+        if (directory == null || workDirectory != null) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            workDirectory = Files.createTempDirectory("cooola-plugins");
+            try (DirectoryStream<Path> jars = Files.newDirectoryStream(directory, "*.jar")) {
+                for (Path jar : jars) {
+                    load(jar);
+                }
+            }
+            if (watch) {
+                watchService = FileSystems.getDefault().newWatchService();
+                directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                watcher = new Thread(this::watch, "plugin-directory-watcher");
+                watcher.setDaemon(true);
+                watcher.start();
+            }
+            log.info("Plugin directory loaded: {} (jars={}, watch={})", directory, loaded.size(), watch);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load plugin directory: " + directory, e);
+        }
+    }
+
+    /**
+     * JARを読み込み直す（JARが削除されている場合は読み込み済みのプラグインを外す）
+     *
+     * @param jar プラグインディレクトリ内のJAR
+     */
+    public synchronized void reload(Path jar) {
+        Path source = jar.toAbsolutePath().normalize();
+        long started = System.nanoTime();
+        LoadedJar previous = loaded.get(source);
+        if (previous != null) {
+            unload(previous);
+        }
+        if (Files.exists(source)) {
+            // 入れ替えたJARのプラグインだけを起動する（停止中・起動失敗の他のプラグインは起動しない）
+            load(source);
+            LoadedJar reloaded = loaded.get(source);
+            if (reloaded != null) {
+                orchestrator.start(reloaded.pluginNames());
+            }
+        }
+        expungeCollected();
+        log.info("Plugin jar reloaded: {} in {}ms (retained class loaders={})", source.getFileName(),
+                (System.nanoTime() - started) / 1_000_000, released.size());
+    }
+
+    /**
+     * 読み込み済みのJAR名 → プラグイン名
+     */
+    public Map<String, List<String>> getLoadedPlugins() {
+        Map<String, List<String>> plugins = new TreeMap<>();
+        loaded.values().forEach(jar -> plugins.put(jar.source().getFileName().toString(), jar.pluginNames()));
+        return plugins;
+    }
+
+    /**
+     * 破棄後もガベージコレクションで回収されていないクラスローダーのJAR名
+     * （入れ替えを繰り返しても減らない場合は、プラグインのクラスへの参照が残っている）
+     */
+    public List<String> getRetainedClassLoaders() {
+        expungeCollected();
+        return new ArrayList<>(released.values());
+    }
+
+    /**
+     * 監視を止め、全プラグインを外す
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                log.warn("Failed to close plugin directory watcher: {}", e.getMessage());
+            }
+        }
+        new ArrayList<>(loaded.values()).forEach(this::unload);
+        if (workDirectory != null) {
+            try {
+                Files.deleteIfExists(workDirectory);
+            } catch (IOException e) {
+                log.warn("Failed to delete plugin work directory: {}", workDirectory);
+            }
+        }
+    }
+
+    private void load(Path source) {
+        PluginClassLoader classLoader = null;
+        List<String> pluginNames = new ArrayList<>();
+        try {
+            Path copy = workDirectory.resolve(System.nanoTime() + "-" + source.getFileName());
+            Files.copy(source, copy, StandardCopyOption.REPLACE_EXISTING);
+            classLoader = new PluginClassLoader(source.getFileName().toString(), copy.toUri().toURL(),
+                    PluginManager.class.getClassLoader());
+            PluginClassLoader loader = classLoader;
+            // 親のクラスパスにある実装は対象外にする
+            List<CooolaPlugin> plugins = ServiceLoader.load(CooolaPlugin.class, loader).stream()
+                    .filter(provider -> provider.type().getClassLoader() == loader)
+                    .map(ServiceLoader.Provider::get)
+                    .toList();
+            for (CooolaPlugin plugin : plugins) {
+                if (pluginManager.getAllPlugins().stream().anyMatch(registered -> registered.getName().equals(plugin.getName()))) {
+                    throw new IllegalStateException("Plugin already registered: " + plugin.getName());
+                }
+                // plugin.lazy.<プラグイン名>.activation-events の指定があれば遅延登録する
+                registrar.register(plugin);
+                pluginNames.add(plugin.getName());
+            }
+            loaded.put(source, new LoadedJar(source, copy, loader, List.copyOf(pluginNames)));
+            log.info("Plugin jar loaded: {} (plugins={})", source.getFileName(), pluginNames);
+        } catch (IOException | RuntimeException | ServiceConfigurationError e) {
+            log.error("Failed to load plugin jar: {}", source, e);
+            pluginNames.forEach(pluginManager::unregisterPlugin);
+            if (classLoader != null) {
+                release(classLoader);
+            }
+        }
+    }
+
+    private void unload(LoadedJar jar) {
+        loaded.remove(jar.source());
+        // 新しいイベントの配信を止め、キューに残っているイベントを配信し終えてから停止する
+        if (!eventBus.unsubscribeAll(jar.classLoader(), drainTimeout)) {
+            log.warn("Plugin events not drained within {}ms: {}", drainTimeout.toMillis(), jar.source().getFileName());
+        }
+        for (String name : jar.pluginNames()) {
+            if (pluginManager.isStarted(name)) {
+                try {
+                    pluginManager.stopPlugin(name);
+                } catch (RuntimeException e) {
+                    log.warn("Failed to stop plugin before unloading: {}", name);
+                }
+            }
+            pluginManager.unregisterPlugin(name);
+        }
+        // 停止処理中に登録されたリスナーも外す
+        eventBus.unsubscribeAll(jar.classLoader(), Duration.ZERO);
+        configurationStore.removeListeners(jar.classLoader());
+        release(jar.classLoader());
+        try {
+            Files.deleteIfExists(jar.copy());
+        } catch (IOException e) {
+            log.warn("Failed to delete plugin jar copy: {}", jar.copy());
+        }
+        log.info("Plugin jar unloaded: {} (plugins={})", jar.source().getFileName(), jar.pluginNames());
+    }
+
+    private void release(PluginClassLoader classLoader) {
+        EventType.release(classLoader);
+        try {
+            classLoader.close();
+        } catch (IOException e) {
+            log.warn("Failed to close plugin class loader: {}", classLoader.getJarName());
+        }
+        released.put(new WeakReference<>(classLoader, collected), classLoader.getJarName());
+    }
+
+    private void expungeCollected() {
+        for (Object reference = collected.poll(); reference != null; reference = collected.poll()) {
+            released.remove(reference);
+        }
+    }
+
+    /**
+     * ディレクトリを監視し、変更が reload-delay-ms の間落ち着いたJARを読み込み直す（書き込み途中のJARを読まないため）
+     */
+    private void watch() {
+        Map<Path, Long> pending = new HashMap<>();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.poll(reloadDelayMillis, TimeUnit.MILLISECONDS);
+                long now = System.currentTimeMillis();
+                if (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.context() instanceof Path name && name.toString().endsWith(".jar")) {
+                            pending.put(directory.resolve(name), now);
+                        }
+                    }
+                    key.reset();
+                }
+                pending.entrySet().removeIf(entry -> {
+                    if (now - entry.getValue() < reloadDelayMillis) {
+                        return false;
+                    }
+                    try {
+                        reload(entry.getKey());
+                    } catch (RuntimeException e) {
+                        log.error("Failed to reload plugin jar: {}", entry.getKey(), e);
+                    }
+                    return true;
+                });
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            log.debug("Plugin directory watcher closed");
+        }
+    }
+
+    /**
+     * 読み込み済みのJAR
+     *
+     * @param source      プラグインディレクトリ内のJAR
+     * @param copy        読み込みに使っている作業ディレクトリの複製
+     * @param classLoader JARのクラスローダー
+     * @param pluginNames JARから登録したプラグイン名
+     */
+    private record LoadedJar(Path source, Path copy, PluginClassLoader classLoader, List<String> pluginNames) {
+    }
+}
@@ -0,0 +1,819 @@
+package com.cooola.micro.core.plugin;
+
+import com.cooola.micro.core.api.EventChannel;
+import com.cooola.micro.core.api.EventListener;
+import com.cooola.micro.core.api.EventType;
+import com.cooola.micro.core.api.TypedEventListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * プラグインイベントバス
+ * イベントタイプごとのチャネルがリスナーをコピーオンライトの配列で保持し、配信中の登録・削除と競合しないようにする。
+ * 型付きチャネルは取得時にチャネルを解決済みのため、同期配信では発行ごとの検索・割り当てを行わない。
+ * ワイルドカードの購読（product.* など）は経路表から各チャネルへ事前に展開し、購読パターンが増えた時に作り直す。
+ * 購読者のいないイベントタイプのチャネルは経路の展開先としてのみ保持し（上限 ROUTED_CHANNEL_LIMIT）、メトリクスは登録しない。
+ * ワイルドカード購読の配信は購読パターンのチャネルで計測し、最後の購読者と経路がなくなったチャネルはメトリクスごと破棄する。
+ * 非同期モードではリスナーごとの有界キューを専用スレッドプールで順に処理し、遅いリスナーが発行元を止めないようにする。
+ * 登録元のプラグインを指定した購読は、呼び出しごとに {@link PluginExecutionMonitor} でプラグイン単位に計測する。
+ */
+@Slf4j
+@Component
+public class PluginEventBus {
+
+    /**
+     * 配信モード
+     */
+    public enum DispatchMode {
+        /** 発行元のスレッドで全リスナーを順に呼び出す */
+        SYNC,
+        /** リスナーごとのキューに積み、専用スレッドプールで配信する */
+        ASYNC
+    }
+
+    /**
+     * 非同期モードでリスナーのキューが満杯の場合の動作
+     */
+    public enum BackpressurePolicy {
+        /** 空きができるまで発行元を待たせる */
+        BLOCK,
+        /** 最も古い未配信イベントを破棄する */
+        DROP_OLDEST,
+        /** 発行元のスレッドで直接配信する（そのリスナーへの配信順序は前後しうる） */
+        CALLER_RUNS
+    }
+
+    private static final int DRAIN_BATCH = 64;
+    // 購読者のいないイベントタイプに対して保持するチャネル数の上限（超えた分は発行のたびに経路を解決する）
+    static final int ROUTED_CHANNEL_LIMIT = 1024;
+
+    // 配信スレッド上での発行かどうか（BLOCK で自身のキューを待って停止しないようにする）
+    private static final ThreadLocal<Boolean> DISPATCHING = new ThreadLocal<>();
+
+    private final DispatchMode mode;
+    private final BackpressurePolicy backpressure;
+    private final int queueCapacity;
+    private final ExecutorService executor;
+    private final MeterRegistry meterRegistry;
+    private final PluginExecutionMonitor executionMonitor;
+
+    private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+    // ワイルドカードの購読パターン → チャネル
+    private final Map<String, Channel> patterns = new ConcurrentHashMap<>();
+    private volatile EventRouteTable<Channel> routes = EventRouteTable.empty();
+    private final List<PublishHook> hooks = new CopyOnWriteArrayList<>();
+    // 発行前フックの経路表（フックの登録・削除時に作り直す）
+    private volatile EventRouteTable<PublishHook> hookRoutes = EventRouteTable.empty();
+
+    /**
+     * 同期配信のイベントバス（メトリクスなし）
+     */
+    public PluginEventBus() {
+        this(DispatchMode.SYNC, BackpressurePolicy.BLOCK, 1024, 0, (MeterRegistry) null);
+    }
+
+    @Autowired
+    public PluginEventBus(@Value("${plugin.events.dispatch-mode:SYNC}") DispatchMode mode,
+                          @Value("${plugin.events.backpressure:BLOCK}") BackpressurePolicy backpressure,
+                          @Value("${plugin.events.queue-capacity:1024}") int queueCapacity,
+                          @Value("${plugin.events.threads:0}") int threads,
+                          ObjectProvider<MeterRegistry> meterRegistry,
+                          ObjectProvider<PluginExecutionMonitor> executionMonitor) {
+        this(mode, backpressure, queueCapacity, threads, meterRegistry.getIfAvailable(), executionMonitor.getIfAvailable());
+    }
+
+    public PluginEventBus(DispatchMode mode, BackpressurePolicy backpressure, int queueCapacity, int threads,
+                          MeterRegistry meterRegistry) {
+        this(mode, backpressure, queueCapacity, threads, meterRegistry, null);
+    }
+
+    /**
+     * @param executionMonitor プラグインごとの計測先（null の場合は計測しない）
+     */
+    public PluginEventBus(DispatchMode mode, BackpressurePolicy backpressure, int queueCapacity, int threads,
+                          MeterRegistry meterRegistry, PluginExecutionMonitor executionMonitor) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be positive: " + queueCapacity);
+        }
+        this.mode = mode;
+        this.backpressure = backpressure;
+        this.queueCapacity = queueCapacity;
+        this.meterRegistry = meterRegistry;
+        this.executionMonitor = executionMonitor;
+        this.executor = mode == DispatchMode.ASYNC ? newExecutor(threads) : null;
+    }
+
+    /**
+     * イベントを発行（購読者のいないイベントタイプにはチャネルを作らない）
+     *
+     * @param eventType イベントタイプ
+     * @param data      イベントデータ
+     */
+    public void publish(String eventType, Object data) {
+        Channel channel = channels.get(eventType);
+        if (channel == null) {
+            channel = routedChannel(eventType);
+            if (channel == null) {
+                return;
+            }
+        }
+        channel.publish(data);
+    }
+
+    /**
+     * イベントリスナーを登録
+     * イベントタイプには「.」区切りのパターンも指定できる（「*」は任意の1セグメント、末尾の「**」は残りの任意のセグメントに一致）
+     *
+     * @param eventType イベントタイプまたは購読パターン
+     * @param listener  イベントリスナー
+     */
+    public void subscribe(String eventType, EventListener listener) {
+        subscribe(eventType, listener, null);
+    }
+
+    /**
+     * 登録元のプラグインを指定してイベントリスナーを登録（呼び出しをプラグイン単位で計測する）
+     *
+     * @param eventType イベントタイプまたは購読パターン
+     * @param listener  イベントリスナー
+     * @param owner     登録元のプラグイン名（null の場合は計測しない）
+     */
+    public void subscribe(String eventType, EventListener listener, String owner) {
+        boolean pattern = EventRouteTable.isPattern(eventType);
+        if (pattern) {
+            EventRouteTable.validate(eventType);
+        }
+        PluginExecutionMonitor.Probe probe = probe(owner);
+        // 購読者のいなくなったチャネルの破棄と競合しないよう、チャネルの取得と登録は同じロックで行う
+        synchronized (this) {
+            Channel channel = pattern ? patternChannel(eventType) : channel(eventType);
+            channel.add(listener, listener, null, null, probe);
+        }
+    }
+
+    /**
+     * イベントリスナーを削除（キューに残っている未配信イベントは配信しない）
+     *
+     * @param eventType イベントタイプ
+     * @param listener  イベントリスナー
+     */
+    public void unsubscribe(String eventType, EventListener listener) {
+        synchronized (this) {
+            Channel channel = (EventRouteTable.isPattern(eventType) ? patterns : channels).get(eventType);
+            if (channel != null && channel.remove(listener)) {
+                prune(channel);
+            }
+        }
+    }
+
+    /**
+     * 指定したクラスローダーで定義されたリスナーの購読をすべて解除（プラグインの入れ替え前に使う）
+     * 解除したリスナーには新しいイベントを配信せず、キューに残っているイベントは時間内であれば配信し終えてから破棄する。
+     * 同期配信を含め、発行元・配信スレッドで実行中のリスナーの呼び出しが終わるまで待つ。
+     *
+     * @param classLoader プラグインのクラスローダー
+     * @param timeout     キューに残っているイベントの配信と実行中の呼び出しの終了を待つ時間
+     * @return 時間内に配信し終えた場合 true
+     */
+    public boolean unsubscribeAll(ClassLoader classLoader, Duration timeout) {
+        List<Subscriber> detached = new ArrayList<>();
+        synchronized (this) {
+            // 購読パターンのチャネルを破棄すると経路表の作り直しでチャネルの一覧が変わるため、複製してから走査する
+            for (Channel channel : Stream.concat(channels.values().stream(), patterns.values().stream()).toList()) {
+                List<Subscriber> removed = channel.detach(subscriber -> subscriber.key.getClass().getClassLoader() == classLoader);
+                if (!removed.isEmpty()) {
+                    detached.addAll(removed);
+                    prune(channel);
+                }
+            }
+        }
+        long deadline = System.nanoTime() + timeout.toNanos();
+        boolean drained = true;
+        for (Subscriber subscriber : detached) {
+            drained = drained && awaitIdle(subscriber::isBusy, deadline);
+        }
+        // 以降は配信を始めず、解除前に配信先を読み出した発行元がすでに始めた呼び出しの終了を待つ
+        for (Subscriber subscriber : detached) {
+            subscriber.active = false;
+            if (subscriber.queue != null) {
+                subscriber.queue.clear();
+            }
+        }
+        for (Subscriber subscriber : detached) {
+            drained = drained && awaitIdle(() -> subscriber.inFlight.get() > 0, deadline);
+        }
+        return drained;
+    }
+
+    /**
+     * 条件が成り立たなくなるまで待つ
+     *
+     * @return 期限までに成り立たなくなった場合 true
+     */
+    private static boolean awaitIdle(BooleanSupplier busy, long deadline) {
+        try {
+            while (busy.getAsBoolean()) {
+                if (System.nanoTime() > deadline) {
+                    return false;
+                }
+                Thread.sleep(1);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * 型付きイベントチャネルを取得
+     *
+     * @param type イベントタイプ
+     * @return イベントチャネル
+     */
+    public <T> EventChannel<T> channel(EventType<T> type) {
+        return channel(type, null);
+    }
+
+    /**
+     * 登録元のプラグインを指定して型付きイベントチャネルを取得（購読したリスナーの呼び出しをプラグイン単位で計測する）
+     *
+     * @param type  イベントタイプ
+     * @param owner 登録元のプラグイン名（null の場合は計測しない）
+     * @return イベントチャネル
+     */
+    public <T> EventChannel<T> channel(EventType<T> type, String owner) {
+        if (EventRouteTable.isPattern(type.name())) {
+            throw new IllegalArgumentException("Typed channels cannot use event patterns: " + type.name());
+        }
+        Channel channel;
+        synchronized (this) {
+            channel = channel(type.name());
+            // 型付きチャネルは取得時に解決したチャネルを使い続けるため、購読者がいなくなっても破棄しない
+            channel.pinned = true;
+        }
+        return new TypedChannel<>(type, channel, probe(owner));
+    }
+
+    /**
+     * プラグインごとの計測先（計測しない場合は null）
+     */
+    public PluginExecutionMonitor getExecutionMonitor() {
+        return executionMonitor;
+    }
+
+    private PluginExecutionMonitor.Probe probe(String owner) {
+        return owner == null || executionMonitor == null ? null : executionMonitor.probe(owner);
+    }
+
+    private Channel channel(String eventType) {
+        Channel channel = channels.get(eventType);
+        if (channel != null) {
+            return channel;
+        }
+        // 経路表の作り直しと競合しないよう、チャネルの作成は経路表の更新と同じロックで行う
+        synchronized (this) {
+            return channels.computeIfAbsent(eventType, this::newChannel);
+        }
+    }
+
+    private Channel newChannel(String eventType) {
+        Channel created = new Channel(eventType);
+        created.wildcards = routes.match(eventType).toArray(new Channel[0]);
+        created.hooks = hooksFor(hookRoutes, eventType);
+        return created;
+    }
+
+    /**
+     * 購読者はいないがワイルドカードの購読・発行前フックに一致するイベントタイプのチャネル（一致しない場合は null）
+     * 保持しているチャネルが上限に達している場合は、保持しない一時的なチャネルを返す。
+     */
+    private Channel routedChannel(String eventType) {
+        if (routes.match(eventType).isEmpty() && hookRoutes.match(eventType).isEmpty()) {
+            return null;
+        }
+        if (channels.size() >= ROUTED_CHANNEL_LIMIT) {
+            return newChannel(eventType);
+        }
+        return channel(eventType);
+    }
+
+    /**
+     * 購読者がいなくなったチャネルを破棄（呼び出し側でロックを保持すること）
+     * 購読パターンのチャネルは経路表から外し、イベントタイプのチャネルは経路の展開先でもなくなった場合に外す。
+     */
+    private void prune(Channel channel) {
+        if (channel.subscribers.length > 0) {
+            return;
+        }
+        if (patterns.get(channel.name) == channel) {
+            patterns.remove(channel.name);
+            rebuildRoutes();
+        } else if (channel.isUnused()) {
+            channels.remove(channel.name, channel);
+        }
+    }
+
+    /**
+     * チャネルの数（テスト用）
+     */
+    int channelCount() {
+        return channels.size() + patterns.size();
+    }
+
+    /**
+     * 発行前フックを登録
+     * 一致するイベントの発行時、リスナーへの配信より前に発行元のスレッドで呼び出す（遅延登録したプラグインの起動に使う）。
+     *
+     * @param eventType イベントタイプまたは購読パターン
+     * @param action    発行されたイベントタイプを受け取る処理
+     * @return 登録したフック（削除に使う）
+     */
+    public Object addPublishHook(String eventType, Consumer<String> action) {
+        if (EventRouteTable.isPattern(eventType)) {
+            EventRouteTable.validate(eventType);
+        }
+        PublishHook hook = new PublishHook(eventType, action);
+        synchronized (this) {
+            hooks.add(hook);
+            rebuildHookRoutes();
+        }
+        return hook;
+    }
+
+    /**
+     * 発行前フックを削除
+     *
+     * @param hook addPublishHook の戻り値
+     */
+    public void removePublishHook(Object hook) {
+        synchronized (this) {
+            if (hooks.remove(hook)) {
+                rebuildHookRoutes();
+            }
+        }
+    }
+
+    /**
+     * 発行前フックの経路表を作り直し、既存の全チャネルのフックを展開し直す
+     */
+    private void rebuildHookRoutes() {
+        EventRouteTable<PublishHook> rebuilt = EventRouteTable.of(hooks.stream().map(hook -> Map.entry(hook.eventType(), hook)).toList());
+        hookRoutes = rebuilt;
+        channels.values().forEach(channel -> channel.hooks = hooksFor(rebuilt, channel.name));
+        channels.values().removeIf(Channel::isUnused);
+    }
+
+    private static PublishHook[] hooksFor(EventRouteTable<PublishHook> table, String eventType) {
+        return table.match(eventType).toArray(new PublishHook[0]);
+    }
+
+    /**
+     * 購読パターンのチャネル（呼び出し側でロックを保持すること）
+     */
+    private Channel patternChannel(String pattern) {
+        Channel channel = patterns.get(pattern);
+        if (channel == null) {
+            channel = new Channel(pattern);
+            patterns.put(pattern, channel);
+            rebuildRoutes();
+        }
+        return channel;
+    }
+
+    /**
+     * 経路表を作り直し、既存の全チャネルの配信先を展開し直す（どの経路にも一致しなくなったチャネルは破棄する）
+     */
+    private void rebuildRoutes() {
+        EventRouteTable<Channel> rebuilt = EventRouteTable.of(new HashMap<>(patterns));
+        routes = rebuilt;
+        channels.values().forEach(channel -> channel.wildcards = rebuilt.match(channel.name).toArray(new Channel[0]));
+        channels.values().removeIf(Channel::isUnused);
+    }
+
+    /**
+     * 未配信のイベントを配信し終えてから停止
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("Plugin event dispatch did not finish in time; pending events: {}", pendingEvents());
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+    }
+
+    private int pendingEvents() {
+        return channels.values().stream().mapToInt(Channel::queueDepth).sum()
+                + patterns.values().stream().mapToInt(Channel::queueDepth).sum();
+    }
+
+    private static ExecutorService newExecutor(int threads) {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger sequence = new AtomicInteger();
+        return Executors.newFixedThreadPool(size, runnable -> {
+            Thread thread = new Thread(runnable, "plugin-event-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 発行前フック（イベントタイプまたは購読パターンと処理）
+     */
+    private record PublishHook(String eventType, Consumer<String> action) {
+    }
+
+    /**
+     * 非同期配信の単位（発行時刻は配信完了までの遅延の計測に使う）
+     */
+    private record Delivery(String eventType, Object data, long publishedAt) {
+    }
+
+    /**
+     * 型付きチャネル（名前で登録したリスナーとチャネルを共有する）
+     */
+    private record TypedChannel<T>(EventType<T> type, Channel channel, PluginExecutionMonitor.Probe probe)
+            implements EventChannel<T> {
+
+        @Override
+        public void publish(T payload) {
+            channel.publish(payload);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void subscribe(TypedEventListener<T> listener) {
+            channel.add(listener, null, (TypedEventListener<Object>) listener, type.payloadType(), probe);
+        }
+
+        @Override
+        public void unsubscribe(TypedEventListener<T> listener) {
+            channel.remove(listener);
+        }
+    }
+
+    /**
+     * イベントタイプまたは購読パターン1件分の配信先とメトリクス（配信遅延・キュー滞留数・破棄数）
+     * メトリクスは購読者がいる間だけ登録する（event.type タグはイベントタイプまたは購読パターン）。
+     */
+    private final class Channel {
+        private static final Subscriber[] EMPTY = new Subscriber[0];
+
+        private final String name;
+        private volatile Timer latency;
+        private volatile Counter dropped;
+        private Gauge queueDepth;
+        private volatile Subscriber[] subscribers = EMPTY;
+        // このイベントタイプに一致するワイルドカード購読のチャネル（経路表の更新時に展開し直す）
+        private volatile Channel[] wildcards = new Channel[0];
+        // 配信前に呼び出す発行前フック（通常は空）
+        private volatile PublishHook[] hooks = new PublishHook[0];
+        // 型付きチャネルとして取得済み（破棄しない）
+        private volatile boolean pinned;
+
+        Channel(String name) {
+            this.name = name;
+        }
+
+        /**
+         * 購読者も経路も発行前フックもなく、破棄できるか
+         */
+        boolean isUnused() {
+            return !pinned && subscribers.length == 0 && wildcards.length == 0 && hooks.length == 0;
+        }
+
+        private void registerMeters() {
+            if (meterRegistry == null || latency != null) {
+                return;
+            }
+            latency = Timer.builder("plugin.events.latency")
+                    .description("Time from publish until a listener finished handling the event")
+                    .tag("event.type", name)
+                    .register(meterRegistry);
+            dropped = Counter.builder("plugin.events.dropped")
+                    .description("Events dropped because a listener queue was full")
+                    .tag("event.type", name)
+                    .register(meterRegistry);
+            queueDepth = Gauge.builder("plugin.events.queue.depth", this::queueDepth)
+                    .description("Events waiting in listener queues")
+                    .tag("event.type", name)
+                    .register(meterRegistry);
+        }
+
+        private void removeMeters() {
+            if (latency == null) {
+                return;
+            }
+            meterRegistry.remove(latency);
+            meterRegistry.remove(dropped);
+            meterRegistry.remove(queueDepth);
+            latency = null;
+            dropped = null;
+            queueDepth = null;
+        }
+
+        void publish(Object data) {
+            PublishHook[] pending = hooks;
+            for (PublishHook hook : pending) {
+                try {
+                    hook.action().accept(name);
+                } catch (RuntimeException e) {
+                    log.error("Error in publish hook for event: {}", name, e);
+                }
+            }
+            // メトリクスを記録しない場合は時刻を取得しない
+            long publishedAt = meterRegistry == null ? 0L : System.nanoTime();
+            dispatch(name, data, publishedAt);
+            for (Channel wildcard : wildcards) {
+                wildcard.dispatch(name, data, publishedAt);
+            }
+        }
+
+        private void dispatch(String eventType, Object data, long publishedAt) {
+            Subscriber[] targets = subscribers;
+            if (targets.length == 0) {
+                return;
+            }
+            if (mode == DispatchMode.SYNC) {
+                for (Subscriber subscriber : targets) {
+                    subscriber.deliver(eventType, data, publishedAt);
+                }
+                return;
+            }
+            Delivery delivery = new Delivery(eventType, data, publishedAt);
+            for (Subscriber subscriber : targets) {
+                subscriber.enqueue(delivery);
+            }
+        }
+
+        synchronized void add(Object key, EventListener listener, TypedEventListener<Object> typedListener, Class<?> payloadType,
+                              PluginExecutionMonitor.Probe probe) {
+            Subscriber[] current = subscribers;
+            if (current.length == 0) {
+                registerMeters();
+            }
+            Subscriber[] next = Arrays.copyOf(current, current.length + 1);
+            next[current.length] = new Subscriber(this, key, listener, typedListener, payloadType, probe);
+            subscribers = next;
+        }
+
+        /**
+         * @return 購読を解除した場合 true
+         */
+        synchronized boolean remove(Object key) {
+            Subscriber[] current = subscribers;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i].key.equals(key)) {
+                    Subscriber[] next = new Subscriber[current.length - 1];
+                    System.arraycopy(current, 0, next, 0, i);
+                    System.arraycopy(current, i + 1, next, i, next.length - i);
+                    subscribers = next;
+                    current[i].active = false;
+                    if (next.length == 0) {
+                        removeMeters();
+                    }
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * 条件に一致する購読者を配信先から外す（キューに残っているイベントは配信を続ける）
+         */
+        synchronized List<Subscriber> detach(Predicate<Subscriber> condition) {
+            Subscriber[] current = subscribers;
+            List<Subscriber> detached = new ArrayList<>();
+            List<Subscriber> kept = new ArrayList<>(current.length);
+            for (Subscriber subscriber : current) {
+                (condition.test(subscriber) ? detached : kept).add(subscriber);
+            }
+            if (!detached.isEmpty()) {
+                subscribers = kept.toArray(EMPTY);
+                if (kept.isEmpty()) {
+                    removeMeters();
+                }
+            }
+            return detached;
+        }
+
+        int queueDepth() {
+            int depth = 0;
+            for (Subscriber subscriber : subscribers) {
+                depth += subscriber.queue == null ? 0 : subscriber.queue.size();
+            }
+            return depth;
+        }
+
+        void recordLatency(long publishedAt) {
+            Timer current = latency;
+            if (current != null) {
+                current.record(System.nanoTime() - publishedAt, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        void recordDropped() {
+            Counter current = dropped;
+            if (current != null) {
+                current.increment();
+            }
+        }
+    }
+
+    /**
+     * リスナー1件分の登録（非同期モードでは専用の有界キューを持ち、配信は常に1スレッドずつ順に行う）
+     */
+    private final class Subscriber {
+        private final Channel channel;
+        // 削除時に照合する登録元のリスナー
+        private final Object key;
+        // 名前で登録したリスナーと型付きリスナーのどちらか一方
+        private final EventListener listener;
+        private final TypedEventListener<Object> typedListener;
+        private final Class<?> payloadType;
+        // 登録元のプラグインの計測先（プラグイン以外からの登録では null）
+        private final PluginExecutionMonitor.Probe probe;
+        private final BlockingQueue<Delivery> queue;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        // 実行中のリスナーの呼び出し数（同期配信・発行元での配信を含む）
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile boolean active = true;
+
+        Subscriber(Channel channel, Object key, EventListener listener,
+                   TypedEventListener<Object> typedListener, Class<?> payloadType, PluginExecutionMonitor.Probe probe) {
+            this.channel = channel;
+            this.key = key;
+            this.listener = listener;
+            this.typedListener = typedListener;
+            this.payloadType = payloadType;
+            this.probe = probe;
+            this.queue = mode == DispatchMode.ASYNC ? new ArrayBlockingQueue<>(queueCapacity) : null;
+        }
+
+        /**
+         * リスナーを呼び出し中か、非同期モードで未配信のイベントがあるか
+         */
+        boolean isBusy() {
+            return inFlight.get() > 0 || (queue != null && (!queue.isEmpty() || scheduled.get()));
+        }
+
+        void deliver(String eventType, Object data, long publishedAt) {
+            // 呼び出し数を先に増やしてから解除済みかを確かめ、解除側が実行中の呼び出しを見落とさないようにする
+            inFlight.incrementAndGet();
+            try {
+                if (active) {
+                    invokeMeasured(eventType, data, publishedAt);
+                }
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+
+        private void invokeMeasured(String eventType, Object data, long publishedAt) {
+            Exception failure;
+            if (probe == null) {
+                failure = invoke(eventType, data);
+            } else if (probe.isSuspended()) {
+                // 実行予算の超過で ERROR になったプラグインには配信しない
+                probe.recordRejected();
+                return;
+            } else {
+                long started = System.nanoTime();
+                long cpuStarted = probe.cpuTime();
+                long allocatedStarted = probe.allocatedBytes();
+                failure = invoke(eventType, data);
+                probe.record(started, cpuStarted, allocatedStarted, failure != null);
+            }
+            // ログ出力をプラグインの実行時間に含めないよう、計測の後に出力する
+            if (failure != null) {
+                log.error("Error in event listener for event: {}{}", eventType,
+                        probe == null ? "" : " (plugin: " + probe.getPlugin() + ")", failure);
+            }
+            channel.recordLatency(publishedAt);
+        }
+
+        /**
+         * リスナーを呼び出す
+         *
+         * @return リスナーが投げた例外（正常に終了した場合は null）
+         */
+        private Exception invoke(String eventType, Object data) {
+            try {
+                if (typedListener == null) {
+                    listener.onEvent(eventType, data);
+                } else if (payloadType.isInstance(data)) {
+                    typedListener.onEvent(data);
+                } else {
+                    log.warn("Skipping typed listener for event {}: unexpected payload {}", eventType,
+                            data == null ? "null" : data.getClass().getName());
+                }
+                return null;
+            } catch (Exception e) {
+                return e;
+            }
+        }
+
+        void enqueue(Delivery delivery) {
+            if (!queue.offer(delivery)) {
+                switch (backpressure) {
+                    case BLOCK -> {
+                        if (Boolean.TRUE.equals(DISPATCHING.get())) {
+                            // 配信スレッドが満杯のキューを待つと、そのキューを処理するスレッドがなくなりうる
+                            deliver(delivery.eventType(), delivery.data(), delivery.publishedAt());
+                            return;
+                        }
+                        try {
+                            queue.put(delivery);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            channel.recordDropped();
+                            return;
+                        }
+                    }
+                    case DROP_OLDEST -> {
+                        while (!queue.offer(delivery)) {
+                            if (queue.poll() != null) {
+                                channel.recordDropped();
+                            }
+                        }
+                    }
+                    case CALLER_RUNS -> {
+                        deliver(delivery.eventType(), delivery.data(), delivery.publishedAt());
+                        return;
+                    }
+                }
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                    log.warn("Plugin event bus is shut down; dropping {} pending events", queue.size());
+                    queue.clear();
+                }
+            }
+        }
+
+        private void drain() {
+            DISPATCHING.set(Boolean.TRUE);
+            try {
+                for (int i = 0; i < DRAIN_BATCH; i++) {
+                    Delivery delivery = queue.poll();
+                    if (delivery == null) {
+                        break;
+                    }
+                    deliver(delivery.eventType(), delivery.data(), delivery.publishedAt());
+                }
+            } finally {
+                DISPATCHING.remove();
+                scheduled.set(false);
+                // 処理中に積まれたイベント、またはバッチ上限で残ったイベントは改めてスケジュールする
+                if (!queue.isEmpty()) {
+                    schedule();
+                }
+            }
+        }
+    }
+}
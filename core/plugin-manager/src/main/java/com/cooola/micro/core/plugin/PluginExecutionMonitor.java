@@ -0,0 +1,355 @@
+package com.cooola.micro.core.plugin;
+
+import com.cooola.micro.core.api.PluginStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * プラグインごとのリスナー実行の計測と実行予算
+ * プラグインが登録したリスナーの呼び出し回数・実行時間・CPU時間・割り当てバイト数をプラグイン単位で記録する。
+ * 1回の呼び出しが予算（実行時間・CPU時間・割り当てバイト数）を超えた回数が一定時間内にしきい値に達すると、
+ * そのプラグインを DEGRADED（配信は続ける）または ERROR（以降のイベントを配信しない）にする。
+ * 予算の超過状態はプラグインの再開始、または {@link #reset(String)} で解除する。
+ */
+@Slf4j
+@Component
+public class PluginExecutionMonitor {
+
+    /**
+     * 予算の種類
+     */
+    public enum BudgetKind {
+        /** リスナー1回の実行時間 */
+        LATENCY,
+        /** リスナー1回のCPU時間 */
+        CPU,
+        /** リスナー1回の割り当てバイト数 */
+        ALLOCATION
+    }
+
+    private final Duration latencyBudget;
+    private final Duration cpuBudget;
+    private final long allocationBudget;
+    private final int violationThreshold;
+    private final long windowNanos;
+    private final PluginStatus action;
+    private final MeterRegistry meterRegistry;
+    private final ThreadMXBean threads;
+    private final boolean cpuTimeEnabled;
+    private final com.sun.management.ThreadMXBean allocations;
+
+    private final Map<String, Probe> probes = new ConcurrentHashMap<>();
+    private final List<BiConsumer<String, PluginStatus>> budgetListeners = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    public PluginExecutionMonitor(@Value("${plugin.execution.budget.latency-ms:0}") long latencyMillis,
+                                  @Value("${plugin.execution.budget.cpu-ms:0}") long cpuMillis,
+                                  @Value("${plugin.execution.budget.allocation-bytes:0}") long allocationBytes,
+                                  @Value("${plugin.execution.budget.violations:5}") int violations,
+                                  @Value("${plugin.execution.budget.window-ms:60000}") long windowMillis,
+                                  @Value("${plugin.execution.budget.action:DEGRADED}") PluginStatus action,
+                                  @Value("${plugin.execution.cpu-time:true}") boolean cpuTime,
+                                  @Value("${plugin.execution.allocation:true}") boolean allocation,
+                                  ObjectProvider<MeterRegistry> meterRegistry) {
+        this(Duration.ofMillis(latencyMillis), Duration.ofMillis(cpuMillis), allocationBytes, violations,
+                Duration.ofMillis(windowMillis), action, cpuTime, allocation, meterRegistry.getIfAvailable());
+    }
+
+    /**
+     * @param latencyBudget    リスナー1回の実行時間の上限（0 の場合は制限なし）
+     * @param cpuBudget        リスナー1回のCPU時間の上限（0 の場合は制限なし）
+     * @param allocationBudget リスナー1回の割り当てバイト数の上限（0 の場合は制限なし）
+     * @param violations       予算超過とみなす超過回数
+     * @param window           超過回数を数える期間
+     * @param action           予算超過時の状態（DEGRADED または ERROR）
+     * @param cpuTime          CPU時間を計測するか
+     * @param allocation       割り当てバイト数を計測するか
+     * @param meterRegistry    メトリクスの登録先（null の場合は記録しない）
+     */
+    public PluginExecutionMonitor(Duration latencyBudget, Duration cpuBudget, long allocationBudget, int violations,
+                                  Duration window, PluginStatus action, boolean cpuTime, boolean allocation,
+                                  MeterRegistry meterRegistry) {
+        if (action != PluginStatus.DEGRADED && action != PluginStatus.ERROR) {
+            throw new IllegalArgumentException("Budget action must be DEGRADED or ERROR: " + action);
+        }
+        if (violations < 1) {
+            throw new IllegalArgumentException("Budget violations must be positive: " + violations);
+        }
+        this.latencyBudget = latencyBudget;
+        this.cpuBudget = cpuBudget;
+        this.allocationBudget = allocationBudget;
+        this.violationThreshold = violations;
+        this.windowNanos = window.toNanos();
+        this.action = action;
+        this.meterRegistry = meterRegistry;
+        this.threads = ManagementFactory.getThreadMXBean();
+        this.cpuTimeEnabled = cpuTime && enableCpuTime(threads);
+        this.allocations = allocation && threads instanceof com.sun.management.ThreadMXBean extended
+                && extended.isThreadAllocatedMemorySupported() && extended.isThreadAllocatedMemoryEnabled() ? extended : null;
+        if (cpuTime && !cpuTimeEnabled) {
+            log.warn("Thread CPU time is not supported on this JVM; plugin CPU budgets are disabled");
+        }
+    }
+
+    /**
+     * 予算超過で状態を変えた時に呼び出すリスナーを登録
+     *
+     * @param listener プラグイン名と変更後の状態（DEGRADED または ERROR）を受け取る
+     */
+    public void addBudgetListener(BiConsumer<String, PluginStatus> listener) {
+        budgetListeners.add(listener);
+    }
+
+    /**
+     * 予算超過の状態を解除
+     *
+     * @param pluginName プラグイン名
+     * @return 予算超過の状態だった場合 true
+     */
+    public boolean reset(String pluginName) {
+        Probe probe = probes.get(pluginName);
+        return probe != null && probe.reset();
+    }
+
+    /**
+     * 予算超過の状態かどうか
+     */
+    public boolean isTripped(String pluginName) {
+        Probe probe = probes.get(pluginName);
+        return probe != null && probe.tripped;
+    }
+
+    /**
+     * 予算超過の状態のプラグイン名 → 超過時の状態
+     */
+    public Map<String, PluginStatus> getTripped() {
+        Map<String, PluginStatus> tripped = new TreeMap<>();
+        probes.values().stream().filter(probe -> probe.tripped).forEach(probe -> tripped.put(probe.plugin, action));
+        return tripped;
+    }
+
+    /**
+     * プラグインの計測を破棄（メトリクスも登録解除する）
+     *
+     * @param pluginName プラグイン名
+     */
+    public void remove(String pluginName) {
+        Probe probe = probes.remove(pluginName);
+        if (probe != null && meterRegistry != null) {
+            probe.meters.forEach(meterRegistry::remove);
+        }
+    }
+
+    /**
+     * プラグインの計測先を取得（購読の登録時に解決し、配信ごとには検索しない）
+     */
+    Probe probe(String pluginName) {
+        return probes.computeIfAbsent(pluginName, Probe::new);
+    }
+
+    private static boolean enableCpuTime(ThreadMXBean threads) {
+        if (!threads.isCurrentThreadCpuTimeSupported()) {
+            return false;
+        }
+        try {
+            if (!threads.isThreadCpuTimeEnabled()) {
+                threads.setThreadCpuTimeEnabled(true);
+            }
+            return true;
+        } catch (UnsupportedOperationException | SecurityException e) {
+            return false;
+        }
+    }
+
+    /**
+     * プラグイン1件分の計測と予算超過の判定
+     */
+    final class Probe {
+        private final String plugin;
+        private final List<Meter> meters = new ArrayList<>();
+        private final Counter succeeded;
+        private final Counter failed;
+        private final Counter rejected;
+        private final Timer latency;
+        private final Timer cpu;
+        private final DistributionSummary allocated;
+        private final Map<BudgetKind, Counter> violations = new ConcurrentHashMap<>();
+        private volatile boolean tripped;
+        // ERROR で予算超過した場合はイベントを配信しない
+        private volatile boolean suspended;
+        // 期間内の超過回数（超過時のみ更新する）
+        private long windowStarted;
+        private int windowViolations;
+
+        Probe(String plugin) {
+            this.plugin = plugin;
+            if (meterRegistry == null) {
+                succeeded = failed = rejected = null;
+                latency = cpu = null;
+                allocated = null;
+                return;
+            }
+            succeeded = register(invocations("success"));
+            failed = register(invocations("error"));
+            rejected = register(invocations("rejected"));
+            latency = register(Timer.builder("plugin.listener.latency")
+                    .description("Time spent in a plugin's event listener")
+                    .tag("plugin", plugin)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+            cpu = cpuTimeEnabled ? register(Timer.builder("plugin.listener.cpu")
+                    .description("CPU time consumed by a plugin's event listener")
+                    .tag("plugin", plugin)
+                    .register(meterRegistry)) : null;
+            allocated = allocations != null ? register(DistributionSummary.builder("plugin.listener.allocation")
+                    .description("Bytes allocated by a plugin's event listener")
+                    .baseUnit("bytes")
+                    .tag("plugin", plugin)
+                    .register(meterRegistry)) : null;
+            for (BudgetKind kind : BudgetKind.values()) {
+                violations.put(kind, register(Counter.builder("plugin.budget.violations")
+                        .description("Listener invocations that exceeded a plugin execution budget")
+                        .tag("plugin", plugin)
+                        .tag("budget", kind.name().toLowerCase())
+                        .register(meterRegistry)));
+            }
+            register(Gauge.builder("plugin.budget.tripped", this, probe -> probe.tripped ? 1 : 0)
+                    .description("Whether the plugin was degraded for exceeding its execution budget")
+                    .tag("plugin", plugin)
+                    .register(meterRegistry));
+        }
+
+        private Counter invocations(String outcome) {
+            return Counter.builder("plugin.listener.invocations")
+                    .description("Plugin event listener invocations")
+                    .tag("plugin", plugin)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry);
+        }
+
+        private <M extends Meter> M register(M meter) {
+            meters.add(meter);
+            return meter;
+        }
+
+        String getPlugin() {
+            return plugin;
+        }
+
+        boolean isSuspended() {
+            return suspended;
+        }
+
+        long cpuTime() {
+            return cpuTimeEnabled ? threads.getCurrentThreadCpuTime() : 0L;
+        }
+
+        long allocatedBytes() {
+            return allocations != null ? allocations.getCurrentThreadAllocatedBytes() : 0L;
+        }
+
+        /**
+         * 予算超過で配信しなかった呼び出しを記録
+         */
+        void recordRejected() {
+            if (rejected != null) {
+                rejected.increment();
+            }
+        }
+
+        /**
+         * リスナー1回分の呼び出しを記録し、予算と比較する
+         *
+         * @param started          開始時刻（System.nanoTime）
+         * @param cpuStarted       開始時のスレッドCPU時間
+         * @param allocatedStarted 開始時のスレッド割り当てバイト数
+         * @param error            リスナーが例外を投げた場合 true
+         */
+        void record(long started, long cpuStarted, long allocatedStarted, boolean error) {
+            long elapsed = System.nanoTime() - started;
+            long cpuTime = cpuTimeEnabled ? threads.getCurrentThreadCpuTime() - cpuStarted : 0L;
+            long allocatedBytes = allocations != null ? allocations.getCurrentThreadAllocatedBytes() - allocatedStarted : 0L;
+            if (latency != null) {
+                (error ? failed : succeeded).increment();
+                latency.record(elapsed, TimeUnit.NANOSECONDS);
+                if (cpu != null) {
+                    cpu.record(cpuTime, TimeUnit.NANOSECONDS);
+                }
+                if (allocated != null) {
+                    allocated.record(allocatedBytes);
+                }
+            }
+            if (!latencyBudget.isZero() && elapsed > latencyBudget.toNanos()) {
+                violation(BudgetKind.LATENCY, elapsed / 1_000_000 + "ms");
+            }
+            if (cpuTimeEnabled && !cpuBudget.isZero() && cpuTime > cpuBudget.toNanos()) {
+                violation(BudgetKind.CPU, cpuTime / 1_000_000 + "ms");
+            }
+            if (allocations != null && allocationBudget > 0 && allocatedBytes > allocationBudget) {
+                violation(BudgetKind.ALLOCATION, allocatedBytes + " bytes");
+            }
+        }
+
+        private void violation(BudgetKind kind, String measured) {
+            Counter counter = violations.get(kind);
+            if (counter != null) {
+                counter.increment();
+            }
+            boolean trip;
+            synchronized (this) {
+                long now = System.nanoTime();
+                if (windowViolations == 0 || now - windowStarted > windowNanos) {
+                    windowStarted = now;
+                    windowViolations = 0;
+                }
+                windowViolations++;
+                trip = !tripped && windowViolations >= violationThreshold;
+                if (trip) {
+                    tripped = true;
+                    suspended = action == PluginStatus.ERROR;
+                }
+            }
+            log.debug("Plugin {} exceeded {} budget: {}", plugin, kind, measured);
+            if (trip) {
+                log.warn("Plugin {} exceeded its execution budget {} times within {}ms (last: {} {}); marking {}",
+                        plugin, violationThreshold, windowNanos / 1_000_000, kind, measured, action);
+                for (BiConsumer<String, PluginStatus> listener : budgetListeners) {
+                    try {
+                        listener.accept(plugin, action);
+                    } catch (RuntimeException e) {
+                        log.error("Error in budget listener for plugin: {}", plugin, e);
+                    }
+                }
+            }
+        }
+
+        synchronized boolean reset() {
+            boolean wasTripped = tripped;
+            tripped = false;
+            suspended = false;
+            windowViolations = 0;
+            return wasTripped;
+        }
+    }
+}
@@ -2,10 +2,14 @@ package com.cooola.micro.core.plugin;
 
 import com.cooola.micro.core.api.*;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 /**
  * プラグイン管理クラス
@@ -17,8 +21,32 @@ public class PluginManager {
 
     private final Map<String, CooolaPlugin> plugins = new ConcurrentHashMap<>();
     private final Map<String, PluginStatus> pluginStatuses = new ConcurrentHashMap<>();
-    private final Map<String, List<com.cooola.micro.core.api.EventListener>> eventListeners = new ConcurrentHashMap<>();
-    private final Map<String, String> configuration = new ConcurrentHashMap<>();
+    private final Map<String, LazyPlugin> lazyPlugins = new ConcurrentHashMap<>();
+    private final Map<String, PluginActivation> activations = new ConcurrentHashMap<>();
+    // 遅延登録したプラグインの起動イベントの発行前フック（起動を試みた時点で外す）
+    private final Map<String, List<Object>> activationHooks = new ConcurrentHashMap<>();
+    private final PluginEventBus eventBus;
+    private final PluginConfigurationStore configurationStore;
+
+    /**
+     * 同期配信のイベントバスで生成
+     */
+    public PluginManager() {
+        this(new PluginEventBus());
+    }
+
+    public PluginManager(PluginEventBus eventBus) {
+        this(eventBus, new PluginConfigurationStore());
+    }
+
+    @Autowired
+    public PluginManager(PluginEventBus eventBus, PluginConfigurationStore configurationStore) {
+        this.eventBus = eventBus;
+        this.configurationStore = configurationStore;
+        if (eventBus.getExecutionMonitor() != null) {
+            eventBus.getExecutionMonitor().addBudgetListener(this::onBudgetExceeded);
+        }
+    }
 
     /**
      * プラグインを登録
@@ -32,6 +60,31 @@ public class PluginManager {
         log.info("Plugin registered: {}", name);
     }
 
+    /**
+     * プラグインを遅延登録
+     * 実体は生成せず代理を登録し、依存解決（resolveDependency）またはメタデータの起動イベントの発行時に初めて生成・初期化・開始する。
+     * 起動イベントはリスナーへの配信より前に起動するため、起動時にプラグインが登録したリスナーへも配信される。
+     * 
+     * @param metadata 名前と起動イベントを含むプラグインメタデータ
+     * @param factory  プラグインの生成処理
+     */
+    public void registerLazyPlugin(PluginMetadata metadata, Supplier<? extends CooolaPlugin> factory) {
+        if (metadata == null || metadata.getName() == null) {
+            throw new IllegalArgumentException("Plugin metadata with a name is required");
+        }
+        String name = metadata.getName();
+        LazyPlugin plugin = new LazyPlugin(metadata, factory);
+        registerPlugin(plugin);
+        lazyPlugins.put(name, plugin);
+
+        List<String> activationEvents = metadata.getActivationEvents() == null ? List.of() : List.copyOf(metadata.getActivationEvents());
+        List<Object> hooks = new ArrayList<>();
+        activationEvents.forEach(event -> hooks.add(eventBus.addPublishHook(event,
+                eventType -> activateIfPending(name, "event:" + eventType))));
+        activationHooks.put(name, hooks);
+        log.info("Plugin registered lazily: {} (activation events: {})", name, activationEvents);
+    }
+
     /**
      * プラグインを初期化
      * 
@@ -74,6 +127,10 @@ public class PluginManager {
         try {
             pluginStatuses.put(pluginName, PluginStatus.STARTING);
             plugin.start();
+            // 再開始で実行予算の超過状態を解除する
+            if (eventBus.getExecutionMonitor() != null) {
+                eventBus.getExecutionMonitor().reset(pluginName);
+            }
             pluginStatuses.put(pluginName, PluginStatus.RUNNING);
             log.info("Plugin started: {}", pluginName);
         } catch (Exception e) {
@@ -115,6 +172,12 @@ public class PluginManager {
         CooolaPlugin plugin = plugins.remove(pluginName);
         if (plugin != null) {
             pluginStatuses.remove(pluginName);
+            lazyPlugins.remove(pluginName);
+            activations.remove(pluginName);
+            removeActivationHooks(pluginName);
+            if (eventBus.getExecutionMonitor() != null) {
+                eventBus.getExecutionMonitor().remove(pluginName);
+            }
             log.info("Plugin unregistered: {}", pluginName);
         }
     }
@@ -139,43 +202,81 @@ public class PluginManager {
     }
 
     /**
-     * 実行中のプラグイン一覧を取得
+     * 実行中のプラグイン一覧を取得（実行予算の超過で DEGRADED になったプラグインを含む）
      * 
      * @return 実行中プラグイン一覧
      */
     public List<CooolaPlugin> getRunningPlugins() {
         return plugins.values().stream()
-                .filter(plugin -> PluginStatus.RUNNING.equals(pluginStatuses.get(plugin.getName())))
+                .filter(plugin -> {
+                    PluginStatus status = pluginStatuses.get(plugin.getName());
+                    return status == PluginStatus.RUNNING || status == PluginStatus.DEGRADED;
+                })
                 .toList();
     }
 
     /**
-     * イベントを発行
+     * プラグインが開始済みで停止していないか（実行予算の超過で DEGRADED・ERROR になったプラグインを含む）
+     * 
+     * @param pluginName プラグイン名
+     * @return 開始済みの場合 true
+     */
+    public boolean isStarted(String pluginName) {
+        PluginStatus status = getPluginStatus(pluginName);
+        return status == PluginStatus.RUNNING || status == PluginStatus.DEGRADED
+                || (status == PluginStatus.ERROR && eventBus.getExecutionMonitor() != null
+                && eventBus.getExecutionMonitor().isTripped(pluginName));
+    }
+
+    /**
+     * 実行予算の超過状態を解除し、実行中に戻す
+     * 
+     * @param pluginName プラグイン名
+     * @return 予算超過の状態だった場合 true
+     */
+    public boolean resetExecutionBudget(String pluginName) {
+        PluginExecutionMonitor monitor = eventBus.getExecutionMonitor();
+        if (monitor == null || !monitor.isTripped(pluginName)) {
+            return false;
+        }
+        pluginStatuses.computeIfPresent(pluginName,
+                (name, status) -> status == PluginStatus.DEGRADED || status == PluginStatus.ERROR ? PluginStatus.RUNNING : status);
+        monitor.reset(pluginName);
+        log.info("Plugin execution budget reset: {}", pluginName);
+        return true;
+    }
+
+    private void onBudgetExceeded(String pluginName, PluginStatus status) {
+        // 実行中のプラグインだけを対象にする（停止処理中などの状態は上書きしない）
+        pluginStatuses.computeIfPresent(pluginName,
+                (name, current) -> current == PluginStatus.RUNNING || current == PluginStatus.DEGRADED ? status : current);
+    }
+
+    /**
+     * イベントを発行（配信モードは plugin.events.dispatch-mode に従う）
      * 
      * @param eventType イベントタイプ
      * @param data      イベントデータ
      */
     public void publishEvent(String eventType, Object data) {
-        List<com.cooola.micro.core.api.EventListener> listeners = eventListeners.get(eventType);
-        if (listeners != null) {
-            listeners.forEach(listener -> {
-                try {
-                    listener.onEvent(eventType, data);
-                } catch (Exception e) {
-                    log.error("Error in event listener for event: {}", eventType, e);
-                }
-            });
-        }
+        eventBus.publish(eventType, data);
     }
 
     /**
-     * イベントリスナーを追加
+     * イベントリスナーを追加（product.* や plugin.** などのワイルドカードで複数のイベントタイプを購読できる）
      * 
-     * @param eventType イベントタイプ
+     * @param eventType イベントタイプまたは購読パターン
      * @param listener  イベントリスナー
      */
     public void addEventListener(String eventType, com.cooola.micro.core.api.EventListener listener) {
-        eventListeners.computeIfAbsent(eventType, k -> new ArrayList<>()).add(listener);
+        eventBus.subscribe(eventType, listener);
+    }
+
+    /**
+     * プラグインのイベントリスナーを追加（呼び出しをプラグイン単位で計測する）
+     */
+    void addEventListener(String pluginName, String eventType, com.cooola.micro.core.api.EventListener listener) {
+        eventBus.subscribe(eventType, listener, pluginName);
     }
 
     /**
@@ -185,10 +286,24 @@ public class PluginManager {
      * @param listener  イベントリスナー
      */
     public void removeEventListener(String eventType, com.cooola.micro.core.api.EventListener listener) {
-        List<com.cooola.micro.core.api.EventListener> listeners = eventListeners.get(eventType);
-        if (listeners != null) {
-            listeners.remove(listener);
-        }
+        eventBus.unsubscribe(eventType, listener);
+    }
+
+    /**
+     * 型付きイベントチャネルを取得
+     * 
+     * @param type イベントタイプ
+     * @return イベントチャネル
+     */
+    public <T> EventChannel<T> channel(EventType<T> type) {
+        return eventBus.channel(type);
+    }
+
+    /**
+     * プラグインが使う型付きイベントチャネルを取得（購読したリスナーの呼び出しをプラグイン単位で計測する）
+     */
+    <T> EventChannel<T> channel(EventType<T> type, String pluginName) {
+        return eventBus.channel(type, pluginName);
     }
 
     /**
@@ -198,26 +313,127 @@ public class PluginManager {
      * @return 設定値
      */
     public String getConfiguration(String key) {
-        return configuration.get(key);
+        return configurationStore.get(key);
     }
 
     /**
      * 設定値を設定
      * 
      * @param key   設定キー
-     * @param value 設定値
+     * @param value 設定値（null の場合は削除）
      */
     public void setConfiguration(String key, String value) {
-        configuration.put(key, value);
+        configurationStore.set(key, value);
+    }
+
+    /**
+     * 設定のスナップショットを取得
+     * 
+     * @return 取得時点の設定（以降の変更は反映されない）
+     */
+    public PluginConfiguration getConfigurationSnapshot() {
+        return configurationStore.snapshot();
+    }
+
+    /**
+     * 設定変更リスナーを登録
+     * 
+     * @param listener 設定変更リスナー
+     */
+    public void addConfigurationListener(ConfigurationChangeListener listener) {
+        configurationStore.addListener(listener);
+    }
+
+    /**
+     * 設定変更リスナーを削除
+     * 
+     * @param listener 設定変更リスナー
+     */
+    public void removeConfigurationListener(ConfigurationChangeListener listener) {
+        configurationStore.removeListener(listener);
     }
 
     /**
-     * プラグインの依存関係を解決
+     * プラグインの依存関係を解決（遅延登録したプラグインは未起動であれば起動する）
      * 
      * @param pluginName プラグイン名
      * @return プラグインインスタンス
      */
     public CooolaPlugin resolveDependency(String pluginName) {
+        activateIfPending(pluginName, "dependency");
         return plugins.get(pluginName);
     }
-}
\ No newline at end of file
+
+    /**
+     * 遅延登録したプラグインが起動待ちかどうか
+     * 
+     * @param pluginName プラグイン名
+     * @return 起動を一度も試みていない遅延登録のプラグインの場合 true
+     */
+    public boolean isActivationPending(String pluginName) {
+        return lazyPlugins.containsKey(pluginName) && !activations.containsKey(pluginName)
+                && !isStarted(pluginName);
+    }
+
+    /**
+     * 遅延登録したプラグインの起動結果を取得
+     * 
+     * @return プラグイン名 → 起動結果（失敗した起動を含む）
+     */
+    public Map<String, PluginActivation> getActivations() {
+        return new TreeMap<>(activations);
+    }
+
+    /**
+     * 起動待ちの遅延登録プラグインを初期化・開始
+     * 失敗した場合も結果を記録して起動イベントのフックを外し、以降の発行・依存解決で初期化をやり直さない。
+     *
+     * @return この呼び出しで起動した場合 true
+     * @throws RuntimeException 生成・初期化・開始に失敗した場合
+     */
+    private boolean activateIfPending(String pluginName, String trigger) {
+        LazyPlugin plugin = lazyPlugins.get(pluginName);
+        if (plugin == null || !isActivationPending(pluginName)) {
+            return false;
+        }
+        synchronized (plugin) {
+            if (!isActivationPending(pluginName)) {
+                return false;
+            }
+            removeActivationHooks(pluginName);
+            long started = System.nanoTime();
+            long initialized = started;
+            boolean initializing = true;
+            try {
+                PluginStatus status = getPluginStatus(pluginName);
+                if (status != PluginStatus.INITIALIZED && status != PluginStatus.STOPPED) {
+                    initializePlugin(pluginName);
+                }
+                initialized = System.nanoTime();
+                initializing = false;
+                startPlugin(pluginName);
+            } catch (RuntimeException e) {
+                long failed = System.nanoTime();
+                String error = (e.getCause() != null ? e.getCause() : e).getMessage();
+                activations.put(pluginName, new PluginActivation(pluginName, trigger, Instant.now(), plugin.getInstantiation(),
+                        Duration.ofNanos((initializing ? failed : initialized) - started),
+                        initializing ? Duration.ZERO : Duration.ofNanos(failed - initialized), String.valueOf(error)));
+                log.error("Plugin lazy activation failed: {} by {}", pluginName, trigger);
+                throw e;
+            }
+            PluginActivation activation = new PluginActivation(pluginName, trigger, Instant.now(), plugin.getInstantiation(),
+                    Duration.ofNanos(initialized - started), Duration.ofNanos(System.nanoTime() - initialized), null);
+            activations.put(pluginName, activation);
+            log.info("Plugin activated lazily: {} by {} (instantiation={}ms, initialize={}ms, start={}ms)", pluginName, trigger,
+                    activation.instantiation().toMillis(), activation.initialize().toMillis(), activation.start().toMillis());
+            return true;
+        }
+    }
+
+    private void removeActivationHooks(String pluginName) {
+        List<Object> hooks = activationHooks.remove(pluginName);
+        if (hooks != null) {
+            hooks.forEach(eventBus::removePublishHook);
+        }
+    }
+}
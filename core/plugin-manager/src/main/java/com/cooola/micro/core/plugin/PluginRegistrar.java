@@ -0,0 +1,111 @@
+package com.cooola.micro.core.plugin;
+
+import com.cooola.micro.core.api.CooolaPlugin;
+import com.cooola.micro.core.api.PluginMetadata;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertyName;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * プラグインの登録
+ * plugin.lazy.&lt;プラグイン名&gt;.activation-events に起動イベント（購読パターン可）を指定したプラグインは遅延登録し、
+ * 依存解決または一致するイベントの発行まで初期化・開始しない。指定のないプラグインは通常どおり登録する。
+ * アプリケーションコンテキストにある CooolaPlugin の Bean は、全 Bean の生成後にまとめて登録する（起動はアプリケーションの起動完了時）。
+ */
+@Slf4j
+@Component
+public class PluginRegistrar implements SmartInitializingSingleton {
+
+    static final String LAZY_PREFIX = "plugin.lazy.";
+
+    private final PluginManager pluginManager;
+    private final Environment environment;
+    private final ObjectProvider<CooolaPlugin> plugins;
+
+    /**
+     * 遅延登録の設定なしで生成（すべて通常どおり登録する）
+     */
+    public PluginRegistrar(PluginManager pluginManager) {
+        this.pluginManager = pluginManager;
+        this.environment = null;
+        this.plugins = null;
+    }
+
+    @Autowired
+    public PluginRegistrar(PluginManager pluginManager, Environment environment, ObjectProvider<CooolaPlugin> plugins) {
+        this.pluginManager = pluginManager;
+        this.environment = environment;
+        this.plugins = plugins;
+    }
+
+    /**
+     * アプリケーションコンテキストのプラグインを登録
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (plugins != null) {
+            plugins.orderedStream().forEach(this::register);
+        }
+    }
+
+    /**
+     * プラグインを登録（起動イベントの指定があれば遅延登録する）
+     *
+     * @param plugin プラグインインスタンス
+     * @return 遅延登録した場合 true
+     */
+    public boolean register(CooolaPlugin plugin) {
+        List<String> activationEvents = activationEvents(plugin.getName());
+        if (activationEvents.isEmpty()) {
+            pluginManager.registerPlugin(plugin);
+            return false;
+        }
+        // 初期化・開始は起動時まで行わない（インスタンスの生成は済んでいるため、生成処理はそのまま返す）
+        PluginMetadata metadata = copyOf(plugin);
+        metadata.setActivationEvents(activationEvents);
+        pluginManager.registerLazyPlugin(metadata, () -> plugin);
+        return true;
+    }
+
+    /**
+     * プラグインの起動イベント（遅延登録しない場合は空）
+     */
+    List<String> activationEvents(String pluginName) {
+        if (environment == null) {
+            return List.of();
+        }
+        String name = LAZY_PREFIX + pluginName + ".activation-events";
+        if (!ConfigurationPropertyName.isValid(name)) {
+            log.warn("Plugin name cannot be used in a property name; registering eagerly: {}", pluginName);
+            return List.of();
+        }
+        return Binder.get(environment).bind(name, Bindable.listOf(String.class)).orElse(List.of()).stream()
+                .map(String::trim)
+                .filter(event -> !event.isEmpty())
+                .toList();
+    }
+
+    /**
+     * 起動イベントの設定で元のメタデータを書き換えないよう複製する
+     */
+    private static PluginMetadata copyOf(CooolaPlugin plugin) {
+        PluginMetadata source = plugin.getMetadata();
+        PluginMetadata metadata = new PluginMetadata(plugin.getName(), plugin.getVersion(), null);
+        if (source != null) {
+            metadata.setDescription(source.getDescription());
+            metadata.setAuthor(source.getAuthor());
+            metadata.setVendor(source.getVendor());
+            metadata.setDependencies(source.getDependencies());
+            metadata.setProperties(source.getProperties());
+        }
+        return metadata;
+    }
+}
@@ -0,0 +1,240 @@
+package com.cooola.micro.core.plugin;
+
+import com.cooola.micro.core.api.CooolaPlugin;
+import com.cooola.micro.core.api.PluginMetadata;
+import com.cooola.micro.core.api.PluginStatus;
+import com.cooola.micro.core.plugin.PluginStartupReport.Outcome;
+import com.cooola.micro.core.plugin.PluginStartupReport.PluginTiming;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * プラグインの一括起動
+ * メタデータの依存関係から依存グラフを組み立て、依存先の起動が済んだプラグインから並列に初期化・開始する。
+ * 依存先が起動に失敗したプラグインは実行せず、結果にプラグインごとの所要時間とあわせて記録する。
+ * アプリケーションの起動完了時に、それまでに登録されたプラグインを起動する（plugin.startup.auto-start=false で無効化）。
+ */
+@Slf4j
+@Component
+public class PluginStartupOrchestrator {
+
+    private final PluginManager pluginManager;
+    private final int parallelism;
+    private final boolean autoStart;
+
+    public PluginStartupOrchestrator(PluginManager pluginManager,
+                                     @Value("${plugin.startup.parallelism:0}") int parallelism,
+                                     @Value("${plugin.startup.auto-start:true}") boolean autoStart) {
+        this.pluginManager = pluginManager;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.autoStart = autoStart;
+    }
+
+    /**
+     * アプリケーションの起動完了時に登録済みプラグインを一括起動
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startOnReady() {
+        if (autoStart) {
+            startAll();
+        }
+    }
+
+    /**
+     * 開始済みでない登録済みプラグインを依存関係の順に初期化・開始（起動待ちの遅延登録プラグインを除く）
+     *
+     * @return プラグインごとの起動結果
+     * @throws IllegalStateException 依存関係が循環している場合、または未登録のプラグインに依存している場合
+     */
+    public PluginStartupReport startAll() {
+        return start(name -> true);
+    }
+
+    /**
+     * 指定したプラグインのうち開始済みでないものを依存関係の順に初期化・開始（起動待ちの遅延登録プラグインを除く）
+     * 指定外のプラグインは起動しない。指定外の依存先が開始済みでない場合は実行せず SKIPPED として記録する。
+     *
+     * @param names 起動するプラグイン名
+     * @return プラグインごとの起動結果
+     * @throws IllegalStateException 依存関係が循環している場合、または未登録のプラグインに依存している場合
+     */
+    public PluginStartupReport start(Collection<String> names) {
+        Set<String> targets = Set.copyOf(names);
+        return start(targets::contains);
+    }
+
+    private PluginStartupReport start(Predicate<String> target) {
+        long began = System.nanoTime();
+        Map<String, List<String>> graph = dependencyGraph(pluginManager.getAllPlugins());
+        List<String> order = topologicalOrder(graph).stream()
+                .filter(target)
+                .filter(name -> !pluginManager.isStarted(name))
+                // 遅延登録のプラグインは依存解決・起動イベントで起動する
+                .filter(name -> !pluginManager.isActivationPending(name))
+                .toList();
+
+        Map<String, CompletableFuture<Boolean>> started = new HashMap<>();
+        Map<String, PluginTiming> timings = new ConcurrentHashMap<>();
+        ExecutorService executor = newExecutor();
+        try {
+            for (String name : order) {
+                // 実行中の依存先は待たない
+                Map<String, CompletableFuture<Boolean>> upstream = new LinkedHashMap<>();
+                graph.get(name).stream().filter(started::containsKey).forEach(dependency -> upstream.put(dependency, started.get(dependency)));
+                // 今回起動しない依存先は開始済みでなければ失敗とみなす
+                graph.get(name).stream()
+                        .filter(dependency -> !started.containsKey(dependency) && !target.test(dependency))
+                        .filter(dependency -> !pluginManager.isStarted(dependency) && !pluginManager.isActivationPending(dependency))
+                        .forEach(dependency -> upstream.put(dependency, CompletableFuture.completedFuture(false)));
+                CompletableFuture<Boolean> future = CompletableFuture.allOf(upstream.values().toArray(new CompletableFuture<?>[0]))
+                        .thenApplyAsync(ignored -> {
+                            Duration waited = Duration.ofNanos(System.nanoTime() - began);
+                            String notStarted = upstream.entrySet().stream()
+                                    .filter(entry -> !entry.getValue().join())
+                                    .map(Map.Entry::getKey)
+                                    .collect(Collectors.joining(", "));
+                            if (!notStarted.isEmpty()) {
+                                timings.put(name, new PluginTiming(name, Outcome.SKIPPED, waited, Duration.ZERO, Duration.ZERO,
+                                        "Dependency not started: " + notStarted));
+                                return false;
+                            }
+                            PluginTiming timing = start(name, waited);
+                            timings.put(name, timing);
+                            return timing.outcome() == Outcome.STARTED;
+                        }, executor);
+                started.put(name, future);
+            }
+            CompletableFuture.allOf(started.values().toArray(new CompletableFuture<?>[0])).join();
+        } finally {
+            executor.shutdown();
+        }
+
+        PluginStartupReport report = new PluginStartupReport(order.stream().map(timings::get).toList(),
+                Duration.ofNanos(System.nanoTime() - began));
+        report.plugins().forEach(timing -> log.info("Plugin startup: {} {} (waited={}ms, initialize={}ms, start={}ms){}",
+                timing.name(), timing.outcome(), timing.waited().toMillis(), timing.initialize().toMillis(),
+                timing.start().toMillis(), timing.error() == null ? "" : " " + timing.error()));
+        log.info("Plugin startup finished: plugins={}, parallelism={}, elapsed={}ms",
+                order.size(), parallelism, report.elapsed().toMillis());
+        return report;
+    }
+
+    private PluginTiming start(String name, Duration waited) {
+        Duration initialize = Duration.ZERO;
+        boolean initializing = false;
+        long phaseStarted = System.nanoTime();
+        try {
+            // 停止済み・初期化済みのプラグインは初期化をやり直さない
+            PluginStatus status = pluginManager.getPluginStatus(name);
+            if (status != PluginStatus.INITIALIZED && status != PluginStatus.STOPPED) {
+                initializing = true;
+                pluginManager.initializePlugin(name);
+                initialize = Duration.ofNanos(System.nanoTime() - phaseStarted);
+                initializing = false;
+                phaseStarted = System.nanoTime();
+            }
+            pluginManager.startPlugin(name);
+            return new PluginTiming(name, Outcome.STARTED, waited, initialize, Duration.ofNanos(System.nanoTime() - phaseStarted), null);
+        } catch (RuntimeException e) {
+            // 失敗した段階の所要時間も記録する
+            Duration failedPhase = Duration.ofNanos(System.nanoTime() - phaseStarted);
+            String error = (e.getCause() != null ? e.getCause() : e).getMessage();
+            return initializing
+                    ? new PluginTiming(name, Outcome.FAILED, waited, failedPhase, Duration.ZERO, error)
+                    : new PluginTiming(name, Outcome.FAILED, waited, initialize, failedPhase, error);
+        }
+    }
+
+    /**
+     * プラグイン名 → 依存先のプラグイン名
+     */
+    static Map<String, List<String>> dependencyGraph(List<CooolaPlugin> plugins) {
+        Map<String, List<String>> graph = new LinkedHashMap<>();
+        plugins.stream()
+                .sorted((a, b) -> a.getName().compareTo(b.getName()))
+                .forEach(plugin -> {
+                    PluginMetadata metadata = plugin.getMetadata();
+                    List<String> dependencies = metadata == null || metadata.getDependencies() == null
+                            ? List.of() : List.copyOf(metadata.getDependencies());
+                    graph.put(plugin.getName(), dependencies);
+                });
+        List<String> missing = new ArrayList<>();
+        graph.forEach((name, dependencies) -> dependencies.stream()
+                .filter(dependency -> !graph.containsKey(dependency))
+                .forEach(dependency -> missing.add(name + " -> " + dependency)));
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("Plugin dependencies not registered: " + String.join(", ", missing));
+        }
+        return graph;
+    }
+
+    /**
+     * 依存先が先に来る順序に並べる
+     *
+     * @throws IllegalStateException 依存関係が循環している場合（循環している経路をメッセージに含める）
+     */
+    static List<String> topologicalOrder(Map<String, List<String>> graph) {
+        List<String> order = new ArrayList<>(graph.size());
+        // false: 探索中、true: 探索済み
+        Map<String, Boolean> visited = new HashMap<>();
+        Deque<String> path = new ArrayDeque<>();
+        graph.keySet().forEach(name -> visit(name, graph, visited, path, order));
+        return order;
+    }
+
+    private static void visit(String name, Map<String, List<String>> graph, Map<String, Boolean> visited,
+                              Deque<String> path, List<String> order) {
+        Boolean state = visited.get(name);
+        if (Boolean.TRUE.equals(state)) {
+            return;
+        }
+        if (Boolean.FALSE.equals(state)) {
+            List<String> cycle = new ArrayList<>();
+            boolean inCycle = false;
+            for (String step : path) {
+                inCycle |= step.equals(name);
+                if (inCycle) {
+                    cycle.add(step);
+                }
+            }
+            cycle.add(name);
+            throw new IllegalStateException("Plugin dependency cycle: " + String.join(" -> ", cycle));
+        }
+        visited.put(name, Boolean.FALSE);
+        path.addLast(name);
+        graph.get(name).forEach(dependency -> visit(dependency, graph, visited, path, order));
+        path.removeLast();
+        visited.put(name, Boolean.TRUE);
+        order.add(name);
+    }
+
+    private ExecutorService newExecutor() {
+        AtomicInteger sequence = new AtomicInteger();
+        return Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "plugin-startup-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,46 @@
+package com.cooola.micro.core.plugin;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * プラグイン一括起動の結果
+ *
+ * @param plugins 起動順（依存先が先）のプラグインごとの結果
+ * @param elapsed 全体の所要時間
+ */
+public record PluginStartupReport(List<PluginTiming> plugins, Duration elapsed) {
+
+    /**
+     * 起動に失敗したプラグイン、または依存先の失敗で起動しなかったプラグインがないか
+     */
+    public boolean isSuccessful() {
+        return plugins.stream().allMatch(plugin -> plugin.outcome() == Outcome.STARTED);
+    }
+
+    /**
+     * プラグインごとの起動結果
+     */
+    public enum Outcome {
+        /** 初期化・開始に成功 */
+        STARTED,
+        /** 初期化または開始に失敗 */
+        FAILED,
+        /** 依存先が起動しなかったため実行しなかった */
+        SKIPPED
+    }
+
+    /**
+     * プラグインごとの所要時間
+     *
+     * @param name       プラグイン名
+     * @param outcome    結果
+     * @param waited     起動可能になるまで（依存先の起動完了まで）の待ち時間
+     * @param initialize 初期化の所要時間
+     * @param start      開始の所要時間
+     * @param error      失敗・スキップの理由（成功時は null）
+     */
+    public record PluginTiming(String name, Outcome outcome, Duration waited, Duration initialize, Duration start,
+                               String error) {
+    }
+}
@@ -0,0 +1,77 @@
+package com.cooola.micro.core.plugin;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * ワイルドカード購読の経路表のテスト
+ */
+class EventRouteTableTest {
+
+    @Test
+    void exactPatternsMatchOnlyTheSameName() {
+        EventRouteTable<String> table = EventRouteTable.of(Map.of("product.created", "created"));
+
+        assertThat(table.match("product.created")).containsExactly("created");
+        assertThat(table.match("product.updated")).isEmpty();
+        assertThat(table.match("product")).isEmpty();
+        assertThat(table.match("product.created.v2")).isEmpty();
+    }
+
+    @Test
+    void singleWildcardMatchesExactlyOneSegment() {
+        EventRouteTable<String> table = EventRouteTable.of(Map.of("product.*", "product", "*.started", "started"));
+
+        assertThat(table.match("product.created")).containsExactly("product");
+        assertThat(table.match("plugin.started")).containsExactly("started");
+        assertThat(table.match("product.started")).containsExactlyInAnyOrder("product", "started");
+        assertThat(table.match("product")).isEmpty();
+        assertThat(table.match("product.created.v2")).isEmpty();
+    }
+
+    @Test
+    void trailingDoubleWildcardMatchesZeroOrMoreSegments() {
+        EventRouteTable<String> table = EventRouteTable.of(Map.of("plugin.**", "plugin", "**", "all"));
+
+        assertThat(table.match("plugin")).containsExactlyInAnyOrder("plugin", "all");
+        assertThat(table.match("plugin.started")).containsExactlyInAnyOrder("plugin", "all");
+        assertThat(table.match("plugin.barcode.started")).containsExactlyInAnyOrder("plugin", "all");
+        assertThat(table.match("product.created")).containsExactly("all");
+    }
+
+    @Test
+    void samePatternCanRouteToSeveralTargets() {
+        EventRouteTable<String> table = EventRouteTable.of(List.of(Map.entry("product.*", "a"), Map.entry("product.*", "b")));
+
+        assertThat(table.match("product.deleted")).containsExactly("a", "b");
+    }
+
+    @Test
+    void emptyTableMatchesNothing() {
+        EventRouteTable<String> table = EventRouteTable.empty();
+
+        assertThat(table.isEmpty()).isTrue();
+        assertThat(table.match("product.created")).isEmpty();
+        assertThat(EventRouteTable.of(Map.<String, String>of()).isEmpty()).isTrue();
+    }
+
+    @Test
+    void invalidPatternsAreRejected() {
+        assertThatNoException().isThrownBy(() -> EventRouteTable.validate("product.*.v2"));
+        assertThatNoException().isThrownBy(() -> EventRouteTable.validate("product.**"));
+        for (String pattern : List.of("product.**.created", "product.cre*", "product..*", ".product.*", "product.*.")) {
+            assertThatThrownBy(() -> EventRouteTable.validate(pattern))
+                    .as(pattern)
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Invalid event pattern: " + pattern);
+        }
+        assertThat(EventRouteTable.isPattern("product.*")).isTrue();
+        assertThat(EventRouteTable.isPattern("product.created")).isFalse();
+    }
+}
@@ -0,0 +1,217 @@
+package com.cooola.micro.core.plugin;
+
+import com.cooola.micro.core.api.EventListener;
+import com.cooola.micro.core.plugin.PluginEventBus.BackpressurePolicy;
+import com.cooola.micro.core.plugin.PluginEventBus.DispatchMode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * プラグインイベントバスのテスト（キューが満杯の場合の動作、購読の解除、配信経路の管理）
+ */
+class PluginEventBusTest {
+
+    private static final String EVENT = "product.created";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    // 受け取ったイベントデータと受け取ったスレッド
+    private final List<Object> received = new CopyOnWriteArrayList<>();
+    private final List<Thread> threads = new CopyOnWriteArrayList<>();
+    private PluginEventBus eventBus;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (eventBus != null) {
+            eventBus.shutdown();
+        }
+    }
+
+    @Test
+    void blockMakesThePublisherWaitForSpace() throws InterruptedException {
+        eventBus = blockedBus(BackpressurePolicy.BLOCK, 1);
+        eventBus.publish(EVENT, 1);
+
+        Thread publisher = new Thread(() -> eventBus.publish(EVENT, 2));
+        publisher.start();
+        publisher.join(200);
+        assertThat(publisher.isAlive()).isTrue();
+
+        release.countDown();
+        publisher.join(5000);
+        assertThat(publisher.isAlive()).isFalse();
+        awaitReceived(3);
+        assertThat(received).containsExactly(0, 1, 2);
+        assertThat(dropped().count()).isZero();
+    }
+
+    @Test
+    void dropOldestDiscardsQueuedEventsAndCountsThem() throws InterruptedException {
+        eventBus = blockedBus(BackpressurePolicy.DROP_OLDEST, 2);
+        for (int i = 1; i <= 4; i++) {
+            eventBus.publish(EVENT, i);
+        }
+        assertThat(dropped().count()).isEqualTo(2.0);
+
+        release.countDown();
+        awaitReceived(3);
+        assertThat(received).containsExactly(0, 3, 4);
+    }
+
+    @Test
+    void callerRunsDeliversOnThePublisherThread() throws InterruptedException {
+        eventBus = blockedBus(BackpressurePolicy.CALLER_RUNS, 1);
+        eventBus.publish(EVENT, 1);
+        eventBus.publish(EVENT, 2);
+
+        // キューで待っている1より先に、発行元のスレッドで2が配信される
+        assertThat(received).containsExactly(2);
+        assertThat(threads).containsExactly(Thread.currentThread());
+
+        release.countDown();
+        awaitReceived(3);
+        assertThat(received).containsExactly(2, 0, 1);
+        assertThat(dropped().count()).isZero();
+    }
+
+    @Test
+    void synchronousModeDeliversOnThePublisherThread() {
+        eventBus = new PluginEventBus(DispatchMode.SYNC, BackpressurePolicy.BLOCK, 1, 0, meterRegistry);
+        eventBus.subscribe(EVENT, recording());
+        eventBus.publish(EVENT, 1);
+        eventBus.publish("product.updated", 2);
+
+        assertThat(received).containsExactly(1);
+        assertThat(threads).containsExactly(Thread.currentThread());
+    }
+
+    @Test
+    void unsubscribeAllWaitsForSynchronousDeliveriesInProgress() throws InterruptedException {
+        eventBus = new PluginEventBus(DispatchMode.SYNC, BackpressurePolicy.BLOCK, 1, 0, meterRegistry);
+        EventListener recording = recording();
+        eventBus.subscribe(EVENT, (eventType, data) -> {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            recording.onEvent(eventType, data);
+        });
+        Thread publisher = new Thread(() -> eventBus.publish(EVENT, 1));
+        publisher.start();
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            release.countDown();
+        });
+        releaser.start();
+
+        // 発行元のスレッドで実行中のリスナーが終わるまで戻らない
+        assertThat(eventBus.unsubscribeAll(getClass().getClassLoader(), Duration.ofSeconds(5))).isTrue();
+        assertThat(received).containsExactly(1);
+
+        eventBus.publish(EVENT, 2);
+        assertThat(received).containsExactly(1);
+        publisher.join(5000);
+    }
+
+    @Test
+    void unsubscribeAllReportsDeliveriesStillRunningAtTheTimeout() throws InterruptedException {
+        eventBus = new PluginEventBus(DispatchMode.SYNC, BackpressurePolicy.BLOCK, 1, 0, meterRegistry);
+        eventBus.subscribe(EVENT, (eventType, data) -> {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Thread publisher = new Thread(() -> eventBus.publish(EVENT, 1));
+        publisher.start();
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(eventBus.unsubscribeAll(getClass().getClassLoader(), Duration.ofMillis(50))).isFalse();
+
+        release.countDown();
+        publisher.join(5000);
+    }
+
+    @Test
+    void routedChannelsAreBoundedAndRemovedWithTheirLastRoute() {
+        eventBus = new PluginEventBus(DispatchMode.SYNC, BackpressurePolicy.BLOCK, 1, 0, meterRegistry);
+        EventListener listener = recording();
+        eventBus.subscribe("product.**", listener);
+        for (int i = 0; i < PluginEventBus.ROUTED_CHANNEL_LIMIT + 10; i++) {
+            eventBus.publish("product.event" + i, i);
+        }
+
+        assertThat(received).hasSize(PluginEventBus.ROUTED_CHANNEL_LIMIT + 10);
+        assertThat(eventBus.channelCount()).isLessThanOrEqualTo(PluginEventBus.ROUTED_CHANNEL_LIMIT + 1);
+        // ワイルドカード購読の配信は購読パターンで計測し、イベントタイプごとのメトリクスは登録しない
+        assertThat(meterRegistry.find("plugin.events.latency").timers())
+                .extracting(timer -> timer.getId().getTag("event.type"))
+                .containsExactly("product.**");
+
+        eventBus.unsubscribe("product.**", listener);
+        assertThat(eventBus.channelCount()).isZero();
+        assertThat(meterRegistry.getMeters()).isEmpty();
+    }
+
+    /**
+     * 配信スレッド1本の非同期バスで、リスナーが最初のイベント（0）の処理中に止まっている状態を作る
+     */
+    private PluginEventBus blockedBus(BackpressurePolicy policy, int queueCapacity) throws InterruptedException {
+        PluginEventBus bus = new PluginEventBus(DispatchMode.ASYNC, policy, queueCapacity, 1, meterRegistry);
+        EventListener recording = recording();
+        bus.subscribe(EVENT, (eventType, data) -> {
+            if (data.equals(0)) {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            recording.onEvent(eventType, data);
+        });
+        bus.publish(EVENT, 0);
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+        return bus;
+    }
+
+    private EventListener recording() {
+        return (eventType, data) -> {
+            threads.add(Thread.currentThread());
+            received.add(data);
+        };
+    }
+
+    private void awaitReceived(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (received.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private Counter dropped() {
+        return meterRegistry.get("plugin.events.dropped").tag("event.type", EVENT).counter();
+    }
+}
@@ -0,0 +1,141 @@
+package com.cooola.micro.core.plugin;
+
+import com.cooola.micro.core.api.PluginStatus;
+import com.cooola.micro.core.plugin.PluginEventBus.BackpressurePolicy;
+import com.cooola.micro.core.plugin.PluginEventBus.DispatchMode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * プラグインの実行予算のテスト（予算超過の呼び出しは開始時刻をずらして合成する）
+ */
+class PluginExecutionMonitorTest {
+
+    private static final String PLUGIN = "slow";
+    private static final String EVENT = "order.created";
+    private static final Duration LATENCY_BUDGET = Duration.ofMillis(10);
+    private static final int VIOLATIONS = 3;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger delivered = new AtomicInteger();
+    private PluginExecutionMonitor monitor;
+    private PluginManager pluginManager;
+
+    @Test
+    void pluginIsDegradedWhenViolationsReachTheThreshold() {
+        start(PluginStatus.DEGRADED, Duration.ofMinutes(1));
+
+        overBudget(VIOLATIONS - 1);
+        withinBudget();
+        assertThat(pluginManager.getPluginStatus(PLUGIN)).isEqualTo(PluginStatus.RUNNING);
+        assertThat(monitor.isTripped(PLUGIN)).isFalse();
+
+        overBudget(1);
+        assertThat(pluginManager.getPluginStatus(PLUGIN)).isEqualTo(PluginStatus.DEGRADED);
+        assertThat(monitor.getTripped()).isEqualTo(Map.of(PLUGIN, PluginStatus.DEGRADED));
+        assertThat(pluginManager.isStarted(PLUGIN)).isTrue();
+        assertThat(violations()).isEqualTo(VIOLATIONS);
+
+        // DEGRADED の間も配信は続ける
+        pluginManager.publishEvent(EVENT, 1);
+        assertThat(delivered).hasValue(1);
+    }
+
+    @Test
+    void errorActionStopsDeliveriesUntilTheBudgetIsReset() {
+        start(PluginStatus.ERROR, Duration.ofMinutes(1));
+
+        overBudget(VIOLATIONS);
+        assertThat(pluginManager.getPluginStatus(PLUGIN)).isEqualTo(PluginStatus.ERROR);
+        assertThat(monitor.getTripped()).isEqualTo(Map.of(PLUGIN, PluginStatus.ERROR));
+
+        pluginManager.publishEvent(EVENT, 1);
+        assertThat(delivered).hasValue(0);
+        assertThat(meterRegistry.get("plugin.listener.invocations").tag("plugin", PLUGIN).tag("outcome", "rejected")
+                .counter().count()).isEqualTo(1.0);
+
+        assertThat(pluginManager.resetExecutionBudget(PLUGIN)).isTrue();
+        assertThat(pluginManager.getPluginStatus(PLUGIN)).isEqualTo(PluginStatus.RUNNING);
+        assertThat(monitor.isTripped(PLUGIN)).isFalse();
+        pluginManager.publishEvent(EVENT, 2);
+        assertThat(delivered).hasValue(1);
+        // 超過状態でなければ解除しない
+        assertThat(pluginManager.resetExecutionBudget(PLUGIN)).isFalse();
+    }
+
+    @Test
+    void resetStartsCountingViolationsAgain() {
+        start(PluginStatus.DEGRADED, Duration.ofMinutes(1));
+        overBudget(VIOLATIONS);
+        assertThat(pluginManager.resetExecutionBudget(PLUGIN)).isTrue();
+
+        overBudget(VIOLATIONS - 1);
+        assertThat(pluginManager.getPluginStatus(PLUGIN)).isEqualTo(PluginStatus.RUNNING);
+
+        overBudget(1);
+        assertThat(pluginManager.getPluginStatus(PLUGIN)).isEqualTo(PluginStatus.DEGRADED);
+    }
+
+    @Test
+    void violationsOutsideTheWindowAreNotCounted() throws InterruptedException {
+        start(PluginStatus.DEGRADED, Duration.ofMillis(100));
+
+        overBudget(VIOLATIONS - 1);
+        Thread.sleep(150);
+        overBudget(VIOLATIONS - 1);
+        assertThat(pluginManager.getPluginStatus(PLUGIN)).isEqualTo(PluginStatus.RUNNING);
+
+        overBudget(1);
+        assertThat(pluginManager.getPluginStatus(PLUGIN)).isEqualTo(PluginStatus.DEGRADED);
+    }
+
+    @Test
+    void invalidBudgetSettingsAreRejected() {
+        assertThatThrownBy(() -> monitor(PluginStatus.RUNNING, VIOLATIONS, Duration.ofMinutes(1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Budget action must be DEGRADED or ERROR: RUNNING");
+        assertThatThrownBy(() -> monitor(PluginStatus.DEGRADED, 0, Duration.ofMinutes(1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Budget violations must be positive: 0");
+    }
+
+    /**
+     * 実行時間の予算だけを持つ監視で、リスナーを1つ登録したプラグインを開始する
+     */
+    private void start(PluginStatus action, Duration window) {
+        monitor = monitor(action, VIOLATIONS, window);
+        PluginEventBus eventBus = new PluginEventBus(DispatchMode.SYNC, BackpressurePolicy.BLOCK, 1, 0, meterRegistry, monitor);
+        pluginManager = new PluginManager(eventBus);
+        pluginManager.registerPlugin(new StubPlugin(PLUGIN));
+        pluginManager.initializePlugin(PLUGIN);
+        pluginManager.startPlugin(PLUGIN);
+        pluginManager.addEventListener(PLUGIN, EVENT, (eventType, data) -> delivered.incrementAndGet());
+        assertThat(pluginManager.getPluginStatus(PLUGIN)).isEqualTo(PluginStatus.RUNNING);
+    }
+
+    private PluginExecutionMonitor monitor(PluginStatus action, int violations, Duration window) {
+        // CPU時間・割り当てバイト数は JVM に依存するため計測しない
+        return new PluginExecutionMonitor(LATENCY_BUDGET, Duration.ZERO, 0, violations, window, action, false, false, meterRegistry);
+    }
+
+    private void overBudget(int times) {
+        for (int i = 0; i < times; i++) {
+            monitor.probe(PLUGIN).record(System.nanoTime() - LATENCY_BUDGET.toNanos() * 5, 0L, 0L, false);
+        }
+    }
+
+    private void withinBudget() {
+        monitor.probe(PLUGIN).record(System.nanoTime(), 0L, 0L, false);
+    }
+
+    private double violations() {
+        return meterRegistry.get("plugin.budget.violations").tag("plugin", PLUGIN).tag("budget", "latency").counter().count();
+    }
+}
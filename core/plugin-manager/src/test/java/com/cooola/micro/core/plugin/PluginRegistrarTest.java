@@ -0,0 +1,59 @@
+package com.cooola.micro.core.plugin;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * プラグインの登録（遅延登録の指定）のテスト
+ */
+class PluginRegistrarTest {
+
+    private final PluginManager pluginManager = new PluginManager();
+    private final MockEnvironment environment = new MockEnvironment()
+            .withProperty("plugin.lazy.barcode-generator.activation-events", "barcode.**, label.printed");
+    private final PluginRegistrar registrar = new PluginRegistrar(pluginManager, environment, null);
+
+    @Test
+    void pluginsWithActivationEventsStartOnTheFirstMatchingEvent() {
+        StubPlugin barcode = new StubPlugin("barcode-generator");
+        StubPlugin product = new StubPlugin("product");
+
+        assertThat(registrar.register(barcode)).isTrue();
+        assertThat(registrar.register(product)).isFalse();
+        new PluginStartupOrchestrator(pluginManager, 2, true).startAll();
+
+        // 通常登録のプラグインだけが起動時に開始される
+        assertThat(pluginManager.isStarted("product")).isTrue();
+        assertThat(pluginManager.isActivationPending("barcode-generator")).isTrue();
+        assertThat(barcode.initialized).hasValue(0);
+
+        pluginManager.publishEvent("barcode.render.requested", "4901234567894");
+
+        assertThat(pluginManager.isStarted("barcode-generator")).isTrue();
+        assertThat(barcode.initialized).hasValue(1);
+        assertThat(barcode.started).hasValue(1);
+        assertThat(pluginManager.getActivations().get("barcode-generator").trigger()).isEqualTo("event:barcode.render.requested");
+        // 元のメタデータには起動イベントを書き込まない
+        assertThat(barcode.getMetadata().getActivationEvents()).isNull();
+    }
+
+    @Test
+    void lazyPluginsStartWhenResolvedAsADependency() {
+        StubPlugin barcode = new StubPlugin("barcode-generator");
+        registrar.register(barcode);
+
+        assertThat(pluginManager.resolveDependency("barcode-generator")).isNotNull();
+        assertThat(barcode.started).hasValue(1);
+        assertThat(pluginManager.getActivations().get("barcode-generator").trigger()).isEqualTo("dependency");
+    }
+
+    @Test
+    void pluginsAreRegisteredEagerlyWithoutAnEnvironment() {
+        StubPlugin barcode = new StubPlugin("barcode-generator");
+
+        assertThat(new PluginRegistrar(pluginManager).register(barcode)).isFalse();
+        assertThat(pluginManager.isActivationPending("barcode-generator")).isFalse();
+    }
+}
@@ -0,0 +1,80 @@
+package com.cooola.micro.core.plugin;
+
+import com.cooola.micro.core.api.CooolaPlugin;
+import com.cooola.micro.core.plugin.PluginStartupReport.Outcome;
+import com.cooola.micro.core.plugin.PluginStartupReport.PluginTiming;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * プラグイン一括起動のテスト
+ */
+class PluginStartupOrchestratorTest {
+
+    private final PluginManager pluginManager = new PluginManager();
+    private final PluginStartupOrchestrator orchestrator = new PluginStartupOrchestrator(pluginManager, 4, true);
+
+    @Test
+    void dependenciesComeBeforeTheirDependents() {
+        Map<String, List<String>> graph = new LinkedHashMap<>();
+        graph.put("app", List.of("db", "cache"));
+        graph.put("cache", List.of("db"));
+        graph.put("db", List.of());
+        graph.put("standalone", List.of());
+
+        assertThat(PluginStartupOrchestrator.topologicalOrder(graph)).containsExactly("db", "cache", "app", "standalone");
+    }
+
+    @Test
+    void cyclesAreReportedWithTheirPath() {
+        Map<String, List<String>> graph = new LinkedHashMap<>();
+        graph.put("entry", List.of("a"));
+        graph.put("a", List.of("b"));
+        graph.put("b", List.of("c"));
+        graph.put("c", List.of("a"));
+
+        assertThatThrownBy(() -> PluginStartupOrchestrator.topologicalOrder(graph))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Plugin dependency cycle: a -> b -> c -> a");
+    }
+
+    @Test
+    void missingDependenciesAreReportedForEveryPlugin() {
+        List<CooolaPlugin> plugins = List.of(
+                new StubPlugin("report", "inventory", "product"),
+                new StubPlugin("product"),
+                new StubPlugin("barcode", "printer"));
+
+        assertThatThrownBy(() -> PluginStartupOrchestrator.dependencyGraph(plugins))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Plugin dependencies not registered: barcode -> printer, report -> inventory");
+    }
+
+    @Test
+    void dependentsOfFailedPluginsAreSkipped() {
+        StubPlugin db = new StubPlugin("db", true);
+        StubPlugin cache = new StubPlugin("cache", "db");
+        StubPlugin standalone = new StubPlugin("standalone");
+        List.of(db, cache, standalone).forEach(pluginManager::registerPlugin);
+
+        PluginStartupReport report = orchestrator.startAll();
+
+        assertThat(report.isSuccessful()).isFalse();
+        assertThat(report.plugins()).extracting(PluginTiming::name).containsExactly("db", "cache", "standalone");
+        Map<String, PluginTiming> timings = new LinkedHashMap<>();
+        report.plugins().forEach(timing -> timings.put(timing.name(), timing));
+        assertThat(timings.get("db").outcome()).isEqualTo(Outcome.FAILED);
+        assertThat(timings.get("db").error()).isEqualTo("db failed");
+        assertThat(timings.get("cache").outcome()).isEqualTo(Outcome.SKIPPED);
+        assertThat(timings.get("cache").error()).isEqualTo("Dependency not started: db");
+        assertThat(timings.get("standalone").outcome()).isEqualTo(Outcome.STARTED);
+        assertThat(cache.initialized).hasValue(0);
+        assertThat(pluginManager.isStarted("standalone")).isTrue();
+    }
+}
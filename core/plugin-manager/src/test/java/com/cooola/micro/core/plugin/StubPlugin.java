@@ -0,0 +1,84 @@
+package com.cooola.micro.core.plugin;
+
+import com.cooola.micro.core.api.CooolaPlugin;
+import com.cooola.micro.core.api.PluginContext;
+import com.cooola.micro.core.api.PluginMetadata;
+import com.cooola.micro.core.api.PluginStatus;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * テスト用のプラグイン（依存先を指定でき、開始を失敗させられる）
+ */
+class StubPlugin implements CooolaPlugin {
+
+    private final String name;
+    private final List<String> dependencies;
+    private final boolean failOnStart;
+    final AtomicInteger initialized = new AtomicInteger();
+    final AtomicInteger started = new AtomicInteger();
+    final AtomicInteger stopped = new AtomicInteger();
+    volatile PluginContext context;
+    private volatile PluginStatus status = PluginStatus.UNINITIALIZED;
+
+    StubPlugin(String name, String... dependencies) {
+        this(name, false, dependencies);
+    }
+
+    StubPlugin(String name, boolean failOnStart, String... dependencies) {
+        this.name = name;
+        this.failOnStart = failOnStart;
+        this.dependencies = List.of(dependencies);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getVersion() {
+        return "1.0.0";
+    }
+
+    @Override
+    public void initialize(PluginContext context) {
+        this.context = context;
+        initialized.incrementAndGet();
+        status = PluginStatus.INITIALIZED;
+    }
+
+    @Override
+    public void start() {
+        started.incrementAndGet();
+        if (failOnStart) {
+            throw new IllegalStateException(name + " failed");
+        }
+        status = PluginStatus.RUNNING;
+    }
+
+    @Override
+    public void stop() {
+        stopped.incrementAndGet();
+        status = PluginStatus.STOPPED;
+    }
+
+    @Override
+    public PluginMetadata getMetadata() {
+        PluginMetadata metadata = new PluginMetadata(name, getVersion(), "stub");
+        metadata.setDependencies(dependencies);
+        return metadata;
+    }
+
+    @Override
+    public PluginStatus getStatus() {
+        return status;
+    }
+
+    @Override
+    public Map<String, Object> getConfiguration() {
+        return Map.of();
+    }
+}
@@ -1,6 +1,7 @@
 import { Injectable } from '@angular/core';
-import { HttpClient } from '@angular/common/http';
-import { Observable } from 'rxjs';
+import { HttpClient, HttpParams } from '@angular/common/http';
+import { EMPTY, Observable } from 'rxjs';
+import { expand, map, reduce } from 'rxjs/operators';
 
 export interface Product {
   id?: number;
@@ -17,16 +18,45 @@ export interface Product {
   updatedAt?: string;
 }
 
+export interface ProductPage {
+  items: Product[];
+  // 次ページの継続トークン（最終ページの場合は null）
+  nextPageToken: string | null;
+}
+
 @Injectable({
   providedIn: 'root'
 })
 export class ProductService {
   private apiUrl = 'http://localhost:8082/api/products';
+  private static readonly NEXT_PAGE_TOKEN_HEADER = 'X-Next-Page-Token';
+  private static readonly PAGE_SIZE = 100;
 
   constructor(private http: HttpClient) { }
 
+  /**
+   * 全商品を取得（X-Next-Page-Token ヘッダーをたどって全ページを取得する）
+   */
   getProducts(): Observable<Product[]> {
-    return this.http.get<Product[]>(this.apiUrl);
+    return this.getProductPage().pipe(
+      expand(page => page.nextPageToken ? this.getProductPage(page.nextPageToken) : EMPTY),
+      reduce((products: Product[], page) => products.concat(page.items), [])
+    );
+  }
+
+  /**
+   * 商品一覧の1ページを取得
+   */
+  getProductPage(pageToken?: string, limit: number = ProductService.PAGE_SIZE): Observable<ProductPage> {
+    let params = new HttpParams().set('limit', limit.toString());
+    if (pageToken) params = params.set('pageToken', pageToken);
+
+    return this.http.get<Product[]>(this.apiUrl, { params, observe: 'response' }).pipe(
+      map(response => ({
+        items: response.body ?? [],
+        nextPageToken: response.headers.get(ProductService.NEXT_PAGE_TOKEN_HEADER)
+      }))
+    );
   }
 
   getProduct(id: number): Observable<Product> {
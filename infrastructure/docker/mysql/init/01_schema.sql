@@ -37,6 +37,16 @@ CREATE TABLE products (
     FOREIGN KEY (category_id) REFERENCES product_categories(id) ON DELETE SET NULL
 );
 
+-- 商品カテゴリ閉包テーブル（祖先・子孫の全組み合わせ。自身との組み合わせは depth = 0）
+CREATE TABLE product_category_closure (
+    ancestor_id BIGINT NOT NULL,
+    descendant_id BIGINT NOT NULL,
+    depth INT NOT NULL,
+    PRIMARY KEY (ancestor_id, descendant_id),
+    FOREIGN KEY (ancestor_id) REFERENCES product_categories(id) ON DELETE CASCADE,
+    FOREIGN KEY (descendant_id) REFERENCES product_categories(id) ON DELETE CASCADE
+);
+
 -- 倉庫テーブル
 CREATE TABLE warehouses (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
@@ -200,6 +210,7 @@ INSERT INTO system_settings (setting_key, setting_value, description) VALUES
 CREATE INDEX idx_products_category ON products(category_id);
 CREATE INDEX idx_products_code ON products(code);
 CREATE INDEX idx_products_barcode ON products(barcode);
+CREATE INDEX idx_category_closure_descendant ON product_category_closure(descendant_id, depth);
 CREATE INDEX idx_inventory_product ON inventory(product_id);
 CREATE INDEX idx_inventory_warehouse ON inventory(warehouse_id);
 CREATE INDEX idx_transactions_date ON inventory_transactions(transaction_date);
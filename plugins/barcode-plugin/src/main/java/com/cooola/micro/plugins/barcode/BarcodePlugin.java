@@ -1,11 +1,19 @@
 package com.cooola.micro.plugins.barcode;
 
 import com.cooola.micro.core.api.*;
+import com.cooola.micro.plugins.barcode.BarcodeRenderCache.RenderKey;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * バーコード・QRコード生成プラグイン
@@ -16,7 +24,16 @@ public class BarcodePlugin implements CooolaPlugin {
     
     private PluginContext context;
     private PluginStatus status = PluginStatus.UNINITIALIZED;
-    private final Map<String, Object> configuration = new HashMap<>();
+    private final Map<String, Object> configuration = new ConcurrentHashMap<>();
+    private volatile boolean cacheEnabled;
+    private volatile BarcodeRenderCache renderCache;
+    private volatile BatchLabelRenderer batchRenderer;
+    // 開始中だけ登録する設定変更リスナー（停止時に外す）
+    private final ConfigurationChangeListener configurationListener = (current, changedKeys) -> loadConfiguration(current);
+    
+    // プラグインディレクトリから読み込んだ場合は注入されない（メトリクスを登録しない）
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
     
     @Override
     public String getName() {
@@ -33,29 +50,61 @@ public class BarcodePlugin implements CooolaPlugin {
         this.context = context;
         log.info("Barcode plugin initializing...");
         
-        // プラグイン固有の設定を読み込み
-        configuration.put("defaultWidth", context.getConfiguration("barcode.default.width", "300"));
-        configuration.put("defaultHeight", context.getConfiguration("barcode.default.height", "100"));
-        configuration.put("qrCodeSize", context.getConfiguration("barcode.qr.size", "200"));
-        configuration.put("enableCache", context.getConfiguration("barcode.cache.enabled", "true"));
-        
+        // プラグイン固有の設定を読み込む（変更の反映は開始から停止まで）
+        loadConfiguration(context.getConfigurationSnapshot());
+        // ディスク層の設定は初期化時のみ反映する
+        String diskPath = (String) configuration.get("cacheDiskPath");
+        renderCache = new BarcodeRenderCache(Long.parseLong((String) configuration.get("cacheMaxBytes")),
+                diskPath.isBlank() ? null : Path.of(diskPath),
+                Long.parseLong((String) configuration.get("cacheDiskMaxBytes")), getVersion());
         status = PluginStatus.INITIALIZED;
         log.info("Barcode plugin initialized successfully");
     }
     
+    private void loadConfiguration(PluginConfiguration current) {
+        configuration.put("defaultWidth", current.get("barcode.default.width", "300"));
+        configuration.put("defaultHeight", current.get("barcode.default.height", "100"));
+        configuration.put("qrCodeSize", current.get("barcode.qr.size", "200"));
+        configuration.put("enableCache", current.get("barcode.cache.enabled", "true"));
+        configuration.put("cacheMaxBytes", current.get("barcode.cache.max-bytes", "67108864"));
+        configuration.put("cacheDiskPath", current.get("barcode.cache.disk.path", ""));
+        configuration.put("cacheDiskMaxBytes", current.get("barcode.cache.disk.max-bytes", "536870912"));
+        configuration.put("batchThreads", current.get("barcode.batch.threads", "0"));
+        configuration.put("batchWindow", current.get("barcode.batch.window", "0"));
+        cacheEnabled = Boolean.parseBoolean((String) configuration.get("enableCache"));
+        if (renderCache != null) {
+            renderCache.setMaximumBytes(Long.parseLong((String) configuration.get("cacheMaxBytes")));
+            if (!cacheEnabled) {
+                renderCache.clear();
+            }
+        }
+    }
+    
     @Override
     public void start() {
         log.info("Barcode plugin starting...");
         status = PluginStatus.STARTING;
         
         try {
+            // 停止中の変更を読み込み直してから変更の監視を再開する
+            loadConfiguration(context.getConfigurationSnapshot());
+            context.addConfigurationListener(configurationListener);
+            if (meterRegistry != null) {
+                renderCache.bindTo(meterRegistry);
+            }
+            // 一括描画のスレッド数（0 の場合は CPU コア数）と同時に保持するラベル数（0 の場合はスレッド数の4倍）
+            int threads = Integer.parseInt((String) configuration.get("batchThreads"));
+            threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+            int window = Integer.parseInt((String) configuration.get("batchWindow"));
+            batchRenderer = new BatchLabelRenderer(threads, window > 0 ? window : threads * 4);
             status = PluginStatus.RUNNING;
             log.info("Barcode plugin started successfully");
             
             // プラグイン開始イベントを発行
-            context.publishEvent("plugin.started", Map.of("plugin", getName()));
+            context.channel(PluginEvents.PLUGIN_STARTED).publish(new PluginLifecycleEvent(getName()));
             
         } catch (Exception e) {
+            context.removeConfigurationListener(configurationListener);
             status = PluginStatus.ERROR;
             log.error("Failed to start barcode plugin", e);
             throw new RuntimeException("Barcode plugin start failed", e);
@@ -68,11 +117,17 @@ public class BarcodePlugin implements CooolaPlugin {
         status = PluginStatus.STOPPING;
         
         try {
+            context.removeConfigurationListener(configurationListener);
+            renderCache.unbind();
+            if (batchRenderer != null) {
+                batchRenderer.shutdown();
+                batchRenderer = null;
+            }
             status = PluginStatus.STOPPED;
             log.info("Barcode plugin stopped successfully");
             
             // プラグイン停止イベントを発行
-            context.publishEvent("plugin.stopped", Map.of("plugin", getName()));
+            context.channel(PluginEvents.PLUGIN_STOPPED).publish(new PluginLifecycleEvent(getName()));
             
         } catch (Exception e) {
             status = PluginStatus.ERROR;
@@ -103,10 +158,18 @@ public class BarcodePlugin implements CooolaPlugin {
     }
     
     /**
-     * バーコード生成
+     * バーコード生成（barcode.cache.enabled の場合は同じ条件の描画結果を再利用する）
      */
     public String generateBarcode(String content, String format, int width, int height) {
-        log.info("Generating barcode: content={}, format={}, size={}x{}", content, format, width, height);
+        if (cacheEnabled && renderCache != null) {
+            return renderCache.get(new RenderKey("barcode", content, format, width, height),
+                    key -> renderBarcode(content, format, width, height));
+        }
+        return renderBarcode(content, format, width, height);
+    }
+    
+    private String renderBarcode(String content, String format, int width, int height) {
+        log.debug("Generating barcode: content={}, format={}, size={}x{}", content, format, width, height);
         
         try {
             // 実際のバーコード生成ロジックをここに実装
@@ -119,10 +182,18 @@ public class BarcodePlugin implements CooolaPlugin {
     }
     
     /**
-     * QRコード生成
+     * QRコード生成（barcode.cache.enabled の場合は同じ条件の描画結果を再利用する）
      */
     public String generateQRCode(String content, int size) {
-        log.info("Generating QR code: content={}, size={}", content, size);
+        if (cacheEnabled && renderCache != null) {
+            return renderCache.get(new RenderKey("qrcode", content, "QR_CODE", size, size),
+                    key -> renderQRCode(content, size));
+        }
+        return renderQRCode(content, size);
+    }
+    
+    private String renderQRCode(String content, int size) {
+        log.debug("Generating QR code: content={}, size={}", content, size);
         
         try {
             // 実際のQRコード生成ロジックをここに実装
@@ -133,6 +204,25 @@ public class BarcodePlugin implements CooolaPlugin {
         }
     }
     
+    /**
+     * ラベルを一括描画して ZIP として書き出す（出力ストリームは閉じない）
+     * 描画は CPU コア数に応じて並列に行い、ZIP のエントリは「ラベル名.拡張子」として依頼順に書き出す。
+     * 
+     * @param labels 描画するラベル
+     * @param output 出力先
+     * @return 描画結果（描画に失敗したラベルは出力に含めず理由を記録する）
+     * @throws IOException 書き出しに失敗した場合
+     */
+    public LabelBatchResult renderLabels(List<LabelRequest> labels, OutputStream output) throws IOException {
+        BatchLabelRenderer renderer = batchRenderer;
+        if (renderer == null) {
+            throw new IllegalStateException("Barcode plugin is not running");
+        }
+        return renderer.renderZip(labels, label -> label.kind() == LabelRequest.Kind.QR_CODE
+                ? generateQRCode(label.content(), label.width())
+                : generateBarcode(label.content(), label.format(), label.width(), label.height()), output);
+    }
+    
     /**
      * バーコード読み取り
      */
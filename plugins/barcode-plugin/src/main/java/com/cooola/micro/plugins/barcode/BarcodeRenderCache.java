@@ -0,0 +1,324 @@
+package com.cooola.micro.plugins.barcode;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * バーコード・QRコードの描画結果のキャッシュ
+ * 描画条件（種類・内容・形式・幅・高さ）をキーに描画結果を保持し、同じ条件の描画をやり直さない。
+ * メモリ上の推定バイト数で上限を設け、超えた分は W-TinyLFU（Caffeine）で利用頻度の低いものから追い出す。
+ * ディスク層を有効にした場合は、追い出した描画結果を描画条件のハッシュをファイル名として保存し、
+ * メモリにない場合は描画する前にディスクから読み込む（ディスク層も上限を超えると最終利用の古いものから削除する）。
+ */
+@Slf4j
+class BarcodeRenderCache {
+
+    static final String CACHE_NAME = "barcode-render";
+
+    // エントリごとのキー・参照などの推定バイト数
+    private static final int ENTRY_OVERHEAD = 96;
+    private static final String FILE_SUFFIX = ".render";
+
+    private final Cache<RenderKey, String> memory;
+    private final Path diskDirectory;
+    private final long diskMaximumBytes;
+    // 描画処理が変わった場合に古い描画結果を使わないよう、ディスク層のハッシュに含める
+    private final String version;
+    private final AtomicLong diskBytes = new AtomicLong();
+    private final LongAdder memoryHits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final List<Meter> meters = new ArrayList<>();
+    private MeterRegistry meterRegistry;
+
+    /**
+     * @param maximumBytes     メモリ上の上限バイト数
+     * @param diskDirectory    ディスク層のディレクトリ（null の場合はディスク層を使わない）
+     * @param diskMaximumBytes ディスク層の上限バイト数
+     * @param version          描画処理の版
+     */
+    BarcodeRenderCache(long maximumBytes, Path diskDirectory, long diskMaximumBytes, String version) {
+        if (maximumBytes < 0 || diskMaximumBytes < 0) {
+            throw new IllegalArgumentException("Cache size must not be negative: " + maximumBytes + ", " + diskMaximumBytes);
+        }
+        this.diskDirectory = diskDirectory;
+        this.diskMaximumBytes = diskMaximumBytes;
+        this.version = version;
+        this.memory = Caffeine.newBuilder()
+                .maximumWeight(maximumBytes)
+                .weigher(BarcodeRenderCache::weigh)
+                // 容量超過で追い出したものだけをディスクへ移す（明示的な破棄は移さない）
+                .removalListener((RenderKey key, String value, RemovalCause cause) -> {
+                    if (cause == RemovalCause.SIZE && key != null && value != null) {
+                        spill(key, value);
+                    }
+                })
+                .recordStats()
+                .build();
+        if (diskDirectory != null) {
+            try {
+                Files.createDirectories(diskDirectory);
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(diskDirectory, "*" + FILE_SUFFIX)) {
+                    for (Path file : files) {
+                        diskBytes.addAndGet(Files.size(file));
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to open barcode render cache directory: " + diskDirectory, e);
+            }
+        }
+    }
+
+    /**
+     * キャッシュから取得し、なければディスク層から読み込むか描画して格納する（同じ条件の同時描画は1回にまとめる）
+     *
+     * @param key      描画条件
+     * @param renderer 描画処理
+     * @return 描画結果
+     */
+    String get(RenderKey key, Function<RenderKey, String> renderer) {
+        // 0: メモリ, 1: ディスク, 2: 描画
+        int[] source = {0};
+        String value = memory.get(key, k -> {
+            String stored = readDisk(k);
+            if (stored != null) {
+                source[0] = 1;
+                return stored;
+            }
+            source[0] = 2;
+            return renderer.apply(k);
+        });
+        (source[0] == 0 ? memoryHits : source[0] == 1 ? diskHits : misses).increment();
+        return value;
+    }
+
+    /**
+     * メモリ上の上限バイト数を変更（超過分は順次追い出す）
+     */
+    void setMaximumBytes(long maximumBytes) {
+        memory.policy().eviction().ifPresent(eviction -> eviction.setMaximum(maximumBytes));
+    }
+
+    /**
+     * メモリ上に保持している推定バイト数
+     */
+    long getMemoryBytes() {
+        return memory.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L);
+    }
+
+    /**
+     * ディスク層に保持しているバイト数
+     */
+    long getDiskBytes() {
+        return diskBytes.get();
+    }
+
+    /**
+     * 描画せずに返せた割合（メモリ・ディスク層の合計）
+     */
+    double getHitRatio() {
+        long hits = memoryHits.sum() + diskHits.sum();
+        long total = hits + misses.sum();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    /**
+     * メモリ上の描画結果をすべて破棄（ディスク層には移さない）
+     */
+    void clear() {
+        memory.invalidateAll();
+    }
+
+    /**
+     * メトリクスを登録
+     * cache.gets・cache.evictions など（cache=barcode-render）に加え、
+     * barcode.render.cache.hit.ratio（描画せずに返せた割合）、barcode.render.cache.bytes（tier=memory/disk）、
+     * barcode.render.cache.requests（result=memory/disk/miss）を登録する。
+     */
+    synchronized void bindTo(MeterRegistry registry) {
+        unbind();
+        meterRegistry = registry;
+        List<Tag> tags = List.of(Tag.of("cache", CACHE_NAME));
+        CaffeineCacheMetrics.monitor(registry, memory, CACHE_NAME);
+        // CaffeineCacheMetrics が登録したメーターも解除できるよう控えておく
+        registry.getMeters().stream()
+                .filter(meter -> CACHE_NAME.equals(meter.getId().getTag("cache")))
+                .forEach(meters::add);
+        meters.add(Gauge.builder("barcode.render.cache.hit.ratio", this, BarcodeRenderCache::getHitRatio)
+                .description("Share of barcode render requests served without rendering")
+                .tags(tags)
+                .register(registry));
+        meters.add(Gauge.builder("barcode.render.cache.bytes", this, BarcodeRenderCache::getMemoryBytes)
+                .description("Estimated bytes of rendered barcodes held by the cache")
+                .baseUnit("bytes")
+                .tags(tags)
+                .tag("tier", "memory")
+                .register(registry));
+        meters.add(Gauge.builder("barcode.render.cache.bytes", this, BarcodeRenderCache::getDiskBytes)
+                .description("Estimated bytes of rendered barcodes held by the cache")
+                .baseUnit("bytes")
+                .tags(tags)
+                .tag("tier", "disk")
+                .register(registry));
+        meters.add(requests(registry, "memory", memoryHits));
+        meters.add(requests(registry, "disk", diskHits));
+        meters.add(requests(registry, "miss", misses));
+    }
+
+    /**
+     * 登録したメトリクスを解除（プラグインの停止時に呼び出し、停止後もメーターから参照され続けないようにする）
+     */
+    synchronized void unbind() {
+        if (meterRegistry != null) {
+            meters.forEach(meterRegistry::remove);
+            meters.clear();
+            meterRegistry = null;
+        }
+    }
+
+    private FunctionCounter requests(MeterRegistry registry, String result, LongAdder counter) {
+        return FunctionCounter.builder("barcode.render.cache.requests", counter, LongAdder::sum)
+                .description("Barcode render requests by the tier that served them")
+                .tag("cache", CACHE_NAME)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private static int weigh(RenderKey key, String value) {
+        // 描画結果は Base64 などの Latin-1 文字列のため、1文字1バイトで見積もる
+        long bytes = ENTRY_OVERHEAD + (long) key.content().length() + value.length();
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    private String readDisk(RenderKey key) {
+        if (diskDirectory == null) {
+            return null;
+        }
+        Path file = diskFile(key);
+        try {
+            String value = Files.readString(file, StandardCharsets.UTF_8);
+            // ディスク層の削除順（最終利用の古いものから）に使う
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return value;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("Failed to read barcode render cache file: {}", file, e);
+            return null;
+        }
+    }
+
+    private void spill(RenderKey key, String value) {
+        if (diskDirectory == null || diskMaximumBytes == 0) {
+            return;
+        }
+        Path file = diskFile(key);
+        try {
+            if (Files.exists(file)) {
+                Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+                return;
+            }
+            // 書き込み途中のファイルを読まないよう、一時ファイルに書いてから置き換える
+            Path temporary = Files.createTempFile(diskDirectory, "spill", ".tmp");
+            Files.writeString(temporary, value, StandardCharsets.UTF_8);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (diskBytes.addAndGet(Files.size(file)) > diskMaximumBytes) {
+                trimDisk();
+            }
+        } catch (IOException | UnsupportedOperationException e) {
+            log.warn("Failed to spill barcode render to disk: {}", file, e);
+        }
+    }
+
+    /**
+     * 上限を下回るまで、最終利用の古いファイルから削除
+     */
+    private synchronized void trimDisk() {
+        if (diskBytes.get() <= diskMaximumBytes) {
+            return;
+        }
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(diskDirectory, "*" + FILE_SUFFIX)) {
+            stream.forEach(files::add);
+        } catch (IOException e) {
+            log.warn("Failed to list barcode render cache directory: {}", diskDirectory, e);
+            return;
+        }
+        files.sort(Comparator.comparingLong(BarcodeRenderCache::lastModified));
+        for (Path file : files) {
+            if (diskBytes.get() <= diskMaximumBytes) {
+                break;
+            }
+            try {
+                long size = Files.size(file);
+                if (Files.deleteIfExists(file)) {
+                    diskBytes.addAndGet(-size);
+                }
+            } catch (IOException e) {
+                log.warn("Failed to delete barcode render cache file: {}", file);
+            }
+        }
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    /**
+     * 描画条件のハッシュをファイル名にする（同じ条件の描画結果は常に同じファイルになる）
+     */
+    private Path diskFile(RenderKey key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            String identity = version + '\0' + key.kind() + '\0' + key.format() + '\0' + key.width() + 'x' + key.height()
+                    + '\0' + key.content();
+            return diskDirectory.resolve(HexFormat.of().formatHex(digest.digest(identity.getBytes(StandardCharsets.UTF_8)))
+                    + FILE_SUFFIX);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * 描画条件
+     *
+     * @param kind    種類（barcode または qrcode）
+     * @param content 内容
+     * @param format  形式
+     * @param width   幅
+     * @param height  高さ
+     */
+    record RenderKey(String kind, String content, String format, int width, int height) {
+    }
+}
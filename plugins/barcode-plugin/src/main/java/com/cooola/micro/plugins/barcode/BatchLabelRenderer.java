@@ -0,0 +1,255 @@
+package com.cooola.micro.plugins.barcode;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * ラベルの一括描画
+ * 描画は専用スレッドプールで並列に行い、出力は呼び出し元のスレッドが依頼順に ZIP へ書き出す。
+ * 同時に描画中・書き出し待ちのラベルを window 件までに抑えるため、全ラベルの画像を同時にメモリへ保持しない。
+ * 描画結果（Base64 の画像）は使い回しのバッファへ復号し、ラベルごとに画像サイズの配列を割り当てない。
+ */
+@Slf4j
+class BatchLabelRenderer {
+
+    private static final int INITIAL_BUFFER_SIZE = 16 * 1024;
+    private static final Base64.Decoder DECODER = Base64.getDecoder();
+
+    private final ExecutorService executor;
+    private final int window;
+    // 書き出し済みのバッファ（描画スレッドが次のラベルで再利用する）
+    private final ConcurrentLinkedQueue<LabelBuffer> buffers = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param threads 描画スレッド数
+     * @param window  同時に描画中・書き出し待ちにするラベル数の上限
+     */
+    BatchLabelRenderer(int threads, int window) {
+        if (threads < 1 || window < 1) {
+            throw new IllegalArgumentException("Batch threads and window must be positive: " + threads + ", " + window);
+        }
+        this.window = window;
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "barcode-batch-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * ラベルを描画して ZIP として書き出す（出力ストリームは閉じない）
+     * 描画に失敗したラベルは出力に含めず、結果に理由を記録して残りのラベルを続ける。
+     *
+     * @param labels   描画するラベル（出力の順序）
+     * @param renderer ラベル1件分の描画処理
+     * @param output   出力先
+     * @return 描画結果
+     * @throws IllegalArgumentException ラベル名が重複している場合（英数字と「._-」以外を「_」に置き換えた名前で比較する）
+     * @throws IOException              書き出しに失敗した場合
+     */
+    LabelBatchResult renderZip(List<LabelRequest> labels, Function<LabelRequest, String> renderer, OutputStream output)
+            throws IOException {
+        // ZIP のエントリ名は置き換え後の名前のため、置き換え後の名前で重複を確認する
+        Map<String, String> names = new HashMap<>();
+        for (LabelRequest label : labels) {
+            String previous = names.putIfAbsent(entryName(label.name()), label.name());
+            if (previous != null) {
+                throw new IllegalArgumentException(previous.equals(label.name())
+                        ? "Duplicate label name: " + label.name()
+                        : "Label names map to the same entry: " + previous + ", " + label.name());
+            }
+        }
+        long started = System.nanoTime();
+        Map<String, String> failures = new LinkedHashMap<>();
+        int rendered = 0;
+        Deque<Future<Rendered>> inFlight = new ArrayDeque<>(window);
+        Iterator<LabelRequest> pending = labels.iterator();
+        ZipOutputStream zip = new ZipOutputStream(output);
+        CRC32 crc = new CRC32();
+        try {
+            while (pending.hasNext() || !inFlight.isEmpty()) {
+                while (inFlight.size() < window && pending.hasNext()) {
+                    LabelRequest label = pending.next();
+                    inFlight.add(executor.submit(() -> render(label, renderer)));
+                }
+                Rendered next = await(inFlight.poll());
+                if (next.error() != null) {
+                    failures.put(next.label().name(), next.error());
+                    continue;
+                }
+                try {
+                    write(zip, crc, next);
+                    rendered++;
+                } finally {
+                    buffers.offer(next.buffer());
+                }
+            }
+            zip.finish();
+        } catch (IOException | RuntimeException e) {
+            inFlight.forEach(future -> future.cancel(true));
+            throw e;
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+        log.info("Labels rendered: {} of {} in {}ms (failed={})", rendered, labels.size(), elapsed.toMillis(), failures.size());
+        return new LabelBatchResult(rendered, failures, elapsed);
+    }
+
+    /**
+     * 描画スレッドを停止
+     */
+    void shutdown() {
+        executor.shutdownNow();
+        buffers.clear();
+    }
+
+    private Rendered render(LabelRequest label, Function<LabelRequest, String> renderer) {
+        try {
+            String image = renderer.apply(label);
+            LabelBuffer buffer = buffers.poll();
+            if (buffer == null) {
+                buffer = new LabelBuffer();
+            }
+            buffer.load(image);
+            return new Rendered(label, buffer, null);
+        } catch (RuntimeException e) {
+            log.debug("Failed to render label: {}", label.name(), e);
+            return new Rendered(label, null, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        }
+    }
+
+    private static Rendered await(Future<Rendered> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Label rendering interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Label rendering failed", e.getCause());
+        }
+    }
+
+    private static void write(ZipOutputStream zip, CRC32 crc, Rendered rendered) throws IOException {
+        LabelBuffer buffer = rendered.buffer();
+        ZipEntry entry = new ZipEntry(entryName(rendered.label().name()) + "." + buffer.extension);
+        if (buffer.compressed) {
+            // 圧縮済みの画像は再圧縮しても小さくならないため、CPU を使わず無圧縮で格納する
+            crc.reset();
+            crc.update(buffer.data, 0, buffer.length);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(buffer.length);
+            entry.setCompressedSize(buffer.length);
+            entry.setCrc(crc.getValue());
+        }
+        zip.putNextEntry(entry);
+        zip.write(buffer.data, 0, buffer.length);
+        zip.closeEntry();
+    }
+
+    private static String entryName(String name) {
+        return name.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    private record Rendered(LabelRequest label, LabelBuffer buffer, String error) {
+    }
+
+    /**
+     * 描画結果の復号先（書き出し後に再利用し、必要な大きさまでしか拡張しない）
+     */
+    private static final class LabelBuffer {
+        private byte[] encoded = new byte[INITIAL_BUFFER_SIZE];
+        private byte[] data = new byte[INITIAL_BUFFER_SIZE];
+        private int length;
+        private String extension;
+        // 圧縮済みの画像形式か
+        private boolean compressed;
+
+        /**
+         * data URI・Base64 の画像は復号し、それ以外の描画結果（SVG の文字列など）はそのまま格納する
+         */
+        void load(String image) {
+            int start = 0;
+            String mediaType = "image/png";
+            if (image.startsWith("data:")) {
+                int comma = image.indexOf(',');
+                String header = comma < 0 ? "" : image.substring(5, comma);
+                if (!header.endsWith(";base64")) {
+                    loadText(comma < 0 ? image : image.substring(comma + 1), header.startsWith("image/svg") ? "svg" : "txt");
+                    return;
+                }
+                mediaType = header.substring(0, header.length() - ";base64".length());
+                start = comma + 1;
+            }
+            int size = image.length() - start;
+            if (encoded.length < size) {
+                encoded = new byte[size];
+            }
+            for (int i = 0; i < size; i++) {
+                char c = image.charAt(start + i);
+                if (c > 0x7F) {
+                    loadText(image, "txt");
+                    return;
+                }
+                encoded[i] = (byte) c;
+            }
+            int decodedSize = size / 4 * 3 + 3;
+            if (data.length < decodedSize) {
+                data = new byte[decodedSize];
+            }
+            try (InputStream in = DECODER.wrap(new ByteArrayInputStream(encoded, 0, size))) {
+                length = in.readNBytes(data, 0, data.length);
+            } catch (IOException | IllegalArgumentException e) {
+                // Base64 でない描画結果
+                loadText(image, "txt");
+                return;
+            }
+            switch (mediaType) {
+                case "image/png" -> set("png", true);
+                case "image/jpeg" -> set("jpg", true);
+                case "image/gif" -> set("gif", true);
+                case "image/svg+xml" -> set("svg", false);
+                default -> set("bin", false);
+            }
+        }
+
+        private void loadText(String text, String textExtension) {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            if (data.length < bytes.length) {
+                data = new byte[bytes.length];
+            }
+            System.arraycopy(bytes, 0, data, 0, bytes.length);
+            length = bytes.length;
+            set(textExtension, false);
+        }
+
+        private void set(String extension, boolean compressed) {
+            this.extension = extension;
+            this.compressed = compressed;
+        }
+    }
+}
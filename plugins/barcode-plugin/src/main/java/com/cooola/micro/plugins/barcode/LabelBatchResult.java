@@ -0,0 +1,21 @@
+package com.cooola.micro.plugins.barcode;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * ラベル一括描画の結果
+ *
+ * @param rendered 出力したラベル数
+ * @param failures 描画に失敗したラベル名 → 失敗理由（出力には含まない）
+ * @param elapsed  所要時間
+ */
+public record LabelBatchResult(int rendered, Map<String, String> failures, Duration elapsed) {
+
+    /**
+     * 全ラベルを出力できたか
+     */
+    public boolean isSuccessful() {
+        return failures.isEmpty();
+    }
+}
@@ -0,0 +1,48 @@
+package com.cooola.micro.plugins.barcode;
+
+/**
+ * 一括描画するラベル1件分の描画条件
+ *
+ * @param name    出力するファイル名（拡張子を除く。一括描画の中で一意）
+ * @param kind    種類
+ * @param content 内容（商品コードなど）
+ * @param format  バーコードの形式（QRコードの場合は QR_CODE）
+ * @param width   幅
+ * @param height  高さ
+ */
+public record LabelRequest(String name, Kind kind, String content, String format, int width, int height) {
+
+    /**
+     * ラベルの種類
+     */
+    public enum Kind {
+        BARCODE,
+        QR_CODE
+    }
+
+    public LabelRequest {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Label name is required");
+        }
+        if (kind == null || content == null) {
+            throw new IllegalArgumentException("Label kind and content are required: " + name);
+        }
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Label size must be positive: " + name + " " + width + "x" + height);
+        }
+    }
+
+    /**
+     * バーコードのラベル
+     */
+    public static LabelRequest barcode(String name, String content, String format, int width, int height) {
+        return new LabelRequest(name, Kind.BARCODE, content, format, width, height);
+    }
+
+    /**
+     * QRコードのラベル
+     */
+    public static LabelRequest qrCode(String name, String content, int size) {
+        return new LabelRequest(name, Kind.QR_CODE, content, "QR_CODE", size, size);
+    }
+}
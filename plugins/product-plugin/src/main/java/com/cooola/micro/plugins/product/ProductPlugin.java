@@ -7,6 +7,7 @@ import org.springframework.stereotype.Component;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 商品管理プラグイン
@@ -18,7 +19,9 @@ public class ProductPlugin implements CooolaPlugin {
     
     private PluginContext context;
     private PluginStatus status = PluginStatus.UNINITIALIZED;
-    private final Map<String, Object> configuration = new HashMap<>();
+    private final Map<String, Object> configuration = new ConcurrentHashMap<>();
+    // 開始中だけ登録する設定変更リスナー（停止時に外す）
+    private final ConfigurationChangeListener configurationListener = (current, changedKeys) -> loadConfiguration(current);
     
     @Autowired
     private ProductService productService;
@@ -38,10 +41,8 @@ public class ProductPlugin implements CooolaPlugin {
         this.context = context;
         log.info("Product plugin initializing...");
         
-        // プラグイン固有の設定を読み込み
-        configuration.put("maxProducts", context.getConfiguration("product.max.count", "1000"));
-        configuration.put("enableBarcode", context.getConfiguration("product.barcode.enabled", "true"));
-        
+        // プラグイン固有の設定を読み込む（変更の反映は開始から停止まで）
+        loadConfiguration(context.getConfigurationSnapshot());
         // イベントリスナーを登録
         context.addEventListener("product.created", this::onProductCreated);
         context.addEventListener("product.updated", this::onProductUpdated);
@@ -51,12 +52,20 @@ public class ProductPlugin implements CooolaPlugin {
         log.info("Product plugin initialized successfully");
     }
     
+    private void loadConfiguration(PluginConfiguration current) {
+        configuration.put("maxProducts", current.get("product.max.count", "1000"));
+        configuration.put("enableBarcode", current.get("product.barcode.enabled", "true"));
+    }
+    
     @Override
     public void start() {
         log.info("Product plugin starting...");
         status = PluginStatus.STARTING;
         
         try {
+            // 停止中の変更を読み込み直してから変更の監視を再開する
+            loadConfiguration(context.getConfigurationSnapshot());
+            context.addConfigurationListener(configurationListener);
             // 商品サービスの初期化
             productService.initialize();
             
@@ -64,9 +73,10 @@ public class ProductPlugin implements CooolaPlugin {
             log.info("Product plugin started successfully");
             
             // プラグイン開始イベントを発行
-            context.publishEvent("plugin.started", Map.of("plugin", getName()));
+            context.channel(PluginEvents.PLUGIN_STARTED).publish(new PluginLifecycleEvent(getName()));
             
         } catch (Exception e) {
+            context.removeConfigurationListener(configurationListener);
             status = PluginStatus.ERROR;
             log.error("Failed to start product plugin", e);
             throw new RuntimeException("Product plugin start failed", e);
@@ -79,6 +89,7 @@ public class ProductPlugin implements CooolaPlugin {
         status = PluginStatus.STOPPING;
         
         try {
+            context.removeConfigurationListener(configurationListener);
             // 商品サービスのクリーンアップ
             productService.cleanup();
             
@@ -86,7 +97,7 @@ public class ProductPlugin implements CooolaPlugin {
             log.info("Product plugin stopped successfully");
             
             // プラグイン停止イベントを発行
-            context.publishEvent("plugin.stopped", Map.of("plugin", getName()));
+            context.channel(PluginEvents.PLUGIN_STOPPED).publish(new PluginLifecycleEvent(getName()));
             
         } catch (Exception e) {
             status = PluginStatus.ERROR;
@@ -0,0 +1,21 @@
+package com.cooola.micro.services.inventory.client;
+
+import com.cooola.micro.services.inventory.dto.InventorySnapshot;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+import java.util.List;
+
+/**
+ * レポートサービスクライアント
+ */
+@FeignClient(name = "report-service")
+public interface ReportClient {
+    
+    /**
+     * 在庫行の変更を通知（在庫サマリーの差分集計用）
+     */
+    @PostMapping("/api/reports/inventory/changes")
+    void publishInventoryChanges(@RequestBody List<InventorySnapshot> changes);
+}
@@ -1,14 +1,24 @@
 package com.cooola.micro.services.inventory.controller;
 
 import com.cooola.micro.services.inventory.dto.*;
+import com.cooola.micro.services.inventory.service.InventoryExporter;
 import com.cooola.micro.services.inventory.service.InventoryService;
+import com.cooola.micro.services.inventory.service.InventoryStockIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,7 +31,11 @@ import java.util.Optional;
 @Slf4j
 public class InventoryController {
     
+    private static final String NEXT_PAGE_TOKEN_HEADER = "X-Next-Page-Token";
+    private static final String DEFAULT_PAGE_LIMIT = "100";
+    
     private final InventoryService inventoryService;
+    private final InventoryExporter inventoryExporter;
     
     /**
      * 在庫を作成
@@ -69,36 +83,68 @@ public class InventoryController {
     }
     
     /**
-     * 全在庫を取得
+     * 全在庫を取得（キーセットページング。次ページのトークンは X-Next-Page-Token ヘッダーで返す）
      */
     @GetMapping
-    public ResponseEntity<List<InventoryDto>> getAllInventories() {
-        log.info("全在庫取得API呼び出し");
+    public ResponseEntity<List<InventoryDto>> getAllInventories(
+            @RequestParam(required = false) String pageToken,
+            @RequestParam(defaultValue = DEFAULT_PAGE_LIMIT) int limit) {
+        log.info("全在庫取得API呼び出し: 取得件数={}", limit);
+        
+        return toResponse(inventoryService.getAllInventories(pageToken, limit));
+    }
+    
+    /**
+     * 全在庫を NDJSON でストリーミング出力（Accept: application/x-ndjson）
+     */
+    @GetMapping(produces = InventoryExporter.NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportInventoriesAsNdjson() {
+        log.info("全在庫エクスポートAPI呼び出し: 形式=NDJSON");
+        
+        StreamingResponseBody body = inventoryExporter::writeNdjson;
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(InventoryExporter.NDJSON))
+                .body(body);
+    }
+    
+    /**
+     * 全在庫を CSV でストリーミング出力（Accept: text/csv）
+     */
+    @GetMapping(produces = InventoryExporter.CSV)
+    public ResponseEntity<StreamingResponseBody> exportInventoriesAsCsv() {
+        log.info("全在庫エクスポートAPI呼び出し: 形式=CSV");
         
-        List<InventoryDto> inventories = inventoryService.getAllInventories();
-        return ResponseEntity.ok(inventories);
+        StreamingResponseBody body = inventoryExporter::writeCsv;
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"inventories.csv\"")
+                .body(body);
     }
     
     /**
      * 商品IDで在庫リストを取得
      */
     @GetMapping("/product/{productId}")
-    public ResponseEntity<List<InventoryDto>> getInventoriesByProduct(@PathVariable Long productId) {
+    public ResponseEntity<List<InventoryDto>> getInventoriesByProduct(
+            @PathVariable Long productId,
+            @RequestParam(required = false) String pageToken,
+            @RequestParam(defaultValue = DEFAULT_PAGE_LIMIT) int limit) {
         log.info("商品ID別在庫取得API呼び出し: 商品ID={}", productId);
         
-        List<InventoryDto> inventories = inventoryService.getInventoriesByProduct(productId);
-        return ResponseEntity.ok(inventories);
+        return toResponse(inventoryService.getInventoriesByProduct(productId, pageToken, limit));
     }
     
     /**
      * 倉庫IDで在庫リストを取得
      */
     @GetMapping("/warehouse/{warehouseId}")
-    public ResponseEntity<List<InventoryDto>> getInventoriesByWarehouse(@PathVariable Long warehouseId) {
+    public ResponseEntity<List<InventoryDto>> getInventoriesByWarehouse(
+            @PathVariable Long warehouseId,
+            @RequestParam(required = false) String pageToken,
+            @RequestParam(defaultValue = DEFAULT_PAGE_LIMIT) int limit) {
         log.info("倉庫ID別在庫取得API呼び出し: 倉庫ID={}", warehouseId);
         
-        List<InventoryDto> inventories = inventoryService.getInventoriesByWarehouse(warehouseId);
-        return ResponseEntity.ok(inventories);
+        return toResponse(inventoryService.getInventoriesByWarehouse(warehouseId, pageToken, limit));
     }
     
     /**
@@ -142,6 +188,9 @@ public class InventoryController {
         } catch (IllegalArgumentException e) {
             log.error("在庫調整エラー: {}", e.getMessage());
             return ResponseEntity.badRequest().build();
+        } catch (OptimisticLockingFailureException e) {
+            log.warn("在庫調整競合: ID={}", id);
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (Exception e) {
             log.error("在庫調整中に予期しないエラーが発生: ", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -192,15 +241,66 @@ public class InventoryController {
         }
     }
     
+    /**
+     * 注文単位で在庫を一括予約（全明細成功または全明細失敗）
+     */
+    @PostMapping("/bulk/reserve")
+    public ResponseEntity<BulkReservationResponse> reserveInventories(@Valid @RequestBody BulkReservationRequest request) {
+        log.info("在庫一括予約API呼び出し: 注文ID={}, 明細数={}", request.getOrderId(), request.getLines().size());
+        
+        BulkReservationResponse response = inventoryService.reserveInventories(request);
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 注文単位で予約を一括解除（全明細成功または全明細失敗）
+     */
+    @PostMapping("/bulk/release")
+    public ResponseEntity<BulkReservationResponse> releaseReservedInventories(@Valid @RequestBody BulkReservationRequest request) {
+        log.info("予約一括解除API呼び出し: 注文ID={}, 明細数={}", request.getOrderId(), request.getLines().size());
+        
+        BulkReservationResponse response = inventoryService.releaseReservedInventories(request);
+        return ResponseEntity.ok(response);
+    }
+    
     /**
      * 在庫不足の商品を取得
      */
     @GetMapping("/low-stock")
-    public ResponseEntity<List<InventoryDto>> getLowStockItems(@RequestParam(defaultValue = "10") Integer threshold) {
+    public ResponseEntity<List<InventoryDto>> getLowStockItems(
+            @RequestParam(defaultValue = "10") Integer threshold,
+            @RequestParam(required = false) String pageToken,
+            @RequestParam(defaultValue = DEFAULT_PAGE_LIMIT) int limit) {
         log.info("在庫不足商品取得API呼び出し: 閾値={}", threshold);
         
-        List<InventoryDto> lowStockItems = inventoryService.getLowStockItems(threshold);
-        return ResponseEntity.ok(lowStockItems);
+        return toResponse(inventoryService.getLowStockItems(threshold, pageToken, limit));
+    }
+    
+    /**
+     * 在庫不足の閾値をまたいだ変化を Server-Sent Events で配信
+     */
+    @GetMapping(value = "/low-stock/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamLowStockChanges(@RequestParam(defaultValue = "10") Integer threshold) {
+        log.info("在庫水準変化配信API呼び出し: 閾値={}", threshold);
+        
+        SseEmitter emitter = new SseEmitter(0L);
+        try {
+            InventoryStockIndex.Subscription subscription = inventoryService.subscribeStockLevel(threshold, change -> {
+                try {
+                    emitter.send(SseEmitter.event().name("stock-level").data(change, MediaType.APPLICATION_JSON));
+                } catch (IOException e) {
+                    // 切断済みのクライアント（例外を返して購読を解除させる）
+                    throw new UncheckedIOException(e);
+                }
+            });
+            emitter.onCompletion(subscription::close);
+            emitter.onTimeout(subscription::close);
+            emitter.onError(e -> subscription.close());
+            return ResponseEntity.ok(emitter);
+        } catch (IllegalArgumentException e) {
+            log.error("在庫水準変化配信エラー: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
     }
     
     /**
@@ -232,4 +332,15 @@ public class InventoryController {
     public ResponseEntity<String> health() {
         return ResponseEntity.ok("Inventory Service is running");
     }
+    
+    /**
+     * ページの内容を本文に、継続トークンをヘッダーに設定する
+     */
+    private ResponseEntity<List<InventoryDto>> toResponse(KeysetPage<InventoryDto> page) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (page.getNextPageToken() != null) {
+            builder.header(NEXT_PAGE_TOKEN_HEADER, page.getNextPageToken());
+        }
+        return builder.body(page.getItems());
+    }
 }
@@ -0,0 +1,23 @@
+package com.cooola.micro.services.inventory.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import java.util.List;
+
+/**
+ * 一括予約・解除リクエストDTO（1注文分）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkReservationRequest {
+    
+    private String orderId;
+    
+    @NotEmpty(message = "明細は1件以上必要です")
+    private List<@Valid ReservationLine> lines;
+}
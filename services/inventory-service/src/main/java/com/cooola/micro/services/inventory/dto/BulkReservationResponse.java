@@ -0,0 +1,19 @@
+package com.cooola.micro.services.inventory.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 一括予約・解除レスポンスDTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkReservationResponse {
+    
+    private String orderId;
+    private List<InventoryDto> inventories;
+}
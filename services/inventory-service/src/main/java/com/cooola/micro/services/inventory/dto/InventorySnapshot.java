@@ -0,0 +1,22 @@
+package com.cooola.micro.services.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 在庫行の変更後の状態（レポートサービスへの変更通知用）
+ * 削除された在庫行は deleted=true で ID のみを持つ
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventorySnapshot {
+    
+    private Long id;
+    private Long productId;
+    private Long warehouseId;
+    private Integer quantity;
+    private Integer availableQuantity;
+    private boolean deleted;
+}
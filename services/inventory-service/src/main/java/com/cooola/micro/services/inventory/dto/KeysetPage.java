@@ -0,0 +1,20 @@
+package com.cooola.micro.services.inventory.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.List;
+
+/**
+ * キーセットページDTO
+ * nextPageToken は次ページの取得に使う継続トークン（最終ページの場合は null）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KeysetPage<T> {
+    
+    private List<T> items;
+    private String nextPageToken;
+}
@@ -0,0 +1,27 @@
+package com.cooola.micro.services.inventory.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * 一括予約・解除の明細行DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationLine {
+    
+    @NotNull(message = "商品IDは必須です")
+    private Long productId;
+    
+    @NotNull(message = "倉庫IDは必須です")
+    private Long warehouseId;
+    
+    @NotNull(message = "数量は必須です")
+    @Min(value = 1, message = "数量は1以上である必要があります")
+    private Integer quantity;
+}
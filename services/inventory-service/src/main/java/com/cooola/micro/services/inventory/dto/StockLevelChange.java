@@ -0,0 +1,26 @@
+package com.cooola.micro.services.inventory.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 在庫水準変化DTO（利用可能数量が購読した閾値をまたいだことを表す）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockLevelChange {
+    
+    private Long inventoryId;
+    private Long productId;
+    private Long warehouseId;
+    private Integer threshold;
+    private Integer previousAvailableQuantity;
+    private Integer availableQuantity;
+    // true: 閾値以下になった、false: 閾値を上回った（在庫削除時は previousAvailableQuantity のみ設定し availableQuantity は null）
+    private boolean lowStock;
+    private LocalDateTime occurredAt;
+}
@@ -45,6 +45,10 @@ public class Inventory {
     @Column(name = "last_updated")
     private LocalDateTime lastUpdated;
     
+    @Version
+    @Column(nullable = false)
+    private Long version = 0L;
+    
     @PrePersist
     protected void onCreate() {
         lastUpdated = LocalDateTime.now();
@@ -0,0 +1,61 @@
+package com.cooola.micro.services.inventory.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 在庫調整ジャーナルエンティティ（追記専用）
+ * ライトビハインドモードで受け付けた調整を、在庫テーブルへ反映するまで保持する
+ */
+@Entity
+@Table(name = "inventory_adjustment_journal",
+       indexes = @Index(name = "idx_journal_status_id", columnList = "status, id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryJournalEntry {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @NotNull(message = "在庫IDは必須です")
+    @Column(name = "inventory_id", nullable = false)
+    private Long inventoryId;
+    
+    @NotNull(message = "調整数量は必須です")
+    @Column(nullable = false)
+    private Integer delta;
+    
+    @Column(length = 255)
+    private String reason;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private JournalStatus status = JournalStatus.PENDING;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "applied_at")
+    private LocalDateTime appliedAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+    
+    public enum JournalStatus {
+        /** 未反映 */
+        PENDING,
+        /** 反映済み */
+        APPLIED,
+        /** 反映不可（在庫不足・在庫削除） */
+        REJECTED
+    }
+}
@@ -0,0 +1,73 @@
+package com.cooola.micro.services.inventory.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 在庫一括更新リポジトリ
+ * 複数行の条件付き更新を JDBC バッチで1回のラウンドトリップにまとめる
+ */
+@Repository
+@RequiredArgsConstructor
+public class InventoryBatchRepository {
+
+    private static final String RESERVE_SQL =
+            "UPDATE inventory SET reserved_quantity = reserved_quantity + ?, " +
+            "available_quantity = available_quantity - ?, last_updated = ?, version = version + 1 " +
+            "WHERE id = ? AND available_quantity - ? >= ?";
+
+    private static final String RELEASE_SQL =
+            "UPDATE inventory SET reserved_quantity = reserved_quantity - ?, " +
+            "available_quantity = available_quantity + ?, last_updated = ?, version = version + 1 " +
+            "WHERE id = ? AND reserved_quantity >= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * 利用可能数量から未反映の減少数量を除いた数量が足りる行のみ予約を反映
+     * @param quantities 在庫ID → 予約数量
+     * @param held       在庫ID → 在庫行に未反映の減少数量（ライトビハインドの調整。ない行は含めない）
+     * @return 行ごとの更新件数（quantities の反復順）
+     */
+    public int[] reserveAll(Map<Long, Integer> quantities, Map<Long, Integer> held, LocalDateTime now) {
+        Timestamp timestamp = Timestamp.valueOf(now);
+        List<Object[]> args = new ArrayList<>(quantities.size());
+        quantities.forEach((id, quantity) ->
+                args.add(new Object[]{quantity, quantity, timestamp, id, held.getOrDefault(id, 0), quantity}));
+        return batchUpdate(RESERVE_SQL, args);
+    }
+
+    /**
+     * 予約数量が足りる行のみ予約解除を反映
+     * @param quantities 在庫ID → 解除数量
+     * @return 行ごとの更新件数（quantities の反復順）
+     */
+    public int[] releaseAll(Map<Long, Integer> quantities, LocalDateTime now) {
+        Timestamp timestamp = Timestamp.valueOf(now);
+        List<Object[]> args = new ArrayList<>(quantities.size());
+        quantities.forEach((id, quantity) -> args.add(new Object[]{quantity, quantity, timestamp, id, quantity}));
+        return batchUpdate(RELEASE_SQL, args);
+    }
+
+    private int[] batchUpdate(String sql, List<Object[]> args) {
+        // 永続化コンテキストとの整合性を保つ（@Modifying の flush/clear と同等）
+        entityManager.flush();
+
+        int[] counts = jdbcTemplate.batchUpdate(sql, args);
+
+        entityManager.clear();
+        return counts;
+    }
+}
@@ -0,0 +1,39 @@
+package com.cooola.micro.services.inventory.repository;
+
+import com.cooola.micro.services.inventory.model.InventoryJournalEntry;
+import com.cooola.micro.services.inventory.model.InventoryJournalEntry.JournalStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 在庫調整ジャーナルリポジトリ
+ */
+@Repository
+public interface InventoryJournalRepository extends JpaRepository<InventoryJournalEntry, Long> {
+    
+    /**
+     * 指定状態のジャーナルを追記順に取得
+     */
+    List<InventoryJournalEntry> findByStatusOrderByIdAsc(JournalStatus status);
+    
+    /**
+     * ジャーナルの状態を一括更新
+     */
+    @Modifying
+    @Query("UPDATE InventoryJournalEntry e SET e.status = :status, e.appliedAt = :now WHERE e.id IN :ids")
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("status") JournalStatus status, @Param("now") LocalDateTime now);
+    
+    /**
+     * 指定状態以外のジャーナルのうち、指定日時より前のものを削除（コンパクション）
+     */
+    @Modifying
+    @Query("DELETE FROM InventoryJournalEntry e WHERE e.status <> :pending AND e.createdAt < :cutoff")
+    int deleteCompletedBefore(@Param("pending") JournalStatus pending, @Param("cutoff") LocalDateTime cutoff);
+}
@@ -1,13 +1,24 @@
 package com.cooola.micro.services.inventory.repository;
 
 import com.cooola.micro.services.inventory.model.Inventory;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 /**
  * 在庫リポジトリ
@@ -30,6 +41,57 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long> {
      */
     List<Inventory> findByWarehouseId(Long warehouseId);
     
+    /**
+     * 商品IDと倉庫IDの候補で在庫を一括検索（組み合わせの絞り込みは呼び出し側で行う）
+     */
+    List<Inventory> findByProductIdInAndWarehouseIdIn(Collection<Long> productIds, Collection<Long> warehouseIds);
+    
+    /**
+     * 全在庫を (倉庫ID, ID) 順に指定キーの次から取得（キーセットページング）
+     */
+    @Query("SELECT i FROM Inventory i WHERE i.warehouseId > :warehouseId " +
+           "OR (i.warehouseId = :warehouseId AND i.id > :id) ORDER BY i.warehouseId, i.id")
+    List<Inventory> findPageAfter(@Param("warehouseId") Long warehouseId, @Param("id") Long id, Limit limit);
+    
+    /**
+     * 商品IDで在庫を ID 順に指定IDの次から取得（キーセットページング）
+     */
+    List<Inventory> findByProductIdAndIdGreaterThanOrderByIdAsc(Long productId, Long id, Limit limit);
+    
+    /**
+     * 倉庫IDで在庫を ID 順に指定IDの次から取得（キーセットページング）
+     */
+    List<Inventory> findByWarehouseIdAndIdGreaterThanOrderByIdAsc(Long warehouseId, Long id, Limit limit);
+    
+    /**
+     * 在庫不足の商品を (利用可能数量, ID) 順に指定キーの次から取得（キーセットページング）
+     */
+    @Query("SELECT i FROM Inventory i WHERE i.availableQuantity <= :threshold AND (i.availableQuantity > :available " +
+           "OR (i.availableQuantity = :available AND i.id > :id)) ORDER BY i.availableQuantity, i.id")
+    List<Inventory> findLowStockPageAfter(@Param("threshold") Integer threshold, @Param("available") Integer available,
+                                          @Param("id") Long id, Limit limit);
+    
+    /**
+     * 全在庫を ID 順にカーソルで読み出す（エクスポート用）
+     * 呼び出し側のトランザクション内で消費し、読み終えた行は永続化コンテキストから切り離すこと
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT i FROM Inventory i ORDER BY i.id")
+    Stream<Inventory> streamAllByOrderByIdAsc();
+    
+    /**
+     * 利用可能数量が指定値以下の在庫を ID 順にカーソルで読み出す（在庫水準インデックスの構築用）
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT i FROM Inventory i WHERE i.availableQuantity <= :max ORDER BY i.id")
+    Stream<Inventory> streamByAvailableQuantityAtMost(@Param("max") Integer max);
+    
     /**
      * 在庫不足の商品を検索
      */
@@ -52,4 +114,39 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long> {
      * 商品IDと倉庫IDの組み合わせが存在するかチェック
      */
     boolean existsByProductIdAndWarehouseId(Long productId, Long warehouseId);
+    
+    /**
+     * 利用可能数量から未反映の減少数量を除いた数量が予約数量以上の場合のみ予約を反映（条件付き更新）
+     * @param held 在庫行に未反映の減少数量（ライトビハインドの調整）
+     * @return 更新件数（0の場合は在庫不足または在庫なし）
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Inventory i SET i.reservedQuantity = i.reservedQuantity + :quantity, " +
+           "i.availableQuantity = i.availableQuantity - :quantity, " +
+           "i.lastUpdated = :now, i.version = i.version + 1 " +
+           "WHERE i.id = :id AND i.availableQuantity - :held >= :quantity")
+    int reserveIfAvailable(@Param("id") Long id, @Param("quantity") int quantity, @Param("held") int held,
+                           @Param("now") LocalDateTime now);
+    
+    /**
+     * 予約数量が解除数量以上の場合のみ予約解除を反映（条件付き更新）
+     * @return 更新件数（0の場合は予約数量不足または在庫なし）
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Inventory i SET i.reservedQuantity = i.reservedQuantity - :quantity, " +
+           "i.availableQuantity = i.availableQuantity + :quantity, " +
+           "i.lastUpdated = :now, i.version = i.version + 1 " +
+           "WHERE i.id = :id AND i.reservedQuantity >= :quantity")
+    int releaseIfReserved(@Param("id") Long id, @Param("quantity") int quantity, @Param("now") LocalDateTime now);
+    
+    /**
+     * 調整数量を反映（数量・利用可能数量が負にならない場合のみ）
+     * @return 更新件数（0の場合は在庫不足または在庫なし）
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Inventory i SET i.quantity = i.quantity + :delta, " +
+           "i.availableQuantity = i.availableQuantity + :delta, " +
+           "i.lastUpdated = :now, i.version = i.version + 1 " +
+           "WHERE i.id = :id AND i.quantity + :delta >= 0 AND i.availableQuantity + :delta >= 0")
+    int applyAdjustment(@Param("id") Long id, @Param("delta") int delta, @Param("now") LocalDateTime now);
 }
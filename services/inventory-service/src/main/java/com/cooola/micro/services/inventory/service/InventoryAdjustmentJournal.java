@@ -0,0 +1,305 @@
+package com.cooola.micro.services.inventory.service;
+
+import com.cooola.micro.services.inventory.model.Inventory;
+import com.cooola.micro.services.inventory.model.InventoryJournalEntry;
+import com.cooola.micro.services.inventory.model.InventoryJournalEntry.JournalStatus;
+import com.cooola.micro.services.inventory.repository.InventoryJournalRepository;
+import com.cooola.micro.services.inventory.repository.InventoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 在庫調整ジャーナル（ライトビハインド）
+ * 調整をジャーナルテーブルへ追記してメモリ上で畳み込み、一定間隔で在庫行へ差分としてまとめて反映する。
+ * 未反映のジャーナルは起動時に再度畳み込まれるため、クラッシュしても調整は失われない。
+ * 受け付けた減少数量は反映まで予約できる数量から除き、在庫行へ反映できなかった調整はその調整だけを反映不可にして
+ * actuator の metrics（inventory.adjustment.rejected）で数える。
+ * 畳み込み状態はプロセス内に保持するため、ライトビハインドモードは在庫を更新するインスタンスが1つの構成で使用すること。
+ */
+@Component
+@Slf4j
+public class InventoryAdjustmentJournal {
+
+    private final InventoryRepository inventoryRepository;
+    private final InventoryJournalRepository journalRepository;
+    private final InventoryReservationEngine reservationEngine;
+    private final InventoryReadCache readCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final long retentionHours;
+    private final Counter rejectedCounter;
+    private final Map<Long, PendingAdjustment> pending = new ConcurrentHashMap<>();
+
+    public InventoryAdjustmentJournal(InventoryRepository inventoryRepository,
+                                      InventoryJournalRepository journalRepository,
+                                      InventoryReservationEngine reservationEngine,
+                                      InventoryReadCache readCache,
+                                      ApplicationEventPublisher eventPublisher,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${inventory.adjustment.write-behind.enabled:false}") boolean enabled,
+                                      @Value("${inventory.adjustment.write-behind.retention-hours:24}") long retentionHours,
+                                      ObjectProvider<MeterRegistry> meterRegistry) {
+        this.inventoryRepository = inventoryRepository;
+        this.journalRepository = journalRepository;
+        this.reservationEngine = reservationEngine;
+        this.readCache = readCache;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.retentionHours = retentionHours;
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        this.rejectedCounter = registry == null ? null : Counter.builder("inventory.adjustment.rejected")
+                .description("Write-behind inventory adjustments that could not be applied")
+                .register(registry);
+    }
+
+    /**
+     * ライトビハインドモードが有効か
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 調整をジャーナルに追記（呼び出し側のトランザクションのコミット後に畳み込まれる）
+     * @return 追記した調整を含む畳み込み後の差分
+     * @throws IllegalArgumentException 畳み込み後の利用可能数量が不足する場合
+     */
+    public int append(Inventory inventory, int delta, String reason) {
+        Long id = inventory.getId();
+        PendingAdjustment adjustment = pending.computeIfAbsent(id, key -> new PendingAdjustment());
+        int folded;
+        synchronized (adjustment) {
+            // 未コミットの減少分も含めて判定し、同時調整による在庫不足を防ぐ
+            long available = inventory.getAvailableQuantity() + adjustment.pendingDelta() + adjustment.uncommittedDecrease;
+            if (delta < 0 && available + delta < 0) {
+                throw new IllegalArgumentException("在庫不足のため調整できません");
+            }
+            if (delta < 0) {
+                adjustment.uncommittedDecrease += delta;
+            }
+            folded = (int) adjustment.pendingDelta() + delta;
+        }
+        if (delta < 0) {
+            reservationEngine.hold(id, -delta);
+        }
+
+        InventoryJournalEntry entry = new InventoryJournalEntry();
+        entry.setInventoryId(id);
+        entry.setDelta(delta);
+        entry.setReason(reason);
+        Long journalId = journalRepository.save(entry).getId();
+
+        TransactionCallbacks.afterCompletion(committed -> {
+            synchronized (adjustment) {
+                if (delta < 0) {
+                    adjustment.uncommittedDecrease -= delta;
+                }
+                if (committed) {
+                    adjustment.committedDelta += delta;
+                    adjustment.entries.add(new JournalDelta(journalId, delta));
+                }
+            }
+            if (!committed && delta < 0) {
+                reservationEngine.unhold(id, -delta);
+            }
+        });
+        return folded;
+    }
+
+    /**
+     * 未反映の差分を取得（読み取り時に在庫行へ重ねて表示するため）
+     */
+    public int getPendingDelta(Long id) {
+        PendingAdjustment adjustment = pending.get(id);
+        if (adjustment == null) {
+            return 0;
+        }
+        synchronized (adjustment) {
+            return (int) adjustment.pendingDelta();
+        }
+    }
+
+    /**
+     * 畳み込んだ差分を在庫行へ反映
+     */
+    @Scheduled(fixedDelayString = "${inventory.adjustment.write-behind.flush-interval-ms:500}")
+    public synchronized void flush() {
+        pending.forEach(this::flush);
+    }
+
+    /**
+     * 起動時に未反映のジャーナルを再度畳み込む（クラッシュリカバリ）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void replay() {
+        List<InventoryJournalEntry> entries = journalRepository.findByStatusOrderByIdAsc(JournalStatus.PENDING);
+        if (entries.isEmpty()) {
+            return;
+        }
+        log.info("未反映の在庫調整ジャーナルを再適用: 件数={}", entries.size());
+        // 起動後すでに畳み込まれたジャーナルは二重に数えない
+        Set<Long> folded = new HashSet<>();
+        pending.values().forEach(adjustment -> {
+            synchronized (adjustment) {
+                adjustment.entries.forEach(entry -> folded.add(entry.journalId()));
+            }
+        });
+        for (InventoryJournalEntry entry : entries) {
+            PendingAdjustment adjustment = pending.computeIfAbsent(entry.getInventoryId(), key -> new PendingAdjustment());
+            synchronized (adjustment) {
+                if (!folded.contains(entry.getId())) {
+                    adjustment.committedDelta += entry.getDelta();
+                    adjustment.entries.add(new JournalDelta(entry.getId(), entry.getDelta()));
+                    if (entry.getDelta() < 0) {
+                        reservationEngine.hold(entry.getInventoryId(), -entry.getDelta());
+                    }
+                }
+            }
+        }
+        flush();
+    }
+
+    /**
+     * 反映済みのジャーナルを削除（コンパクション）
+     */
+    @Scheduled(fixedDelayString = "${inventory.adjustment.write-behind.compaction-interval-ms:3600000}")
+    public void compact() {
+        Integer deleted = transactionTemplate.execute(status ->
+                journalRepository.deleteCompletedBefore(JournalStatus.PENDING, LocalDateTime.now().minusHours(retentionHours)));
+        if (deleted != null && deleted > 0) {
+            log.info("在庫調整ジャーナルをコンパクション: 削除件数={}", deleted);
+        }
+    }
+
+    private void flush(Long id, PendingAdjustment adjustment) {
+        long delta;
+        List<JournalDelta> entries;
+        synchronized (adjustment) {
+            if (adjustment.entries.isEmpty()) {
+                return;
+            }
+            delta = adjustment.committedDelta;
+            entries = adjustment.entries;
+            adjustment.flushingDelta = delta;
+            adjustment.committedDelta = 0;
+            adjustment.entries = new ArrayList<>();
+        }
+
+        try {
+            List<JournalDelta> rejected = transactionTemplate.execute(status -> {
+                List<JournalDelta> result = apply(id, delta, entries, LocalDateTime.now());
+                reservationEngine.invalidate(id);
+                return result;
+            });
+            if (!rejected.isEmpty()) {
+                log.warn("在庫調整を反映できません（在庫不足または在庫なし）: ID={}, 反映不可={}", id, rejected);
+                if (rejectedCounter != null) {
+                    rejectedCounter.increment(rejected.size());
+                }
+            }
+            // 反映した・反映できなかった減少数量を予約できる数量へ戻す
+            int decrease = 0;
+            for (JournalDelta entry : entries) {
+                decrease -= Math.min(entry.delta(), 0);
+            }
+            if (decrease > 0) {
+                reservationEngine.unhold(id, decrease);
+            }
+            log.debug("在庫調整反映完了: ID={}, 差分={}, ジャーナル件数={}", id, delta, entries.size());
+        } catch (RuntimeException e) {
+            // 次回の反映で再試行する
+            synchronized (adjustment) {
+                adjustment.committedDelta += delta;
+                adjustment.entries.addAll(0, entries);
+            }
+            log.error("在庫調整の反映に失敗: ID={}, 差分={}", id, delta, e);
+        } finally {
+            synchronized (adjustment) {
+                adjustment.flushingDelta = 0;
+            }
+        }
+        // 反映中の差分を戻した後に通知する（コミット直後に読み込むと差分が二重に重なるため）
+        readCache.invalidate(id);
+        eventPublisher.publishEvent(new InventoryChangedEvent(List.of(id)));
+    }
+
+    /**
+     * 調整を在庫行へ反映し、ジャーナルの状態を更新する
+     * 通常は差分の合計を1回で反映する。在庫不足で反映できない場合は増加分をまとめて反映した後に減少分を追記順に1件ずつ反映し、
+     * 反映できない減少分（在庫行が削除されている場合はすべて）だけを反映不可にする
+     * @return 反映できなかった調整
+     */
+    private List<JournalDelta> apply(Long id, long delta, List<JournalDelta> entries, LocalDateTime now) {
+        if (delta == 0 || inventoryRepository.applyAdjustment(id, (int) delta, now) == 1) {
+            journalRepository.updateStatus(entries.stream().map(JournalDelta::journalId).toList(), JournalStatus.APPLIED, now);
+            return List.of();
+        }
+
+        long increase = 0;
+        for (JournalDelta entry : entries) {
+            increase += Math.max(entry.delta(), 0);
+        }
+        boolean exists = increase == 0 || inventoryRepository.applyAdjustment(id, (int) increase, now) == 1;
+        List<Long> applied = new ArrayList<>();
+        List<JournalDelta> rejected = new ArrayList<>();
+        for (JournalDelta entry : entries) {
+            boolean ok = entry.delta() >= 0 ? exists
+                    : exists && inventoryRepository.applyAdjustment(id, entry.delta(), now) == 1;
+            if (ok) {
+                applied.add(entry.journalId());
+            } else {
+                rejected.add(entry);
+            }
+        }
+        if (!applied.isEmpty()) {
+            journalRepository.updateStatus(applied, JournalStatus.APPLIED, now);
+        }
+        if (!rejected.isEmpty()) {
+            journalRepository.updateStatus(rejected.stream().map(JournalDelta::journalId).toList(), JournalStatus.REJECTED, now);
+        }
+        return rejected;
+    }
+
+    /**
+     * 在庫行ごとの未反映の調整（すべて this で同期する）
+     */
+    private static final class PendingAdjustment {
+        private long committedDelta;
+        private long flushingDelta;
+        private long uncommittedDecrease;
+        private List<JournalDelta> entries = new ArrayList<>();
+
+        /**
+         * 在庫行にまだ反映されていない差分（反映処理中の分を含む）
+         */
+        long pendingDelta() {
+            return committedDelta + flushingDelta;
+        }
+    }
+
+    /**
+     * 畳み込んだ調整1件分
+     */
+    private record JournalDelta(Long journalId, int delta) {
+    }
+}
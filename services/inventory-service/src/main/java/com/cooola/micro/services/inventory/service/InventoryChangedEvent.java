@@ -0,0 +1,13 @@
+package com.cooola.micro.services.inventory.service;
+
+import java.util.Collection;
+
+/**
+ * 在庫変更イベント
+ * 在庫行の数量が変わる処理（作成・更新・調整・予約・解除・削除・ライトビハインドの反映）ごとに発行する。
+ * トランザクション中に発行した場合、リスナーはコミット後に変更後の状態を読み直すこと。
+ *
+ * @param inventoryIds 変更された在庫ID
+ */
+public record InventoryChangedEvent(Collection<Long> inventoryIds) {
+}
@@ -0,0 +1,105 @@
+package com.cooola.micro.services.inventory.service;
+
+import com.cooola.micro.services.inventory.dto.InventoryDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 在庫エクスポート
+ * 在庫をカーソルから読み出した順に出力ストリームへ書き出す（全件をメモリに載せない）
+ */
+@Component
+@RequiredArgsConstructor
+public class InventoryExporter {
+
+    public static final String NDJSON = "application/x-ndjson";
+    public static final String CSV = "text/csv";
+
+    private static final String CSV_HEADER =
+            "id,product_id,warehouse_id,quantity,reserved_quantity,available_quantity,last_updated";
+    private static final int FLUSH_EVERY = 1000;
+
+    private final InventoryService inventoryService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * NDJSON（1行1在庫）で書き出す
+     * @return 出力件数
+     */
+    public long writeNdjson(OutputStream out) throws IOException {
+        ObjectWriter jsonWriter = objectMapper.writerFor(InventoryDto.class);
+        return write(out, null, (writer, inventory) -> {
+            writer.write(jsonWriter.writeValueAsString(inventory));
+            writer.write('\n');
+        });
+    }
+
+    /**
+     * CSV（ヘッダー行付き）で書き出す
+     * @return 出力件数
+     */
+    public long writeCsv(OutputStream out) throws IOException {
+        return write(out, CSV_HEADER, this::writeCsvRow);
+    }
+
+    private long write(OutputStream out, String header, RowWriter rowWriter) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (header != null) {
+            writer.write(header);
+            writer.write('\n');
+        }
+        try {
+            long[] written = {0};
+            inventoryService.forEachInventory(inventory -> {
+                try {
+                    rowWriter.write(writer, inventory);
+                    // 先頭バイトを早く返し、クライアント側でも逐次処理できるよう定期的に送出する
+                    if (++written[0] % FLUSH_EVERY == 0) {
+                        writer.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+            return written[0];
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void writeCsvRow(Writer writer, InventoryDto inventory) throws IOException {
+        // 数値と日時のみのため引用符によるエスケープは不要
+        writer.write(String.valueOf(inventory.getId()));
+        writer.write(',');
+        writer.write(String.valueOf(inventory.getProductId()));
+        writer.write(',');
+        writer.write(String.valueOf(inventory.getWarehouseId()));
+        writer.write(',');
+        writer.write(String.valueOf(inventory.getQuantity()));
+        writer.write(',');
+        writer.write(String.valueOf(inventory.getReservedQuantity()));
+        writer.write(',');
+        writer.write(String.valueOf(inventory.getAvailableQuantity()));
+        writer.write(',');
+        if (inventory.getLastUpdated() != null) {
+            writer.write(inventory.getLastUpdated().toString());
+        }
+        writer.write('\n');
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(Writer writer, InventoryDto inventory) throws IOException;
+    }
+}
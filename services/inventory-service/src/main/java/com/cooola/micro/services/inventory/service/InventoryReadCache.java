@@ -0,0 +1,113 @@
+package com.cooola.micro.services.inventory.service;
+
+import com.cooola.micro.services.inventory.dto.InventoryDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 在庫読み取りキャッシュ（商品ID・倉庫ID → 在庫DTO）
+ * 件数と有効期限で追い出す。在庫を変更する処理は即時とトランザクション完了時の2回破棄し、
+ * 読み込み中にその在庫行が破棄された場合は読み込んだ値を格納したままにしないため、変更前の値が残り続けることはない。
+ * ヒット・ミス・追い出しの件数は actuator の metrics（cache.gets・cache.evictions, cache=inventory）で参照できる。
+ */
+@Component
+@Slf4j
+public class InventoryReadCache {
+
+    private static final String CACHE_NAME = "inventory";
+
+    private final Cache<Key, Optional<InventoryDto>> cache;
+    // 在庫ID から商品ID・倉庫IDへの対応（ID 指定の破棄に使う）
+    private final Map<Long, Key> keysById = new ConcurrentHashMap<>();
+    // 破棄の通番
+    private final AtomicLong sequence = new AtomicLong();
+    // 対応がない（読み込み中の可能性がある）在庫行を破棄したときの通番（読み込んだ値を格納したままにするかの判定に使う）
+    private final Cache<Long, Long> evictedAt;
+
+    public InventoryReadCache(@Value("${inventory.cache.maximum-size:10000}") long maximumSize,
+                              @Value("${inventory.cache.ttl-ms:30000}") long ttlMillis,
+                              ObjectProvider<MeterRegistry> meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                // 明示的な破棄では破棄する側が対応を削除し、追い出し時はここで同期的に削除する
+                .evictionListener((Key key, Optional<InventoryDto> value, RemovalCause cause) ->
+                        value.ifPresent(dto -> keysById.remove(dto.getId(), key)))
+                .recordStats()
+                .build();
+        // 読み込みが有効期限より長くかかることはない（かかった場合も格納した値は有効期限で追い出される）
+        this.evictedAt = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                .build();
+        meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME));
+    }
+
+    /**
+     * キャッシュから取得し、なければ読み込んで格納する（同一キーの同時読み込みは1回にまとめる）
+     * 在庫が存在しない結果も短期間キャッシュし、存在しない組み合わせへの繰り返し問い合わせを DB に届かせない
+     */
+    public Optional<InventoryDto> get(Long productId, Long warehouseId, Supplier<Optional<InventoryDto>> loader) {
+        Key key = new Key(productId, warehouseId);
+        long[] loadedAt = {-1};
+        Optional<InventoryDto> value = cache.get(key, k -> {
+            loadedAt[0] = sequence.get();
+            Optional<InventoryDto> loaded = loader.get();
+            loaded.ifPresent(dto -> keysById.put(dto.getId(), k));
+            return loaded;
+        });
+        if (loadedAt[0] >= 0 && value.isPresent()) {
+            Long evicted = evictedAt.getIfPresent(value.get().getId());
+            if (evicted != null && evicted > loadedAt[0]) {
+                // 読み込み中にこの在庫行が破棄された（変更前の値を読んだ可能性がある）ため、格納した値を取り除く
+                cache.asMap().remove(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 在庫IDを指定して破棄（トランザクション中であれば完了時にも破棄する）
+     */
+    public void invalidate(Long id) {
+        evict(id);
+        TransactionCallbacks.afterCompletion(committed -> evict(id));
+    }
+
+    /**
+     * 商品ID・倉庫IDを指定して破棄（在庫作成時など、存在しない結果がキャッシュされている可能性がある場合）
+     */
+    public void invalidate(Long productId, Long warehouseId) {
+        // 読み込み中のキーの破棄は読み込みの完了を待って行われるため、通番は記録しない
+        Key key = new Key(productId, warehouseId);
+        cache.invalidate(key);
+        TransactionCallbacks.afterCompletion(committed -> cache.invalidate(key));
+    }
+
+    private void evict(Long id) {
+        long evicted = sequence.incrementAndGet();
+        Key key = keysById.remove(id);
+        if (key != null) {
+            cache.invalidate(key);
+            log.debug("在庫読み取りキャッシュ破棄: ID={}, 商品ID={}, 倉庫ID={}", id, key.productId(), key.warehouseId());
+        } else {
+            evictedAt.put(id, evicted);
+        }
+    }
+
+    private record Key(Long productId, Long warehouseId) {
+    }
+}
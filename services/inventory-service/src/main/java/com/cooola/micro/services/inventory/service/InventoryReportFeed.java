@@ -0,0 +1,113 @@
+package com.cooola.micro.services.inventory.service;
+
+import com.cooola.micro.services.inventory.client.ReportClient;
+import com.cooola.micro.services.inventory.dto.InventoryDto;
+import com.cooola.micro.services.inventory.dto.InventorySnapshot;
+import com.cooola.micro.services.inventory.model.Inventory;
+import com.cooola.micro.services.inventory.repository.InventoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * レポートサービスへの在庫変更フィード
+ * コミット済みの変更を在庫ID単位で束ね、一定間隔で変更後の状態をまとめて通知する。
+ * 通知に失敗した在庫IDは次回に再送する（通知は状態そのものなので重複しても集計結果は変わらない）。
+ */
+@Component
+@Slf4j
+public class InventoryReportFeed {
+    
+    private final InventoryRepository inventoryRepository;
+    private final InventoryAdjustmentJournal adjustmentJournal;
+    private final ReportClient reportClient;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final int batchSize;
+    
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+    
+    public InventoryReportFeed(InventoryRepository inventoryRepository,
+                               InventoryAdjustmentJournal adjustmentJournal,
+                               ReportClient reportClient,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${inventory.report-feed.enabled:true}") boolean enabled,
+                               @Value("${inventory.report-feed.batch-size:500}") int batchSize) {
+        this.inventoryRepository = inventoryRepository;
+        this.adjustmentJournal = adjustmentJournal;
+        this.reportClient = reportClient;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+    
+    /**
+     * 在庫変更イベントを受け付ける（トランザクション中に発行された場合はコミット後に実行される）
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        if (enabled) {
+            pending.addAll(event.inventoryIds());
+        }
+    }
+    
+    /**
+     * 未通知の変更をレポートサービスへ送信
+     */
+    @Scheduled(fixedDelayString = "${inventory.report-feed.interval-ms:1000}")
+    public synchronized void publish() {
+        while (!pending.isEmpty()) {
+            List<Long> ids = drain();
+            try {
+                reportClient.publishInventoryChanges(snapshots(ids));
+            } catch (RuntimeException e) {
+                pending.addAll(ids);
+                log.warn("レポートサービスへの在庫変更通知に失敗（次回再送）: 在庫行数={}, 原因={}", pending.size(), e.getMessage());
+                return;
+            }
+        }
+    }
+    
+    private List<Long> drain() {
+        List<Long> ids = new ArrayList<>(Math.min(batchSize, pending.size()));
+        Iterator<Long> iterator = pending.iterator();
+        while (iterator.hasNext() && ids.size() < batchSize) {
+            ids.add(iterator.next());
+            iterator.remove();
+        }
+        return ids;
+    }
+    
+    private List<InventorySnapshot> snapshots(List<Long> ids) {
+        Map<Long, Inventory> current = readOnlyTransaction.execute(status -> inventoryRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Inventory::getId, Function.identity())));
+        List<InventorySnapshot> snapshots = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Inventory inventory = current.get(id);
+            if (inventory == null) {
+                snapshots.add(new InventorySnapshot(id, null, null, null, null, true));
+            } else {
+                InventoryDto dto = InventoryService.convertToDto(inventory, adjustmentJournal.getPendingDelta(id));
+                snapshots.add(new InventorySnapshot(id, dto.getProductId(), dto.getWarehouseId(),
+                        dto.getQuantity(), dto.getAvailableQuantity(), false));
+            }
+        }
+        return snapshots;
+    }
+}
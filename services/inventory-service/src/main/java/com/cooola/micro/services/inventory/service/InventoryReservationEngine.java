@@ -0,0 +1,280 @@
+package com.cooola.micro.services.inventory.service;
+
+import com.cooola.micro.services.inventory.model.Inventory;
+import com.cooola.micro.services.inventory.repository.InventoryBatchRepository;
+import com.cooola.micro.services.inventory.repository.InventoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 在庫予約エンジン
+ * 在庫行（商品ID・倉庫IDの組み合わせ）ごとのインメモリ台帳で在庫不足を即時判定し、
+ * 利用可能数量を条件とした UPDATE で DB に反映する。
+ * 台帳は DB へのアクセスを減らすための前段であり、超過予約の最終防止は条件付き更新が担う。
+ * ライトビハインドで受け付けた在庫行に未反映の減少数量は、台帳・条件付き更新のどちらでも予約できる数量から除く。
+ */
+@Component
+@Slf4j
+public class InventoryReservationEngine {
+
+    private final InventoryRepository inventoryRepository;
+    private final InventoryBatchRepository inventoryBatchRepository;
+    private final long ledgerTtlNanos;
+    private final Map<Long, LedgerSlot> ledger = new ConcurrentHashMap<>();
+    // 在庫ID → 在庫行に未反映の減少数量
+    private final Map<Long, Integer> held = new ConcurrentHashMap<>();
+
+    public InventoryReservationEngine(InventoryRepository inventoryRepository,
+                                      InventoryBatchRepository inventoryBatchRepository,
+                                      @Value("${inventory.reservation.ledger-ttl-ms:1000}") long ledgerTtlMillis) {
+        this.inventoryRepository = inventoryRepository;
+        this.inventoryBatchRepository = inventoryBatchRepository;
+        this.ledgerTtlNanos = TimeUnit.MILLISECONDS.toNanos(ledgerTtlMillis);
+    }
+
+    /**
+     * 在庫を予約
+     * @return 予約後の在庫（在庫が存在しない場合は空）
+     * @throws IllegalArgumentException 在庫不足の場合
+     */
+    public Optional<Inventory> reserve(Long id, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("予約数量は1以上である必要があります");
+        }
+
+        LedgerSlot slot = acquire(id, quantity);
+        if (slot == null) {
+            return Optional.empty();
+        }
+
+        int updated = inventoryRepository.reserveIfAvailable(id, quantity, held.getOrDefault(id, 0), LocalDateTime.now());
+        if (updated == 0) {
+            // 台帳が DB より多く見積もっていたため、戻して再読み込みさせる
+            slot.release(quantity);
+            ledger.remove(id, slot);
+            if (!inventoryRepository.existsById(id)) {
+                return Optional.empty();
+            }
+            throw new IllegalArgumentException("在庫不足のため予約できません");
+        }
+
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (!committed) {
+                slot.release(quantity);
+            }
+        });
+        return inventoryRepository.findById(id);
+    }
+
+    /**
+     * 予約を解除
+     * @return 解除後の在庫（在庫が存在しない場合は空）
+     * @throws IllegalArgumentException 予約数量不足の場合
+     */
+    public Optional<Inventory> release(Long id, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("解除数量は1以上である必要があります");
+        }
+
+        int updated = inventoryRepository.releaseIfReserved(id, quantity, LocalDateTime.now());
+        if (updated == 0) {
+            if (!inventoryRepository.existsById(id)) {
+                return Optional.empty();
+            }
+            throw new IllegalArgumentException("予約数量不足のため解除できません");
+        }
+
+        // 解除分はコミット後に台帳へ戻す（ロールバック時に超過予約を許さないため）
+        TransactionCallbacks.afterCompletion(committed -> {
+            LedgerSlot slot = ledger.get(id);
+            if (committed && slot != null) {
+                slot.release(quantity);
+            }
+        });
+        return inventoryRepository.findById(id);
+    }
+
+    /**
+     * 複数行をまとめて予約（全行成功または全行失敗）
+     * 呼び出し側のトランザクション内で実行し、失敗時は例外によりロールバックさせる
+     * @param quantities 在庫ID → 予約数量（ロック順序を揃えるため ID 昇順で渡す）
+     * @throws IllegalArgumentException いずれかの行が在庫不足または存在しない場合
+     */
+    public void reserveAll(Map<Long, Integer> quantities) {
+        List<Map.Entry<LedgerSlot, Integer>> acquired = new ArrayList<>(quantities.size());
+        try {
+            quantities.forEach((id, quantity) -> {
+                if (quantity <= 0) {
+                    throw new IllegalArgumentException("予約数量は1以上である必要があります: ID=" + id);
+                }
+                LedgerSlot slot = acquire(id, quantity);
+                if (slot == null) {
+                    throw new IllegalArgumentException("在庫が見つかりません: ID=" + id);
+                }
+                acquired.add(Map.entry(slot, quantity));
+            });
+        } catch (IllegalArgumentException e) {
+            acquired.forEach(entry -> entry.getKey().release(entry.getValue()));
+            throw e;
+        }
+
+        // 行ごとの更新件数で成否を判定するため、rewriteBatchedStatements（件数が返らない）は有効にしないこと
+        int[] counts = inventoryBatchRepository.reserveAll(quantities, held, LocalDateTime.now());
+        List<Long> ids = new ArrayList<>(quantities.keySet());
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 1) {
+                // 台帳が DB より多く見積もっていた行がある。全行を戻し、該当行は再読み込みさせる
+                acquired.forEach(entry -> entry.getKey().release(entry.getValue()));
+                ledger.remove(ids.get(i));
+                throw new IllegalArgumentException("在庫不足のため予約できません: ID=" + ids.get(i));
+            }
+        }
+
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (!committed) {
+                acquired.forEach(entry -> entry.getKey().release(entry.getValue()));
+            }
+        });
+    }
+
+    /**
+     * 複数行の予約をまとめて解除（全行成功または全行失敗）
+     * @param quantities 在庫ID → 解除数量（ロック順序を揃えるため ID 昇順で渡す）
+     * @throws IllegalArgumentException いずれかの行が予約数量不足の場合
+     */
+    public void releaseAll(Map<Long, Integer> quantities) {
+        quantities.forEach((id, quantity) -> {
+            if (quantity <= 0) {
+                throw new IllegalArgumentException("解除数量は1以上である必要があります: ID=" + id);
+            }
+        });
+
+        int[] counts = inventoryBatchRepository.releaseAll(quantities, LocalDateTime.now());
+        List<Long> ids = new ArrayList<>(quantities.keySet());
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 1) {
+                throw new IllegalArgumentException("予約数量不足のため解除できません: ID=" + ids.get(i));
+            }
+        }
+
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (committed) {
+                quantities.forEach((id, quantity) -> {
+                    LedgerSlot slot = ledger.get(id);
+                    if (slot != null) {
+                        slot.release(quantity);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 台帳のエントリを破棄（予約以外の経路で数量が変わった場合に呼び出す）
+     * トランザクション中であれば完了時に破棄する
+     */
+    public void invalidate(Long id) {
+        ledger.remove(id);
+        TransactionCallbacks.afterCompletion(committed -> ledger.remove(id));
+    }
+
+    /**
+     * 在庫行に未反映の減少数量を予約できる数量から除く（ライトビハインドで減少の調整を受け付けた場合）
+     */
+    public void hold(Long id, int quantity) {
+        held.merge(id, quantity, Integer::sum);
+        LedgerSlot slot = ledger.get(id);
+        if (slot != null) {
+            slot.release(-quantity);
+        }
+    }
+
+    /**
+     * 除いていた減少数量を戻す（在庫行へ反映した・反映できなかった・ロールバックされた場合）
+     * 台帳のエントリは破棄し、在庫行から読み直させる
+     */
+    public void unhold(Long id, int quantity) {
+        held.computeIfPresent(id, (key, current) -> current == quantity ? null : current - quantity);
+        ledger.remove(id);
+    }
+
+    /**
+     * 台帳から数量を確保する。台帳上で不足し、かつエントリが古い場合は DB から再読み込みして一度だけ再試行する
+     * @return 確保したエントリ（在庫が存在しない場合は null）
+     */
+    private LedgerSlot acquire(Long id, int quantity) {
+        LedgerSlot slot = loadSlot(id);
+        if (slot == null) {
+            return null;
+        }
+        if (slot.tryAcquire(quantity)) {
+            return slot;
+        }
+
+        if (System.nanoTime() - slot.loadedAt < ledgerTtlNanos) {
+            throw new IllegalArgumentException("在庫不足のため予約できません");
+        }
+
+        ledger.remove(id, slot);
+        slot = loadSlot(id);
+        if (slot == null) {
+            return null;
+        }
+        if (!slot.tryAcquire(quantity)) {
+            throw new IllegalArgumentException("在庫不足のため予約できません");
+        }
+        return slot;
+    }
+
+    private LedgerSlot loadSlot(Long id) {
+        LedgerSlot slot = ledger.get(id);
+        if (slot != null) {
+            return slot;
+        }
+        return ledger.computeIfAbsent(id, key -> inventoryRepository.findById(key)
+                .map(inventory -> {
+                    int available = inventory.getAvailableQuantity() - held.getOrDefault(key, 0);
+                    log.debug("予約台帳読み込み: ID={}, 利用可能数量={}", key, available);
+                    return new LedgerSlot(available);
+                })
+                .orElse(null));
+    }
+
+    /**
+     * 台帳エントリ（1在庫行分の利用可能数量）
+     */
+    private static final class LedgerSlot {
+        private final AtomicInteger available;
+        private final long loadedAt = System.nanoTime();
+
+        LedgerSlot(int available) {
+            this.available = new AtomicInteger(available);
+        }
+
+        boolean tryAcquire(int quantity) {
+            while (true) {
+                int current = available.get();
+                if (current < quantity) {
+                    return false;
+                }
+                if (available.compareAndSet(current, current - quantity)) {
+                    return true;
+                }
+            }
+        }
+
+        void release(int quantity) {
+            available.addAndGet(quantity);
+        }
+    }
+}
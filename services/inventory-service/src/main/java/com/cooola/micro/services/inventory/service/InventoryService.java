@@ -1,19 +1,38 @@
 package com.cooola.micro.services.inventory.service;
 
+import com.cooola.micro.services.inventory.dto.BulkReservationRequest;
+import com.cooola.micro.services.inventory.dto.BulkReservationResponse;
 import com.cooola.micro.services.inventory.dto.CreateInventoryRequest;
 import com.cooola.micro.services.inventory.dto.UpdateInventoryRequest;
 import com.cooola.micro.services.inventory.dto.InventoryAdjustmentRequest;
 import com.cooola.micro.services.inventory.dto.InventoryDto;
+import com.cooola.micro.services.inventory.dto.KeysetPage;
+import com.cooola.micro.services.inventory.dto.ReservationLine;
+import com.cooola.micro.services.inventory.dto.StockLevelChange;
 import com.cooola.micro.services.inventory.model.Inventory;
 import com.cooola.micro.services.inventory.repository.InventoryRepository;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * 在庫サービス
@@ -25,6 +44,12 @@ import java.util.stream.Collectors;
 public class InventoryService {
     
     private final InventoryRepository inventoryRepository;
+    private final InventoryReservationEngine reservationEngine;
+    private final InventoryAdjustmentJournal adjustmentJournal;
+    private final InventoryReadCache readCache;
+    private final InventoryStockIndex stockIndex;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
     
     /**
      * 在庫を作成
@@ -44,6 +69,8 @@ public class InventoryService {
         inventory.setReservedQuantity(request.getReservedQuantity());
         
         Inventory savedInventory = inventoryRepository.save(inventory);
+        readCache.invalidate(savedInventory.getProductId(), savedInventory.getWarehouseId());
+        changed(savedInventory.getId());
         log.info("在庫作成完了: ID={}", savedInventory.getId());
         
         return convertToDto(savedInventory);
@@ -64,40 +91,64 @@ public class InventoryService {
     @Transactional(readOnly = true)
     public Optional<InventoryDto> getInventoryByProductAndWarehouse(Long productId, Long warehouseId) {
         log.info("在庫取得リクエスト: 商品ID={}, 倉庫ID={}", productId, warehouseId);
-        return inventoryRepository.findByProductIdAndWarehouseId(productId, warehouseId).map(this::convertToDto);
+        return readCache.get(productId, warehouseId, () ->
+                inventoryRepository.findByProductIdAndWarehouseId(productId, warehouseId).map(this::convertToDto));
     }
     
     /**
-     * 全在庫を取得
+     * 全在庫を (倉庫ID, ID) 順にページ単位で取得
+     * @param pageToken 前ページの継続トークン（先頭ページの場合は null）
      */
     @Transactional(readOnly = true)
-    public List<InventoryDto> getAllInventories() {
-        log.info("全在庫取得リクエスト");
-        return inventoryRepository.findAll().stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    public KeysetPage<InventoryDto> getAllInventories(String pageToken, int limit) {
+        log.info("全在庫取得リクエスト: 取得件数={}", limit);
+        long[] after = pageToken == null ? new long[]{Long.MIN_VALUE, Long.MIN_VALUE} : PageTokens.decode(pageToken, 2);
+        List<Inventory> inventories = inventoryRepository.findPageAfter(after[0], after[1], Limit.of(PageTokens.checkLimit(limit) + 1));
+        return toPage(inventories, limit, last -> PageTokens.encode(last.getWarehouseId(), last.getId()));
     }
     
     /**
-     * 商品IDで在庫リストを取得
+     * 全在庫を ID 順に1件ずつ処理（エクスポート用）
+     * カーソルで読み出し、処理済みの行は永続化コンテキストから切り離すため、件数に関わらずメモリ使用量は一定
+     * @return 処理件数
      */
     @Transactional(readOnly = true)
-    public List<InventoryDto> getInventoriesByProduct(Long productId) {
-        log.info("商品ID別在庫取得リクエスト: 商品ID={}", productId);
-        return inventoryRepository.findByProductId(productId).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    public long forEachInventory(Consumer<InventoryDto> action) {
+        log.info("全在庫エクスポートリクエスト");
+        long count = 0;
+        try (Stream<Inventory> inventories = inventoryRepository.streamAllByOrderByIdAsc()) {
+            Iterator<Inventory> iterator = inventories.iterator();
+            while (iterator.hasNext()) {
+                Inventory inventory = iterator.next();
+                action.accept(convertToDto(inventory));
+                entityManager.detach(inventory);
+                count++;
+            }
+        }
+        log.info("全在庫エクスポート完了: 件数={}", count);
+        return count;
     }
     
     /**
-     * 倉庫IDで在庫リストを取得
+     * 商品IDで在庫を ID 順にページ単位で取得
      */
     @Transactional(readOnly = true)
-    public List<InventoryDto> getInventoriesByWarehouse(Long warehouseId) {
-        log.info("倉庫ID別在庫取得リクエスト: 倉庫ID={}", warehouseId);
-        return inventoryRepository.findByWarehouseId(warehouseId).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    public KeysetPage<InventoryDto> getInventoriesByProduct(Long productId, String pageToken, int limit) {
+        log.info("商品ID別在庫取得リクエスト: 商品ID={}, 取得件数={}", productId, limit);
+        List<Inventory> inventories = inventoryRepository.findByProductIdAndIdGreaterThanOrderByIdAsc(
+                productId, afterId(pageToken), Limit.of(PageTokens.checkLimit(limit) + 1));
+        return toPage(inventories, limit, last -> PageTokens.encode(last.getId()));
+    }
+    
+    /**
+     * 倉庫IDで在庫を ID 順にページ単位で取得
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<InventoryDto> getInventoriesByWarehouse(Long warehouseId, String pageToken, int limit) {
+        log.info("倉庫ID別在庫取得リクエスト: 倉庫ID={}, 取得件数={}", warehouseId, limit);
+        List<Inventory> inventories = inventoryRepository.findByWarehouseIdAndIdGreaterThanOrderByIdAsc(
+                warehouseId, afterId(pageToken), Limit.of(PageTokens.checkLimit(limit) + 1));
+        return toPage(inventories, limit, last -> PageTokens.encode(last.getId()));
     }
     
     /**
@@ -115,6 +166,8 @@ public class InventoryService {
             }
             
             Inventory updatedInventory = inventoryRepository.save(inventory);
+            reservationEngine.invalidate(id);
+            changed(id);
             log.info("在庫更新完了: ID={}", updatedInventory.getId());
             
             return convertToDto(updatedInventory);
@@ -129,6 +182,8 @@ public class InventoryService {
         
         if (inventoryRepository.existsById(id)) {
             inventoryRepository.deleteById(id);
+            reservationEngine.invalidate(id);
+            changed(id);
             log.info("在庫削除完了: ID={}", id);
             return true;
         }
@@ -146,6 +201,17 @@ public class InventoryService {
         return inventoryRepository.findById(id).map(inventory -> {
             int adjustmentQuantity = request.getAdjustmentQuantity();
             
+            if (adjustmentJournal.isEnabled()) {
+                // ライトビハインド: ジャーナルに追記し、在庫行への反映は定期処理でまとめて行う
+                if (adjustmentQuantity == 0) {
+                    return convertToDto(inventory);
+                }
+                int pendingDelta = adjustmentJournal.append(inventory, adjustmentQuantity, request.getReason());
+                changed(id);
+                log.info("在庫調整受付: ID={}, 調整数量={}", id, adjustmentQuantity);
+                return convertToDto(inventory, pendingDelta);
+            }
+            
             if (adjustmentQuantity > 0) {
                 // 在庫増加
                 inventory.addQuantity(adjustmentQuantity);
@@ -160,6 +226,8 @@ public class InventoryService {
             }
             
             Inventory updatedInventory = inventoryRepository.save(inventory);
+            reservationEngine.invalidate(id);
+            changed(id);
             return convertToDto(updatedInventory);
         });
     }
@@ -170,15 +238,10 @@ public class InventoryService {
     public Optional<InventoryDto> reserveInventory(Long id, Integer quantity) {
         log.info("在庫予約リクエスト: ID={}, 予約数量={}", id, quantity);
         
-        return inventoryRepository.findById(id).map(inventory -> {
-            if (!inventory.reserveQuantity(quantity)) {
-                throw new IllegalArgumentException("在庫不足のため予約できません");
-            }
-            
-            Inventory updatedInventory = inventoryRepository.save(inventory);
+        return reservationEngine.reserve(id, quantity).map(inventory -> {
+            changed(id);
             log.info("在庫予約完了: ID={}, 予約数量={}", id, quantity);
-            
-            return convertToDto(updatedInventory);
+            return convertToDto(inventory);
         });
     }
     
@@ -188,27 +251,60 @@ public class InventoryService {
     public Optional<InventoryDto> releaseReservedInventory(Long id, Integer quantity) {
         log.info("予約解除リクエスト: ID={}, 解除数量={}", id, quantity);
         
-        return inventoryRepository.findById(id).map(inventory -> {
-            if (!inventory.releaseReservedQuantity(quantity)) {
-                throw new IllegalArgumentException("予約数量不足のため解除できません");
-            }
-            
-            Inventory updatedInventory = inventoryRepository.save(inventory);
+        return reservationEngine.release(id, quantity).map(inventory -> {
+            changed(id);
             log.info("予約解除完了: ID={}, 解除数量={}", id, quantity);
-            
-            return convertToDto(updatedInventory);
+            return convertToDto(inventory);
         });
     }
     
     /**
-     * 在庫不足の商品を取得
+     * 注文単位で在庫を一括予約（全明細成功または全明細失敗）
+     */
+    public BulkReservationResponse reserveInventories(BulkReservationRequest request) {
+        log.info("在庫一括予約リクエスト: 注文ID={}, 明細数={}", request.getOrderId(), request.getLines().size());
+        
+        Map<Long, Integer> quantities = resolveLines(request.getLines());
+        reservationEngine.reserveAll(quantities);
+        changed(quantities.keySet());
+        log.info("在庫一括予約完了: 注文ID={}, 在庫行数={}", request.getOrderId(), quantities.size());
+        
+        return new BulkReservationResponse(request.getOrderId(), findAllByIds(quantities.keySet()));
+    }
+    
+    /**
+     * 注文単位で予約を一括解除（全明細成功または全明細失敗）
+     */
+    public BulkReservationResponse releaseReservedInventories(BulkReservationRequest request) {
+        log.info("予約一括解除リクエスト: 注文ID={}, 明細数={}", request.getOrderId(), request.getLines().size());
+        
+        Map<Long, Integer> quantities = resolveLines(request.getLines());
+        reservationEngine.releaseAll(quantities);
+        changed(quantities.keySet());
+        log.info("予約一括解除完了: 注文ID={}, 在庫行数={}", request.getOrderId(), quantities.size());
+        
+        return new BulkReservationResponse(request.getOrderId(), findAllByIds(quantities.keySet()));
+    }
+    
+    /**
+     * 在庫不足の商品を (利用可能数量, ID) 順にページ単位で取得
+     * 閾値が在庫水準インデックスの保持範囲内であればインデックスから応答する
      */
     @Transactional(readOnly = true)
-    public List<InventoryDto> getLowStockItems(Integer threshold) {
-        log.info("在庫不足商品取得リクエスト: 閾値={}", threshold);
-        return inventoryRepository.findLowStockItems(threshold).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    public KeysetPage<InventoryDto> getLowStockItems(Integer threshold, String pageToken, int limit) {
+        log.info("在庫不足商品取得リクエスト: 閾値={}, 取得件数={}", threshold, limit);
+        long[] after = pageToken == null ? new long[]{Integer.MIN_VALUE, Long.MIN_VALUE} : PageTokens.decode(pageToken, 2);
+        PageTokens.checkLimit(limit);
+        if (stockIndex.covers(threshold)) {
+            List<InventoryDto> items = stockIndex.findLowStock(threshold, (int) after[0], after[1], limit + 1);
+            boolean hasNext = items.size() > limit;
+            List<InventoryDto> page = hasNext ? items.subList(0, limit) : items;
+            InventoryDto last = page.isEmpty() ? null : page.get(page.size() - 1);
+            return new KeysetPage<>(page, hasNext ? PageTokens.encode(last.getAvailableQuantity(), last.getId()) : null);
+        }
+        List<Inventory> inventories = inventoryRepository.findLowStockPageAfter(
+                threshold, (int) after[0], after[1], Limit.of(limit + 1));
+        return toPage(inventories, limit, last -> PageTokens.encode(last.getAvailableQuantity(), last.getId()));
     }
     
     /**
@@ -217,11 +313,22 @@ public class InventoryService {
     @Transactional(readOnly = true)
     public List<InventoryDto> getOutOfStockItems() {
         log.info("在庫切れ商品取得リクエスト");
+        if (stockIndex.covers(0)) {
+            return stockIndex.findOutOfStock();
+        }
         return inventoryRepository.findOutOfStockItems().stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
     
+    /**
+     * 在庫不足の閾値をまたいだ変化を購読
+     */
+    public InventoryStockIndex.Subscription subscribeStockLevel(int threshold, Consumer<StockLevelChange> listener) {
+        log.info("在庫水準変化購読リクエスト: 閾値={}", threshold);
+        return stockIndex.subscribe(threshold, listener);
+    }
+    
     /**
      * 指定数量以上の在庫がある商品を取得
      */
@@ -233,17 +340,91 @@ public class InventoryService {
                 .collect(Collectors.toList());
     }
     
+    /**
+     * 明細を1回のクエリで在庫行に解決し、同一在庫行の数量を合算する
+     * @return 在庫ID → 数量（ロック順序を揃えるため ID 昇順）
+     */
+    private Map<Long, Integer> resolveLines(List<ReservationLine> lines) {
+        Set<Long> productIds = new HashSet<>();
+        Set<Long> warehouseIds = new HashSet<>();
+        Map<InventoryKey, Integer> requested = new LinkedHashMap<>();
+        for (ReservationLine line : lines) {
+            productIds.add(line.getProductId());
+            warehouseIds.add(line.getWarehouseId());
+            requested.merge(new InventoryKey(line.getProductId(), line.getWarehouseId()), line.getQuantity(), Integer::sum);
+        }
+        
+        Map<InventoryKey, Long> idsByKey = inventoryRepository.findByProductIdInAndWarehouseIdIn(productIds, warehouseIds).stream()
+                .collect(Collectors.toMap(i -> new InventoryKey(i.getProductId(), i.getWarehouseId()), Inventory::getId));
+        
+        Map<Long, Integer> quantities = new TreeMap<>();
+        requested.forEach((key, quantity) -> {
+            Long id = idsByKey.get(key);
+            if (id == null) {
+                throw new IllegalArgumentException("在庫が見つかりません: 商品ID=" + key.productId() + ", 倉庫ID=" + key.warehouseId());
+            }
+            quantities.put(id, quantity);
+        });
+        return quantities;
+    }
+    
+    private void changed(Long id) {
+        changed(List.of(id));
+    }
+    
+    /**
+     * 在庫行の変更を反映（読み取りキャッシュを破棄し、変更イベントを発行する）
+     */
+    private void changed(Collection<Long> ids) {
+        ids.forEach(readCache::invalidate);
+        eventPublisher.publishEvent(new InventoryChangedEvent(List.copyOf(ids)));
+    }
+    
+    private long afterId(String pageToken) {
+        return pageToken == null ? Long.MIN_VALUE : PageTokens.decode(pageToken, 1)[0];
+    }
+    
+    /**
+     * limit + 1 件取得した結果からページを組み立てる（limit 件を超えた場合のみ継続トークンを付ける）
+     */
+    private KeysetPage<InventoryDto> toPage(List<Inventory> inventories, int limit, Function<Inventory, String> tokenOf) {
+        boolean hasNext = inventories.size() > limit;
+        List<Inventory> items = hasNext ? inventories.subList(0, limit) : inventories;
+        String nextPageToken = hasNext ? tokenOf.apply(items.get(items.size() - 1)) : null;
+        return new KeysetPage<>(items.stream().map(this::convertToDto).collect(Collectors.toList()), nextPageToken);
+    }
+    
+    private List<InventoryDto> findAllByIds(Set<Long> ids) {
+        return inventoryRepository.findAllById(ids).stream()
+                .sorted(Comparator.comparing(Inventory::getId))
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * 商品IDと倉庫IDの組み合わせ
+     */
+    private record InventoryKey(Long productId, Long warehouseId) {
+    }
+    
     /**
      * エンティティをDTOに変換
      */
     private InventoryDto convertToDto(Inventory inventory) {
+        return convertToDto(inventory, adjustmentJournal.getPendingDelta(inventory.getId()));
+    }
+    
+    /**
+     * エンティティをDTOに変換（在庫行に未反映の調整差分を重ねる）
+     */
+    static InventoryDto convertToDto(Inventory inventory, int pendingDelta) {
         return new InventoryDto(
                 inventory.getId(),
                 inventory.getProductId(),
                 inventory.getWarehouseId(),
-                inventory.getQuantity(),
+                inventory.getQuantity() + pendingDelta,
                 inventory.getReservedQuantity(),
-                inventory.getAvailableQuantity(),
+                inventory.getAvailableQuantity() + pendingDelta,
                 inventory.getLastUpdated()
         );
     }
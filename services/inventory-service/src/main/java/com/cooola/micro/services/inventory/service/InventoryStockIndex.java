@@ -0,0 +1,389 @@
+package com.cooola.micro.services.inventory.service;
+
+import com.cooola.micro.services.inventory.dto.InventoryDto;
+import com.cooola.micro.services.inventory.dto.StockLevelChange;
+import com.cooola.micro.services.inventory.model.Inventory;
+import com.cooola.micro.services.inventory.repository.InventoryRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 在庫水準インデックス
+ * 利用可能数量が inventory.stock-index.max-threshold 以下の在庫行を (利用可能数量, ID) 順に保持し、
+ * 在庫不足・在庫切れの問い合わせに該当件数に比例する時間で応答する。
+ * 在庫変更イベントで変更された在庫IDを受け付け、通知用のスレッドで束ねてコミット後の行を読み直して差分更新し、
+ * 閾値をまたいだ変化を購読者へ通知する（変更した処理のスレッド・DB 接続では読み直さないため、反映は変更の直後より僅かに遅れる）。
+ * 通知は購読ごとの上限付きキューに積み、購読者への配信用のスレッドから渡すため、受け取りの遅い購読者がいてもインデックスの更新は止まらない。
+ */
+@Component
+@Slf4j
+public class InventoryStockIndex {
+
+    private static final int STRIPES = 64;
+    private static final int REFRESH_BATCH_SIZE = 500;
+    // 購読ごとの未配信の通知の上限（超えた購読は解除する）
+    private static final int SUBSCRIPTION_QUEUE_CAPACITY = 256;
+
+    private final InventoryRepository inventoryRepository;
+    private final InventoryAdjustmentJournal adjustmentJournal;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int maxThreshold;
+
+    private final NavigableSet<Slot> slots = new ConcurrentSkipListSet<>();
+    private final Map<Long, InventoryDto> rows = new ConcurrentHashMap<>();
+    // 同一在庫行の読み直しを直列化し、コミット順と異なる順で古い状態が反映されないようにする
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final ExecutorService notifier = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "inventory-stock-notifier");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // 購読者への配信用（購読者の処理が止まっても読み直し用のスレッドを止めない）
+    private final ExecutorService deliveries = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "inventory-stock-subscriber");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // 読み直し待ちの在庫ID
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+    // 構築中に変更された在庫ID（構築後に読み直す）
+    private final Set<Long> changedDuringBuild = ConcurrentHashMap.newKeySet();
+    private volatile boolean ready;
+
+    public InventoryStockIndex(InventoryRepository inventoryRepository,
+                               InventoryAdjustmentJournal adjustmentJournal,
+                               EntityManager entityManager,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${inventory.stock-index.max-threshold:100}") int maxThreshold) {
+        this.inventoryRepository = inventoryRepository;
+        this.adjustmentJournal = adjustmentJournal;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // コミット直後の呼び出しでは終了したトランザクションの永続化コンテキストが残っているため、常に新しいコンテキストで読む
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxThreshold = maxThreshold;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * 指定閾値の問い合わせにインデックスで応答できるか（構築済みかつ閾値が保持範囲内）
+     */
+    public boolean covers(int threshold) {
+        return ready && threshold <= maxThreshold;
+    }
+
+    /**
+     * 利用可能数量が閾値以下の在庫を (利用可能数量, ID) 順に取得
+     * @param afterAvailable 前ページ最終行の利用可能数量（先頭ページの場合は Integer.MIN_VALUE）
+     * @param afterId 前ページ最終行のID（先頭ページの場合は Long.MIN_VALUE）
+     * @param limit 最大件数
+     */
+    public List<InventoryDto> findLowStock(int threshold, int afterAvailable, long afterId, int limit) {
+        List<InventoryDto> result = new ArrayList<>(Math.min(limit, 64));
+        for (Slot slot : slots.subSet(new Slot(afterAvailable, afterId), false, new Slot(threshold, Long.MAX_VALUE), true)) {
+            InventoryDto row = rows.get(slot.id());
+            if (row != null) {
+                result.add(row);
+                if (result.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 在庫切れ（利用可能数量が0以下）の在庫を取得
+     */
+    public List<InventoryDto> findOutOfStock() {
+        return findLowStock(0, Integer.MIN_VALUE, Long.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 閾値をまたいだ変化を購読（通知は配信用のスレッドから変更順に行う）
+     * 未配信の通知が SUBSCRIPTION_QUEUE_CAPACITY 件を超えた購読は解除する
+     * @return 購読（close で解除）
+     * @throws IllegalArgumentException 閾値が保持範囲外の場合
+     */
+    public Subscription subscribe(int threshold, Consumer<StockLevelChange> listener) {
+        if (threshold < 0 || threshold > maxThreshold) {
+            throw new IllegalArgumentException("閾値は0以上" + maxThreshold + "以下である必要があります");
+        }
+        Subscription subscription = new Subscription(threshold, listener);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * 在庫変更イベントを受け付ける（トランザクション中に発行された場合はコミット後に実行される）
+     * 読み直しは通知用のスレッドで行い、それまでに受け付けた在庫IDをまとめて読み直す
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        if (!ready) {
+            changedDuringBuild.addAll(event.inventoryIds());
+        }
+        dirty.addAll(event.inventoryIds());
+        if (refreshScheduled.compareAndSet(false, true)) {
+            notifier.execute(this::refreshDirty);
+        }
+    }
+
+    /**
+     * 受け付け済みの在庫変更の反映（および反映に伴う通知の購読ごとのキューへの登録）が終わるまで待つ
+     * 購読者への配信の完了は待たない
+     */
+    public void awaitRefresh() throws InterruptedException {
+        try {
+            notifier.submit(() -> { }).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * インデックスを DB から再構築（起動時、およびサービスを経由せずに在庫行を書き換えた後）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        ready = false;
+        rows.clear();
+        slots.clear();
+        long started = System.nanoTime();
+        Set<Long> loaded = new TreeSet<>();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<Inventory> inventories = inventoryRepository.streamByAvailableQuantityAtMost(maxThreshold)) {
+                inventories.forEach(inventory -> {
+                    loaded.add(inventory.getId());
+                    entityManager.detach(inventory);
+                });
+            }
+        });
+        // 読み出した行もインデックスのストライプロックの下で読み直し、構築中の変更の反映と順序を揃える
+        // （DB の行ロックは取らない。ストライプロックを長く保持しないよう分割する）
+        refreshInBatches(new ArrayList<>(loaded));
+        ready = true;
+        List<Long> changed = new ArrayList<>(changedDuringBuild);
+        changedDuringBuild.removeAll(changed);
+        refreshInBatches(changed);
+        log.info("在庫水準インデックス構築完了: 件数={}, 所要時間={}ms", rows.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        notifier.shutdownNow();
+        deliveries.shutdownNow();
+    }
+
+    private void refreshDirty() {
+        // 取り出す前に戻し、取り出した後に受け付けた変更で次の読み直しが予約されるようにする
+        refreshScheduled.set(false);
+        List<Long> ids = new ArrayList<>(dirty);
+        dirty.removeAll(ids);
+        for (int from = 0; from < ids.size(); from += REFRESH_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + REFRESH_BATCH_SIZE, ids.size()));
+            try {
+                refresh(batch);
+            } catch (RuntimeException e) {
+                // 次の変更イベントで再度読み直す
+                dirty.addAll(batch);
+                log.warn("在庫水準インデックスの更新に失敗: 在庫行数={}, 原因={}", batch.size(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * REFRESH_BATCH_SIZE 件ずつ読み直す（ロックの保持と IN 句の件数を1回分に抑える）
+     */
+    private void refreshInBatches(List<Long> ids) {
+        for (int from = 0; from < ids.size(); from += REFRESH_BATCH_SIZE) {
+            refresh(ids.subList(from, Math.min(from + REFRESH_BATCH_SIZE, ids.size())));
+        }
+    }
+
+    private void refresh(Collection<Long> ids) {
+        // デッドロックを避けるためストライプ番号順に取得する
+        List<ReentrantLock> locks = ids.stream()
+                .map(id -> Math.floorMod(id.hashCode(), STRIPES))
+                .distinct()
+                .sorted()
+                .map(stripe -> stripes[stripe])
+                .collect(Collectors.toList());
+        locks.forEach(ReentrantLock::lock);
+        try {
+            Map<Long, Inventory> current = readOnlyTransaction.execute(status -> inventoryRepository.findAllById(ids).stream()
+                    .collect(Collectors.toMap(Inventory::getId, inventory -> inventory)));
+            for (Long id : ids) {
+                Inventory inventory = current.get(id);
+                apply(id, inventory == null ? null
+                        : InventoryService.convertToDto(inventory, adjustmentJournal.getPendingDelta(id)));
+            }
+        } finally {
+            locks.forEach(ReentrantLock::unlock);
+        }
+    }
+
+    /**
+     * 1行分の状態を反映（呼び出し側で在庫IDのストライプロックを保持すること）
+     * @param row 変更後の状態（削除された場合は null）
+     */
+    private void apply(Long id, InventoryDto row) {
+        InventoryDto previous = rows.get(id);
+        if (previous != null) {
+            slots.remove(new Slot(previous.getAvailableQuantity(), id));
+        }
+        if (row != null && row.getAvailableQuantity() <= maxThreshold) {
+            rows.put(id, row);
+            slots.add(new Slot(row.getAvailableQuantity(), id));
+        } else {
+            rows.remove(id);
+        }
+        if (ready) {
+            notifyCrossings(previous, row);
+        }
+    }
+
+    private void notifyCrossings(InventoryDto previous, InventoryDto row) {
+        if (subscriptions.isEmpty() || (previous == null && row == null)) {
+            return;
+        }
+        // インデックス外（保持範囲より上）の行は、どの閾値に対しても「閾値を上回っている」状態として扱う
+        Integer before = previous == null ? null : previous.getAvailableQuantity();
+        Integer after = row == null ? null : row.getAvailableQuantity();
+        InventoryDto source = row != null ? row : previous;
+        LocalDateTime now = LocalDateTime.now();
+        for (Subscription subscription : subscriptions) {
+            int threshold = subscription.threshold;
+            boolean wasLow = before != null && before <= threshold;
+            boolean isLow = after != null && after <= threshold;
+            if (wasLow != isLow) {
+                StockLevelChange change = new StockLevelChange(source.getId(), source.getProductId(), source.getWarehouseId(),
+                        threshold, before, after, isLow, now);
+                subscription.enqueue(change);
+            }
+        }
+    }
+
+    /**
+     * インデックスのキー（利用可能数量, ID の順で並べる）
+     */
+    private record Slot(int available, long id) implements Comparable<Slot> {
+        @Override
+        public int compareTo(Slot other) {
+            int byAvailable = Integer.compare(available, other.available);
+            return byAvailable != 0 ? byAvailable : Long.compare(id, other.id);
+        }
+    }
+
+    /**
+     * 閾値またぎの購読
+     */
+    public final class Subscription implements AutoCloseable {
+        private final int threshold;
+        private final Consumer<StockLevelChange> listener;
+        private final BlockingQueue<StockLevelChange> queue = new ArrayBlockingQueue<>(SUBSCRIPTION_QUEUE_CAPACITY);
+        // 配信用のスレッドでキューを処理中か（購読ごとに1本だけ処理し、変更順を保つ）
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Subscription(int threshold, Consumer<StockLevelChange> listener) {
+            this.threshold = threshold;
+            this.listener = listener;
+        }
+
+        /**
+         * 通知をキューに積む（読み直し用のスレッドから呼ばれるため待たない）
+         */
+        private void enqueue(StockLevelChange change) {
+            if (closed) {
+                return;
+            }
+            if (!queue.offer(change)) {
+                log.warn("在庫水準変化の未配信の通知が上限を超えたため購読を解除: 閾値={}, 上限={}", threshold, SUBSCRIPTION_QUEUE_CAPACITY);
+                close();
+                return;
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    deliveries.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // 停止処理中
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                StockLevelChange change;
+                while (!closed && (change = queue.poll()) != null) {
+                    deliver(change);
+                }
+            } finally {
+                scheduled.set(false);
+            }
+            // 処理の終了と入れ違いに積まれた通知を取りこぼさない
+            if (!closed && !queue.isEmpty()) {
+                schedule();
+            }
+        }
+
+        private void deliver(StockLevelChange change) {
+            try {
+                listener.accept(change);
+            } catch (RuntimeException e) {
+                log.warn("在庫水準変化の通知に失敗したため購読を解除: 閾値={}", threshold, e);
+                close();
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            subscriptions.remove(this);
+            queue.clear();
+        }
+    }
+}
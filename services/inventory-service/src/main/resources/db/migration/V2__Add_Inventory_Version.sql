@@ -0,0 +1,2 @@
+-- 在庫テーブルにバージョン列を追加（楽観ロック・条件付き予約用）
+ALTER TABLE inventory ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,13 @@
+-- 在庫調整ジャーナルテーブルの作成（ライトビハインドモード用、追記専用）
+CREATE TABLE inventory_adjustment_journal (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    inventory_id BIGINT NOT NULL,
+    delta INT NOT NULL,
+    reason VARCHAR(255),
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    applied_at TIMESTAMP NULL,
+    
+    -- インデックスの作成
+    INDEX idx_journal_status_id (status, id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,13 @@
+-- PostgreSQL用 在庫調整ジャーナルテーブルの作成（ライトビハインドモード用、追記専用）
+CREATE TABLE IF NOT EXISTS inventory_adjustment_journal (
+    id BIGSERIAL PRIMARY KEY,
+    inventory_id BIGINT NOT NULL,
+    delta INTEGER NOT NULL,
+    reason VARCHAR(255),
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    applied_at TIMESTAMP
+);
+
+-- インデックスの作成
+CREATE INDEX IF NOT EXISTS idx_journal_status_id ON inventory_adjustment_journal(status, id);
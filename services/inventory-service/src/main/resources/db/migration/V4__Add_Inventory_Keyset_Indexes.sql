@@ -0,0 +1,3 @@
+-- 在庫一覧のキーセットページング用インデックス（ソートキーの順に走査できるようにする）
+CREATE INDEX idx_warehouse_id_id ON inventory(warehouse_id, id);
+CREATE INDEX idx_product_id_id ON inventory(product_id, id);
@@ -0,0 +1,3 @@
+-- PostgreSQL用 在庫一覧のキーセットページング用インデックス（ソートキーの順に走査できるようにする）
+CREATE INDEX IF NOT EXISTS idx_warehouse_id_id ON inventory(warehouse_id, id);
+CREATE INDEX IF NOT EXISTS idx_product_id_id ON inventory(product_id, id);
@@ -0,0 +1,121 @@
+package com.cooola.micro.services.inventory.service;
+
+import com.cooola.micro.services.inventory.model.Inventory;
+import com.cooola.micro.services.inventory.repository.InventoryBatchRepository;
+import com.cooola.micro.services.inventory.repository.InventoryJournalRepository;
+import com.cooola.micro.services.inventory.repository.InventoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 在庫調整の同期更新とライトビハインドの比較ベンチマーク
+ * 通常のテストでは実行しない（INVENTORY_BENCHMARK=true ./gradlew test --tests '*InventoryAdjustmentBenchmarkTest'）
+ */
+@DataJpaTest(properties = {
+        "inventory.adjustment.write-behind.enabled=true",
+        "inventory.adjustment.write-behind.flush-interval-ms=3600000"
+})
+@ActiveProfiles("test")
+@Import({InventoryAdjustmentJournal.class, InventoryReadCache.class, InventoryReservationEngine.class, InventoryBatchRepository.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfEnvironmentVariable(named = "INVENTORY_BENCHMARK", matches = "true")
+class InventoryAdjustmentBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryAdjustmentBenchmarkTest.class);
+
+    private static final int ADJUSTMENTS = 5000;
+    private static final int FLUSH_EVERY = 500;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private InventoryJournalRepository journalRepository;
+
+    @Autowired
+    private InventoryAdjustmentJournal adjustmentJournal;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        journalRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void compareSynchronousAndWriteBehind() {
+        Long syncId = createInventory(1L).getId();
+        Long journalId = createInventory(2L).getId();
+
+        long syncNanos = measure(() -> {
+            for (int i = 0; i < ADJUSTMENTS; i++) {
+                int delta = delta(i);
+                // InventoryService.adjustInventory の同期経路と同じ読み込み→更新→保存
+                transactionTemplate.executeWithoutResult(status -> {
+                    Inventory inventory = inventoryRepository.findById(syncId).orElseThrow();
+                    inventory.setQuantity(inventory.getQuantity() + delta);
+                    inventoryRepository.save(inventory);
+                });
+            }
+        });
+
+        long journalNanos = measure(() -> {
+            for (int i = 0; i < ADJUSTMENTS; i++) {
+                int delta = delta(i);
+                transactionTemplate.executeWithoutResult(status ->
+                        adjustmentJournal.append(inventoryRepository.findById(journalId).orElseThrow(), delta, "scan"));
+                if ((i + 1) % FLUSH_EVERY == 0) {
+                    adjustmentJournal.flush();
+                }
+            }
+            adjustmentJournal.flush();
+        });
+
+        log.info("在庫調整 {} 件: 同期={} ms ({} 件/秒), ライトビハインド={} ms ({} 件/秒)",
+                ADJUSTMENTS,
+                TimeUnit.NANOSECONDS.toMillis(syncNanos), Math.round(ADJUSTMENTS / (syncNanos / 1e9)),
+                TimeUnit.NANOSECONDS.toMillis(journalNanos), Math.round(ADJUSTMENTS / (journalNanos / 1e9)));
+
+        assertThat(inventoryRepository.findById(journalId).orElseThrow().getQuantity())
+                .isEqualTo(inventoryRepository.findById(syncId).orElseThrow().getQuantity());
+    }
+
+    private static int delta(int i) {
+        return i % 3 == 2 ? -1 : 1;
+    }
+
+    private static long measure(Runnable task) {
+        long start = System.nanoTime();
+        task.run();
+        return System.nanoTime() - start;
+    }
+
+    private Inventory createInventory(Long productId) {
+        Inventory inventory = new Inventory();
+        inventory.setProductId(productId);
+        inventory.setWarehouseId(1L);
+        inventory.setQuantity(1000);
+        inventory.setReservedQuantity(0);
+        return inventoryRepository.save(inventory);
+    }
+}
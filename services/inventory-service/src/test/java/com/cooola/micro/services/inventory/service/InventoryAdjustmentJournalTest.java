@@ -0,0 +1,198 @@
+package com.cooola.micro.services.inventory.service;
+
+import com.cooola.micro.services.inventory.model.Inventory;
+import com.cooola.micro.services.inventory.model.InventoryJournalEntry;
+import com.cooola.micro.services.inventory.model.InventoryJournalEntry.JournalStatus;
+import com.cooola.micro.services.inventory.repository.InventoryBatchRepository;
+import com.cooola.micro.services.inventory.repository.InventoryJournalRepository;
+import com.cooola.micro.services.inventory.repository.InventoryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 在庫調整ジャーナル（ライトビハインド）のテスト
+ */
+@DataJpaTest(properties = {
+        "inventory.adjustment.write-behind.enabled=true",
+        // 定期反映がテスト中の畳み込み状態を変えないようにする
+        "inventory.adjustment.write-behind.flush-interval-ms=3600000"
+})
+@ActiveProfiles("test")
+@Import({InventoryAdjustmentJournal.class, InventoryReadCache.class, InventoryReservationEngine.class, InventoryBatchRepository.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventoryAdjustmentJournalTest {
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private InventoryJournalRepository journalRepository;
+
+    @Autowired
+    private InventoryReservationEngine reservationEngine;
+
+    @Autowired
+    private InventoryAdjustmentJournal adjustmentJournal;
+
+    @Autowired
+    private InventoryReadCache readCache;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        journalRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void adjustmentsAreFoldedAndFlushedAsOneDelta() {
+        Inventory inventory = createInventory(10);
+
+        for (int i = 0; i < 20; i++) {
+            int delta = i % 2 == 0 ? 1 : -1;
+            transactionTemplate.executeWithoutResult(status -> adjustmentJournal.append(reload(inventory), delta, "scan"));
+        }
+        transactionTemplate.executeWithoutResult(status -> adjustmentJournal.append(reload(inventory), 5, "receive"));
+
+        assertThat(adjustmentJournal.getPendingDelta(inventory.getId())).isEqualTo(5);
+        assertThat(reload(inventory).getQuantity()).isEqualTo(10);
+
+        adjustmentJournal.flush();
+
+        assertThat(adjustmentJournal.getPendingDelta(inventory.getId())).isZero();
+        Inventory flushed = reload(inventory);
+        assertThat(flushed.getQuantity()).isEqualTo(15);
+        assertThat(flushed.getAvailableQuantity()).isEqualTo(15);
+        assertThat(journalRepository.findByStatusOrderByIdAsc(JournalStatus.PENDING)).isEmpty();
+        assertThat(journalRepository.findByStatusOrderByIdAsc(JournalStatus.APPLIED)).hasSize(21);
+    }
+
+    @Test
+    void decreaseBeyondFoldedAvailabilityIsRejected() {
+        Inventory inventory = createInventory(3);
+
+        transactionTemplate.executeWithoutResult(status -> adjustmentJournal.append(reload(inventory), -2, "pick"));
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status ->
+                adjustmentJournal.append(reload(inventory), -2, "pick")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(adjustmentJournal.getPendingDelta(inventory.getId())).isEqualTo(-2);
+    }
+
+    @Test
+    void onlyTheDecreaseThatCannotBeAppliedIsRejected() {
+        Inventory inventory = createInventory(10);
+        transactionTemplate.executeWithoutResult(status -> adjustmentJournal.append(reload(inventory), -8, "pick"));
+        transactionTemplate.executeWithoutResult(status -> adjustmentJournal.append(reload(inventory), -1, "pick"));
+        // ジャーナルを経由しない変更で在庫行が減った
+        transactionTemplate.executeWithoutResult(status ->
+                inventoryRepository.applyAdjustment(inventory.getId(), -8, LocalDateTime.now()));
+        transactionTemplate.executeWithoutResult(status -> adjustmentJournal.append(reload(inventory), 5, "receive"));
+
+        adjustmentJournal.flush();
+
+        assertThat(reload(inventory).getQuantity()).isEqualTo(6);
+        assertThat(journalRepository.findByStatusOrderByIdAsc(JournalStatus.REJECTED))
+                .extracting(InventoryJournalEntry::getDelta).containsExactly(-8);
+        assertThat(journalRepository.findByStatusOrderByIdAsc(JournalStatus.APPLIED))
+                .extracting(InventoryJournalEntry::getDelta).containsExactlyInAnyOrder(-1, 5);
+        assertThat(adjustmentJournal.getPendingDelta(inventory.getId())).isZero();
+    }
+
+    @Test
+    void pendingDecreaseCannotBeReserved() {
+        Inventory inventory = createInventory(5);
+        transactionTemplate.executeWithoutResult(status -> adjustmentJournal.append(reload(inventory), -4, "pick"));
+
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status ->
+                reservationEngine.reserve(inventory.getId(), 2)))
+                .isInstanceOf(IllegalArgumentException.class);
+        transactionTemplate.executeWithoutResult(status -> reservationEngine.reserve(inventory.getId(), 1));
+
+        adjustmentJournal.flush();
+
+        Inventory flushed = reload(inventory);
+        assertThat(flushed.getQuantity()).isEqualTo(1);
+        assertThat(flushed.getReservedQuantity()).isEqualTo(1);
+        assertThat(flushed.getAvailableQuantity()).isZero();
+        assertThat(journalRepository.findByStatusOrderByIdAsc(JournalStatus.APPLIED)).hasSize(1);
+    }
+
+    @Test
+    void rolledBackAdjustmentIsNotFolded() {
+        Inventory inventory = createInventory(3);
+
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> {
+            adjustmentJournal.append(reload(inventory), 4, "receive");
+            throw new IllegalStateException("rollback");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(adjustmentJournal.getPendingDelta(inventory.getId())).isZero();
+        assertThat(journalRepository.count()).isZero();
+    }
+
+    @Test
+    void pendingJournalIsReplayedAfterRestart() {
+        Inventory inventory = createInventory(10);
+        journalRepository.save(journalEntry(inventory.getId(), 7));
+        journalRepository.save(journalEntry(inventory.getId(), -3));
+
+        // 再起動を想定し、畳み込み状態を持たない新しいインスタンスで再適用する
+        InventoryAdjustmentJournal restarted = new InventoryAdjustmentJournal(
+                inventoryRepository, journalRepository, reservationEngine, readCache, eventPublisher, transactionManager, true, 24,
+                meterRegistry);
+        restarted.replay();
+
+        assertThat(reload(inventory).getQuantity()).isEqualTo(14);
+        assertThat(journalRepository.findByStatusOrderByIdAsc(JournalStatus.PENDING)).isEmpty();
+
+        restarted.replay();
+        assertThat(reload(inventory).getQuantity()).isEqualTo(14);
+    }
+
+    private Inventory createInventory(int quantity) {
+        Inventory inventory = new Inventory();
+        inventory.setProductId(1L);
+        inventory.setWarehouseId(1L);
+        inventory.setQuantity(quantity);
+        inventory.setReservedQuantity(0);
+        return inventoryRepository.save(inventory);
+    }
+
+    private Inventory reload(Inventory inventory) {
+        return inventoryRepository.findById(inventory.getId()).orElseThrow();
+    }
+
+    private InventoryJournalEntry journalEntry(Long inventoryId, int delta) {
+        InventoryJournalEntry entry = new InventoryJournalEntry();
+        entry.setInventoryId(inventoryId);
+        entry.setDelta(delta);
+        return entry;
+    }
+}
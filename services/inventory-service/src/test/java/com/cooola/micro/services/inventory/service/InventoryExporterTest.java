@@ -0,0 +1,84 @@
+package com.cooola.micro.services.inventory.service;
+
+import com.cooola.micro.services.inventory.model.Inventory;
+import com.cooola.micro.services.inventory.repository.InventoryBatchRepository;
+import com.cooola.micro.services.inventory.repository.InventoryRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 在庫エクスポートのテスト
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({InventoryExporter.class, InventoryService.class, InventoryReservationEngine.class,
+        InventoryBatchRepository.class, InventoryAdjustmentJournal.class, InventoryReadCache.class, InventoryStockIndex.class,
+        JacksonAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventoryExporterTest {
+
+    private static final int ROWS = 2500;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private InventoryExporter inventoryExporter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        inventoryRepository.deleteAll();
+        for (long productId = 1; productId <= ROWS; productId++) {
+            Inventory inventory = new Inventory();
+            inventory.setProductId(productId);
+            inventory.setWarehouseId(productId % 3 + 1);
+            inventory.setQuantity((int) productId);
+            inventory.setReservedQuantity(0);
+            inventoryRepository.save(inventory);
+        }
+    }
+
+    @Test
+    void csvExportWritesHeaderAndEveryRowInIdOrder() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = inventoryExporter.writeCsv(out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(count).isEqualTo(ROWS);
+        assertThat(lines).hasSize(ROWS + 1);
+        assertThat(lines.get(0)).startsWith("id,product_id,warehouse_id,");
+        assertThat(lines.get(1).split(",")[1]).isEqualTo("1");
+        assertThat(lines.get(ROWS).split(",")[1]).isEqualTo(String.valueOf(ROWS));
+    }
+
+    @Test
+    void ndjsonExportWritesOneObjectPerLine() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = inventoryExporter.writeNdjson(out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(count).isEqualTo(ROWS);
+        assertThat(lines).hasSize(ROWS);
+        JsonNode last = objectMapper.readTree(lines.get(ROWS - 1));
+        assertThat(last.get("productId").asLong()).isEqualTo(ROWS);
+        assertThat(last.get("availableQuantity").asInt()).isEqualTo(ROWS);
+    }
+}
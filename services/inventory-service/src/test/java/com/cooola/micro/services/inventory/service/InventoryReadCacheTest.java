@@ -0,0 +1,141 @@
+package com.cooola.micro.services.inventory.service;
+
+import com.cooola.micro.services.inventory.dto.CreateInventoryRequest;
+import com.cooola.micro.services.inventory.dto.InventoryAdjustmentRequest;
+import com.cooola.micro.services.inventory.dto.InventoryDto;
+import com.cooola.micro.services.inventory.repository.InventoryBatchRepository;
+import com.cooola.micro.services.inventory.repository.InventoryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 在庫読み取りキャッシュのテスト
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({InventoryService.class, InventoryReservationEngine.class, InventoryBatchRepository.class,
+        InventoryAdjustmentJournal.class, InventoryReadCache.class, InventoryStockIndex.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventoryReadCacheTest {
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private InventoryReadCache readCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        inventoryRepository.deleteAll();
+    }
+
+    @Test
+    void repeatedReadsAreServedFromCache() {
+        createInventory(1L, 1L, 10);
+
+        inventoryService.getInventoryByProductAndWarehouse(1L, 1L);
+        inventoryService.getInventoryByProductAndWarehouse(1L, 1L);
+        inventoryService.getInventoryByProductAndWarehouse(1L, 1L);
+
+        assertThat(gets("hit")).isEqualTo(2);
+        assertThat(gets("miss")).isEqualTo(1);
+    }
+
+    @Test
+    void everyMutationInvalidatesTheEntry() {
+        assertThat(inventoryService.getInventoryByProductAndWarehouse(2L, 1L)).isEmpty();
+        Long id = createInventory(2L, 1L, 10).getId();
+        assertThat(available(2L, 1L)).isEqualTo(10);
+
+        inventoryService.reserveInventory(id, 3);
+        assertThat(available(2L, 1L)).isEqualTo(7);
+
+        inventoryService.releaseReservedInventory(id, 1);
+        assertThat(available(2L, 1L)).isEqualTo(8);
+
+        InventoryAdjustmentRequest adjustment = new InventoryAdjustmentRequest();
+        adjustment.setAdjustmentQuantity(-5);
+        adjustment.setReason("出荷");
+        inventoryService.adjustInventory(id, adjustment);
+        assertThat(available(2L, 1L)).isEqualTo(3);
+
+        inventoryService.deleteInventory(id);
+        assertThat(inventoryService.getInventoryByProductAndWarehouse(2L, 1L)).isEmpty();
+    }
+
+    @Test
+    void invalidatingAnotherRowDuringLoadKeepsTheLoadedValue() {
+        Long other = createInventory(4L, 1L, 5).getId();
+        createInventory(3L, 1L, 10);
+        double hits = gets("hit");
+        double misses = gets("miss");
+
+        readCache.get(3L, 1L, () -> {
+            // 読み込み中に別の在庫行が変更された
+            readCache.invalidate(other);
+            return load(3L, 1L);
+        });
+        assertThat(available(3L, 1L)).isEqualTo(10);
+
+        assertThat(gets("hit") - hits).isEqualTo(1);
+        assertThat(gets("miss") - misses).isEqualTo(1);
+    }
+
+    @Test
+    void invalidatingTheSameRowDuringLoadDropsTheLoadedValue() {
+        Long id = createInventory(5L, 1L, 10).getId();
+        double hits = gets("hit");
+        double misses = gets("miss");
+
+        readCache.get(5L, 1L, () -> {
+            Optional<InventoryDto> loaded = load(5L, 1L);
+            // 読み込み後・格納前にこの在庫行が変更された
+            readCache.invalidate(id);
+            return loaded;
+        });
+        assertThat(available(5L, 1L)).isEqualTo(10);
+
+        assertThat(gets("hit") - hits).isZero();
+        assertThat(gets("miss") - misses).isEqualTo(2);
+    }
+
+    private Optional<InventoryDto> load(Long productId, Long warehouseId) {
+        return inventoryRepository.findByProductIdAndWarehouseId(productId, warehouseId)
+                .map(inventory -> InventoryService.convertToDto(inventory, 0));
+    }
+
+    private InventoryDto createInventory(Long productId, Long warehouseId, int quantity) {
+        CreateInventoryRequest request = new CreateInventoryRequest();
+        request.setProductId(productId);
+        request.setWarehouseId(warehouseId);
+        request.setQuantity(quantity);
+        request.setReservedQuantity(0);
+        return inventoryService.createInventory(request);
+    }
+
+    private int available(Long productId, Long warehouseId) {
+        return inventoryService.getInventoryByProductAndWarehouse(productId, warehouseId).orElseThrow().getAvailableQuantity();
+    }
+
+    private double gets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", "inventory").tag("result", result).functionCounter().count();
+    }
+}
@@ -0,0 +1,164 @@
+package com.cooola.micro.services.inventory.service;
+
+import com.cooola.micro.services.inventory.model.Inventory;
+import com.cooola.micro.services.inventory.repository.InventoryBatchRepository;
+import com.cooola.micro.services.inventory.repository.InventoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 在庫予約エンジンの並行予約テスト
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({InventoryReservationEngine.class, InventoryBatchRepository.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventoryReservationEngineTest {
+
+    private static final int RESERVERS = 64;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private InventoryReservationEngine reservationEngine;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        inventoryRepository.deleteAll();
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void concurrentReservationsNeverOversell() throws Exception {
+        Long id = createInventory(1L, 1L, 1000).getId();
+
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(RESERVERS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < RESERVERS; i++) {
+            int quantity = i % 3 + 1;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int attempt = 0; attempt < 50; attempt++) {
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> reservationEngine.reserve(id, quantity));
+                        reserved.addAndGet(quantity);
+                    } catch (IllegalArgumentException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        Inventory inventory = inventoryRepository.findById(id).orElseThrow();
+        assertThat(rejected.get()).isPositive();
+        assertThat(inventory.getReservedQuantity()).isEqualTo(reserved.get());
+        assertThat(inventory.getReservedQuantity()).isLessThanOrEqualTo(1000);
+        assertThat(inventory.getAvailableQuantity()).isEqualTo(1000 - reserved.get());
+        assertThat(inventory.getAvailableQuantity()).isGreaterThanOrEqualTo(0);
+    }
+
+    @Test
+    void rolledBackReservationIsReturnedToLedger() {
+        Long id = createInventory(2L, 1L, 5).getId();
+
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> {
+            reservationEngine.reserve(id, 5);
+            throw new IllegalStateException("rollback");
+        })).isInstanceOf(IllegalStateException.class);
+
+        transactionTemplate.executeWithoutResult(status -> reservationEngine.reserve(id, 5));
+        assertThat(inventoryRepository.findById(id).orElseThrow().getAvailableQuantity()).isZero();
+    }
+
+    @Test
+    void releaseMakesQuantityAvailableAgain() {
+        Long id = createInventory(3L, 1L, 3).getId();
+
+        transactionTemplate.executeWithoutResult(status -> reservationEngine.reserve(id, 3));
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> reservationEngine.reserve(id, 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        transactionTemplate.executeWithoutResult(status -> reservationEngine.release(id, 2));
+        transactionTemplate.executeWithoutResult(status -> reservationEngine.reserve(id, 2));
+
+        Inventory inventory = inventoryRepository.findById(id).orElseThrow();
+        assertThat(inventory.getReservedQuantity()).isEqualTo(3);
+        assertThat(inventory.getAvailableQuantity()).isZero();
+    }
+
+    @Test
+    void reserveAllIsAllOrNothing() {
+        Long first = createInventory(4L, 1L, 10).getId();
+        Long second = createInventory(5L, 1L, 1).getId();
+
+        TreeMap<Long, Integer> quantities = new TreeMap<>();
+        quantities.put(first, 5);
+        quantities.put(second, 2);
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> reservationEngine.reserveAll(quantities)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(inventoryRepository.findById(first).orElseThrow().getReservedQuantity()).isZero();
+
+        quantities.put(second, 1);
+        transactionTemplate.executeWithoutResult(status -> reservationEngine.reserveAll(quantities));
+        assertThat(inventoryRepository.findById(first).orElseThrow().getAvailableQuantity()).isEqualTo(5);
+        assertThat(inventoryRepository.findById(second).orElseThrow().getAvailableQuantity()).isZero();
+
+        transactionTemplate.executeWithoutResult(status -> reservationEngine.releaseAll(quantities));
+        assertThat(inventoryRepository.findById(first).orElseThrow().getReservedQuantity()).isZero();
+        assertThat(inventoryRepository.findById(second).orElseThrow().getReservedQuantity()).isZero();
+    }
+
+    @Test
+    void missingInventoryReturnsEmpty() {
+        Optional<Inventory> reserved = transactionTemplate.execute(status -> reservationEngine.reserve(999L, 1));
+        Optional<Inventory> released = transactionTemplate.execute(status -> reservationEngine.release(999L, 1));
+        assertThat(reserved).isEmpty();
+        assertThat(released).isEmpty();
+    }
+
+    private Inventory createInventory(Long productId, Long warehouseId, int quantity) {
+        Inventory inventory = new Inventory();
+        inventory.setProductId(productId);
+        inventory.setWarehouseId(warehouseId);
+        inventory.setQuantity(quantity);
+        inventory.setReservedQuantity(0);
+        return inventoryRepository.save(inventory);
+    }
+}
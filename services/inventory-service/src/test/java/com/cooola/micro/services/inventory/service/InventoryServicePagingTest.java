@@ -0,0 +1,101 @@
+package com.cooola.micro.services.inventory.service;
+
+import com.cooola.micro.services.inventory.dto.InventoryDto;
+import com.cooola.micro.services.inventory.dto.KeysetPage;
+import com.cooola.micro.services.inventory.model.Inventory;
+import com.cooola.micro.services.inventory.repository.InventoryBatchRepository;
+import com.cooola.micro.services.inventory.repository.InventoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 在庫一覧のキーセットページングのテスト
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({InventoryService.class, InventoryReservationEngine.class, InventoryBatchRepository.class,
+        InventoryAdjustmentJournal.class, InventoryReadCache.class, InventoryStockIndex.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventoryServicePagingTest {
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private InventoryService inventoryService;
+    
+    @Autowired
+    private InventoryStockIndex stockIndex;
+
+    @BeforeEach
+    void setUp() {
+        inventoryRepository.deleteAll();
+        for (long productId = 1; productId <= 25; productId++) {
+            for (long warehouseId = 3; warehouseId >= 1; warehouseId--) {
+                Inventory inventory = new Inventory();
+                inventory.setProductId(productId);
+                inventory.setWarehouseId(warehouseId);
+                inventory.setQuantity((int) productId);
+                inventory.setReservedQuantity(0);
+                inventoryRepository.save(inventory);
+            }
+        }
+        stockIndex.rebuild();
+    }
+
+    @Test
+    void allInventoriesArePagedByWarehouseThenId() {
+        List<InventoryDto> collected = new ArrayList<>();
+        String token = null;
+        int pages = 0;
+        do {
+            KeysetPage<InventoryDto> page = inventoryService.getAllInventories(token, 10);
+            assertThat(page.getItems()).hasSizeLessThanOrEqualTo(10);
+            collected.addAll(page.getItems());
+            token = page.getNextPageToken();
+            pages++;
+        } while (token != null);
+
+        assertThat(pages).isEqualTo(8);
+        assertThat(collected).hasSize(75);
+        assertThat(collected).isSortedAccordingTo(Comparator.comparing(InventoryDto::getWarehouseId)
+                .thenComparing(InventoryDto::getId));
+    }
+
+    @Test
+    void filteredListingsStopExactlyAtLastPage() {
+        KeysetPage<InventoryDto> first = inventoryService.getInventoriesByWarehouse(2L, null, 25);
+        assertThat(first.getItems()).hasSize(25).allMatch(inventory -> inventory.getWarehouseId() == 2L);
+        assertThat(first.getNextPageToken()).isNull();
+
+        KeysetPage<InventoryDto> lowStock = inventoryService.getLowStockItems(2, null, 4);
+        assertThat(lowStock.getItems()).hasSize(4);
+        KeysetPage<InventoryDto> rest = inventoryService.getLowStockItems(2, lowStock.getNextPageToken(), 4);
+        assertThat(rest.getItems()).hasSize(2);
+        assertThat(rest.getNextPageToken()).isNull();
+    }
+
+    @Test
+    void malformedTokenAndLimitAreRejected() {
+        assertThatThrownBy(() -> inventoryService.getInventoriesByProduct(1L, "not-a-token", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        String allToken = inventoryService.getAllInventories(null, 1).getNextPageToken();
+        assertThatThrownBy(() -> inventoryService.getInventoriesByProduct(1L, allToken, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> inventoryService.getAllInventories(null, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,187 @@
+package com.cooola.micro.services.inventory.service;
+
+import com.cooola.micro.services.inventory.dto.CreateInventoryRequest;
+import com.cooola.micro.services.inventory.dto.InventoryDto;
+import com.cooola.micro.services.inventory.dto.KeysetPage;
+import com.cooola.micro.services.inventory.dto.StockLevelChange;
+import com.cooola.micro.services.inventory.model.Inventory;
+import com.cooola.micro.services.inventory.repository.InventoryBatchRepository;
+import com.cooola.micro.services.inventory.repository.InventoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+/**
+ * 在庫水準インデックスのテスト
+ */
+@DataJpaTest(properties = "inventory.stock-index.max-threshold=20")
+@ActiveProfiles("test")
+@Import({InventoryService.class, InventoryReservationEngine.class, InventoryBatchRepository.class,
+        InventoryAdjustmentJournal.class, InventoryReadCache.class, InventoryStockIndex.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventoryStockIndexTest {
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private InventoryStockIndex stockIndex;
+
+    @BeforeEach
+    void setUp() {
+        inventoryRepository.deleteAll();
+        stockIndex.rebuild();
+    }
+
+    @Test
+    void lowStockQueriesFollowEveryMutation() throws InterruptedException {
+        List<Long> ids = new ArrayList<>();
+        for (long productId = 1; productId <= 30; productId++) {
+            ids.add(createInventory(productId, (int) productId).getId());
+        }
+        stockIndex.awaitRefresh();
+        assertThat(stockIndex.covers(10)).isTrue();
+        assertThat(lowStock(10)).extracting(InventoryDto::getProductId).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L);
+
+        inventoryService.reserveInventory(ids.get(24), 22);
+        inventoryService.releaseReservedInventory(ids.get(24), 2);
+        inventoryService.deleteInventory(ids.get(0));
+        inventoryService.reserveInventory(ids.get(1), 2);
+        stockIndex.awaitRefresh();
+
+        List<InventoryDto> lowStock = lowStock(10);
+        assertThat(lowStock).extracting(InventoryDto::getProductId).containsExactly(2L, 3L, 4L, 5L, 25L, 6L, 7L, 8L, 9L, 10L);
+        assertThat(lowStock).isSortedAccordingTo(Comparator.comparing(InventoryDto::getAvailableQuantity)
+                .thenComparing(InventoryDto::getId));
+        assertThat(inventoryService.getOutOfStockItems()).extracting(InventoryDto::getProductId).containsExactly(2L);
+
+        // 保持範囲を超える閾値は DB から同じ順序で応答する
+        assertThat(stockIndex.covers(50)).isFalse();
+        assertThat(lowStock(50)).hasSize(29).isSortedAccordingTo(Comparator.comparing(InventoryDto::getAvailableQuantity)
+                .thenComparing(InventoryDto::getId));
+    }
+
+    @Test
+    void subscribersReceiveOnlyThresholdCrossings() throws InterruptedException {
+        Long id = createInventory(1L, 10).getId();
+        BlockingQueue<StockLevelChange> changes = new LinkedBlockingQueue<>();
+        InventoryStockIndex.Subscription subscription = inventoryService.subscribeStockLevel(5, changes::add);
+
+        inventoryService.reserveInventory(id, 3);
+        // 読み直しは束ねて行われるため、1回目の変更が反映されてから次の変更を行う
+        stockIndex.awaitRefresh();
+        inventoryService.reserveInventory(id, 3);
+        StockLevelChange dropped = changes.poll(5, TimeUnit.SECONDS);
+        assertThat(dropped).isNotNull();
+        assertThat(dropped.isLowStock()).isTrue();
+        assertThat(dropped.getPreviousAvailableQuantity()).isEqualTo(7);
+        assertThat(dropped.getAvailableQuantity()).isEqualTo(4);
+
+        inventoryService.releaseReservedInventory(id, 6);
+        StockLevelChange recovered = changes.poll(5, TimeUnit.SECONDS);
+        assertThat(recovered).isNotNull();
+        assertThat(recovered.isLowStock()).isFalse();
+        assertThat(recovered.getAvailableQuantity()).isEqualTo(10);
+
+        subscription.close();
+        inventoryService.reserveInventory(id, 10);
+        assertThat(changes.poll(200, TimeUnit.MILLISECONDS)).isNull();
+
+        assertThatThrownBy(() -> inventoryService.subscribeStockLevel(21, changes::add))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void blockingSubscribersDoNotHoldUpIndexRefresh() throws InterruptedException {
+        Long id = createInventory(1L, 10).getId();
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingQueue<StockLevelChange> changes = new LinkedBlockingQueue<>();
+        InventoryStockIndex.Subscription blocking = inventoryService.subscribeStockLevel(5, change -> {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        InventoryStockIndex.Subscription other = inventoryService.subscribeStockLevel(5, changes::add);
+        try {
+            inventoryService.reserveInventory(id, 6);
+            assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // 通知を受け取ったまま止まっている購読者がいても、インデックスの更新と他の購読者への通知は進む
+            inventoryService.releaseReservedInventory(id, 6);
+            assertTimeoutPreemptively(Duration.ofSeconds(5), stockIndex::awaitRefresh);
+            assertThat(lowStock(5)).isEmpty();
+            assertThat(changes.poll(5, TimeUnit.SECONDS)).extracting(StockLevelChange::isLowStock).isEqualTo(true);
+            assertThat(changes.poll(5, TimeUnit.SECONDS)).extracting(StockLevelChange::isLowStock).isEqualTo(false);
+        } finally {
+            release.countDown();
+            blocking.close();
+            other.close();
+        }
+    }
+
+    @Test
+    void rebuildLoadsRowsWrittenOutsideTheService() {
+        // 読み直しの1回分（500件）を超える件数を、変更イベントを発行せずに書き込む
+        List<Inventory> inventories = new ArrayList<>();
+        for (long productId = 1; productId <= 1201; productId++) {
+            Inventory inventory = new Inventory();
+            inventory.setProductId(productId);
+            inventory.setWarehouseId(1L);
+            inventory.setQuantity(productId % 2 == 0 ? 0 : 30);
+            inventory.setReservedQuantity(0);
+            inventories.add(inventory);
+        }
+        inventoryRepository.saveAll(inventories);
+
+        stockIndex.rebuild();
+
+        assertThat(stockIndex.covers(20)).isTrue();
+        assertThat(stockIndex.findOutOfStock()).hasSize(600)
+                .allSatisfy(row -> assertThat(row.getAvailableQuantity()).isZero());
+    }
+
+    private List<InventoryDto> lowStock(int threshold) {
+        List<InventoryDto> collected = new ArrayList<>();
+        String token = null;
+        do {
+            KeysetPage<InventoryDto> page = inventoryService.getLowStockItems(threshold, token, 3);
+            collected.addAll(page.getItems());
+            token = page.getNextPageToken();
+        } while (token != null);
+        return collected;
+    }
+
+    private InventoryDto createInventory(Long productId, int quantity) {
+        CreateInventoryRequest request = new CreateInventoryRequest();
+        request.setProductId(productId);
+        request.setWarehouseId(1L);
+        request.setQuantity(quantity);
+        request.setReservedQuantity(0);
+        return inventoryService.createInventory(request);
+    }
+}
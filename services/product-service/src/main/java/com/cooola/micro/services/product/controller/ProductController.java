@@ -1,6 +1,11 @@
 package com.cooola.micro.services.product.controller;
 
+import com.cooola.micro.services.product.dto.KeysetPage;
+import com.cooola.micro.services.product.dto.ProductCompletion;
+import com.cooola.micro.services.product.dto.ProductImportResult;
+import com.cooola.micro.services.product.dto.ProductView;
 import com.cooola.micro.services.product.model.Product;
+import com.cooola.micro.services.product.service.ProductImporter;
 import com.cooola.micro.services.product.service.ProductService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -8,6 +13,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 /**
@@ -19,25 +26,41 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ProductController {
     
+    private static final String NEXT_PAGE_TOKEN_HEADER = "X-Next-Page-Token";
+    
     private final ProductService productService;
+    private final ProductImporter productImporter;
     
     /**
-     * 商品一覧を取得
+     * 商品一覧を取得（キーセットページング。次ページのトークンは X-Next-Page-Token ヘッダーで返す）
+     * 別オリジンのフロントエンドがページをたどれるよう、トークンのヘッダーを公開する。
      */
     @GetMapping
-    public ResponseEntity<List<Product>> getAllProducts() {
-        log.info("Getting all products");
-        List<Product> products = productService.getAllProducts();
-        return ResponseEntity.ok(products);
+    @CrossOrigin(exposedHeaders = NEXT_PAGE_TOKEN_HEADER)
+    public ResponseEntity<List<ProductView>> getAllProducts(
+            @RequestParam(required = false) String pageToken,
+            @RequestParam(defaultValue = "100") int limit) {
+        log.info("Getting products: limit={}", limit);
+        try {
+            KeysetPage<ProductView> page = productService.getAllProducts(pageToken, limit);
+            ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+            if (page.getNextPageToken() != null) {
+                builder.header(NEXT_PAGE_TOKEN_HEADER, page.getNextPageToken());
+            }
+            return builder.body(page.getItems());
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid page request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
     }
     
     /**
      * 商品詳細を取得
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProduct(@PathVariable Long id) {
+    public ResponseEntity<ProductView> getProduct(@PathVariable Long id) {
         log.info("Getting product with id: {}", id);
-        Product product = productService.getProductById(id);
+        ProductView product = productService.getProductView(id);
         return ResponseEntity.ok(product);
     }
     
@@ -51,6 +74,24 @@ public class ProductController {
         return ResponseEntity.ok(createdProduct);
     }
     
+    /**
+     * 商品を CSV で一括登録（Content-Type: text/csv。1行目はヘッダー）
+     */
+    @PostMapping(value = "/import", consumes = ProductImporter.CSV)
+    public ResponseEntity<ProductImportResult> importProductsFromCsv(InputStream body) throws IOException {
+        log.info("Importing products: format=CSV");
+        return importProducts(body, ProductImporter.CSV);
+    }
+    
+    /**
+     * 商品を NDJSON で一括登録（Content-Type: application/x-ndjson。1行1商品）
+     */
+    @PostMapping(value = "/import", consumes = ProductImporter.NDJSON)
+    public ResponseEntity<ProductImportResult> importProductsFromNdjson(InputStream body) throws IOException {
+        log.info("Importing products: format=NDJSON");
+        return importProducts(body, ProductImporter.NDJSON);
+    }
+    
     /**
      * 商品を更新
      */
@@ -72,22 +113,77 @@ public class ProductController {
     }
     
     /**
-     * 商品を検索
+     * 商品を検索（関連度の高い順に最大 limit 件）
      */
     @GetMapping("/search")
-    public ResponseEntity<List<Product>> searchProducts(@RequestParam String query) {
-        log.info("Searching products with query: {}", query);
-        List<Product> products = productService.searchProducts(query);
-        return ResponseEntity.ok(products);
+    public ResponseEntity<List<ProductView>> searchProducts(@RequestParam String query,
+                                                        @RequestParam(defaultValue = "100") int limit) {
+        log.info("Searching products with query: {}, limit={}", query, limit);
+        try {
+            List<ProductView> products = productService.searchProducts(query, limit);
+            return ResponseEntity.ok(products);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid search request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
     }
     
     /**
-     * カテゴリ別商品一覧を取得
+     * 商品コード・バーコード・QRコードの入力補完候補を取得（前方一致。最大 limit 件）
+     */
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<ProductCompletion>> autocomplete(@RequestParam String prefix,
+                                                                @RequestParam(defaultValue = "10") int limit) {
+        try {
+            return ResponseEntity.ok(productService.autocomplete(prefix, limit));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid autocomplete request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    /**
+     * カテゴリ別商品一覧を取得（includeDescendants=true の場合は子孫カテゴリの商品も含める）
      */
     @GetMapping("/category/{categoryId}")
-    public ResponseEntity<List<Product>> getProductsByCategory(@PathVariable Long categoryId) {
-        log.info("Getting products for category: {}", categoryId);
-        List<Product> products = productService.getProductsByCategory(categoryId);
+    public ResponseEntity<List<ProductView>> getProductsByCategory(@PathVariable Long categoryId,
+                                                                   @RequestParam(defaultValue = "false") boolean includeDescendants) {
+        log.info("Getting products for category: {}, includeDescendants={}", categoryId, includeDescendants);
+        List<ProductView> products = includeDescendants
+                ? productService.getProductsInCategoryTree(categoryId)
+                : productService.getProductsByCategory(categoryId);
         return ResponseEntity.ok(products);
     }
+    
+    /**
+     * カテゴリ配下（子孫カテゴリを含む）の商品数を取得
+     */
+    @GetMapping("/category/{categoryId}/count")
+    public ResponseEntity<Long> countProductsInCategoryTree(@PathVariable Long categoryId) {
+        return ResponseEntity.ok(productService.countProductsInCategoryTree(categoryId));
+    }
+    
+    /**
+     * カテゴリを別の親カテゴリの下へ移動（parentId を省略した場合はトップレベルへ移動）
+     */
+    @PutMapping("/categories/{id}/parent")
+    public ResponseEntity<Void> moveCategory(@PathVariable Long id, @RequestParam(required = false) Long parentId) {
+        log.info("Moving category {} under {}", id, parentId);
+        try {
+            productService.moveCategory(id, parentId);
+            return ResponseEntity.noContent().build();
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid category move: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    private ResponseEntity<ProductImportResult> importProducts(InputStream body, String contentType) throws IOException {
+        try {
+            return ResponseEntity.ok(productImporter.importProducts(body, contentType));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid import request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.cooola.micro.services.product.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * 商品カテゴリの読み取りモデル（変更不可。カタログのスナップショットで複数のリクエストから共有する）
+ * path はトップレベルから自身までのカテゴリ名
+ */
+@Value
+public class CategoryView {
+
+    Long id;
+    String name;
+    String description;
+    Long parentId;
+    List<String> path;
+}
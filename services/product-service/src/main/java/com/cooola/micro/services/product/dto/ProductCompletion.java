@@ -0,0 +1,20 @@
+package com.cooola.micro.services.product.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+/**
+ * 商品コード・バーコード・QRコードの入力補完候補DTO
+ * field は一致した項目（code・barcode・qrCode）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductCompletion {
+
+    private Long productId;
+    private String field;
+    private String value;
+    private String name;
+}
@@ -0,0 +1,19 @@
+package com.cooola.micro.services.product.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+/**
+ * 商品一括登録で登録できなかった行DTO
+ * line は入力の行番号（CSV はヘッダーを1行目とする。レコードが複数行にわたる場合は先頭行）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportError {
+
+    private long line;
+    private String code;
+    private String message;
+}
@@ -0,0 +1,24 @@
+package com.cooola.micro.services.product.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 商品一括登録の結果DTO
+ * errors は登録できなかった行（行番号順。件数が上限を超えた分は含めず errorsTruncated=true とする）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportResult {
+
+    private long total;
+    private long imported;
+    private long failed;
+    private long elapsedMillis;
+    private List<ProductImportError> errors;
+    private boolean errorsTruncated;
+}
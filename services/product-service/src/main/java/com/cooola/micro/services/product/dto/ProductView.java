@@ -0,0 +1,33 @@
+package com.cooola.micro.services.product.dto;
+
+import lombok.Value;
+import lombok.With;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 商品の読み取りモデル（変更不可。カタログのスナップショットで複数のリクエストから共有する）
+ * JPA エンティティと異なり遅延読み込みの関連を持たず、カテゴリは親子関係を辿らずに参照できる形で保持する
+ */
+@Value
+public class ProductView {
+
+    Long id;
+    String code;
+    String name;
+    String description;
+    @With
+    CategoryView category;
+    BigDecimal unitPrice;
+    BigDecimal costPrice;
+    String barcode;
+    String qrCode;
+    BigDecimal weight;
+    String dimensions;
+    Integer minStockLevel;
+    Integer maxStockLevel;
+    Boolean isActive;
+    LocalDateTime createdAt;
+    LocalDateTime updatedAt;
+}
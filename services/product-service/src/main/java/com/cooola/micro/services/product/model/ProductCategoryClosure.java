@@ -0,0 +1,45 @@
+package com.cooola.micro.services.product.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 商品カテゴリ閉包エンティティ（祖先カテゴリ・子孫カテゴリの全組み合わせ）
+ * 自身との組み合わせを depth = 0 で持つため、カテゴリ配下の全カテゴリは ancestor_id の主キー範囲の1回の検索で求まる
+ */
+@Entity
+@Table(name = "product_category_closure",
+       indexes = @Index(name = "idx_category_closure_descendant", columnList = "descendant_id, depth"))
+@IdClass(ProductCategoryClosure.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductCategoryClosure {
+    
+    @Id
+    @Column(name = "ancestor_id")
+    private Long ancestorId;
+    
+    @Id
+    @Column(name = "descendant_id")
+    private Long descendantId;
+    
+    @Column(nullable = false)
+    private Integer depth;
+    
+    /**
+     * 複合主キー
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        
+        private Long ancestorId;
+        private Long descendantId;
+    }
+}
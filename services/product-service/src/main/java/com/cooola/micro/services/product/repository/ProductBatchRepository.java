@@ -0,0 +1,57 @@
+package com.cooola.micro.services.product.repository;
+
+import com.cooola.micro.services.product.model.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 商品一括登録リポジトリ
+ * ID が IDENTITY 採番のため Hibernate では INSERT をバッチにできない。複数行の INSERT を JDBC バッチで1回のラウンドトリップにまとめる
+ * （MySQL では接続 URL の rewriteBatchedStatements=true で複数行の INSERT 文に書き換えられる）
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProductBatchRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO products (code, name, description, category_id, unit_price, cost_price, barcode, qr_code, " +
+            "weight, dimensions, min_stock_level, max_stock_level, is_active, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * 商品を一括登録（ID・登録日時は設定しない。カテゴリは ID のみを参照する）
+     * @return 行ごとの登録件数（products の順）
+     */
+    public int[] insertAll(List<Product> products, LocalDateTime now) {
+        // 永続化コンテキストとの整合性を保つ（@Modifying の flush/clear と同等）
+        entityManager.flush();
+
+        Timestamp timestamp = Timestamp.valueOf(now);
+        List<Object[]> args = new ArrayList<>(products.size());
+        for (Product product : products) {
+            args.add(new Object[]{
+                    product.getCode(), product.getName(), product.getDescription(),
+                    product.getCategory() == null ? null : product.getCategory().getId(),
+                    product.getUnitPrice(), product.getCostPrice(), product.getBarcode(), product.getQrCode(),
+                    product.getWeight(), product.getDimensions(), product.getMinStockLevel(), product.getMaxStockLevel(),
+                    product.getIsActive(), timestamp, timestamp});
+        }
+        int[] counts = jdbcTemplate.batchUpdate(INSERT_SQL, args);
+
+        entityManager.clear();
+        return counts;
+    }
+}
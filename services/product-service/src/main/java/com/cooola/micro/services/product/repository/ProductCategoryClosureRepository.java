@@ -0,0 +1,56 @@
+package com.cooola.micro.services.product.repository;
+
+import com.cooola.micro.services.product.model.ProductCategoryClosure;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 商品カテゴリ閉包リポジトリ
+ */
+@Repository
+public interface ProductCategoryClosureRepository extends JpaRepository<ProductCategoryClosure, ProductCategoryClosure.Key> {
+    
+    /**
+     * カテゴリ配下の全カテゴリ（自身を含む）を取得
+     */
+    List<ProductCategoryClosure> findByAncestorId(Long ancestorId);
+    
+    /**
+     * カテゴリの全祖先（自身を含む）を取得
+     */
+    List<ProductCategoryClosure> findByDescendantId(Long descendantId);
+    
+    /**
+     * カテゴリ配下の全カテゴリ（自身を含む）を取得し、取得した行を更新ロックする（カテゴリの移動用）
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM ProductCategoryClosure c WHERE c.ancestorId = :ancestorId")
+    List<ProductCategoryClosure> findByAncestorIdForUpdate(@Param("ancestorId") Long ancestorId);
+    
+    /**
+     * カテゴリの全祖先（自身を含む）を取得し、取得した行を更新ロックする（カテゴリの移動用）
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM ProductCategoryClosure c WHERE c.descendantId = :descendantId")
+    List<ProductCategoryClosure> findByDescendantIdForUpdate(@Param("descendantId") Long descendantId);
+    
+    /**
+     * 指定の深さの組み合わせ数（depth = 0 は閉包に登録済みのカテゴリ数）
+     */
+    long countByDepth(Integer depth);
+    
+    /**
+     * 祖先・子孫の組み合わせを削除（カテゴリの移動で、移動するサブツリーと旧い祖先の組み合わせを外す）
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM ProductCategoryClosure c WHERE c.ancestorId IN :ancestorIds AND c.descendantId IN :descendantIds")
+    int deleteLinks(@Param("ancestorIds") Collection<Long> ancestorIds, @Param("descendantIds") Collection<Long> descendantIds);
+}
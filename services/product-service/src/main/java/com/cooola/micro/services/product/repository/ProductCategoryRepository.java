@@ -2,6 +2,7 @@ package com.cooola.micro.services.product.repository;
 
 import com.cooola.micro.services.product.model.ProductCategory;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -33,6 +34,12 @@ public interface ProductCategoryRepository extends JpaRepository<ProductCategory
      */
     List<ProductCategory> findByIsActiveTrue();
     
+    /**
+     * 全カテゴリIDを取得（一括登録のカテゴリ存在チェック用）
+     */
+    @Query("SELECT c.id FROM ProductCategory c")
+    List<Long> findAllIds();
+    
     /**
      * カテゴリ名の存在チェック
      */
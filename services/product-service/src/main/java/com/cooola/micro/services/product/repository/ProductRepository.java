@@ -1,6 +1,7 @@
 package com.cooola.micro.services.product.repository;
 
 import com.cooola.micro.services.product.model.Product;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -15,6 +16,11 @@ import java.util.Optional;
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
     
+    /**
+     * 商品を ID 順に指定IDの次から取得（キーセットページング）
+     */
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+    
     /**
      * 商品コードで商品を検索
      */
@@ -30,6 +36,20 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
      */
     List<Product> findByCategoryId(Long categoryId);
     
+    /**
+     * カテゴリ配下（子孫カテゴリを含む）の商品を ID 順に検索（閉包テーブルの主キー範囲の1回の検索）
+     */
+    @Query("SELECT p FROM Product p WHERE p.category.id IN " +
+           "(SELECT c.descendantId FROM ProductCategoryClosure c WHERE c.ancestorId = :categoryId) ORDER BY p.id")
+    List<Product> findByCategoryTree(@Param("categoryId") Long categoryId);
+    
+    /**
+     * カテゴリ配下（子孫カテゴリを含む）の商品数
+     */
+    @Query("SELECT COUNT(p) FROM Product p WHERE p.category.id IN " +
+           "(SELECT c.descendantId FROM ProductCategoryClosure c WHERE c.ancestorId = :categoryId)")
+    long countByCategoryTree(@Param("categoryId") Long categoryId);
+    
     /**
      * アクティブな商品を検索
      */
@@ -64,6 +84,12 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT p FROM Product p WHERE p.weight BETWEEN :minWeight AND :maxWeight")
     List<Product> findByWeightRange(@Param("minWeight") Double minWeight, @Param("maxWeight") Double maxWeight);
     
+    /**
+     * 全商品コードを取得（一括登録の重複チェック用）
+     */
+    @Query("SELECT p.code FROM Product p")
+    List<String> findAllCodes();
+    
     /**
      * 商品コードの存在チェック
      */
@@ -0,0 +1,340 @@
+package com.cooola.micro.services.product.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 商品のコード・名前・説明の n-gram 転置索引
+ * 各項目を正規化（NFKC・小文字化・ひらがなをカタカナに統一）したうえで1文字単位と2文字単位に分割し、
+ * n-gram ごとに商品の内部番号の昇順の一覧を持つ。分かち書きをしないため、日本語でも語の途中に一致する
+ * （一致の判定は正規化後の各項目に対する部分一致。説明を索引に含めない設定では説明には一致しない）。
+ * 検索は検索語の n-gram の一覧の積を件数の少ない順に取って候補を絞り、候補だけを部分一致で確かめてから順位付けする。
+ * 更新は内部番号を振り直して末尾に追加し（一覧は昇順のまま）、削除した番号は一定数たまった時点で詰め直す。
+ */
+final class NgramIndex {
+
+    // 削除済みの番号がこの割合を超えたら詰め直す
+    private static final double COMPACTION_RATIO = 0.25;
+    private static final int COMPACTION_MINIMUM = 1024;
+
+    private static final int[] EMPTY = new int[0];
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, Postings> postings = new HashMap<>();
+    // 商品ID → 内部番号
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    // 内部番号 → 商品（削除済みは null）
+    private Doc[] docs = new Doc[1024];
+    private int docCount;
+    private int deletedCount;
+    private final boolean indexDescription;
+
+    /**
+     * @param indexDescription 説明も索引に含めるか（説明は長いため、メモリ使用量の大半を占める）
+     */
+    NgramIndex(boolean indexDescription) {
+        this.indexDescription = indexDescription;
+    }
+
+    /**
+     * 商品を追加（同じIDの商品がある場合は置き換える）
+     */
+    void put(long id, String code, String name, String description) {
+        Doc doc = new Doc(id, normalize(code), normalize(name), indexDescription ? normalize(description) : "");
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            if (docCount == docs.length) {
+                docs = Arrays.copyOf(docs, docs.length * 2);
+            }
+            int ordinal = docCount++;
+            docs[ordinal] = doc;
+            ordinals.put(id, ordinal);
+            addPostings(doc, ordinal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 商品を削除
+     */
+    void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 索引に含まれる商品数
+     */
+    int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 検索語（空白区切りの語をすべて含む商品）に一致する商品IDを順位の高い順に取得
+     * 順位はコードの完全一致 > コードの前方一致 > 名前の前方一致 > 名前・コードの部分一致 > 説明の部分一致の順で、
+     * 同じ順位では名前の短い商品、次に ID の小さい商品を先にする。
+     *
+     * @param query 検索語
+     * @param limit 取得件数
+     * @return 商品ID
+     */
+    List<Long> search(String query, int limit) {
+        String[] terms = normalize(query).trim().split(" +");
+        if (terms.length == 0 || terms[0].isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            // 件数の少ない一覧から積を取り、候補を早く絞る
+            List<Postings> lists = new ArrayList<>();
+            for (String term : terms) {
+                for (int gram : grams(term)) {
+                    Postings list = postings.get(gram);
+                    if (list == null) {
+                        return List.of();
+                    }
+                    lists.add(list);
+                }
+            }
+            lists.sort(Comparator.comparingInt(list -> list.size));
+            Postings smallest = lists.get(0);
+            int[] candidates = Arrays.copyOf(smallest.ordinals, smallest.size);
+            int candidateCount = smallest.size;
+            for (int i = 1; i < lists.size() && candidateCount > 0; i++) {
+                Postings list = lists.get(i);
+                if (list != smallest) {
+                    candidateCount = intersect(candidates, candidateCount, list.ordinals, list.size);
+                }
+            }
+            if (candidateCount == 0) {
+                return List.of();
+            }
+            PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, Hit.WORST_FIRST);
+            for (int i = 0; i < candidateCount; i++) {
+                Doc doc = docs[candidates[i]];
+                if (doc == null) {
+                    continue;
+                }
+                int score = score(doc, terms);
+                if (score > 0) {
+                    top.add(new Hit(doc.id(), score, doc.name().length()));
+                    if (top.size() > limit) {
+                        top.poll();
+                    }
+                }
+            }
+            List<Hit> hits = new ArrayList<>(top);
+            hits.sort(Hit.WORST_FIRST.reversed());
+            return hits.stream().map(Hit::id).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 検索語・索引の文字列を正規化（全角英数・半角カナを NFKC で統一し、小文字化し、ひらがなをカタカナに寄せ、空白を1種類にする）
+     */
+    static String normalize(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        char[] chars = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT).toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            char c = chars[i];
+            if (c >= 'ぁ' && c <= 'ゖ') {
+                chars[i] = (char) (c + 0x60);
+            } else if (Character.isWhitespace(c)) {
+                chars[i] = ' ';
+            }
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 語の n-gram（2文字以上は2文字単位、1文字の語は1文字）
+     */
+    private static int[] grams(String term) {
+        if (term.length() == 1) {
+            return new int[]{unigram(term.charAt(0))};
+        }
+        int[] grams = new int[term.length() - 1];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = bigram(term.charAt(i), term.charAt(i + 1));
+        }
+        return grams;
+    }
+
+    private static int unigram(char c) {
+        return c;
+    }
+
+    private static int bigram(char first, char second) {
+        // 1文字の n-gram と重ならないよう、上位16ビットを1文字目にする（1文字目が U+0000 の文字列は扱わない）
+        return first << 16 | second;
+    }
+
+    private void addPostings(Doc doc, int ordinal) {
+        // 同じ商品で同じ n-gram を重複して登録しない（番号は昇順に追加するため、末尾だけを見ればよい）
+        addGrams(doc.code(), ordinal);
+        addGrams(doc.name(), ordinal);
+        // 1文字の検索語でも説明に一致するよう、説明も1文字単位で登録する
+        addGrams(doc.description(), ordinal);
+    }
+
+    private void addGrams(String field, int ordinal) {
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == ' ') {
+                continue;
+            }
+            posting(unigram(c)).add(ordinal);
+            if (i + 1 < field.length() && field.charAt(i + 1) != ' ') {
+                posting(bigram(c, field.charAt(i + 1))).add(ordinal);
+            }
+        }
+    }
+
+    private Postings posting(int gram) {
+        return postings.computeIfAbsent(gram, key -> new Postings());
+    }
+
+    private void removeLocked(long id) {
+        Integer ordinal = ordinals.remove(id);
+        if (ordinal == null) {
+            return;
+        }
+        docs[ordinal] = null;
+        deletedCount++;
+        if (deletedCount > COMPACTION_MINIMUM && deletedCount > docCount * COMPACTION_RATIO) {
+            compact();
+        }
+    }
+
+    /**
+     * 削除済みの番号を除いて番号を振り直し、一覧を作り直す
+     */
+    private void compact() {
+        Doc[] live = new Doc[Math.max(1024, ordinals.size() * 2)];
+        int count = 0;
+        postings.clear();
+        ordinals.clear();
+        for (int i = 0; i < docCount; i++) {
+            Doc doc = docs[i];
+            if (doc != null) {
+                live[count] = doc;
+                ordinals.put(doc.id(), count);
+                addPostings(doc, count);
+                count++;
+            }
+        }
+        docs = live;
+        docCount = count;
+        deletedCount = 0;
+        postings.values().forEach(Postings::trim);
+    }
+
+    /**
+     * 昇順の2つの一覧の積を1つ目の配列に書き込む（小さい方の各要素を大きい方から指数探索で探す）
+     *
+     * @return 積の要素数
+     */
+    private static int intersect(int[] target, int targetCount, int[] other, int otherCount) {
+        int count = 0;
+        int from = 0;
+        for (int i = 0; i < targetCount && from < otherCount; i++) {
+            int value = target[i];
+            int bound = 1;
+            while (from + bound < otherCount && other[from + bound] < value) {
+                bound <<= 1;
+            }
+            int found = Arrays.binarySearch(other, from + bound / 2, Math.min(from + bound + 1, otherCount), value);
+            if (found >= 0) {
+                target[count++] = value;
+                from = found + 1;
+            } else {
+                from = -found - 1;
+            }
+        }
+        return count;
+    }
+
+    private static int score(Doc doc, String[] terms) {
+        int score = 0;
+        for (String term : terms) {
+            int termScore;
+            if (doc.code().equals(term)) {
+                termScore = 100;
+            } else if (doc.code().startsWith(term)) {
+                termScore = 50;
+            } else if (doc.name().startsWith(term)) {
+                termScore = 30;
+            } else if (doc.name().contains(term)) {
+                termScore = 20;
+            } else if (doc.code().contains(term)) {
+                termScore = 15;
+            } else if (doc.description().contains(term)) {
+                termScore = 5;
+            } else {
+                // n-gram はすべて含むが連続していない
+                return 0;
+            }
+            score += termScore;
+        }
+        return score;
+    }
+
+    /**
+     * 正規化済みの索引対象
+     */
+    private record Doc(long id, String code, String name, String description) {
+    }
+
+    private record Hit(long id, int score, int nameLength) {
+        // 順位の低い順（先頭を取り除いて上位だけを残す）
+        static final Comparator<Hit> WORST_FIRST = Comparator.comparingInt(Hit::score)
+                .thenComparing(Comparator.comparingInt(Hit::nameLength).reversed())
+                .thenComparing(Comparator.comparingLong(Hit::id).reversed());
+    }
+
+    /**
+     * n-gram 1つ分の商品の内部番号の一覧（昇順）
+     */
+    private static final class Postings {
+        private int[] ordinals = new int[4];
+        private int size;
+
+        void add(int ordinal) {
+            if (size > 0 && ordinals[size - 1] == ordinal) {
+                return;
+            }
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size + (size >> 1) + 1);
+            }
+            ordinals[size++] = ordinal;
+        }
+
+        void trim() {
+            ordinals = size == 0 ? EMPTY : Arrays.copyOf(ordinals, size);
+        }
+    }
+}
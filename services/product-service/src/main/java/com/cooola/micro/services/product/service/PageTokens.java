@@ -0,0 +1,63 @@
+package com.cooola.micro.services.product.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * キーセットページングの継続トークン
+ * 最終行のソートキーを URL セーフな Base64 で符号化する（クライアントは内容に依存しないこと）
+ */
+final class PageTokens {
+
+    static final int MAX_LIMIT = 1000;
+
+    private static final String VERSION = "v1";
+
+    private PageTokens() {
+    }
+
+    /**
+     * ソートキーからトークンを生成
+     */
+    static String encode(long... keys) {
+        StringBuilder builder = new StringBuilder(VERSION);
+        for (long key : keys) {
+            builder.append(':').append(key);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(builder.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * トークンからソートキーを復元
+     * @param arity ソートキーの数
+     * @throws IllegalArgumentException トークンが不正な場合
+     */
+    static long[] decode(String token, int arity) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII).split(":");
+            if (parts.length != arity + 1 || !VERSION.equals(parts[0])) {
+                throw new IllegalArgumentException("ページトークンが不正です");
+            }
+            long[] keys = new long[arity];
+            for (int i = 0; i < arity; i++) {
+                keys[i] = Long.parseLong(parts[i + 1]);
+            }
+            return keys;
+        } catch (IllegalArgumentException e) {
+            // Base64・数値の不正（NumberFormatException を含む）をまとめて扱う
+            throw new IllegalArgumentException("ページトークンが不正です", e);
+        }
+    }
+
+    /**
+     * 取得件数を検証
+     * @throws IllegalArgumentException 範囲外の場合
+     */
+    static int checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("取得件数は1以上" + MAX_LIMIT + "以下である必要があります");
+        }
+        return limit;
+    }
+}
@@ -0,0 +1,103 @@
+package com.cooola.micro.services.product.service;
+
+import com.cooola.micro.services.product.dto.ProductCompletion;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 商品コード・バーコード・QRコードの前方一致索引
+ * 正規化（NFKC・大文字化・空白除去）した値の辞書順の skip list を持ち、前方一致の候補を辞書順（完全一致が先頭）に先頭から N 件だけ読む。
+ * 取得は索引の件数に対して O(log n + N) で、読み取りはロックを取らない。更新は商品単位で旧い値を取り除いてから追加する。
+ */
+final class PrefixIndex {
+
+    // 正規化した値の後ろに付け、同じ値を持つ項目・商品を区別する（値に含まれない文字）
+    private static final char SEPARATOR = '\u0000';
+
+    private final ConcurrentNavigableMap<String, ProductCompletion> entries = new ConcurrentSkipListMap<>();
+    // 商品ID → 登録済みのキー
+    private final Map<Long, List<String>> keysById = new HashMap<>();
+
+    /**
+     * 商品を追加（同じIDの商品がある場合は置き換える）
+     */
+    synchronized void put(long id, String name, String code, String barcode, String qrCode) {
+        removeLocked(id);
+        List<String> keys = new ArrayList<>(3);
+        add(keys, id, name, "code", code);
+        add(keys, id, name, "barcode", barcode);
+        add(keys, id, name, "qrCode", qrCode);
+        keysById.put(id, keys);
+    }
+
+    /**
+     * 商品を削除
+     */
+    synchronized void remove(long id) {
+        removeLocked(id);
+    }
+
+    /**
+     * 前方一致の候補を辞書順に取得
+     *
+     * @param prefix 入力中の値
+     * @param limit  取得件数
+     * @return 候補（同じ値は項目・商品ごとに別の候補になる）
+     */
+    List<ProductCompletion> complete(String prefix, int limit) {
+        String from = normalize(prefix);
+        if (from.isEmpty()) {
+            return List.of();
+        }
+        List<ProductCompletion> completions = new ArrayList<>(Math.min(limit, 16));
+        for (ProductCompletion completion : entries.subMap(from, true, from + Character.MAX_VALUE, false).values()) {
+            completions.add(completion);
+            if (completions.size() == limit) {
+                break;
+            }
+        }
+        return completions;
+    }
+
+    /**
+     * 入力・索引の値を正規化（全角英数を NFKC で統一し、大文字化し、空白を除く）
+     */
+    static String normalize(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(value, Normalizer.Form.NFKC).toUpperCase(Locale.ROOT);
+        StringBuilder builder = new StringBuilder(normalized.length());
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (!Character.isWhitespace(c) && c != SEPARATOR) {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    private void add(List<String> keys, long id, String name, String field, String value) {
+        String normalized = normalize(value);
+        if (normalized.isEmpty()) {
+            return;
+        }
+        String key = normalized + SEPARATOR + field + SEPARATOR + id;
+        entries.put(key, new ProductCompletion(id, field, value, name));
+        keys.add(key);
+    }
+
+    private void removeLocked(long id) {
+        List<String> keys = keysById.remove(id);
+        if (keys != null) {
+            keys.forEach(entries::remove);
+        }
+    }
+}
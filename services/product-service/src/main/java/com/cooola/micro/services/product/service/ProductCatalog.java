@@ -0,0 +1,580 @@
+package com.cooola.micro.services.product.service;
+
+import com.cooola.micro.services.product.dto.CategoryView;
+import com.cooola.micro.services.product.dto.ProductView;
+import com.cooola.micro.services.product.model.Product;
+import com.cooola.micro.services.product.model.ProductCategory;
+import com.cooola.micro.services.product.repository.ProductCategoryRepository;
+import com.cooola.micro.services.product.repository.ProductRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * 商品カタログの読み取りモデル（商品とカテゴリツリーの変更不可のスナップショット）
+ * 読み取り API は JPA エンティティの代わりにスナップショットの商品・カテゴリを返すため、カテゴリの遅延読み込み（N+1）が発生せず、
+ * セッション外でのプロキシ初期化にも依存しない。スナップショットは起動時と一定間隔で DB から作り直し、
+ * 商品・カテゴリの変更はコミット後に差分だけを反映した新しいスナップショットに入れ替える（読み取りはロックを取らない）。
+ * 作り直しの最中の変更は記録しておき、読み込み後のスナップショットに適用してから入れ替える。
+ */
+@Component
+@Slf4j
+public class ProductCatalog {
+
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    // スナップショットのチャンクの件数（併合でこの2倍を超えたチャンクは分割し、削除で小さくなったチャンクは作り直しで均等に分け直す）
+    static final int CHUNK_SIZE = 512;
+
+    private final ProductRepository productRepository;
+    private final ProductCategoryRepository categoryRepository;
+
+    private volatile Snapshot snapshot;
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    // 作り直しの最中の変更（作り直していない間は null）
+    private List<UnaryOperator<Snapshot>> journal;
+
+    public ProductCatalog(ProductRepository productRepository,
+                          ProductCategoryRepository categoryRepository,
+                          ObjectProvider<MeterRegistry> meterRegistry) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        meterRegistry.ifAvailable(registry -> Gauge.builder("product.catalog.size", this, ProductCatalog::size)
+                .description("Number of products in the catalog snapshot")
+                .register(registry));
+    }
+
+    /**
+     * スナップショットが利用可能か（初回の作り直しが完了しているか）
+     */
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    /**
+     * スナップショットの商品数
+     */
+    public int size() {
+        Snapshot current = snapshot;
+        return current == null ? 0 : current.size;
+    }
+
+    /**
+     * スナップショットのチャンク数（テスト用）
+     */
+    int chunkCount() {
+        return current().chunks.length;
+    }
+
+    /**
+     * IDで商品を取得
+     *
+     * @throws IllegalStateException スナップショットが利用できない場合
+     */
+    public Optional<ProductView> getProduct(long id) {
+        return current().product(id);
+    }
+
+    /**
+     * 商品をIDで取得（指定の順序を保ち、存在しないIDは除く）
+     *
+     * @throws IllegalStateException スナップショットが利用できない場合
+     */
+    public List<ProductView> getProducts(List<Long> ids) {
+        Snapshot current = current();
+        List<ProductView> products = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            current.product(id).ifPresent(products::add);
+        }
+        return products;
+    }
+
+    /**
+     * 商品を ID 順に指定IDの次から取得
+     *
+     * @throws IllegalStateException スナップショットが利用できない場合
+     */
+    public List<ProductView> getProductsAfter(long afterId, int limit) {
+        return current().productsAfter(afterId, limit);
+    }
+
+    /**
+     * カテゴリ別に商品を ID 順に取得
+     *
+     * @throws IllegalStateException スナップショットが利用できない場合
+     */
+    public List<ProductView> getProductsByCategory(long categoryId) {
+        return current().productsIn(List.of(categoryId));
+    }
+
+    /**
+     * 指定のカテゴリのいずれかに属する商品を ID 順に取得（カテゴリ配下の商品の取得に使う）
+     *
+     * @throws IllegalStateException スナップショットが利用できない場合
+     */
+    public List<ProductView> getProductsInCategories(Set<Long> categoryIds) {
+        return current().productsIn(categoryIds);
+    }
+
+    /**
+     * 全カテゴリを ID 順に取得
+     *
+     * @throws IllegalStateException スナップショットが利用できない場合
+     */
+    public List<CategoryView> getCategories() {
+        return current().categories.values().stream()
+                .sorted(Comparator.comparing(CategoryView::getId))
+                .toList();
+    }
+
+    /**
+     * 商品をカタログに反映（トランザクション中であればコミット後に反映する）
+     * カテゴリは反映時点のスナップショットのカテゴリを参照する
+     */
+    public void put(Product product) {
+        ProductView view = view(product, null);
+        Long categoryId = product.getCategory() == null ? null : product.getCategory().getId();
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (committed) {
+                apply(target -> target.withProducts(List.of(view.withCategory(target.category(categoryId))), List.of()));
+            }
+        });
+    }
+
+    /**
+     * 商品をカタログから削除（トランザクション中であればコミット後に削除する）
+     */
+    public void remove(Long id) {
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (committed) {
+                apply(target -> target.withProducts(List.of(), List.of(id)));
+            }
+        });
+    }
+
+    /**
+     * カテゴリをカタログに反映（トランザクション中であればコミット後に反映する）
+     * 名前・親の変更は配下のカテゴリの path とカテゴリに属する商品にも反映する
+     */
+    public void putCategory(ProductCategory category) {
+        CategoryRow row = CategoryRow.of(category);
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (committed) {
+                apply(target -> target.withCategory(row));
+            }
+        });
+    }
+
+    /**
+     * DB の全商品・全カテゴリからスナップショットを作り直す
+     * カテゴリを先に1回の問い合わせで読み込み、商品のカテゴリはIDで対応付けるため、商品ごとのカテゴリの読み込みは発生しない
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${product.catalog.rebuild-interval-ms:300000}")
+    public void rebuild() {
+        // 定期の作り直しと一括登録後の作り直しを直列化する（作り直し中の変更の記録は1つしか持たない）
+        rebuildLock.lock();
+        try {
+            doRebuild();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void doRebuild() {
+        long started = System.nanoTime();
+        synchronized (this) {
+            journal = new ArrayList<>();
+        }
+        Snapshot rebuilt;
+        try {
+            Map<Long, CategoryRow> rows = new HashMap<>();
+            for (ProductCategory category : categoryRepository.findAll()) {
+                rows.put(category.getId(), CategoryRow.of(category));
+            }
+            Map<Long, CategoryView> categories = categoryViews(rows);
+            List<ProductView> products = new ArrayList<>();
+            long afterId = Long.MIN_VALUE;
+            List<Product> batch;
+            do {
+                batch = productRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(REBUILD_BATCH_SIZE));
+                for (Product product : batch) {
+                    // 遅延読み込みのプロキシからIDだけを取り出す（初期化しない）
+                    CategoryView category = product.getCategory() == null ? null : categories.get(product.getCategory().getId());
+                    products.add(view(product, category));
+                }
+                if (!batch.isEmpty()) {
+                    afterId = batch.get(batch.size() - 1).getId();
+                }
+            } while (batch.size() == REBUILD_BATCH_SIZE);
+            rebuilt = Snapshot.of(products, rows, categories);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                journal = null;
+            }
+            log.error("Failed to rebuild product catalog", e);
+            return;
+        }
+        synchronized (this) {
+            for (UnaryOperator<Snapshot> change : journal) {
+                rebuilt = change.apply(rebuilt);
+            }
+            journal = null;
+            snapshot = rebuilt;
+        }
+        log.info("Product catalog rebuilt: {} products, {} categories in {}ms",
+                rebuilt.size, rebuilt.categories.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * エンティティから読み取りモデルを作成（スナップショットを使えない場合用。カテゴリの親を辿るためトランザクション内で呼ぶこと）
+     */
+    static ProductView toView(Product product) {
+        ProductCategory category = product.getCategory();
+        if (category == null) {
+            return view(product, null);
+        }
+        List<String> path = new ArrayList<>();
+        Set<Long> visited = new HashSet<>();
+        // 循環している場合は循環を検出した位置で打ち切る
+        for (ProductCategory current = category; current != null && visited.add(current.getId()); current = current.getParent()) {
+            path.add(0, current.getName());
+        }
+        Long parentId = category.getParent() == null ? null : category.getParent().getId();
+        return view(product, new CategoryView(category.getId(), category.getName(), category.getDescription(), parentId, List.copyOf(path)));
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            throw new IllegalStateException("Product catalog is not ready");
+        }
+        return current;
+    }
+
+    private synchronized void apply(UnaryOperator<Snapshot> change) {
+        if (snapshot != null) {
+            snapshot = change.apply(snapshot);
+        }
+        if (journal != null) {
+            journal.add(change);
+        }
+    }
+
+    private static ProductView view(Product product, CategoryView category) {
+        return new ProductView(product.getId(), product.getCode(), product.getName(), product.getDescription(), category,
+                product.getUnitPrice(), product.getCostPrice(), product.getBarcode(), product.getQrCode(),
+                product.getWeight(), product.getDimensions(), product.getMinStockLevel(), product.getMaxStockLevel(),
+                product.getIsActive(), product.getCreatedAt(), product.getUpdatedAt());
+    }
+
+    /**
+     * カテゴリの親子関係から path を含む読み取りモデルを作成（循環している場合は循環を検出した位置で打ち切る）
+     */
+    private static Map<Long, CategoryView> categoryViews(Map<Long, CategoryRow> rows) {
+        Map<Long, CategoryView> views = new HashMap<>(rows.size() * 2);
+        for (CategoryRow row : rows.values()) {
+            List<String> path = new ArrayList<>();
+            List<Long> visited = new ArrayList<>();
+            for (CategoryRow current = row; current != null && !visited.contains(current.id()); current = rows.get(current.parentId())) {
+                visited.add(current.id());
+                path.add(0, current.name());
+            }
+            views.put(row.id(), new CategoryView(row.id(), row.name(), row.description(), row.parentId(), List.copyOf(path)));
+        }
+        return views;
+    }
+
+    /**
+     * カテゴリの親子関係を辿るための最小限の項目
+     */
+    private record CategoryRow(long id, String name, String description, Long parentId) {
+
+        static CategoryRow of(ProductCategory category) {
+            // 親は遅延読み込みのプロキシのため、IDだけを取り出す（初期化しない）
+            Long parentId = category.getParent() == null ? null : category.getParent().getId();
+            return new CategoryRow(category.getId(), category.getName(), category.getDescription(), parentId);
+        }
+    }
+
+    /**
+     * カタログのスナップショット
+     * 商品は ID の昇順に一定件数ごとのチャンクに分けて持ち、変更は変更のあったチャンクとチャンクの先頭IDの一覧だけを作り直す
+     * （変更のないチャンクは前のスナップショットと共有するため、1件の反映にかかる手数は商品数に比例しない）。
+     * カテゴリ → 商品ID の索引も持ち、カテゴリ別の取得では全商品を走査しない。
+     */
+    private static final class Snapshot {
+        private static final long[] NO_IDS = new long[0];
+
+        // 空のチャンクは持たない
+        private final Chunk[] chunks;
+        // 各チャンクの先頭の商品ID
+        private final long[] firstIds;
+        private final int size;
+        private final Map<Long, CategoryRow> categoryRows;
+        private final Map<Long, CategoryView> categories;
+        // カテゴリID → 属する商品ID（昇順）
+        private final Map<Long, long[]> productIdsByCategory;
+
+        private Snapshot(Chunk[] chunks, Map<Long, CategoryRow> categoryRows, Map<Long, CategoryView> categories,
+                         Map<Long, long[]> productIdsByCategory) {
+            this.chunks = chunks;
+            this.firstIds = new long[chunks.length];
+            int count = 0;
+            for (int i = 0; i < chunks.length; i++) {
+                firstIds[i] = chunks[i].ids()[0];
+                count += chunks[i].ids().length;
+            }
+            this.size = count;
+            this.categoryRows = categoryRows;
+            this.categories = categories;
+            this.productIdsByCategory = productIdsByCategory;
+        }
+
+        /**
+         * @param products ID の昇順の商品
+         */
+        static Snapshot of(List<ProductView> products, Map<Long, CategoryRow> categoryRows, Map<Long, CategoryView> categories) {
+            List<Chunk> chunks = new ArrayList<>(products.size() / CHUNK_SIZE + 1);
+            for (int from = 0; from < products.size(); from += CHUNK_SIZE) {
+                List<ProductView> part = products.subList(from, Math.min(from + CHUNK_SIZE, products.size()));
+                chunks.add(new Chunk(part.stream().mapToLong(ProductView::getId).toArray(), part.toArray(ProductView[]::new)));
+            }
+            Map<Long, List<Long>> members = new HashMap<>();
+            for (ProductView product : products) {
+                Long categoryId = categoryId(product);
+                if (categoryId != null) {
+                    members.computeIfAbsent(categoryId, key -> new ArrayList<>()).add(product.getId());
+                }
+            }
+            Map<Long, long[]> index = new HashMap<>(members.size() * 2);
+            members.forEach((categoryId, ids) -> index.put(categoryId, ids.stream().mapToLong(Long::longValue).toArray()));
+            return new Snapshot(chunks.toArray(Chunk[]::new), Map.copyOf(categoryRows), Map.copyOf(categories), Map.copyOf(index));
+        }
+
+        Optional<ProductView> product(long id) {
+            int chunk = chunkOf(id);
+            if (chunk < 0) {
+                return Optional.empty();
+            }
+            int index = Arrays.binarySearch(chunks[chunk].ids(), id);
+            return index >= 0 ? Optional.of(chunks[chunk].products()[index]) : Optional.empty();
+        }
+
+        /**
+         * 指定IDの次から ID 順に取得
+         */
+        List<ProductView> productsAfter(long afterId, int limit) {
+            List<ProductView> products = new ArrayList<>(Math.min(limit, size));
+            for (int chunk = Math.max(chunkOf(afterId), 0); chunk < chunks.length && products.size() < limit; chunk++) {
+                long[] ids = chunks[chunk].ids();
+                int from = Arrays.binarySearch(ids, afterId);
+                for (int i = from >= 0 ? from + 1 : -from - 1; i < ids.length && products.size() < limit; i++) {
+                    products.add(chunks[chunk].products()[i]);
+                }
+            }
+            return products;
+        }
+
+        /**
+         * 指定のカテゴリのいずれかに属する商品を ID 順に取得
+         */
+        List<ProductView> productsIn(Collection<Long> categoryIds) {
+            long[] ids;
+            if (categoryIds.size() == 1) {
+                ids = productIdsByCategory.getOrDefault(categoryIds.iterator().next(), NO_IDS);
+            } else {
+                // 商品は1つのカテゴリにだけ属するため、連結して並べ替えれば重複しない
+                ids = categoryIds.stream()
+                        .flatMapToLong(categoryId -> Arrays.stream(productIdsByCategory.getOrDefault(categoryId, NO_IDS)))
+                        .sorted()
+                        .toArray();
+            }
+            List<ProductView> products = new ArrayList<>(ids.length);
+            for (long id : ids) {
+                product(id).ifPresent(products::add);
+            }
+            return products;
+        }
+
+        CategoryView category(Long id) {
+            return id == null ? null : categories.get(id);
+        }
+
+        /**
+         * 商品の追加・置き換え・削除を併合した新しいスナップショット（変更のないチャンク・カテゴリの索引は共有する）
+         */
+        Snapshot withProducts(List<ProductView> upserts, Collection<Long> removals) {
+            // 商品ID → 変更後の商品（削除は null）
+            NavigableMap<Long, ProductView> changes = new TreeMap<>();
+            removals.forEach(id -> changes.put(id, null));
+            upserts.forEach(product -> changes.put(product.getId(), product));
+            // カテゴリID → 索引に追加（true）・索引から削除（false）する商品ID
+            Map<Long, NavigableMap<Long, Boolean>> memberships = new HashMap<>();
+            changes.forEach((id, product) -> {
+                Long before = categoryId(product(id).orElse(null));
+                Long after = categoryId(product);
+                if (!Objects.equals(before, after)) {
+                    if (before != null) {
+                        memberships.computeIfAbsent(before, key -> new TreeMap<>()).put(id, false);
+                    }
+                    if (after != null) {
+                        memberships.computeIfAbsent(after, key -> new TreeMap<>()).put(id, true);
+                    }
+                }
+            });
+            return new Snapshot(merge(changes), categoryRows, categories, reindex(memberships));
+        }
+
+        /**
+         * カテゴリの追加・変更を反映した新しいスナップショット
+         * カテゴリ数は商品数より十分少ないためカテゴリのツリーは作り直し、商品は名前・path の変わったカテゴリに属するものだけを差し替える。
+         */
+        Snapshot withCategory(CategoryRow row) {
+            Map<Long, CategoryRow> rows = new HashMap<>(categoryRows);
+            rows.put(row.id(), row);
+            Map<Long, CategoryView> views = categoryViews(rows);
+            NavigableMap<Long, ProductView> changes = new TreeMap<>();
+            views.forEach((categoryId, view) -> {
+                if (!view.equals(categories.get(categoryId))) {
+                    for (long id : productIdsByCategory.getOrDefault(categoryId, NO_IDS)) {
+                        product(id).ifPresent(product -> changes.put(id, product.withCategory(view)));
+                    }
+                }
+            });
+            return new Snapshot(changes.isEmpty() ? chunks : merge(changes), Map.copyOf(rows), Map.copyOf(views), productIdsByCategory);
+        }
+
+        /**
+         * 商品IDを含む（先頭IDが商品ID以下の最後の）チャンクの位置（全チャンクの先頭より小さい場合は -1）
+         */
+        private int chunkOf(long id) {
+            int index = Arrays.binarySearch(firstIds, id);
+            return index >= 0 ? index : -index - 2;
+        }
+
+        /**
+         * 変更をチャンクごとに併合した新しいチャンクの一覧（変更のないチャンクはそのまま共有する）
+         */
+        private Chunk[] merge(NavigableMap<Long, ProductView> changes) {
+            long[] changedIds = changes.keySet().stream().mapToLong(Long::longValue).toArray();
+            ProductView[] changed = changes.values().toArray(ProductView[]::new);
+            List<Chunk> merged = new ArrayList<>(chunks.length + 1);
+            int next = 0;
+            int from = 0;
+            while (from < changedIds.length) {
+                // 全チャンクの先頭より小さいIDは先頭のチャンクに併合する
+                int chunk = Math.max(chunkOf(changedIds[from]), 0);
+                int to = from + 1;
+                while (to < changedIds.length && (chunk + 1 >= chunks.length || changedIds[to] < firstIds[chunk + 1])) {
+                    to++;
+                }
+                merged.addAll(Arrays.asList(chunks).subList(next, Math.min(chunk, chunks.length)));
+                mergeChunk(chunk < chunks.length ? chunks[chunk] : Chunk.EMPTY, changedIds, changed, from, to, merged);
+                next = chunk + 1;
+                from = to;
+            }
+            if (next < chunks.length) {
+                merged.addAll(Arrays.asList(chunks).subList(next, chunks.length));
+            }
+            return merged.toArray(Chunk[]::new);
+        }
+
+        private static void mergeChunk(Chunk chunk, long[] changedIds, ProductView[] changed, int from, int to, List<Chunk> out) {
+            long[] ids = chunk.ids();
+            long[] mergedIds = new long[ids.length + to - from];
+            ProductView[] merged = new ProductView[mergedIds.length];
+            int count = 0;
+            int i = 0;
+            int j = from;
+            while (i < ids.length || j < to) {
+                if (j == to || (i < ids.length && ids[i] < changedIds[j])) {
+                    mergedIds[count] = ids[i];
+                    merged[count++] = chunk.products()[i++];
+                    continue;
+                }
+                long id = changedIds[j];
+                ProductView product = changed[j++];
+                if (i < ids.length && ids[i] == id) {
+                    i++;
+                }
+                if (product != null) {
+                    mergedIds[count] = id;
+                    merged[count++] = product;
+                }
+            }
+            // 大きくなりすぎたチャンクは分割し、空になったチャンクは除く
+            int pieceSize = count > CHUNK_SIZE * 2 ? CHUNK_SIZE : Math.max(count, 1);
+            for (int start = 0; start < count; start += pieceSize) {
+                int end = Math.min(start + pieceSize, count);
+                out.add(new Chunk(Arrays.copyOfRange(mergedIds, start, end), Arrays.copyOfRange(merged, start, end)));
+            }
+        }
+
+        /**
+         * カテゴリの索引に差分を反映（変更のないカテゴリの一覧は共有する）
+         */
+        private Map<Long, long[]> reindex(Map<Long, NavigableMap<Long, Boolean>> memberships) {
+            if (memberships.isEmpty()) {
+                return productIdsByCategory;
+            }
+            Map<Long, long[]> index = new HashMap<>(productIdsByCategory);
+            memberships.forEach((categoryId, members) -> {
+                long[] current = index.getOrDefault(categoryId, NO_IDS);
+                long[] next = new long[current.length + members.size()];
+                int count = 0;
+                int i = 0;
+                for (Map.Entry<Long, Boolean> member : members.entrySet()) {
+                    long id = member.getKey();
+                    while (i < current.length && current[i] < id) {
+                        next[count++] = current[i++];
+                    }
+                    if (i < current.length && current[i] == id) {
+                        i++;
+                    }
+                    if (member.getValue()) {
+                        next[count++] = id;
+                    }
+                }
+                while (i < current.length) {
+                    next[count++] = current[i++];
+                }
+                if (count == 0) {
+                    index.remove(categoryId);
+                } else {
+                    index.put(categoryId, Arrays.copyOf(next, count));
+                }
+            });
+            return Map.copyOf(index);
+        }
+
+        private static Long categoryId(ProductView product) {
+            return product == null || product.getCategory() == null ? null : product.getCategory().getId();
+        }
+    }
+
+    /**
+     * ID の昇順の商品（空のチャンクは併合の入力にだけ使う）
+     */
+    private record Chunk(long[] ids, ProductView[] products) {
+        static final Chunk EMPTY = new Chunk(new long[0], new ProductView[0]);
+    }
+}
@@ -0,0 +1,197 @@
+package com.cooola.micro.services.product.service;
+
+import com.cooola.micro.services.product.model.ProductCategory;
+import com.cooola.micro.services.product.model.ProductCategoryClosure;
+import com.cooola.micro.services.product.repository.ProductCategoryClosureRepository;
+import com.cooola.micro.services.product.repository.ProductCategoryRepository;
+import com.cooola.micro.services.product.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 商品カテゴリツリーの閉包テーブルの管理と、カテゴリ配下の検索結果のキャッシュ
+ * 閉包テーブルはカテゴリの登録・移動と同じトランザクションで更新するため、カテゴリ配下の商品は子カテゴリを階層ごとに辿らず1回の検索で求まる。
+ * カテゴリ配下のカテゴリIDと商品数はキャッシュし、カテゴリ・商品の変更時に即時とトランザクション完了時の2回破棄する
+ * （読み込み中に破棄が行われた場合は読み込んだ値を格納しない）。
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ProductCategoryTree {
+
+    private final ProductCategoryRepository categoryRepository;
+    private final ProductCategoryClosureRepository closureRepository;
+    private final ProductRepository productRepository;
+
+    // カテゴリID → 配下のカテゴリID（自身を含む）
+    private final Map<Long, Set<Long>> subtrees = new ConcurrentHashMap<>();
+    // カテゴリID → 配下の商品数
+    private final Map<Long, Long> productCounts = new ConcurrentHashMap<>();
+    // 破棄の回数（読み込み中に破棄が行われたかの判定に使う）
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * カテゴリ配下の全カテゴリID（自身を含む。閉包に登録されていないカテゴリの場合は空）
+     */
+    @Transactional(readOnly = true)
+    public Set<Long> getSubtree(Long categoryId) {
+        return cached(subtrees, categoryId, id -> {
+            Set<Long> ids = new HashSet<>();
+            closureRepository.findByAncestorId(id).forEach(link -> ids.add(link.getDescendantId()));
+            return Set.copyOf(ids);
+        });
+    }
+
+    /**
+     * カテゴリ配下（子孫カテゴリを含む）の商品数
+     */
+    @Transactional(readOnly = true)
+    public long countProducts(Long categoryId) {
+        return cached(productCounts, categoryId, productRepository::countByCategoryTree);
+    }
+
+    /**
+     * 登録したカテゴリを閉包に追加（カテゴリの登録と同じトランザクションで呼ぶこと）
+     * 親の全祖先との組み合わせと自身との組み合わせを追加する
+     */
+    @Transactional
+    public void add(ProductCategory category) {
+        Long id = category.getId();
+        List<ProductCategoryClosure> links = new ArrayList<>();
+        links.add(new ProductCategoryClosure(id, id, 0));
+        if (category.getParent() != null) {
+            for (ProductCategoryClosure ancestor : closureRepository.findByDescendantId(category.getParent().getId())) {
+                links.add(new ProductCategoryClosure(ancestor.getAncestorId(), id, ancestor.getDepth() + 1));
+            }
+        }
+        closureRepository.saveAll(links);
+        invalidateAll();
+    }
+
+    /**
+     * カテゴリ（配下のサブツリーごと）を別の親の下へ移動（カテゴリの更新と同じトランザクションで呼ぶこと）
+     * サブツリーと旧い祖先の組み合わせを外し、新しい親の全祖先とサブツリーの全カテゴリの組み合わせを追加する
+     *
+     * @param parentId 新しい親カテゴリID（トップレベルへ移動する場合は null）
+     * @throws IllegalArgumentException 新しい親が自身または配下のカテゴリの場合
+     */
+    @Transactional
+    public void move(Long categoryId, Long parentId) {
+        // 移動するサブツリー・旧い祖先・新しい親の祖先の閉包の行をロックしてから配下かどうかを確かめる
+        // （互いを配下へ移動する同時の移動は、どちらも両方のカテゴリ自身の行をロックするため直列になり、循環しない）
+        List<ProductCategoryClosure> subtree = closureRepository.findByAncestorIdForUpdate(categoryId);
+        List<ProductCategoryClosure> oldAncestors = closureRepository.findByDescendantIdForUpdate(categoryId);
+        List<ProductCategoryClosure> newAncestors = parentId == null ? List.of() : closureRepository.findByDescendantIdForUpdate(parentId);
+        Set<Long> subtreeIds = new HashSet<>();
+        subtree.forEach(link -> subtreeIds.add(link.getDescendantId()));
+        if (parentId != null && subtreeIds.contains(parentId)) {
+            throw new IllegalArgumentException("カテゴリを自身の配下へは移動できません: " + categoryId + " → " + parentId);
+        }
+        Set<Long> oldAncestorIds = new HashSet<>();
+        for (ProductCategoryClosure ancestor : oldAncestors) {
+            if (!ancestor.getAncestorId().equals(categoryId)) {
+                oldAncestorIds.add(ancestor.getAncestorId());
+            }
+        }
+        if (!oldAncestorIds.isEmpty()) {
+            closureRepository.deleteLinks(oldAncestorIds, subtreeIds);
+        }
+        if (parentId != null) {
+            List<ProductCategoryClosure> links = new ArrayList<>();
+            for (ProductCategoryClosure ancestor : newAncestors) {
+                for (ProductCategoryClosure descendant : subtree) {
+                    links.add(new ProductCategoryClosure(ancestor.getAncestorId(), descendant.getDescendantId(),
+                            ancestor.getDepth() + descendant.getDepth() + 1));
+                }
+            }
+            closureRepository.saveAll(links);
+        }
+        invalidateAll();
+        log.info("Category moved: {} (subtree={}) → parent {}", categoryId, subtreeIds.size(), parentId);
+    }
+
+    /**
+     * 商品数のキャッシュを破棄（商品の登録・更新・削除時。トランザクション中であれば完了時にも破棄する）
+     */
+    public void invalidateCounts() {
+        invalidations.incrementAndGet();
+        productCounts.clear();
+        TransactionCallbacks.afterCompletion(committed -> {
+            invalidations.incrementAndGet();
+            productCounts.clear();
+        });
+    }
+
+    /**
+     * 起動時に閉包とカテゴリの親子関係を照合し、閉包に登録されていないカテゴリがあれば親子関係から作り直す
+     * （閉包テーブル導入前のカテゴリ・直接 SQL で登録されたカテゴリの取り込み）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void verify() {
+        List<ProductCategory> categories = categoryRepository.findAll();
+        if (closureRepository.countByDepth(0) == categories.size()) {
+            return;
+        }
+        Map<Long, Long> parents = new HashMap<>();
+        for (ProductCategory category : categories) {
+            // 親は遅延読み込みのプロキシのため、IDだけを取り出す（初期化しない）
+            parents.put(category.getId(), category.getParent() == null ? null : category.getParent().getId());
+        }
+        List<ProductCategoryClosure> links = new ArrayList<>();
+        for (Long id : parents.keySet()) {
+            Set<Long> visited = new HashSet<>();
+            int depth = 0;
+            // 循環している場合は循環を検出した位置で打ち切る
+            for (Long ancestor = id; ancestor != null && parents.containsKey(ancestor) && visited.add(ancestor); ancestor = parents.get(ancestor)) {
+                links.add(new ProductCategoryClosure(ancestor, id, depth++));
+            }
+        }
+        closureRepository.deleteAllInBatch();
+        closureRepository.saveAll(links);
+        invalidateAll();
+        log.info("Category closure rebuilt: {} categories, {} links", categories.size(), links.size());
+    }
+
+    private void invalidateAll() {
+        invalidations.incrementAndGet();
+        subtrees.clear();
+        productCounts.clear();
+        TransactionCallbacks.afterCompletion(committed -> {
+            invalidations.incrementAndGet();
+            subtrees.clear();
+            productCounts.clear();
+        });
+    }
+
+    private <V> V cached(Map<Long, V> cache, Long key, Function<Long, V> loader) {
+        V value = cache.get(key);
+        if (value != null) {
+            return value;
+        }
+        long loadedAt = invalidations.get();
+        value = loader.apply(key);
+        if (loadedAt == invalidations.get()) {
+            cache.put(key, value);
+            if (loadedAt != invalidations.get()) {
+                // 格納の直前に破棄された（変更前の値を読んだ可能性がある）ため、格納した値を取り除く
+                cache.remove(key, value);
+            }
+        }
+        return value;
+    }
+}
@@ -0,0 +1,253 @@
+package com.cooola.micro.services.product.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 商品一括登録の入力（CSV・NDJSON）を先頭から一定件数ずつ読む
+ * 入力全体をメモリに読み込まず、読み込んだ行は項目名 → 値（空は null）の組にして返す。値の検証は行わない。
+ */
+abstract class ProductImportReader {
+
+    /**
+     * 入力できる項目（CSV のヘッダー・NDJSON のキー）
+     */
+    static final Set<String> FIELDS = Set.of("code", "name", "description", "categoryId", "unitPrice", "costPrice",
+            "barcode", "qrCode", "weight", "dimensions", "minStockLevel", "maxStockLevel", "isActive");
+
+    protected final BufferedReader reader;
+    // 読み込んだ物理行数
+    protected long lineNumber;
+
+    private ProductImportReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * CSV（RFC 4180。1行目はヘッダー）
+     *
+     * @throws IllegalArgumentException ヘッダーがない・不明な列がある・必須の列がない場合
+     */
+    static ProductImportReader csv(BufferedReader reader) throws IOException {
+        return new Csv(reader);
+    }
+
+    /**
+     * NDJSON（1行1商品の JSON オブジェクト。空行は読み飛ばす）
+     */
+    static ProductImportReader ndjson(BufferedReader reader, ObjectMapper objectMapper) {
+        return new Ndjson(reader, objectMapper);
+    }
+
+    /**
+     * 次の行を最大 max 件読む
+     *
+     * @return 読み込んだ行（入力の終わりに達した場合は空）
+     */
+    abstract List<Row> next(int max) throws IOException;
+
+    /**
+     * 入力の1行分
+     *
+     * @param line   行番号
+     * @param values 項目名 → 値（空の項目は null）
+     * @param error  行として読めなかった理由（読めた場合は null）
+     */
+    record Row(long line, Map<String, String> values, String error) {
+    }
+
+    private static final class Csv extends ProductImportReader {
+
+        private final String[] header;
+
+        Csv(BufferedReader reader) throws IOException {
+            super(reader);
+            List<String> names;
+            try {
+                names = readRecord();
+            } catch (MalformedRecordException e) {
+                throw new IllegalArgumentException("CSV のヘッダーが不正です: " + e.getMessage());
+            }
+            if (names == null) {
+                throw new IllegalArgumentException("CSV のヘッダーがありません");
+            }
+            header = new String[names.size()];
+            for (int i = 0; i < header.length; i++) {
+                String name = names.get(i) == null ? "" : names.get(i).trim();
+                if (i == 0 && name.startsWith("\uFEFF")) {
+                    name = name.substring(1);
+                }
+                if (!FIELDS.contains(name)) {
+                    throw new IllegalArgumentException("CSV の列名が不正です: " + name);
+                }
+                header[i] = name;
+            }
+            List<String> columns = List.of(header);
+            for (String required : List.of("code", "name", "unitPrice")) {
+                if (!columns.contains(required)) {
+                    throw new IllegalArgumentException("CSV に必須の列がありません: " + required);
+                }
+            }
+        }
+
+        @Override
+        List<Row> next(int max) throws IOException {
+            List<Row> rows = new ArrayList<>(max);
+            while (rows.size() < max) {
+                long line = lineNumber + 1;
+                List<String> fields;
+                try {
+                    fields = readRecord();
+                } catch (MalformedRecordException e) {
+                    rows.add(new Row(line, Map.of(), e.getMessage()));
+                    continue;
+                }
+                if (fields == null) {
+                    break;
+                }
+                if (fields.size() == 1 && fields.get(0) == null) {
+                    // 空行
+                    continue;
+                }
+                if (fields.size() != header.length) {
+                    rows.add(new Row(line, Map.of(), "列数がヘッダーと一致しません: " + fields.size() + " (ヘッダー: " + header.length + ")"));
+                    continue;
+                }
+                Map<String, String> values = new HashMap<>(header.length * 2);
+                for (int i = 0; i < header.length; i++) {
+                    values.put(header[i], fields.get(i));
+                }
+                rows.add(new Row(line, values, null));
+            }
+            return rows;
+        }
+
+        /**
+         * 1レコードを読む（引用符で囲まれた項目は区切り文字・改行・"" を含められる。空の項目は null）
+         *
+         * @return 項目（入力の終わりの場合は null）
+         */
+        private List<String> readRecord() throws IOException {
+            String line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            lineNumber++;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean wasQuoted = false;
+            int i = 0;
+            while (true) {
+                if (i == line.length()) {
+                    if (!quoted) {
+                        break;
+                    }
+                    // 引用符の中の改行
+                    line = reader.readLine();
+                    if (line == null) {
+                        throw new MalformedRecordException("引用符が閉じられていません");
+                    }
+                    lineNumber++;
+                    field.append('\n');
+                    i = 0;
+                    continue;
+                }
+                char c = line.charAt(i++);
+                if (quoted) {
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < line.length() && line.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == ',') {
+                    fields.add(value(field));
+                    field.setLength(0);
+                    wasQuoted = false;
+                } else if (c == '"' && field.isEmpty() && !wasQuoted) {
+                    quoted = true;
+                    wasQuoted = true;
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(value(field));
+            return fields;
+        }
+
+        private static String value(StringBuilder field) {
+            return field.isEmpty() ? null : field.toString();
+        }
+    }
+
+    private static final class Ndjson extends ProductImportReader {
+
+        private final ObjectMapper objectMapper;
+
+        Ndjson(BufferedReader reader, ObjectMapper objectMapper) {
+            super(reader);
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        List<Row> next(int max) throws IOException {
+            List<Row> rows = new ArrayList<>(max);
+            String text;
+            while (rows.size() < max && (text = reader.readLine()) != null) {
+                long line = ++lineNumber;
+                if (text.isBlank()) {
+                    continue;
+                }
+                rows.add(parse(line, text));
+            }
+            return rows;
+        }
+
+        private Row parse(long line, String text) {
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(text);
+            } catch (JsonProcessingException e) {
+                return new Row(line, Map.of(), "JSON として読めません: " + e.getOriginalMessage());
+            }
+            if (!node.isObject()) {
+                return new Row(line, Map.of(), "JSON オブジェクトではありません");
+            }
+            Map<String, String> values = new HashMap<>();
+            for (Iterator<Map.Entry<String, JsonNode>> it = node.fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = it.next();
+                if (!FIELDS.contains(field.getKey())) {
+                    return new Row(line, Map.of(), "不明な項目です: " + field.getKey());
+                }
+                JsonNode value = field.getValue();
+                if (value.isContainerNode()) {
+                    return new Row(line, Map.of(), "項目の値が不正です: " + field.getKey());
+                }
+                values.put(field.getKey(), value.isNull() || value.asText().isEmpty() ? null : value.asText());
+            }
+            return new Row(line, values, null);
+        }
+    }
+
+    /**
+     * CSV のレコードとして読めない行
+     */
+    private static final class MalformedRecordException extends IOException {
+        MalformedRecordException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,403 @@
+package com.cooola.micro.services.product.service;
+
+import com.cooola.micro.services.product.dto.ProductImportError;
+import com.cooola.micro.services.product.dto.ProductImportResult;
+import com.cooola.micro.services.product.model.Product;
+import com.cooola.micro.services.product.model.ProductCategory;
+import com.cooola.micro.services.product.repository.ProductBatchRepository;
+import com.cooola.micro.services.product.repository.ProductCategoryRepository;
+import com.cooola.micro.services.product.repository.ProductRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 商品の一括登録（CSV・NDJSON）
+ * 入力を chunk-size 件ずつ読み、項目の変換・検証を専用スレッドプールで並列に行い、呼び出し元のスレッドが入力順に
+ * 商品コードの重複を確認して JDBC バッチで登録する（チャンクごとに1トランザクション）。同時に検証中・登録待ちのチャンクは
+ * スレッド数までに抑えるため、入力全体をメモリに保持しない。
+ * 重複の確認は登録開始時に読み込んだ全商品コードと登録済みのコードの集合で行い、行ごとに DB へ問い合わせない。
+ * 登録できなかった行は理由とともに結果に記録し、残りの行の登録を続ける。
+ * 検索索引・カタログは登録後に専用スレッドでまとめて作り直すため（同時の作り直しの要求は1回にまとめる）、
+ * 登録した商品は作り直しが終わるまで検索・一覧に現れない。
+ */
+@Component
+@Slf4j
+public class ProductImporter {
+
+    public static final String CSV = "text/csv";
+    public static final String NDJSON = "application/x-ndjson";
+
+    private static final int CODE_LENGTH = 50;
+    private static final int NAME_LENGTH = 200;
+    private static final int BARCODE_LENGTH = 100;
+    private static final int DIMENSIONS_LENGTH = 50;
+
+    private final ProductRepository productRepository;
+    private final ProductCategoryRepository categoryRepository;
+    private final ProductBatchRepository batchRepository;
+    private final ProductSearchIndex searchIndex;
+    private final ProductCatalog catalog;
+    private final ProductCategoryTree categoryTree;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService executor;
+    private final ExecutorService rebuildExecutor;
+    // 作り直しを予約済みで、まだ開始していないか
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private final int threads;
+    private final int chunkSize;
+    private final int maxErrors;
+    private final Counter importedRows;
+    private final Counter failedRows;
+
+    public ProductImporter(ProductRepository productRepository,
+                           ProductCategoryRepository categoryRepository,
+                           ProductBatchRepository batchRepository,
+                           ProductSearchIndex searchIndex,
+                           ProductCatalog catalog,
+                           ProductCategoryTree categoryTree,
+                           Validator validator,
+                           ObjectMapper objectMapper,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${product.import.threads:0}") int threads,
+                           @Value("${product.import.chunk-size:1000}") int chunkSize,
+                           @Value("${product.import.max-errors:1000}") int maxErrors,
+                           ObjectProvider<MeterRegistry> meterRegistry) {
+        if (threads < 0 || chunkSize < 1 || maxErrors < 0) {
+            throw new IllegalArgumentException("Invalid product import settings: threads=" + threads
+                    + ", chunk-size=" + chunkSize + ", max-errors=" + maxErrors);
+        }
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.batchRepository = batchRepository;
+        this.searchIndex = searchIndex;
+        this.catalog = catalog;
+        this.categoryTree = categoryTree;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.threads = threads == 0 ? Runtime.getRuntime().availableProcessors() : threads;
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(this.threads, runnable -> {
+            Thread thread = new Thread(runnable, "product-import-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "product-import-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            this.importedRows = Counter.builder("product.import.rows").tag("outcome", "imported")
+                    .description("Rows processed by the bulk product import").register(registry);
+            this.failedRows = Counter.builder("product.import.rows").tag("outcome", "failed")
+                    .description("Rows processed by the bulk product import").register(registry);
+        } else {
+            this.importedRows = null;
+            this.failedRows = null;
+        }
+    }
+
+    /**
+     * 商品を一括登録
+     *
+     * @param input       入力（UTF-8。閉じない）
+     * @param contentType 入力の形式（text/csv・application/x-ndjson）
+     * @return 登録結果
+     * @throws IllegalArgumentException 形式が不明な場合・CSV のヘッダーが不正な場合
+     * @throws IOException              入力の読み込みに失敗した場合
+     */
+    public ProductImportResult importProducts(InputStream input, String contentType) throws IOException {
+        long started = System.nanoTime();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 64 * 1024);
+        ProductImportReader rows = switch (contentType) {
+            case CSV -> ProductImportReader.csv(reader);
+            case NDJSON -> ProductImportReader.ndjson(reader, objectMapper);
+            default -> throw new IllegalArgumentException("入力の形式が不正です: " + contentType);
+        };
+        Set<String> codes = new HashSet<>(productRepository.findAllCodes());
+        Set<Long> categoryIds = Set.copyOf(categoryRepository.findAllIds());
+        Report report = new Report(maxErrors);
+        Deque<Future<List<Candidate>>> inFlight = new ArrayDeque<>(threads);
+        boolean exhausted = false;
+        try {
+            while (true) {
+                while (!exhausted && inFlight.size() < threads) {
+                    List<ProductImportReader.Row> chunk = rows.next(chunkSize);
+                    if (chunk.isEmpty()) {
+                        exhausted = true;
+                    } else {
+                        inFlight.add(executor.submit(() -> validate(chunk, categoryIds)));
+                    }
+                }
+                if (inFlight.isEmpty()) {
+                    break;
+                }
+                insert(await(inFlight.poll()), codes, report);
+            }
+        } catch (IOException | RuntimeException e) {
+            inFlight.forEach(future -> future.cancel(true));
+            throw e;
+        } finally {
+            // 途中で失敗してもコミット済みのチャンクは登録されているため、1件でも登録した場合は反映する
+            if (report.imported > 0) {
+                categoryTree.invalidateCounts();
+                scheduleRebuild();
+            }
+        }
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+        log.info("Products imported: {} of {} in {}ms (failed={}, {} rows/s)", report.imported, report.total, elapsedMillis,
+                report.failed, elapsedMillis == 0 ? report.imported : report.imported * 1000 / elapsedMillis);
+        if (importedRows != null) {
+            importedRows.increment(report.imported);
+            failedRows.increment(report.failed);
+        }
+        return new ProductImportResult(report.total, report.imported, report.failed, elapsedMillis,
+                report.errors, report.truncated);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        rebuildExecutor.shutdownNow();
+    }
+
+    /**
+     * 検索索引・カタログの作り直しを専用スレッドで行う（1件ずつの差分反映より全件の作り直しの方が安いため、まとめて作り直す）
+     * 作り直しの開始前に届いた要求は1回にまとめ、作り直しの最中に届いた要求は終了後にもう1回作り直す。
+     */
+    private void scheduleRebuild() {
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            rebuildExecutor.execute(() -> {
+                rebuildScheduled.set(false);
+                searchIndex.rebuild();
+                catalog.rebuild();
+            });
+        }
+    }
+
+    /**
+     * チャンクの各行を商品に変換して検証（商品コードの重複以外。スレッドプールで並列に実行する）
+     */
+    private List<Candidate> validate(List<ProductImportReader.Row> chunk, Set<Long> categoryIds) {
+        List<Candidate> candidates = new ArrayList<>(chunk.size());
+        for (ProductImportReader.Row row : chunk) {
+            String code = row.values().get("code");
+            if (row.error() != null) {
+                candidates.add(new Candidate(row.line(), code, null, row.error()));
+                continue;
+            }
+            try {
+                Product product = toProduct(row.values(), categoryIds);
+                String error = check(product);
+                candidates.add(new Candidate(row.line(), code, error == null ? product : null, error));
+            } catch (IllegalArgumentException e) {
+                candidates.add(new Candidate(row.line(), code, null, e.getMessage()));
+            }
+        }
+        return candidates;
+    }
+
+    private Product toProduct(Map<String, String> values, Set<Long> categoryIds) {
+        Product product = new Product();
+        product.setCode(trim(values.get("code")));
+        product.setName(trim(values.get("name")));
+        product.setDescription(values.get("description"));
+        Long categoryId = parse(values, "categoryId", Long::valueOf);
+        if (categoryId != null) {
+            if (!categoryIds.contains(categoryId)) {
+                throw new IllegalArgumentException("カテゴリが存在しません: " + categoryId);
+            }
+            ProductCategory category = new ProductCategory();
+            category.setId(categoryId);
+            product.setCategory(category);
+        }
+        product.setUnitPrice(parse(values, "unitPrice", BigDecimal::new));
+        product.setCostPrice(parse(values, "costPrice", BigDecimal::new));
+        product.setBarcode(trim(values.get("barcode")));
+        product.setQrCode(trim(values.get("qrCode")));
+        product.setWeight(parse(values, "weight", BigDecimal::new));
+        product.setDimensions(trim(values.get("dimensions")));
+        Integer minStockLevel = parse(values, "minStockLevel", Integer::valueOf);
+        if (minStockLevel != null) {
+            product.setMinStockLevel(minStockLevel);
+        }
+        product.setMaxStockLevel(parse(values, "maxStockLevel", Integer::valueOf));
+        String isActive = trim(values.get("isActive"));
+        if (isActive != null) {
+            if (!isActive.equalsIgnoreCase("true") && !isActive.equalsIgnoreCase("false")) {
+                throw new IllegalArgumentException("isActive は true または false である必要があります: " + isActive);
+            }
+            product.setIsActive(Boolean.parseBoolean(isActive));
+        }
+        return product;
+    }
+
+    /**
+     * エンティティの制約（必須・正の数）と列の長さを検証
+     *
+     * @return 違反の内容（違反がない場合は null）
+     */
+    private String check(Product product) {
+        Set<ConstraintViolation<Product>> violations = validator.validate(product);
+        if (!violations.isEmpty()) {
+            return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining(", "));
+        }
+        if (product.getCode().length() > CODE_LENGTH) {
+            return "商品コードは" + CODE_LENGTH + "文字以内である必要があります";
+        }
+        if (product.getName().length() > NAME_LENGTH) {
+            return "商品名は" + NAME_LENGTH + "文字以内である必要があります";
+        }
+        if ((product.getBarcode() != null && product.getBarcode().length() > BARCODE_LENGTH)
+                || (product.getQrCode() != null && product.getQrCode().length() > BARCODE_LENGTH)) {
+            return "バーコード・QRコードは" + BARCODE_LENGTH + "文字以内である必要があります";
+        }
+        if (product.getDimensions() != null && product.getDimensions().length() > DIMENSIONS_LENGTH) {
+            return "寸法は" + DIMENSIONS_LENGTH + "文字以内である必要があります";
+        }
+        return null;
+    }
+
+    /**
+     * 検証済みのチャンクを入力順に重複確認して登録
+     * バッチの登録に失敗した場合（同時に別経路で同じコードが登録された場合など）は、失敗した行を特定するため1行ずつ登録し直す
+     */
+    private void insert(List<Candidate> candidates, Set<String> codes, Report report) {
+        List<Candidate> accepted = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates) {
+            report.total++;
+            if (candidate.error() != null) {
+                report.fail(candidate, candidate.error());
+            } else if (!codes.add(candidate.product().getCode())) {
+                report.fail(candidate, "商品コードが重複しています: " + candidate.product().getCode());
+            } else {
+                accepted.add(candidate);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            List<Product> products = accepted.stream().map(Candidate::product).toList();
+            transactionTemplate.executeWithoutResult(status -> batchRepository.insertAll(products, now));
+            report.imported += accepted.size();
+        } catch (DataAccessException e) {
+            log.warn("Batch insert failed, retrying {} rows one by one: {}", accepted.size(), e.getMessage());
+            for (Candidate candidate : accepted) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> batchRepository.insertAll(List.of(candidate.product()), now));
+                    report.imported++;
+                } catch (DataAccessException rowError) {
+                    // 登録できなかったコードは以降の行で登録できるよう、重複確認の集合から外す
+                    codes.remove(candidate.product().getCode());
+                    String cause = rowError.getMostSpecificCause().getMessage();
+                    report.fail(candidate, "登録に失敗しました: " + cause);
+                }
+            }
+        }
+    }
+
+    private static List<Candidate> await(Future<List<Candidate>> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Product import interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Product import validation failed", e.getCause());
+        }
+    }
+
+    private static String trim(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private static <T> T parse(Map<String, String> values, String field, Function<String, T> parser) {
+        String value = trim(values.get(field));
+        if (value == null) {
+            return null;
+        }
+        try {
+            return parser.apply(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + " は数値である必要があります: " + value);
+        }
+    }
+
+    /**
+     * 検証後の1行（error が null の場合のみ product を持つ）
+     */
+    private record Candidate(long line, String code, Product product, String error) {
+    }
+
+    /**
+     * 登録結果の集計（呼び出し元のスレッドだけが更新する）
+     */
+    private static final class Report {
+        private final int maxErrors;
+        private final List<ProductImportError> errors = new ArrayList<>();
+        private long total;
+        private long imported;
+        private long failed;
+        private boolean truncated;
+
+        Report(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        void fail(Candidate candidate, String message) {
+            failed++;
+            if (errors.size() < maxErrors) {
+                errors.add(new ProductImportError(candidate.line(), candidate.code(), message));
+            } else {
+                truncated = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.cooola.micro.services.product.service;
+
+import com.cooola.micro.services.product.dto.ProductCompletion;
+import com.cooola.micro.services.product.model.Product;
+import com.cooola.micro.services.product.repository.ProductRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * 商品検索の索引（商品コード・名前・説明の n-gram 転置索引と、商品コード・バーコード・QRコードの前方一致索引）
+ * 起動時と一定間隔で DB から全件を読み込んで作り直し、その間の登録・更新・削除はトランザクションのコミット後に反映する。
+ * 作り直しの最中の変更は記録しておき、読み込み後の索引に適用してから入れ替えるため、作り直しで変更が失われることはない。
+ * 検索・入力補完の時間と索引の件数は actuator の metrics（product.search.latency・product.search.autocomplete.latency・
+ * product.search.index.size）で参照できる。
+ */
+@Component
+@Slf4j
+public class ProductSearchIndex {
+
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private final ProductRepository productRepository;
+    private final boolean indexDescription;
+    private final Timer latency;
+    private final Timer autocompleteLatency;
+
+    private volatile Indexes indexes;
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    // 作り直しの最中の変更（作り直していない間は null）
+    private List<Consumer<Indexes>> journal;
+
+    public ProductSearchIndex(ProductRepository productRepository,
+                              @Value("${product.search.index.description:true}") boolean indexDescription,
+                              ObjectProvider<MeterRegistry> meterRegistry) {
+        this.productRepository = productRepository;
+        this.indexDescription = indexDescription;
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            this.latency = Timer.builder("product.search.latency")
+                    .description("Product search latency using the in-memory index")
+                    .publishPercentileHistogram()
+                    .register(registry);
+            this.autocompleteLatency = Timer.builder("product.search.autocomplete.latency")
+                    .description("Product code autocomplete latency")
+                    .publishPercentileHistogram()
+                    .register(registry);
+            Gauge.builder("product.search.index.size", this, ProductSearchIndex::size)
+                    .description("Number of products in the search index")
+                    .register(registry);
+        } else {
+            this.latency = null;
+            this.autocompleteLatency = null;
+        }
+    }
+
+    /**
+     * 索引が利用可能か（初回の作り直しが完了しているか）
+     */
+    public boolean isReady() {
+        return indexes != null;
+    }
+
+    /**
+     * 索引に含まれる商品数
+     */
+    public int size() {
+        Indexes current = indexes;
+        return current == null ? 0 : current.text().size();
+    }
+
+    /**
+     * 検索語（空白区切りの語をすべて含む商品）に一致する商品IDを順位の高い順に取得
+     *
+     * @param query 検索語
+     * @param limit 取得件数
+     * @return 商品ID（索引が利用できない場合は空）
+     */
+    public List<Long> search(String query, int limit) {
+        Indexes current = indexes;
+        if (current == null) {
+            return List.of();
+        }
+        long started = System.nanoTime();
+        List<Long> ids = current.text().search(query, limit);
+        if (latency != null) {
+            latency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+        return ids;
+    }
+
+    /**
+     * 商品コード・バーコード・QRコードの前方一致の候補を辞書順（完全一致が先頭）に取得
+     *
+     * @param prefix 入力中の値（大文字小文字・全角半角・空白は区別しない）
+     * @param limit  取得件数
+     * @return 候補（索引が利用できない場合は空）
+     */
+    public List<ProductCompletion> complete(String prefix, int limit) {
+        Indexes current = indexes;
+        if (current == null) {
+            return List.of();
+        }
+        long started = System.nanoTime();
+        List<ProductCompletion> completions = current.prefixes().complete(prefix, limit);
+        if (autocompleteLatency != null) {
+            autocompleteLatency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+        return completions;
+    }
+
+    /**
+     * 商品を索引に反映（トランザクション中であればコミット後に反映する）
+     */
+    public void put(Product product) {
+        long id = product.getId();
+        String code = product.getCode();
+        String name = product.getName();
+        String description = product.getDescription();
+        String barcode = product.getBarcode();
+        String qrCode = product.getQrCode();
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (committed) {
+                apply(target -> target.put(id, code, name, description, barcode, qrCode));
+            }
+        });
+    }
+
+    /**
+     * 商品を索引から削除（トランザクション中であればコミット後に削除する）
+     */
+    public void remove(Long id) {
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (committed) {
+                apply(target -> target.remove(id));
+            }
+        });
+    }
+
+    /**
+     * DB の全商品から索引を作り直す
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${product.search.index.rebuild-interval-ms:300000}")
+    public void rebuild() {
+        // 定期の作り直しと一括登録後の作り直しを直列化する（作り直し中の変更の記録は1つしか持たない）
+        rebuildLock.lock();
+        try {
+            doRebuild();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void doRebuild() {
+        long started = System.nanoTime();
+        synchronized (this) {
+            journal = new ArrayList<>();
+        }
+        Indexes rebuilt = new Indexes(new NgramIndex(indexDescription), new PrefixIndex());
+        try {
+            long afterId = Long.MIN_VALUE;
+            List<Product> products;
+            do {
+                products = productRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(REBUILD_BATCH_SIZE));
+                for (Product product : products) {
+                    rebuilt.put(product.getId(), product.getCode(), product.getName(), product.getDescription(),
+                            product.getBarcode(), product.getQrCode());
+                }
+                if (!products.isEmpty()) {
+                    afterId = products.get(products.size() - 1).getId();
+                }
+            } while (products.size() == REBUILD_BATCH_SIZE);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                journal = null;
+            }
+            log.error("Failed to rebuild product search index", e);
+            return;
+        }
+        synchronized (this) {
+            journal.forEach(change -> change.accept(rebuilt));
+            journal = null;
+            indexes = rebuilt;
+        }
+        log.info("Product search index rebuilt: {} products in {}ms", rebuilt.text().size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private synchronized void apply(Consumer<Indexes> change) {
+        Indexes current = indexes;
+        if (current != null) {
+            change.accept(current);
+        }
+        if (journal != null) {
+            journal.add(change);
+        }
+    }
+
+    /**
+     * 同時に作り直し・入れ替える索引
+     */
+    private record Indexes(NgramIndex text, PrefixIndex prefixes) {
+
+        void put(long id, String code, String name, String description, String barcode, String qrCode) {
+            text.put(id, code, name, description);
+            prefixes.put(id, name, code, barcode, qrCode);
+        }
+
+        void remove(long id) {
+            text.remove(id);
+            prefixes.remove(id);
+        }
+    }
+}
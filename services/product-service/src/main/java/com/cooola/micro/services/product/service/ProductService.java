@@ -1,15 +1,23 @@
 package com.cooola.micro.services.product.service;
 
+import com.cooola.micro.services.product.dto.KeysetPage;
+import com.cooola.micro.services.product.dto.ProductCompletion;
+import com.cooola.micro.services.product.dto.ProductView;
 import com.cooola.micro.services.product.model.Product;
 import com.cooola.micro.services.product.model.ProductCategory;
 import com.cooola.micro.services.product.repository.ProductRepository;
 import com.cooola.micro.services.product.repository.ProductCategoryRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -23,14 +31,39 @@ public class ProductService {
     
     private final ProductRepository productRepository;
     private final ProductCategoryRepository categoryRepository;
+    private final ProductSearchIndex searchIndex;
+    private final ProductCatalog catalog;
+    private final ProductCategoryTree categoryTree;
     
     /**
-     * 全商品を取得
+     * 全商品を ID 順にページ単位で取得（カタログのスナップショットから返す）
+     * @param pageToken 前ページの継続トークン（先頭ページの場合は null）
      */
     @Transactional(readOnly = true)
-    public List<Product> getAllProducts() {
-        log.info("Getting all products");
-        return productRepository.findAll();
+    public KeysetPage<ProductView> getAllProducts(String pageToken, int limit) {
+        log.info("Getting products: limit={}", limit);
+        long afterId = pageToken == null ? Long.MIN_VALUE : PageTokens.decode(pageToken, 1)[0];
+        List<ProductView> products = catalog.isReady()
+                ? catalog.getProductsAfter(afterId, PageTokens.checkLimit(limit) + 1)
+                : toViews(productRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(PageTokens.checkLimit(limit) + 1)));
+        if (products.size() <= limit) {
+            return new KeysetPage<>(products, null);
+        }
+        List<ProductView> items = products.subList(0, limit);
+        return new KeysetPage<>(items, PageTokens.encode(items.get(limit - 1).getId()));
+    }
+    
+    /**
+     * IDで商品を取得（カタログのスナップショットから返す）
+     */
+    @Transactional(readOnly = true)
+    public ProductView getProductView(Long id) {
+        log.info("Getting product view with id: {}", id);
+        if (!catalog.isReady()) {
+            return ProductCatalog.toView(getProductById(id));
+        }
+        return catalog.getProduct(id)
+                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
     }
     
     /**
@@ -70,7 +103,11 @@ public class ProductService {
             product.setCategory(category);
         }
         
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        searchIndex.put(saved);
+        catalog.put(saved);
+        categoryTree.invalidateCounts();
+        return saved;
     }
     
     /**
@@ -133,7 +170,11 @@ public class ProductService {
             product.setIsActive(productDetails.getIsActive());
         }
         
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        searchIndex.put(saved);
+        catalog.put(saved);
+        categoryTree.invalidateCounts();
+        return saved;
     }
     
     /**
@@ -143,24 +184,87 @@ public class ProductService {
         log.info("Deleting product with id: {}", id);
         Product product = getProductById(id);
         productRepository.delete(product);
+        searchIndex.remove(id);
+        catalog.remove(id);
+        categoryTree.invalidateCounts();
     }
     
     /**
-     * 商品を検索
+     * 商品を検索（商品コード・名前・説明の部分一致。空白区切りの語はすべて含むものに絞り、関連度の高い順に返す）
+     * 索引の作り直しが完了するまでは DB の部分一致検索（名前・コードのみ）で代替する
      */
     @Transactional(readOnly = true)
-    public List<Product> searchProducts(String query) {
-        log.info("Searching products with query: {}", query);
-        return productRepository.findByNameContainingIgnoreCaseOrCodeContainingIgnoreCase(query, query);
+    public List<ProductView> searchProducts(String query, int limit) {
+        log.info("Searching products with query: {}, limit={}", query, limit);
+        PageTokens.checkLimit(limit);
+        if (!searchIndex.isReady()) {
+            List<Product> products = productRepository.findByNameContainingIgnoreCaseOrCodeContainingIgnoreCase(query, query);
+            return toViews(products.size() <= limit ? products : products.subList(0, limit));
+        }
+        List<Long> ids = searchIndex.search(query, limit);
+        if (catalog.isReady()) {
+            return catalog.getProducts(ids);
+        }
+        Map<Long, Integer> ranks = new HashMap<>(ids.size() * 2);
+        for (int i = 0; i < ids.size(); i++) {
+            ranks.put(ids.get(i), i);
+        }
+        List<Product> products = new ArrayList<>(productRepository.findAllById(ids));
+        products.sort(Comparator.comparing(product -> ranks.get(product.getId())));
+        return toViews(products);
     }
     
     /**
-     * カテゴリ別商品一覧を取得
+     * 商品コード・バーコード・QRコードの入力補完候補を取得（前方一致。完全一致が先頭の辞書順）
+     * 索引の作り直しが完了するまでは完全一致のみを DB から返す
      */
     @Transactional(readOnly = true)
-    public List<Product> getProductsByCategory(Long categoryId) {
+    public List<ProductCompletion> autocomplete(String prefix, int limit) {
+        log.debug("Autocompleting products with prefix: {}, limit={}", prefix, limit);
+        PageTokens.checkLimit(limit);
+        if (searchIndex.isReady()) {
+            return searchIndex.complete(prefix, limit);
+        }
+        List<ProductCompletion> completions = new ArrayList<>(3);
+        productRepository.findByCode(prefix)
+                .ifPresent(product -> completions.add(new ProductCompletion(product.getId(), "code", product.getCode(), product.getName())));
+        productRepository.findByBarcode(prefix)
+                .ifPresent(product -> completions.add(new ProductCompletion(product.getId(), "barcode", product.getBarcode(), product.getName())));
+        productRepository.findByQrCode(prefix)
+                .ifPresent(product -> completions.add(new ProductCompletion(product.getId(), "qrCode", product.getQrCode(), product.getName())));
+        return completions.size() <= limit ? completions : completions.subList(0, limit);
+    }
+    
+    /**
+     * カテゴリ別商品一覧を取得（カタログのスナップショットから返す）
+     */
+    @Transactional(readOnly = true)
+    public List<ProductView> getProductsByCategory(Long categoryId) {
         log.info("Getting products for category: {}", categoryId);
-        return productRepository.findByCategoryId(categoryId);
+        if (catalog.isReady()) {
+            return catalog.getProductsByCategory(categoryId);
+        }
+        return toViews(productRepository.findByCategoryId(categoryId));
+    }
+    
+    /**
+     * カテゴリ配下（子孫カテゴリを含む）の商品一覧を取得（カテゴリ閉包で配下のカテゴリを1回の検索で求める）
+     */
+    @Transactional(readOnly = true)
+    public List<ProductView> getProductsInCategoryTree(Long categoryId) {
+        log.info("Getting products in category tree: {}", categoryId);
+        if (catalog.isReady()) {
+            return catalog.getProductsInCategories(categoryTree.getSubtree(categoryId));
+        }
+        return toViews(productRepository.findByCategoryTree(categoryId));
+    }
+    
+    /**
+     * カテゴリ配下（子孫カテゴリを含む）の商品数を取得（キャッシュする）
+     */
+    @Transactional(readOnly = true)
+    public long countProductsInCategoryTree(Long categoryId) {
+        return categoryTree.countProducts(categoryId);
     }
     
     /**
@@ -203,6 +307,36 @@ public class ProductService {
             category.setParent(parent);
         }
         
-        return categoryRepository.save(category);
+        ProductCategory saved = categoryRepository.save(category);
+        categoryTree.add(saved);
+        catalog.putCategory(saved);
+        return saved;
+    }
+    
+    /**
+     * カテゴリを別の親カテゴリの下へ移動（配下のカテゴリ・商品ごと移動する）
+     * @param parentId 新しい親カテゴリID（トップレベルへ移動する場合は null）
+     * @throws IllegalArgumentException 新しい親が自身または配下のカテゴリの場合
+     */
+    public void moveCategory(Long id, Long parentId) {
+        log.info("Moving category {} under {}", id, parentId);
+        ProductCategory category = categoryRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Category not found with id: " + id));
+        ProductCategory parent = null;
+        if (parentId != null) {
+            parent = categoryRepository.findById(parentId)
+                    .orElseThrow(() -> new RuntimeException("Parent category not found with id: " + parentId));
+        }
+        categoryTree.move(id, parentId);
+        category.setParent(parent);
+        ProductCategory saved = categoryRepository.save(category);
+        catalog.putCategory(saved);
+    }
+    
+    /**
+     * エンティティを読み取りモデルに変換（カタログの作り直しが完了するまでの代替。カテゴリを遅延読み込みする）
+     */
+    private static List<ProductView> toViews(List<Product> products) {
+        return products.stream().map(ProductCatalog::toView).toList();
     }
 } 
\ No newline at end of file
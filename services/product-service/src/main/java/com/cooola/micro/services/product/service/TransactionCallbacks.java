@@ -0,0 +1,34 @@
+package com.cooola.micro.services.product.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * トランザクション完了時のコールバック登録ヘルパー
+ */
+final class TransactionCallbacks {
+
+    private TransactionCallbacks() {
+    }
+
+    /**
+     * 現在のトランザクション完了時にコールバックを実行（トランザクション外の場合は即時にコミット扱いで実行）
+     */
+    static void afterCompletion(CompletionCallback callback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            callback.onComplete(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                callback.onComplete(status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    @FunctionalInterface
+    interface CompletionCallback {
+        void onComplete(boolean committed);
+    }
+}
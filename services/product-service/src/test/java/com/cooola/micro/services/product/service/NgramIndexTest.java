@@ -0,0 +1,98 @@
+package com.cooola.micro.services.product.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 商品の n-gram 転置索引のテスト
+ */
+class NgramIndexTest {
+
+    @Test
+    void queryAndIndexAreNormalizedTheSameWay() {
+        NgramIndex index = new NgramIndex(true);
+        index.put(1L, "ＡＢＣ－１２", "ｶﾞﾑ　ミント", "");
+
+        assertThat(NgramIndex.normalize("ＡＢＣ　ﾃｽﾄ")).isEqualTo("abc テスト");
+        assertThat(NgramIndex.normalize("ぎゅうにゅう")).isEqualTo("ギュウニュウ");
+        // 全角英数・半角カナ・ひらがな・大文字のいずれで検索しても一致する
+        assertThat(index.search("abc-12", 10)).containsExactly(1L);
+        assertThat(index.search("ガム", 10)).containsExactly(1L);
+        assertThat(index.search("がむ", 10)).containsExactly(1L);
+        assertThat(index.search("ミント", 10)).containsExactly(1L);
+        assertThat(index.search("   ", 10)).isEmpty();
+    }
+
+    @Test
+    void everyTermMustMatchContiguously() {
+        NgramIndex index = new NgramIndex(true);
+        index.put(1L, "P-001", "緑茶ペットボトル", "静岡県産の茶葉を使用");
+        index.put(2L, "P-002", "烏龍茶", "ペットボトル入り");
+        index.put(3L, "P-003", "茶ボトルペット", "");
+
+        // 空白区切りの語はすべて含む商品だけに一致する
+        assertThat(index.search("茶 ペットボトル", 10)).containsExactlyInAnyOrder(1L, 2L);
+        // n-gram はすべて含むが連続していない商品は除く
+        assertThat(index.search("ボトルペ", 10)).containsExactly(3L);
+        assertThat(index.search("茶葉 静岡", 10)).containsExactly(1L);
+        assertThat(index.search("紅茶", 10)).isEmpty();
+        assertThat(index.search("存在しない語", 10)).isEmpty();
+    }
+
+    @Test
+    void singleCharacterTermsMatchDescriptions() {
+        NgramIndex index = new NgramIndex(true);
+        index.put(1L, "A-1", "りんご", "青森 産");
+        index.put(2L, "A-2", "みかん", "愛媛産");
+
+        // 説明にだけ含まれる1文字の語（前後が空白の文字を含む）
+        assertThat(index.search("産", 10)).containsExactly(1L, 2L);
+        assertThat(index.search("青", 10)).containsExactly(1L);
+
+        NgramIndex withoutDescription = new NgramIndex(false);
+        withoutDescription.put(1L, "A-1", "りんご", "青森 産");
+        assertThat(withoutDescription.search("青", 10)).isEmpty();
+    }
+
+    @Test
+    void resultsAreRankedByMatchKindThenNameLengthThenId() {
+        NgramIndex index = new NgramIndex(true);
+        index.put(1L, "X-9", "商品", "ab の説明");
+        index.put(2L, "Y-1", "長い名前の ab 商品", "");
+        index.put(3L, "Z-1", "短い ab", "");
+        index.put(4L, "ab-2", "その他", "");
+        index.put(5L, "ab", "完全一致", "");
+        index.put(6L, "W-1", "ab で始まる", "");
+        index.put(7L, "Q-ab", "コードの途中", "");
+        index.put(8L, "V-1", "短い ab", "");
+
+        // コードの完全一致 > コードの前方一致 > 名前の前方一致 > 名前の部分一致（名前が短い順、同じ長さは ID 順）
+        // > コードの部分一致 > 説明の部分一致
+        assertThat(index.search("AB", 10)).containsExactly(5L, 4L, 6L, 3L, 8L, 2L, 7L, 1L);
+        assertThat(index.search("AB", 3)).containsExactly(5L, 4L, 6L);
+    }
+
+    @Test
+    void updatesAndRemovalsSurviveCompaction() {
+        NgramIndex index = new NgramIndex(true);
+        for (long id = 1; id <= 3000; id++) {
+            index.put(id, "C-" + id, "商品" + id, "");
+        }
+        // 削除済みの番号の詰め直しが起きるまで削除・更新する
+        for (long id = 1; id <= 2000; id++) {
+            if (id % 2 == 0) {
+                index.remove(id);
+            } else {
+                index.put(id, "C-" + id, "改名" + id, "");
+            }
+        }
+
+        assertThat(index.size()).isEqualTo(2000);
+        assertThat(index.search("商品1999", 10)).isEmpty();
+        assertThat(index.search("改名1999", 10)).containsExactly(1999L);
+        assertThat(index.search("c-2000", 10)).isEmpty();
+        assertThat(index.search("c-2999", 10)).containsExactly(2999L);
+        assertThat(index.search("改名", 5000)).hasSize(1000);
+    }
+}
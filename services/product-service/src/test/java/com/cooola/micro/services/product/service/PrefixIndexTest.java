@@ -0,0 +1,69 @@
+package com.cooola.micro.services.product.service;
+
+import com.cooola.micro.services.product.dto.ProductCompletion;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * 商品コード・バーコード・QRコードの前方一致索引のテスト
+ */
+class PrefixIndexTest {
+
+    @Test
+    void inputIsNormalizedBeforeMatching() {
+        PrefixIndex index = new PrefixIndex();
+        index.put(1L, "ボールペン", "ab-100", null, null);
+
+        assertThat(PrefixIndex.normalize("ａｂ　- １")).isEqualTo("AB-1");
+        // 全角・小文字・空白を含む入力でも一致し、候補には登録時の値を返す
+        assertThat(index.complete("ＡＢ - 1", 10))
+                .containsExactly(new ProductCompletion(1L, "code", "ab-100", "ボールペン"));
+        assertThat(index.complete(" ", 10)).isEmpty();
+        assertThat(index.complete(null, 10)).isEmpty();
+    }
+
+    @Test
+    void exactMatchComesFirstThenDictionaryOrder() {
+        PrefixIndex index = new PrefixIndex();
+        index.put(1L, "長いコード", "AB10", null, null);
+        index.put(2L, "完全一致", "AB", null, null);
+        index.put(3L, "短いコード", "AB1", null, null);
+        index.put(4L, "別の前方", "AC", null, null);
+
+        assertThat(index.complete("ab", 10)).extracting(ProductCompletion::getProductId).containsExactly(2L, 3L, 1L);
+        assertThat(index.complete("ab", 2)).extracting(ProductCompletion::getProductId).containsExactly(2L, 3L);
+        assertThat(index.complete("ab1", 10)).extracting(ProductCompletion::getProductId).containsExactly(3L, 1L);
+    }
+
+    @Test
+    void sameValueInDifferentFieldsOrProductsIsListedSeparately() {
+        PrefixIndex index = new PrefixIndex();
+        index.put(1L, "商品1", "4901234567890", "4901234567890", "4901234567890");
+        index.put(2L, "商品2", "X-1", "4901234567890", null);
+
+        assertThat(index.complete("4901", 10)).extracting(ProductCompletion::getProductId, ProductCompletion::getField)
+                .containsExactly(
+                        tuple(1L, "barcode"),
+                        tuple(2L, "barcode"),
+                        tuple(1L, "code"),
+                        tuple(1L, "qrCode"));
+    }
+
+    @Test
+    void updatesReplaceOldValuesAndRemovalsDropThem() {
+        PrefixIndex index = new PrefixIndex();
+        index.put(1L, "旧名", "OLD-1", "111", null);
+        index.put(2L, "商品2", "OLD-2", null, null);
+
+        index.put(1L, "新名", "NEW-1", null, null);
+        assertThat(index.complete("old", 10)).extracting(ProductCompletion::getProductId).containsExactly(2L);
+        assertThat(index.complete("111", 10)).isEmpty();
+        assertThat(index.complete("new", 10)).containsExactly(new ProductCompletion(1L, "code", "NEW-1", "新名"));
+
+        index.remove(2L);
+        index.remove(99L);
+        assertThat(index.complete("old", 10)).isEmpty();
+    }
+}
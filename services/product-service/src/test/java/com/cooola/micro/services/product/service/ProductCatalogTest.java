@@ -0,0 +1,188 @@
+package com.cooola.micro.services.product.service;
+
+import com.cooola.micro.services.product.dto.CategoryView;
+import com.cooola.micro.services.product.dto.ProductView;
+import com.cooola.micro.services.product.model.Product;
+import com.cooola.micro.services.product.model.ProductCategory;
+import com.cooola.micro.services.product.repository.ProductCategoryRepository;
+import com.cooola.micro.services.product.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 商品カタログのスナップショットへの差分反映のテスト
+ * 初期状態は ID 10, 20, ..., 10 × CHUNK_SIZE × 2 の商品（2チャンク）で、ID の10の位が奇数の商品はボールペン、偶数の商品は家電に属する。
+ */
+class ProductCatalogTest {
+
+    private static final int PRODUCT_COUNT = ProductCatalog.CHUNK_SIZE * 2;
+    // 1つ目のチャンクの最後の商品ID
+    private static final long FIRST_CHUNK_LAST_ID = 10L * ProductCatalog.CHUNK_SIZE;
+    private static final long LAST_ID = 10L * PRODUCT_COUNT;
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductCategoryRepository categoryRepository = mock(ProductCategoryRepository.class);
+    @SuppressWarnings("unchecked")
+    private final ProductCatalog catalog = new ProductCatalog(productRepository, categoryRepository, mock(ObjectProvider.class));
+
+    private final ProductCategory stationery = category(1L, "文具", null);
+    private final ProductCategory writing = category(2L, "筆記具", stationery);
+    private final ProductCategory pens = category(3L, "ボールペン", writing);
+    private final ProductCategory appliances = category(4L, "家電", null);
+
+    @BeforeEach
+    void setUp() {
+        List<Product> products = new ArrayList<>();
+        for (long id = 10; id <= LAST_ID; id += 10) {
+            products.add(product(id, (id / 10) % 2 == 1 ? pens : appliances));
+        }
+        when(categoryRepository.findAll()).thenReturn(List.of(stationery, writing, pens, appliances));
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Limit.class))).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            Limit limit = invocation.getArgument(1);
+            return products.stream().filter(product -> product.getId() > afterId).limit(limit.max()).toList();
+        });
+        catalog.rebuild();
+        assertThat(catalog.size()).isEqualTo(PRODUCT_COUNT);
+        assertThat(catalog.chunkCount()).isEqualTo(2);
+    }
+
+    @Test
+    void productsAreInsertedBeforeTheFirstChunkAndAfterTheLastChunk() {
+        catalog.put(product(1L, pens));
+        catalog.put(product(LAST_ID + 5, appliances));
+
+        assertThat(ids(catalog.getProductsAfter(Long.MIN_VALUE, 3))).containsExactly(1L, 10L, 20L);
+        assertThat(ids(catalog.getProductsAfter(LAST_ID - 10, 10))).containsExactly(LAST_ID, LAST_ID + 5);
+        assertThat(catalog.getProduct(1L)).isPresent();
+        assertThat(catalog.getProduct(LAST_ID + 5)).isPresent();
+        assertThat(catalog.size()).isEqualTo(PRODUCT_COUNT + 2);
+        assertThat(catalog.chunkCount()).isEqualTo(2);
+        assertThat(ids(catalog.getProductsByCategory(3L))).startsWith(1L, 10L, 30L);
+        assertThat(ids(catalog.getProductsByCategory(4L))).endsWith(LAST_ID, LAST_ID + 5);
+    }
+
+    @Test
+    void chunksGrowingPastTwiceTheChunkSizeAreSplit() {
+        // 1つ目のチャンクの商品の間に、チャンクの件数の2倍を超えるまで追加する
+        List<Long> inserted = new ArrayList<>();
+        for (long id = 10; id < FIRST_CHUNK_LAST_ID; id += 10) {
+            inserted.add(id + 3);
+            inserted.add(id + 7);
+        }
+        inserted.forEach(id -> catalog.put(product(id, pens)));
+
+        assertThat(catalog.chunkCount()).isGreaterThan(2);
+        assertThat(catalog.size()).isEqualTo(PRODUCT_COUNT + inserted.size());
+        List<Long> all = ids(catalog.getProductsAfter(Long.MIN_VALUE, Integer.MAX_VALUE));
+        assertThat(all).hasSize(PRODUCT_COUNT + inserted.size()).isSorted();
+        assertThat(all).containsAll(inserted);
+        inserted.forEach(id -> assertThat(catalog.getProduct(id)).as("product %d", id).isPresent());
+        assertThat(catalog.getProductsByCategory(3L)).hasSize(PRODUCT_COUNT / 2 + inserted.size());
+    }
+
+    @Test
+    void removingTheLastRowsOfAChunk() {
+        // チャンクの末尾の行を削除しても、次のチャンクの先頭から続けて取得できる
+        catalog.remove(FIRST_CHUNK_LAST_ID);
+        assertThat(catalog.getProduct(FIRST_CHUNK_LAST_ID)).isEmpty();
+        assertThat(ids(catalog.getProductsAfter(FIRST_CHUNK_LAST_ID - 20, 2)))
+                .containsExactly(FIRST_CHUNK_LAST_ID - 10, FIRST_CHUNK_LAST_ID + 10);
+
+        // 2つ目のチャンクの行をすべて削除すると、空になったチャンクは除かれる
+        for (long id = FIRST_CHUNK_LAST_ID + 10; id <= LAST_ID; id += 10) {
+            catalog.remove(id);
+        }
+        assertThat(catalog.chunkCount()).isEqualTo(1);
+        assertThat(catalog.size()).isEqualTo(ProductCatalog.CHUNK_SIZE - 1);
+        assertThat(catalog.getProductsAfter(FIRST_CHUNK_LAST_ID - 10, 10)).isEmpty();
+        assertThat(ids(catalog.getProductsByCategory(4L))).allMatch(id -> id < FIRST_CHUNK_LAST_ID);
+
+        catalog.put(product(LAST_ID, appliances));
+        assertThat(ids(catalog.getProductsAfter(FIRST_CHUNK_LAST_ID - 10, 10))).containsExactly(LAST_ID);
+    }
+
+    @Test
+    void movingAProductBetweenCategoriesUpdatesTheCategoryIndex() {
+        catalog.put(product(10L, appliances));
+
+        assertThat(ids(catalog.getProductsByCategory(3L))).doesNotContain(10L).startsWith(30L);
+        assertThat(ids(catalog.getProductsByCategory(4L))).startsWith(10L, 20L).isSorted();
+        assertThat(catalog.getProduct(10L).orElseThrow().getCategory().getPath()).containsExactly("家電");
+        assertThat(catalog.getProductsInCategories(Set.of(3L, 4L))).hasSize(PRODUCT_COUNT);
+
+        // カテゴリを外した商品はどのカテゴリにも属さない
+        catalog.put(product(30L, null));
+        assertThat(ids(catalog.getProductsByCategory(3L))).doesNotContain(30L);
+        assertThat(catalog.getProductsInCategories(Set.of(3L, 4L))).hasSize(PRODUCT_COUNT - 1);
+        assertThat(catalog.getProduct(30L).orElseThrow().getCategory()).isNull();
+    }
+
+    @Test
+    void renamingAParentCategoryUpdatesThePathsOfProductsInChildCategories() {
+        ProductView untouched = catalog.getProduct(20L).orElseThrow();
+
+        catalog.putCategory(category(2L, "筆記用具", stationery));
+
+        assertThat(catalog.getProduct(10L).orElseThrow().getCategory().getPath()).containsExactly("文具", "筆記用具", "ボールペン");
+        assertThat(catalog.getProductsByCategory(3L))
+                .allSatisfy(product -> assertThat(product.getCategory().getPath()).containsExactly("文具", "筆記用具", "ボールペン"));
+        assertThat(catalog.getCategories()).extracting(CategoryView::getPath)
+                .containsExactly(List.of("文具"), List.of("文具", "筆記用具"), List.of("文具", "筆記用具", "ボールペン"), List.of("家電"));
+        // 名前・path の変わらないカテゴリの商品は差し替えない
+        assertThat(catalog.getProduct(20L).orElseThrow()).isSameAs(untouched);
+
+        // 親を変えたカテゴリの商品の path も変わる
+        catalog.putCategory(category(3L, "ボールペン", appliances));
+        assertThat(catalog.getProduct(10L).orElseThrow().getCategory().getPath()).containsExactly("家電", "ボールペン");
+    }
+
+    @Test
+    void productsAfterContinuesAcrossChunkBoundaries() {
+        assertThat(ids(catalog.getProductsAfter(FIRST_CHUNK_LAST_ID - 20, 4)))
+                .containsExactly(FIRST_CHUNK_LAST_ID - 10, FIRST_CHUNK_LAST_ID, FIRST_CHUNK_LAST_ID + 10, FIRST_CHUNK_LAST_ID + 20);
+        // 存在しないIDの次からも取得できる
+        assertThat(ids(catalog.getProductsAfter(FIRST_CHUNK_LAST_ID + 5, 2)))
+                .containsExactly(FIRST_CHUNK_LAST_ID + 10, FIRST_CHUNK_LAST_ID + 20);
+        assertThat(ids(catalog.getProductsAfter(0L, 2))).containsExactly(10L, 20L);
+        assertThat(catalog.getProductsAfter(LAST_ID, 10)).isEmpty();
+        assertThat(ids(catalog.getProductsAfter(Long.MIN_VALUE, Integer.MAX_VALUE)))
+                .containsExactlyElementsOf(LongStream.rangeClosed(1, PRODUCT_COUNT).map(i -> i * 10).boxed().toList());
+    }
+
+    private static List<Long> ids(List<ProductView> products) {
+        return products.stream().map(ProductView::getId).toList();
+    }
+
+    private static ProductCategory category(Long id, String name, ProductCategory parent) {
+        ProductCategory category = new ProductCategory();
+        category.setId(id);
+        category.setName(name);
+        category.setParent(parent);
+        return category;
+    }
+
+    private static Product product(Long id, ProductCategory category) {
+        Product product = new Product();
+        product.setId(id);
+        product.setCode("P" + id);
+        product.setName("商品" + id);
+        product.setCategory(category);
+        product.setUnitPrice(BigDecimal.valueOf(100));
+        return product;
+    }
+}
@@ -0,0 +1,167 @@
+package com.cooola.micro.services.product.service;
+
+import com.cooola.micro.services.product.model.ProductCategory;
+import com.cooola.micro.services.product.model.ProductCategoryClosure;
+import com.cooola.micro.services.product.repository.ProductCategoryClosureRepository;
+import com.cooola.micro.services.product.repository.ProductCategoryRepository;
+import com.cooola.micro.services.product.repository.ProductRepository;
+import org.assertj.core.api.ListAssert;
+import org.assertj.core.groups.Tuple;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 商品カテゴリツリーの閉包テーブルの管理のテスト（閉包リポジトリはメモリ上の行で代替する）
+ * ツリーは 文具(1) > 筆記具(2) > ボールペン(3) と 家電(4)。
+ */
+class ProductCategoryTreeTest {
+
+    private final ProductCategoryRepository categoryRepository = mock(ProductCategoryRepository.class);
+    private final ProductCategoryClosureRepository closureRepository = mock(ProductCategoryClosureRepository.class);
+    private final ProductCategoryTree tree = new ProductCategoryTree(categoryRepository, closureRepository, mock(ProductRepository.class));
+    // 閉包テーブルの行
+    private final Map<ProductCategoryClosure.Key, ProductCategoryClosure> rows = new HashMap<>();
+
+    private final ProductCategory stationery = category(1L, null);
+    private final ProductCategory writing = category(2L, stationery);
+    private final ProductCategory pens = category(3L, writing);
+    private final ProductCategory appliances = category(4L, null);
+
+    @BeforeEach
+    void setUp() {
+        when(closureRepository.findByAncestorId(anyLong())).thenAnswer(invocation -> ancestorRows(invocation.getArgument(0)));
+        when(closureRepository.findByAncestorIdForUpdate(anyLong())).thenAnswer(invocation -> ancestorRows(invocation.getArgument(0)));
+        when(closureRepository.findByDescendantId(anyLong())).thenAnswer(invocation -> descendantRows(invocation.getArgument(0)));
+        when(closureRepository.findByDescendantIdForUpdate(anyLong())).thenAnswer(invocation -> descendantRows(invocation.getArgument(0)));
+        when(closureRepository.countByDepth(anyInt())).thenAnswer(invocation ->
+                rows.values().stream().filter(link -> link.getDepth().equals(invocation.getArgument(0))).count());
+        when(closureRepository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            Iterable<ProductCategoryClosure> links = invocation.getArgument(0);
+            links.forEach(link -> rows.put(new ProductCategoryClosure.Key(link.getAncestorId(), link.getDescendantId()), link));
+            return links;
+        });
+        when(closureRepository.deleteLinks(anyCollection(), anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ancestorIds = invocation.getArgument(0);
+            Collection<Long> descendantIds = invocation.getArgument(1);
+            int before = rows.size();
+            rows.values().removeIf(link -> ancestorIds.contains(link.getAncestorId()) && descendantIds.contains(link.getDescendantId()));
+            return before - rows.size();
+        });
+        doAnswer(invocation -> {
+            rows.clear();
+            return null;
+        }).when(closureRepository).deleteAllInBatch();
+
+        List.of(stationery, writing, pens, appliances).forEach(tree::add);
+    }
+
+    @Test
+    void addedCategoriesAreLinkedToEveryAncestor() {
+        assertClosure().containsExactlyInAnyOrder(
+                tuple(1L, 1L, 0), tuple(1L, 2L, 1), tuple(1L, 3L, 2),
+                tuple(2L, 2L, 0), tuple(2L, 3L, 1),
+                tuple(3L, 3L, 0),
+                tuple(4L, 4L, 0));
+        assertThat(tree.getSubtree(1L)).containsExactlyInAnyOrder(1L, 2L, 3L);
+        assertThat(tree.getSubtree(3L)).containsExactly(3L);
+    }
+
+    @Test
+    void movingASubtreeRelinksItUnderTheNewParent() {
+        assertThat(tree.getSubtree(1L)).containsExactlyInAnyOrder(1L, 2L, 3L);
+
+        tree.move(2L, 4L);
+
+        assertClosure().containsExactlyInAnyOrder(
+                tuple(1L, 1L, 0),
+                tuple(2L, 2L, 0), tuple(2L, 3L, 1),
+                tuple(3L, 3L, 0),
+                tuple(4L, 4L, 0), tuple(4L, 2L, 1), tuple(4L, 3L, 2));
+        // 移動前に読み込んだ配下のカテゴリは破棄される
+        assertThat(tree.getSubtree(1L)).containsExactly(1L);
+        assertThat(tree.getSubtree(4L)).containsExactlyInAnyOrder(4L, 2L, 3L);
+    }
+
+    @Test
+    void movingASubtreeToTheTopLevelUnlinksItsFormerAncestors() {
+        tree.move(2L, null);
+
+        assertClosure().containsExactlyInAnyOrder(
+                tuple(1L, 1L, 0),
+                tuple(2L, 2L, 0), tuple(2L, 3L, 1),
+                tuple(3L, 3L, 0),
+                tuple(4L, 4L, 0));
+        assertThat(tree.getSubtree(1L)).containsExactly(1L);
+        assertThat(tree.getSubtree(2L)).containsExactlyInAnyOrder(2L, 3L);
+    }
+
+    @Test
+    void movingUnderItselfOrItsDescendantIsRejected() {
+        List<Tuple> before = closure();
+
+        assertThatThrownBy(() -> tree.move(1L, 3L))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("カテゴリを自身の配下へは移動できません: 1 → 3");
+        assertThatThrownBy(() -> tree.move(2L, 2L))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(closure()).containsExactlyInAnyOrderElementsOf(before);
+    }
+
+    @Test
+    void verifyRebuildsTheClosureFromParentLinks() {
+        List<Tuple> expected = closure();
+        when(categoryRepository.findAll()).thenReturn(List.of(stationery, writing, pens, appliances));
+
+        // 登録済みのカテゴリ数と一致する場合は作り直さない
+        tree.verify();
+        assertThat(closure()).containsExactlyInAnyOrderElementsOf(expected);
+
+        // 閉包に登録されていないカテゴリがある場合は親子関係から作り直す
+        rows.values().removeIf(link -> link.getDescendantId().equals(3L));
+        tree.verify();
+        assertThat(closure()).containsExactlyInAnyOrderElementsOf(expected);
+    }
+
+    private List<ProductCategoryClosure> ancestorRows(Long ancestorId) {
+        return new ArrayList<>(rows.values().stream().filter(link -> link.getAncestorId().equals(ancestorId)).toList());
+    }
+
+    private List<ProductCategoryClosure> descendantRows(Long descendantId) {
+        return new ArrayList<>(rows.values().stream().filter(link -> link.getDescendantId().equals(descendantId)).toList());
+    }
+
+    private List<Tuple> closure() {
+        return rows.values().stream()
+                .map(link -> tuple(link.getAncestorId(), link.getDescendantId(), link.getDepth()))
+                .toList();
+    }
+
+    private ListAssert<Tuple> assertClosure() {
+        return assertThat(closure());
+    }
+
+    private static ProductCategory category(Long id, ProductCategory parent) {
+        ProductCategory category = new ProductCategory();
+        category.setId(id);
+        category.setName("カテゴリ" + id);
+        category.setParent(parent);
+        return category;
+    }
+}
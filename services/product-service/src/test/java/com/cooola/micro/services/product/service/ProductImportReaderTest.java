@@ -0,0 +1,111 @@
+package com.cooola.micro.services.product.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 商品一括登録の入力の読み込みのテスト
+ */
+class ProductImportReaderTest {
+
+    @Test
+    void csvQuotedFieldsMayContainSeparatorsQuotesAndNewlines() throws IOException {
+        ProductImportReader reader = csv("\uFEFFcode,name,unitPrice,description\n"
+                + "P-1,\"ボールペン, 黒\",120,\"1行目\n2行目\"\n"
+                + "P-2,\"say \"\"hi\"\"\",80,\n"
+                + "\n"
+                + "P-3,ノート,,\"\"\n");
+
+        List<ProductImportReader.Row> rows = readAll(reader, 10);
+        assertThat(rows).extracting(ProductImportReader.Row::line).containsExactly(2L, 4L, 6L);
+        assertThat(rows).allSatisfy(row -> assertThat(row.error()).isNull());
+        assertThat(rows.get(0).values()).containsEntry("code", "P-1").containsEntry("name", "ボールペン, 黒")
+                .containsEntry("unitPrice", "120").containsEntry("description", "1行目\n2行目");
+        assertThat(rows.get(1).values()).containsEntry("name", "say \"hi\"").containsEntry("description", null);
+        // 空の項目は引用符の有無によらず null
+        assertThat(rows.get(2).values()).containsEntry("unitPrice", null).containsEntry("description", null);
+    }
+
+    @Test
+    void csvRowErrorsAreReportedWithoutStoppingTheInput() throws IOException {
+        ProductImportReader reader = csv("code,name,unitPrice\n"
+                + "P-1,ペン\n"
+                + "P-2,ノート,100\n"
+                + "P-3,\"閉じていない,100\n"
+                + "P-4,消しゴム,50\n");
+
+        List<ProductImportReader.Row> rows = readAll(reader, 10);
+        assertThat(rows).extracting(ProductImportReader.Row::line).containsExactly(2L, 3L, 4L);
+        assertThat(rows.get(0).error()).startsWith("列数がヘッダーと一致しません");
+        assertThat(rows.get(1).error()).isNull();
+        // 引用符が閉じられないまま入力が終わった（以降の行はその項目の一部として読まれる）
+        assertThat(rows.get(2).error()).isEqualTo("引用符が閉じられていません");
+    }
+
+    @Test
+    void csvRowsAreReadInChunks() throws IOException {
+        StringBuilder csv = new StringBuilder("code,name,unitPrice\n");
+        for (int i = 1; i <= 25; i++) {
+            csv.append("P-").append(i).append(",商品").append(i).append(",").append(i).append('\n');
+        }
+        ProductImportReader reader = csv(csv.toString());
+
+        assertThat(reader.next(10)).hasSize(10);
+        assertThat(reader.next(10)).hasSize(10);
+        List<ProductImportReader.Row> last = reader.next(10);
+        assertThat(last).extracting(row -> row.values().get("code")).containsExactly("P-21", "P-22", "P-23", "P-24", "P-25");
+        assertThat(reader.next(10)).isEmpty();
+    }
+
+    @Test
+    void csvHeaderMustNameKnownAndRequiredColumns() {
+        assertThatThrownBy(() -> csv("")).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("ヘッダーがありません");
+        assertThatThrownBy(() -> csv("code,name,unitPrice,color\n")).isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("color");
+        assertThatThrownBy(() -> csv("code,name\n")).isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("unitPrice");
+    }
+
+    @Test
+    void ndjsonLinesBecomeRowsAndInvalidLinesBecomeErrors() throws IOException {
+        ProductImportReader reader = ProductImportReader.ndjson(new BufferedReader(new StringReader(
+                "{\"code\":\"P-1\",\"name\":\"ペン\\nA\",\"unitPrice\":120,\"description\":\"\",\"isActive\":true}\n"
+                        + "\n"
+                        + "{\"code\":\"P-2\",\"color\":\"red\"}\n"
+                        + "[1,2]\n"
+                        + "{\"code\":{\"nested\":1}}\n"
+                        + "{broken\n")), new ObjectMapper());
+
+        List<ProductImportReader.Row> rows = readAll(reader, 2);
+        assertThat(rows).extracting(ProductImportReader.Row::line).containsExactly(1L, 3L, 4L, 5L, 6L);
+        assertThat(rows.get(0).error()).isNull();
+        assertThat(rows.get(0).values()).containsEntry("name", "ペン\nA").containsEntry("unitPrice", "120")
+                .containsEntry("description", null).containsEntry("isActive", "true");
+        assertThat(rows.get(1).error()).isEqualTo("不明な項目です: color");
+        assertThat(rows.get(2).error()).isEqualTo("JSON オブジェクトではありません");
+        assertThat(rows.get(3).error()).isEqualTo("項目の値が不正です: code");
+        assertThat(rows.get(4).error()).startsWith("JSON として読めません");
+    }
+
+    private static ProductImportReader csv(String text) throws IOException {
+        return ProductImportReader.csv(new BufferedReader(new StringReader(text)));
+    }
+
+    private static List<ProductImportReader.Row> readAll(ProductImportReader reader, int chunkSize) throws IOException {
+        List<ProductImportReader.Row> rows = new ArrayList<>();
+        List<ProductImportReader.Row> chunk;
+        while (!(chunk = reader.next(chunkSize)).isEmpty()) {
+            rows.addAll(chunk);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,23 @@
+package com.cooola.micro.services.report.client;
+
+import com.cooola.micro.services.report.dto.InventorySnapshot;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
+
+/**
+ * 在庫サービスクライアント
+ */
+@FeignClient(name = "inventory-service")
+public interface InventoryClient {
+    
+    /**
+     * 全在庫をページ単位で取得（継続トークンはレスポンスヘッダー X-Next-Page-Token）
+     */
+    @GetMapping("/api/v1/inventories")
+    ResponseEntity<List<InventorySnapshot>> getInventories(@RequestParam(value = "pageToken", required = false) String pageToken,
+                                                           @RequestParam("limit") int limit);
+}
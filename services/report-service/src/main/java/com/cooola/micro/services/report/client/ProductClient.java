@@ -0,0 +1,30 @@
+package com.cooola.micro.services.report.client;
+
+import com.cooola.micro.services.report.dto.ProductSnapshot;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
+
+/**
+ * 商品サービスクライアント
+ */
+@FeignClient(name = "product-service")
+public interface ProductClient {
+    
+    /**
+     * 全商品をページ単位で取得（継続トークンはレスポンスヘッダー X-Next-Page-Token）
+     */
+    @GetMapping("/api/products")
+    ResponseEntity<List<ProductSnapshot>> getProducts(@RequestParam(value = "pageToken", required = false) String pageToken,
+                                                      @RequestParam("limit") int limit);
+    
+    /**
+     * 商品を取得
+     */
+    @GetMapping("/api/products/{id}")
+    ProductSnapshot getProduct(@PathVariable("id") Long id);
+}
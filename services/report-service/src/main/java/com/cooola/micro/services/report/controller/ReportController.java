@@ -1,13 +1,17 @@
 package com.cooola.micro.services.report.controller;
 
+import com.cooola.micro.services.report.dto.InventorySnapshot;
 import com.cooola.micro.services.report.service.ReportService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -30,6 +34,25 @@ public class ReportController {
         return ResponseEntity.ok(reportService.generateInventorySummary());
     }
     
+    /**
+     * 在庫サマリーの再構築（全在庫行から集計し直し、差分集計の結果と照合する）
+     */
+    @PostMapping("/inventory/summary/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildInventorySummary() {
+        log.info("Rebuilding inventory summary");
+        return ResponseEntity.ok(reportService.rebuildInventorySummary());
+    }
+    
+    /**
+     * 在庫行の変更通知（在庫サービスから呼び出される）
+     */
+    @PostMapping("/inventory/changes")
+    public ResponseEntity<Void> applyInventoryChanges(@RequestBody List<InventorySnapshot> changes) {
+        log.debug("Applying inventory changes - count: {}", changes.size());
+        reportService.applyInventoryChanges(changes);
+        return ResponseEntity.noContent().build();
+    }
+    
     /**
      * 在庫詳細レポート
      */
@@ -121,7 +144,7 @@ public class ReportController {
      * CSVレポートダウンロード
      */
     @GetMapping("/download/{reportType}/csv")
-    public ResponseEntity<byte[]> downloadCsvReport(
+    public ResponseEntity<StreamingResponseBody> downloadCsvReport(
             @PathVariable String reportType,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
@@ -129,18 +152,21 @@ public class ReportController {
         log.info("Downloading CSV report - type: {}, startDate: {}, endDate: {}, warehouseId: {}", 
                 reportType, startDate, endDate, warehouseId);
         
-        try {
-            byte[] reportData = reportService.generateCsvReport(reportType, startDate, endDate, warehouseId);
-            String filename = String.format("%s_report_%s.csv", reportType, LocalDate.now());
-            
-            return ResponseEntity.ok()
-                    .header("Content-Disposition", "attachment; filename=" + filename)
-                    .header("Content-Type", "text/csv; charset=UTF-8")
-                    .body(reportData);
-        } catch (Exception e) {
-            log.error("Failed to generate CSV report", e);
-            return ResponseEntity.internalServerError().build();
-        }
+        String filename = reportType + "_report_" + LocalDate.now() + ".csv";
+        // レポートをメモリに溜めず、レスポンスへ直接書き込む
+        StreamingResponseBody body = out -> {
+            try {
+                reportService.writeCsvReport(reportType, startDate, endDate, warehouseId, out);
+            } catch (IOException | RuntimeException e) {
+                log.error("Failed to generate CSV report", e);
+                throw e;
+            }
+        };
+        
+        return ResponseEntity.ok()
+                .header("Content-Disposition", "attachment; filename=" + filename)
+                .header("Content-Type", "text/csv; charset=UTF-8")
+                .body(body);
     }
     
     /**
@@ -0,0 +1,24 @@
+package com.cooola.micro.services.report.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 在庫行の状態（在庫サービスからの変更通知・一覧取得の共通形式）
+ * 削除された在庫行は deleted=true で ID のみを持つ
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class InventorySnapshot {
+    
+    private Long id;
+    private Long productId;
+    private Long warehouseId;
+    private Integer quantity;
+    private Integer availableQuantity;
+    private boolean deleted;
+}
@@ -0,0 +1,27 @@
+package com.cooola.micro.services.report.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * 商品サービスから取得する商品（集計に必要な項目のみ）
+ */
+@Data
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ProductSnapshot {
+    
+    private Long id;
+    private BigDecimal unitPrice;
+    private Category category;
+    
+    @Data
+    @NoArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Category {
+        private Long id;
+    }
+}
@@ -0,0 +1,203 @@
+package com.cooola.micro.services.report.service;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * CSVレポートのストリーミング出力
+ * 行を再利用する文字バッファへ直接組み立て、UTF-8 に符号化して出力先へ書き込む（レポート全体をメモリに保持しない）。
+ * カンマ・ダブルクォート・改行を含む値はダブルクォートで囲み、値中のダブルクォートは二重にする。
+ */
+public final class CsvReportWriter implements Flushable {
+
+    private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final OutputStream out;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final char[] chars;
+    private final CharBuffer charBuffer;
+    private final ByteBuffer byteBuffer;
+    private int length;
+    private boolean rowStarted;
+
+    public CsvReportWriter(OutputStream out) {
+        this(out, DEFAULT_BUFFER_SIZE);
+    }
+
+    public CsvReportWriter(OutputStream out, int bufferSize) {
+        if (bufferSize < 64) {
+            throw new IllegalArgumentException("バッファサイズは64以上である必要があります");
+        }
+        this.out = out;
+        this.chars = new char[bufferSize];
+        this.charBuffer = CharBuffer.wrap(chars);
+        this.byteBuffer = ByteBuffer.allocate((int) (bufferSize * encoder.maxBytesPerChar()));
+    }
+
+    /**
+     * BOMを出力（Excelで文字化けを防ぐ）。最初の行より前に呼び出すこと
+     */
+    public CsvReportWriter bom() throws IOException {
+        out.write(UTF8_BOM);
+        return this;
+    }
+
+    /**
+     * 見出し行を出力
+     */
+    public CsvReportWriter header(String... names) throws IOException {
+        for (String name : names) {
+            field(name);
+        }
+        return endRow();
+    }
+
+    /**
+     * 値を1項目出力（null は空欄）
+     */
+    public CsvReportWriter field(Object value) throws IOException {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short) {
+            return field(((Number) value).longValue());
+        }
+        if (value instanceof BigDecimal decimal) {
+            return field(decimal.toPlainString());
+        }
+        return field(value == null ? null : value.toString());
+    }
+
+    /**
+     * 文字列を1項目出力（必要な場合のみダブルクォートで囲む）
+     */
+    public CsvReportWriter field(String value) throws IOException {
+        separator();
+        if (value == null || value.isEmpty()) {
+            return this;
+        }
+        if (!needsQuote(value)) {
+            append(value);
+            return this;
+        }
+        append('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) == '"') {
+                append(value, start, i + 1);
+                append('"');
+                start = i + 1;
+            }
+        }
+        append(value, start, value.length());
+        append('"');
+        return this;
+    }
+
+    /**
+     * 整数を1項目出力（文字列を生成せずに桁を直接書き込む）
+     */
+    public CsvReportWriter field(long value) throws IOException {
+        separator();
+        if (value == Long.MIN_VALUE) {
+            append(Long.toString(value));
+            return this;
+        }
+        if (value < 0) {
+            append('-');
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        if (length + digits > chars.length) {
+            drain();
+        }
+        for (int i = length + digits - 1; i >= length; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        length += digits;
+        return this;
+    }
+
+    /**
+     * 行を終える
+     */
+    public CsvReportWriter endRow() throws IOException {
+        append('\n');
+        rowStarted = false;
+        return this;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    private static boolean needsQuote(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void separator() throws IOException {
+        if (rowStarted) {
+            append(',');
+        }
+        rowStarted = true;
+    }
+
+    private void append(char c) throws IOException {
+        if (length == chars.length) {
+            drain();
+        }
+        chars[length++] = c;
+    }
+
+    private void append(String value) throws IOException {
+        append(value, 0, value.length());
+    }
+
+    private void append(String value, int start, int end) throws IOException {
+        while (start < end) {
+            if (length == chars.length) {
+                drain();
+            }
+            int count = Math.min(end - start, chars.length - length);
+            value.getChars(start, start + count, chars, length);
+            length += count;
+            start += count;
+        }
+    }
+
+    /**
+     * 文字バッファを符号化して出力する（バッファ末尾で分断されたサロゲートペアは次回に持ち越す）
+     */
+    private void drain() throws IOException {
+        charBuffer.limit(length).position(0);
+        byteBuffer.clear();
+        CoderResult result = encoder.encode(charBuffer, byteBuffer, false);
+        if (result.isOverflow()) {
+            throw new IllegalStateException("CSV出力バッファが不足しています");
+        }
+        out.write(byteBuffer.array(), 0, byteBuffer.position());
+        int remaining = charBuffer.remaining();
+        System.arraycopy(chars, charBuffer.position(), chars, 0, remaining);
+        length = remaining;
+    }
+}
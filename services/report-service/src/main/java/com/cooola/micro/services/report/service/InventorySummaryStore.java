@@ -0,0 +1,331 @@
+package com.cooola.micro.services.report.service;
+
+import com.cooola.micro.services.report.client.InventoryClient;
+import com.cooola.micro.services.report.dto.InventorySnapshot;
+import com.cooola.micro.services.report.service.ProductAttributeCache.ProductAttributes;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 在庫サマリーの集計ストア
+ * 倉庫別・カテゴリ別の合計を在庫行の変更通知から差分で更新し、サマリーを倉庫数に比例する時間で返す。
+ * 変更通知は在庫行の変更後の状態なので、在庫行ごとに直前の状態を保持して差し引きする（重複通知しても結果は変わらない）。
+ * 商品のカテゴリ・単価の変更は在庫行の変更通知では届かないため、商品属性を定期的に読み直し、変わった商品の在庫行を集計し直す。
+ */
+@Slf4j
+@Component
+public class InventorySummaryStore {
+
+    /**
+     * カテゴリ未設定の商品を集計するキー
+     */
+    private static final long UNCATEGORIZED = 0L;
+
+    private final InventoryClient inventoryClient;
+    private final ProductAttributeCache productAttributes;
+    private final int lowStockThreshold;
+
+    private volatile State state = new State();
+    // 再構築中に受け付けた変更（再構築後のストアへ再適用する）。再構築中以外は null
+    private volatile List<InventorySnapshot> changedDuringRebuild;
+
+    public InventorySummaryStore(InventoryClient inventoryClient,
+                                 ProductAttributeCache productAttributes,
+                                 @Value("${report.inventory.low-stock-threshold:10}") int lowStockThreshold) {
+        this.inventoryClient = inventoryClient;
+        this.productAttributes = productAttributes;
+        this.lowStockThreshold = lowStockThreshold;
+    }
+
+    /**
+     * 在庫行の変更を反映
+     */
+    public void apply(Collection<InventorySnapshot> changes) {
+        List<InventorySnapshot> buffer = changedDuringRebuild;
+        if (buffer != null) {
+            buffer.addAll(changes);
+        }
+        State current = state;
+        for (InventorySnapshot change : changes) {
+            current.apply(change, attributesOf(change));
+        }
+    }
+
+    /**
+     * 全体・倉庫別・カテゴリ別の合計を取得
+     */
+    public Map<String, Object> summary() {
+        return state.summary();
+    }
+
+    /**
+     * 起動時に在庫サービスから集計を構築（失敗した場合は変更通知のみで集計を始める）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("在庫サマリーの初期構築に失敗: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 在庫サービスの全在庫行から集計を作り直し、差分更新で保持していた集計と照合する
+     * @return 照合結果（matched: 一致したか、mismatchedWarehouses / mismatchedCategories: 不一致だったキー）
+     */
+    public synchronized Map<String, Object> rebuild() {
+        long started = System.nanoTime();
+        List<InventorySnapshot> buffer = Collections.synchronizedList(new ArrayList<>());
+        changedDuringRebuild = buffer;
+        State rebuilt = new State();
+        State previous;
+        try {
+            productAttributes.reload();
+            String pageToken = null;
+            do {
+                ResponseEntity<List<InventorySnapshot>> page = inventoryClient.getInventories(pageToken, ProductAttributeCache.PAGE_LIMIT);
+                if (page.getBody() != null) {
+                    page.getBody().forEach(row -> rebuilt.apply(row, attributesOf(row)));
+                }
+                pageToken = page.getHeaders().getFirst(ProductAttributeCache.NEXT_PAGE_TOKEN_HEADER);
+            } while (pageToken != null);
+            previous = state;
+            state = rebuilt;
+        } finally {
+            changedDuringRebuild = null;
+        }
+        // 一覧の読み出しより前の状態が再適用される場合があるが、その行の最新状態は後続の変更通知で届く
+        synchronized (buffer) {
+            buffer.forEach(change -> rebuilt.apply(change, attributesOf(change)));
+        }
+
+        List<Long> mismatchedWarehouses = mismatchedKeys(previous.byWarehouse, rebuilt.byWarehouse);
+        List<Long> mismatchedCategories = mismatchedKeys(previous.byCategory, rebuilt.byCategory);
+        log.info("在庫サマリー再構築完了: 在庫行数={}, 所要時間={}ms, 不一致倉庫数={}, 不一致カテゴリ数={}",
+                rebuilt.rows.size(), (System.nanoTime() - started) / 1_000_000, mismatchedWarehouses.size(), mismatchedCategories.size());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("matched", mismatchedWarehouses.isEmpty() && mismatchedCategories.isEmpty());
+        result.put("inventoryRows", rebuilt.rows.size());
+        result.put("mismatchedWarehouses", mismatchedWarehouses);
+        result.put("mismatchedCategories", mismatchedCategories);
+        return result;
+    }
+
+    /**
+     * 商品属性を読み直し、カテゴリ・単価が変わった商品の在庫行を新しい属性で集計し直す
+     * @return 集計し直した在庫行数
+     */
+    @Scheduled(initialDelayString = "${report.inventory.attribute-refresh-interval-ms:300000}",
+            fixedDelayString = "${report.inventory.attribute-refresh-interval-ms:300000}")
+    public synchronized int refreshProductAttributes() {
+        Set<Long> changed;
+        try {
+            changed = productAttributes.reload();
+        } catch (RuntimeException e) {
+            log.warn("商品属性の読み直しに失敗: {}", e.getMessage());
+            return 0;
+        }
+        int repriced = changed.isEmpty() ? 0 : state.reprice(changed);
+        if (repriced > 0) {
+            log.info("商品属性の変更を集計に反映: 商品数={}, 在庫行数={}", changed.size(), repriced);
+        }
+        return repriced;
+    }
+
+    private ProductAttributes attributesOf(InventorySnapshot change) {
+        return change.isDeleted() || change.getProductId() == null ? ProductAttributeCache.UNKNOWN : productAttributes.get(change.getProductId());
+    }
+
+    private static List<Long> mismatchedKeys(Map<Long, Totals> expected, Map<Long, Totals> actual) {
+        Map<Long, Totals.View> before = new TreeMap<>();
+        expected.forEach((key, totals) -> before.put(key, totals.view()));
+        Map<Long, Totals.View> after = new TreeMap<>();
+        actual.forEach((key, totals) -> after.put(key, totals.view()));
+        List<Long> mismatched = new ArrayList<>();
+        before.forEach((key, view) -> {
+            if (!Objects.equals(view, after.getOrDefault(key, Totals.View.EMPTY))) {
+                mismatched.add(key);
+            }
+        });
+        after.forEach((key, view) -> {
+            if (!before.containsKey(key) && !view.equals(Totals.View.EMPTY)) {
+                mismatched.add(key);
+            }
+        });
+        return mismatched;
+    }
+
+    /**
+     * 集計状態（再構築時は新しい状態を作ってから差し替える）
+     */
+    private final class State {
+        private final Map<Long, Row> rows = new ConcurrentHashMap<>();
+        private final Map<Long, Totals> byWarehouse = new ConcurrentHashMap<>();
+        private final Map<Long, Totals> byCategory = new ConcurrentHashMap<>();
+        // 商品ID → その商品の在庫行数（総商品数の算出用）
+        private final Map<Long, Integer> rowsPerProduct = new ConcurrentHashMap<>();
+
+        void apply(InventorySnapshot change, ProductAttributes attributes) {
+            rows.compute(change.getId(), (id, previous) -> {
+                Row next = change.isDeleted() ? null : Row.of(change, attributes);
+                if (previous != null) {
+                    add(previous, -1);
+                }
+                if (next != null) {
+                    add(next, 1);
+                }
+                return next;
+            });
+        }
+
+        /**
+         * 指定した商品の在庫行を現在の商品属性で置き換える
+         * @return 置き換えた在庫行数
+         */
+        int reprice(Set<Long> productIds) {
+            int repriced = 0;
+            for (Long id : rows.keySet()) {
+                Row[] replaced = new Row[1];
+                rows.computeIfPresent(id, (key, previous) -> {
+                    if (!productIds.contains(previous.productId())) {
+                        return previous;
+                    }
+                    Row next = previous.withAttributes(productAttributes.get(previous.productId()));
+                    add(previous, -1);
+                    add(next, 1);
+                    replaced[0] = next;
+                    return next;
+                });
+                if (replaced[0] != null) {
+                    repriced++;
+                }
+            }
+            return repriced;
+        }
+
+        private void add(Row row, int sign) {
+            byWarehouse.computeIfAbsent(row.warehouseId(), key -> new Totals()).add(row, sign, lowStockThreshold);
+            byCategory.computeIfAbsent(row.categoryKey(), key -> new Totals()).add(row, sign, lowStockThreshold);
+            rowsPerProduct.merge(row.productId(), sign, (a, b) -> a + b == 0 ? null : a + b);
+        }
+
+        Map<String, Object> summary() {
+            Totals total = new Totals();
+            List<Map<String, Object>> warehouses = new ArrayList<>();
+            new TreeMap<>(byWarehouse).forEach((warehouseId, totals) -> {
+                Totals.View view = totals.view();
+                if (view.rows() > 0) {
+                    total.merge(view);
+                    warehouses.add(view.toMap("warehouseId", warehouseId));
+                }
+            });
+            List<Map<String, Object>> categories = new ArrayList<>();
+            new TreeMap<>(byCategory).forEach((categoryKey, totals) -> {
+                Totals.View view = totals.view();
+                if (view.rows() > 0) {
+                    categories.add(view.toMap("categoryId", categoryKey == UNCATEGORIZED ? null : categoryKey));
+                }
+            });
+
+            Totals.View view = total.view();
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("totalProducts", rowsPerProduct.size());
+            summary.put("totalQuantity", view.quantity());
+            summary.put("totalValue", view.value());
+            summary.put("lowStockItems", view.lowStock());
+            summary.put("outOfStockItems", view.outOfStock());
+            summary.put("warehouses", warehouses);
+            summary.put("categories", categories);
+            return summary;
+        }
+    }
+
+    /**
+     * 在庫行の集計対象の値（通知時点の単価で評価額を確定し、差し引き時にも同じ値を使う）
+     */
+    private record Row(long productId, long warehouseId, long categoryKey, int quantity, int available, BigDecimal value) {
+        static Row of(InventorySnapshot change, ProductAttributes attributes) {
+            int quantity = change.getQuantity() == null ? 0 : change.getQuantity();
+            int available = change.getAvailableQuantity() == null ? quantity : change.getAvailableQuantity();
+            long categoryKey = attributes.categoryId() == null ? UNCATEGORIZED : attributes.categoryId();
+            return new Row(change.getProductId(), change.getWarehouseId(), categoryKey, quantity, available,
+                    attributes.unitPrice().multiply(BigDecimal.valueOf(quantity)));
+        }
+
+        Row withAttributes(ProductAttributes attributes) {
+            long categoryKey = attributes.categoryId() == null ? UNCATEGORIZED : attributes.categoryId();
+            return new Row(productId, warehouseId, categoryKey, quantity, available,
+                    attributes.unitPrice().multiply(BigDecimal.valueOf(quantity)));
+        }
+    }
+
+    /**
+     * 倉庫・カテゴリ単位の合計
+     */
+    private static final class Totals {
+        private long rows;
+        private long quantity;
+        private BigDecimal value = BigDecimal.ZERO;
+        private long lowStock;
+        private long outOfStock;
+
+        synchronized void add(Row row, int sign, int lowStockThreshold) {
+            rows += sign;
+            quantity += (long) sign * row.quantity();
+            value = sign > 0 ? value.add(row.value()) : value.subtract(row.value());
+            if (row.available() <= lowStockThreshold) {
+                lowStock += sign;
+            }
+            if (row.available() <= 0) {
+                outOfStock += sign;
+            }
+        }
+
+        void merge(View view) {
+            rows += view.rows();
+            quantity += view.quantity();
+            value = value.add(view.value());
+            lowStock += view.lowStock();
+            outOfStock += view.outOfStock();
+        }
+
+        synchronized View view() {
+            return new View(rows, quantity, value.setScale(2, RoundingMode.HALF_UP), lowStock, outOfStock);
+        }
+
+        record View(long rows, long quantity, BigDecimal value, long lowStock, long outOfStock) {
+            static final View EMPTY = new Totals().view();
+
+            Map<String, Object> toMap(String keyName, Long key) {
+                Map<String, Object> map = new LinkedHashMap<>();
+                map.put(keyName, key);
+                map.put("inventoryRows", rows);
+                map.put("totalQuantity", quantity);
+                map.put("totalValue", value);
+                map.put("lowStockItems", lowStock);
+                map.put("outOfStockItems", outOfStock);
+                return map;
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.cooola.micro.services.report.service;
+
+import com.cooola.micro.services.report.client.ProductClient;
+import com.cooola.micro.services.report.dto.ProductSnapshot;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 集計用の商品属性（カテゴリ・単価）キャッシュ
+ * 未知の商品は初回参照時に商品サービスから取得し、サマリーの再構築時と定期的な属性の更新時に全件を読み直す。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+class ProductAttributeCache {
+
+    static final String NEXT_PAGE_TOKEN_HEADER = "X-Next-Page-Token";
+    static final int PAGE_LIMIT = 1000;
+
+    /**
+     * 商品サービスから取得できなかった商品の属性（カテゴリ未分類・単価0として集計する）
+     */
+    static final ProductAttributes UNKNOWN = new ProductAttributes(null, BigDecimal.ZERO);
+
+    private final ProductClient productClient;
+
+    private final Map<Long, ProductAttributes> attributes = new ConcurrentHashMap<>();
+
+    /**
+     * 商品属性を取得（取得に失敗した場合は UNKNOWN を返し、キャッシュしない）
+     */
+    ProductAttributes get(Long productId) {
+        ProductAttributes cached = attributes.get(productId);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            ProductAttributes loaded = of(productClient.getProduct(productId));
+            attributes.put(productId, loaded);
+            return loaded;
+        } catch (RuntimeException e) {
+            log.warn("商品属性の取得に失敗: productId={}, 原因={}", productId, e.getMessage());
+            return UNKNOWN;
+        }
+    }
+
+    /**
+     * 全商品の属性を読み直す
+     * @return 読み直す前と属性が変わった商品ID（読み直す前にキャッシュになかった商品を含む）
+     */
+    Set<Long> reload() {
+        Map<Long, ProductAttributes> loaded = new ConcurrentHashMap<>();
+        String pageToken = null;
+        do {
+            ResponseEntity<List<ProductSnapshot>> page = productClient.getProducts(pageToken, PAGE_LIMIT);
+            if (page.getBody() != null) {
+                page.getBody().forEach(product -> loaded.put(product.getId(), of(product)));
+            }
+            pageToken = page.getHeaders().getFirst(NEXT_PAGE_TOKEN_HEADER);
+        } while (pageToken != null);
+        Set<Long> changed = new HashSet<>();
+        loaded.forEach((productId, current) -> {
+            if (!Objects.equals(attributes.get(productId), current)) {
+                changed.add(productId);
+            }
+        });
+        attributes.keySet().retainAll(loaded.keySet());
+        attributes.putAll(loaded);
+        log.info("商品属性を読み直しました: 商品数={}, 変更された商品数={}", loaded.size(), changed.size());
+        return changed;
+    }
+
+    private static ProductAttributes of(ProductSnapshot product) {
+        Long categoryId = product.getCategory() == null ? null : product.getCategory().getId();
+        BigDecimal unitPrice = product.getUnitPrice() == null ? BigDecimal.ZERO : product.getUnitPrice();
+        return new ProductAttributes(categoryId, unitPrice);
+    }
+
+    /**
+     * 商品属性
+     */
+    record ProductAttributes(Long categoryId, BigDecimal unitPrice) {
+    }
+}
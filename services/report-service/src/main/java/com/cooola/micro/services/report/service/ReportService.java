@@ -1,13 +1,13 @@
 package com.cooola.micro.services.report.service;
 
+import com.cooola.micro.services.report.dto.InventorySnapshot;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.nio.charset.StandardCharsets;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -22,22 +22,34 @@ public class ReportService {
     
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     
+    private final InventorySummaryStore inventorySummaryStore;
+    
     /**
-     * 在庫サマリーレポート生成
+     * 在庫サマリーレポート生成（倉庫別・カテゴリ別の集計ストアから算出）
      */
     public Map<String, Object> generateInventorySummary() {
         Map<String, Object> report = new HashMap<>();
         report.put("reportType", "inventory_summary");
         report.put("generatedAt", LocalDate.now().format(DATE_FORMATTER));
-        report.put("totalProducts", 150);
-        report.put("totalQuantity", 12500);
-        report.put("totalValue", 25000000);
-        report.put("lowStockItems", 12);
-        report.put("outOfStockItems", 3);
+        report.putAll(inventorySummaryStore.summary());
         
         return report;
     }
     
+    /**
+     * 在庫行の変更を在庫サマリーへ反映
+     */
+    public void applyInventoryChanges(List<InventorySnapshot> changes) {
+        inventorySummaryStore.apply(changes);
+    }
+    
+    /**
+     * 在庫サマリーを全在庫行から再構築し、差分集計の結果と照合
+     */
+    public Map<String, Object> rebuildInventorySummary() {
+        return inventorySummaryStore.rebuild();
+    }
+    
     /**
      * 在庫詳細レポート生成
      */
@@ -162,8 +174,17 @@ public class ReportService {
      * CSVレポート生成
      */
     public byte[] generateCsvReport(String reportType, LocalDate startDate, LocalDate endDate, Long warehouseId) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        writeCsvReport(reportType, startDate, endDate, warehouseId, baos);
+        return baos.toByteArray();
+    }
+    
+    /**
+     * CSVレポートを出力先へ直接書き込む（レスポンスへのストリーミング出力用）
+     */
+    public void writeCsvReport(String reportType, LocalDate startDate, LocalDate endDate, Long warehouseId, OutputStream out) throws IOException {
         Map<String, Object> reportData = getReportData(reportType, startDate, endDate, warehouseId);
-        return convertToCsv(reportData);
+        writeCsv(reportData, out);
     }
     
     /**
@@ -211,16 +232,10 @@ public class ReportService {
     }
     
     /**
-     * CSV変換
+     * CSV出力（ベンチマークからも直接呼び出す）
      */
-    private byte[] convertToCsv(Map<String, Object> reportData) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        OutputStreamWriter writer = new OutputStreamWriter(baos, StandardCharsets.UTF_8);
-        
-        // BOMを追加（Excelで文字化けを防ぐ）
-        baos.write(0xEF);
-        baos.write(0xBB);
-        baos.write(0xBF);
+    void writeCsv(Map<String, Object> reportData, OutputStream out) throws IOException {
+        CsvReportWriter writer = new CsvReportWriter(out).bom();
         
         String reportType = (String) reportData.get("reportType");
         
@@ -241,43 +256,40 @@ public class ReportService {
                 writeInventorySummaryCsv(writer, reportData);
         }
         
-        writer.close();
-        return baos.toByteArray();
+        writer.flush();
     }
     
     /**
      * 在庫サマリーCSV出力
      */
-    private void writeInventorySummaryCsv(OutputStreamWriter writer, Map<String, Object> reportData) throws IOException {
-        writer.write("レポートタイプ,生成日,総商品数,総在庫数,総価値,低在庫商品数,在庫切れ商品数\n");
-        writer.write(String.format("%s,%s,%s,%s,%s,%s,%s\n",
-            reportData.get("reportType"),
-            reportData.get("generatedAt"),
-            reportData.get("totalProducts"),
-            reportData.get("totalQuantity"),
-            reportData.get("totalValue"),
-            reportData.get("lowStockItems"),
-            reportData.get("outOfStockItems")
-        ));
+    private void writeInventorySummaryCsv(CsvReportWriter writer, Map<String, Object> reportData) throws IOException {
+        writer.header("レポートタイプ", "生成日", "総商品数", "総在庫数", "総価値", "低在庫商品数", "在庫切れ商品数");
+        writer.field(reportData.get("reportType"))
+                .field(reportData.get("generatedAt"))
+                .field(reportData.get("totalProducts"))
+                .field(reportData.get("totalQuantity"))
+                .field(reportData.get("totalValue"))
+                .field(reportData.get("lowStockItems"))
+                .field(reportData.get("outOfStockItems"))
+                .endRow();
     }
     
     /**
      * 在庫詳細CSV出力
      */
-    private void writeInventoryDetailCsv(OutputStreamWriter writer, Map<String, Object> reportData) throws IOException {
-        writer.write("商品名,カテゴリ,在庫数,単価,倉庫\n");
+    private void writeInventoryDetailCsv(CsvReportWriter writer, Map<String, Object> reportData) throws IOException {
+        writer.header("商品名", "カテゴリ", "在庫数", "単価", "倉庫");
         
         @SuppressWarnings("unchecked")
         List<Map<String, Object>> items = (List<Map<String, Object>>) reportData.get("items");
         if (items != null) {
             for (Map<String, Object> item : items) {
-                writer.write(String.format("%s,%s,%s,%s,%s\n",
-                    item.get("productName"),
-                    item.get("category"),
-                    item.get("quantity"),
-                    item.get("unitPrice"),
-                    item.get("warehouse")
-                ));
+                writer.field(item.get("productName"))
+                        .field(item.get("category"))
+                        .field(item.get("quantity"))
+                        .field(item.get("unitPrice"))
+                        .field(item.get("warehouse"))
+                        .endRow();
             }
         }
     }
@@ -285,20 +297,19 @@ public class ReportService {
     /**
      * 取引レポートCSV出力
      */
-    private void writeTransactionReportCsv(OutputStreamWriter writer, Map<String, Object> reportData) throws IOException {
-        writer.write("取引ID,取引タイプ,商品名,数量,取引日\n");
+    private void writeTransactionReportCsv(CsvReportWriter writer, Map<String, Object> reportData) throws IOException {
+        writer.header("取引ID", "取引タイプ", "商品名", "数量", "取引日");
         
         @SuppressWarnings("unchecked")
         List<Map<String, Object>> transactions = (List<Map<String, Object>>) reportData.get("transactions");
         if (transactions != null) {
             for (Map<String, Object> transaction : transactions) {
-                writer.write(String.format("%s,%s,%s,%s,%s\n",
-                    transaction.get("transactionId"),
-                    transaction.get("type"),
-                    transaction.get("productName"),
-                    transaction.get("quantity"),
-                    transaction.get("date")
-                ));
+                writer.field(transaction.get("transactionId"))
+                        .field(transaction.get("type"))
+                        .field(transaction.get("productName"))
+                        .field(transaction.get("quantity"))
+                        .field(transaction.get("date"))
+                        .endRow();
             }
         }
     }
@@ -306,19 +317,18 @@ public class ReportService {
     /**
      * 低在庫アラートCSV出力
      */
-    private void writeLowStockAlertCsv(OutputStreamWriter writer, Map<String, Object> reportData) throws IOException {
-        writer.write("商品名,現在在庫数,最小在庫数,ステータス\n");
+    private void writeLowStockAlertCsv(CsvReportWriter writer, Map<String, Object> reportData) throws IOException {
+        writer.header("商品名", "現在在庫数", "最小在庫数", "ステータス");
         
         @SuppressWarnings("unchecked")
         List<Map<String, Object>> alerts = (List<Map<String, Object>>) reportData.get("alerts");
         if (alerts != null) {
             for (Map<String, Object> alert : alerts) {
-                writer.write(String.format("%s,%s,%s,%s\n",
-                    alert.get("productName"),
-                    alert.get("currentStock"),
-                    alert.get("minStock"),
-                    alert.get("status")
-                ));
+                writer.field(alert.get("productName"))
+                        .field(alert.get("currentStock"))
+                        .field(alert.get("minStock"))
+                        .field(alert.get("status"))
+                        .endRow();
             }
         }
     }
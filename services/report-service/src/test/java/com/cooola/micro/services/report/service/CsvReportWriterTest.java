@@ -0,0 +1,81 @@
+package com.cooola.micro.services.report.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * CSVレポート出力のテスト
+ */
+class CsvReportWriterTest {
+
+    @Test
+    void bomIsWrittenBeforeTheFirstRow() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvReportWriter writer = new CsvReportWriter(out).bom().header("商品ID", "名前");
+        writer.flush();
+
+        byte[] bytes = out.toByteArray();
+        assertThat(Arrays.copyOf(bytes, 3)).containsExactly(0xEF, 0xBB, 0xBF);
+        assertThat(new String(bytes, 3, bytes.length - 3, StandardCharsets.UTF_8)).isEqualTo("商品ID,名前\n");
+    }
+
+    @Test
+    void valuesAreQuotedOnlyWhenNeeded() throws IOException {
+        String csv = write(64, writer -> writer
+                .field("plain").field("a,b").field("say \"hi\"").field("line1\nline2").field("cr\r").endRow()
+                .field((String) null).field("").field((Object) null).endRow()
+                .field(42).field(-7L).field(Long.MIN_VALUE).field(0).field(new BigDecimal("1E+3")).field(new BigDecimal("12.50")).endRow());
+
+        assertThat(csv).isEqualTo("plain,\"a,b\",\"say \"\"hi\"\"\",\"line1\nline2\",\"cr\r\"\n"
+                + ",,\n"
+                + "42,-7,-9223372036854775808,0,1000,12.50\n");
+    }
+
+    @Test
+    void outputIsTheSameRegardlessOfBufferSize() throws IOException {
+        // 多バイト文字・サロゲートペア・引用が必要な値がバッファの境界をまたぐように長い行を出力する
+        StringBuilder expected = new StringBuilder();
+        CsvBody body = writer -> {
+            for (int row = 0; row < 200; row++) {
+                String name = "商品🍣" + "ｱ".repeat(row % 37) + (row % 5 == 0 ? ",\"特売\"" : "");
+                writer.field(row).field(name).field(row * 1_000_003L).endRow();
+            }
+        };
+        for (int row = 0; row < 200; row++) {
+            String name = "商品🍣" + "ｱ".repeat(row % 37) + (row % 5 == 0 ? ",\"特売\"" : "");
+            String quoted = row % 5 == 0 ? "\"" + name.replace("\"", "\"\"") + "\"" : name;
+            expected.append(row).append(',').append(quoted).append(',').append(row * 1_000_003L).append('\n');
+        }
+
+        assertThat(write(64, body)).isEqualTo(expected.toString());
+        assertThat(write(65, body)).isEqualTo(expected.toString());
+        assertThat(write(8192, body)).isEqualTo(expected.toString());
+    }
+
+    @Test
+    void bufferSmallerThanMinimumIsRejected() {
+        assertThatThrownBy(() -> new CsvReportWriter(new ByteArrayOutputStream(), 63))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String write(int bufferSize, CsvBody body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvReportWriter writer = new CsvReportWriter(out, bufferSize);
+        body.write(writer);
+        writer.flush();
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @FunctionalInterface
+    private interface CsvBody {
+        void write(CsvReportWriter writer) throws IOException;
+    }
+}
@@ -0,0 +1,195 @@
+package com.cooola.micro.services.report.service;
+
+import com.cooola.micro.services.report.client.InventoryClient;
+import com.cooola.micro.services.report.client.ProductClient;
+import com.cooola.micro.services.report.dto.InventorySnapshot;
+import com.cooola.micro.services.report.dto.ProductSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 在庫サマリーの集計ストアのテスト
+ */
+class InventorySummaryStoreTest {
+
+    private final Map<Long, ProductSnapshot> products = new HashMap<>();
+    // 在庫サービスの全在庫行（再構築で読み出す）
+    private final List<InventorySnapshot> inventories = new ArrayList<>();
+    private InventorySummaryStore store;
+
+    @BeforeEach
+    void setUp() {
+        products.put(1L, product(1L, 10L, "100"));
+        products.put(2L, product(2L, 20L, "250.5"));
+        products.put(3L, product(3L, null, "3"));
+        InventoryClient inventoryClient = (pageToken, limit) -> page(inventories, pageToken, limit);
+        store = new InventorySummaryStore(inventoryClient, new ProductAttributeCache(new StubProductClient()), 5);
+    }
+
+    @Test
+    void totalsAreGroupedByWarehouseAndCategory() {
+        store.apply(List.of(
+                row(1L, 1L, 1L, 10, 8),
+                row(2L, 1L, 2L, 4, 4),
+                row(3L, 2L, 1L, 2, 0),
+                row(4L, 3L, 2L, 7, 7)));
+
+        Map<String, Object> summary = store.summary();
+        assertThat(summary.get("totalProducts")).isEqualTo(3);
+        assertThat(summary.get("totalQuantity")).isEqualTo(23L);
+        assertThat(summary.get("totalValue")).isEqualTo(new BigDecimal("1922.00"));
+        assertThat(summary.get("lowStockItems")).isEqualTo(2L);
+        assertThat(summary.get("outOfStockItems")).isEqualTo(1L);
+        assertThat(groups(summary, "warehouses", "warehouseId")).containsExactly(entry(1L, 12L), entry(2L, 11L));
+        // カテゴリ未設定の商品は categoryId=null で集計する
+        assertThat(groups(summary, "categories", "categoryId")).containsExactly(entry(null, 7L), entry(10L, 14L), entry(20L, 2L));
+    }
+
+    @Test
+    void changesReplaceThePreviousStateOfTheRow() {
+        store.apply(List.of(row(1L, 1L, 1L, 10, 10), row(2L, 2L, 1L, 3, 3)));
+
+        store.apply(List.of(row(1L, 1L, 1L, 4, 0)));
+        Map<String, Object> summary = store.summary();
+        assertThat(summary.get("totalQuantity")).isEqualTo(7L);
+        assertThat(summary.get("lowStockItems")).isEqualTo(2L);
+        assertThat(summary.get("outOfStockItems")).isEqualTo(1L);
+
+        store.apply(List.of(deleted(2L)));
+        summary = store.summary();
+        assertThat(summary.get("totalProducts")).isEqualTo(1);
+        assertThat(summary.get("totalQuantity")).isEqualTo(4L);
+        assertThat(summary.get("totalValue")).isEqualTo(new BigDecimal("400.00"));
+        assertThat(groups(summary, "categories", "categoryId")).containsExactly(entry(10L, 4L));
+    }
+
+    @Test
+    void duplicateAndDeletedNotificationsAreIdempotent() {
+        List<InventorySnapshot> changes = List.of(row(1L, 1L, 1L, 10, 10), row(2L, 2L, 2L, 5, 1), deleted(9L));
+        store.apply(changes);
+        Map<String, Object> once = store.summary();
+
+        store.apply(changes);
+        store.apply(List.of(deleted(9L), deleted(9L)));
+
+        assertThat(store.summary()).isEqualTo(once);
+    }
+
+    @Test
+    void rebuildMatchesIncrementalTotalsAndReportsMismatches() {
+        for (long id = 1; id <= 2500; id++) {
+            InventorySnapshot snapshot = row(id, id % 3 + 1, id % 4 + 1, (int) (id % 11), (int) (id % 7));
+            inventories.add(snapshot);
+            store.apply(List.of(snapshot));
+        }
+        Map<String, Object> incremental = store.summary();
+
+        Map<String, Object> result = store.rebuild();
+        assertThat(result.get("matched")).isEqualTo(true);
+        assertThat(result.get("inventoryRows")).isEqualTo(2500);
+        assertThat(store.summary()).isEqualTo(incremental);
+
+        // 変更通知が届かなかった在庫行がある（倉庫2から倉庫3へ移り、数量も変わった。カテゴリは20のまま）
+        inventories.set(0, row(1L, 2L, 3L, 50, 50));
+        result = store.rebuild();
+        assertThat(result.get("matched")).isEqualTo(false);
+        assertThat(result.get("mismatchedWarehouses")).isEqualTo(List.of(2L, 3L));
+        assertThat(result.get("mismatchedCategories")).isEqualTo(List.of(20L));
+    }
+
+    @Test
+    void productAttributeChangesAreAppliedToExistingRows() {
+        List<InventorySnapshot> rows = List.of(row(1L, 1L, 1L, 10, 10), row(2L, 2L, 1L, 4, 4), row(3L, 1L, 2L, 5, 5));
+        inventories.addAll(rows);
+        store.apply(rows);
+        assertThat(store.summary().get("totalValue")).isEqualTo(new BigDecimal("2502.00"));
+
+        // 商品1の単価とカテゴリが変わった（在庫行の変更通知は届かない）
+        products.put(1L, product(1L, 20L, "150"));
+        assertThat(store.refreshProductAttributes()).isEqualTo(2);
+
+        Map<String, Object> summary = store.summary();
+        assertThat(summary.get("totalValue")).isEqualTo(new BigDecimal("3252.00"));
+        assertThat(groups(summary, "categories", "categoryId")).containsExactly(entry(20L, 19L));
+        // 変更のない商品の在庫行は集計し直さない
+        assertThat(store.refreshProductAttributes()).isZero();
+        assertThat(store.rebuild().get("matched")).isEqualTo(true);
+    }
+
+    /**
+     * 倉庫別・カテゴリ別の集計をキー → 合計数量で取得
+     */
+    @SuppressWarnings("unchecked")
+    private static List<Map.Entry<Long, Long>> groups(Map<String, Object> summary, String name, String keyName) {
+        List<Map.Entry<Long, Long>> groups = new ArrayList<>();
+        for (Map<String, Object> group : (List<Map<String, Object>>) summary.get(name)) {
+            groups.add(entry((Long) group.get(keyName), (Long) group.get("totalQuantity")));
+        }
+        return groups;
+    }
+
+    private static Map.Entry<Long, Long> entry(Long key, Long value) {
+        return new AbstractMap.SimpleEntry<>(key, value);
+    }
+
+    private static InventorySnapshot row(long id, long productId, long warehouseId, int quantity, int available) {
+        return new InventorySnapshot(id, productId, warehouseId, quantity, available, false);
+    }
+
+    private static InventorySnapshot deleted(long id) {
+        return new InventorySnapshot(id, null, null, null, null, true);
+    }
+
+    private static ProductSnapshot product(long id, Long categoryId, String unitPrice) {
+        ProductSnapshot product = new ProductSnapshot();
+        product.setId(id);
+        product.setUnitPrice(new BigDecimal(unitPrice));
+        if (categoryId != null) {
+            ProductSnapshot.Category category = new ProductSnapshot.Category();
+            category.setId(categoryId);
+            product.setCategory(category);
+        }
+        return product;
+    }
+
+    /**
+     * 一覧を limit 件ずつ返す（継続トークンは次の先頭位置）
+     */
+    private static <T> ResponseEntity<List<T>> page(List<T> items, String pageToken, int limit) {
+        int from = pageToken == null ? 0 : Integer.parseInt(pageToken);
+        int to = Math.min(from + limit, items.size());
+        HttpHeaders headers = new HttpHeaders();
+        if (to < items.size()) {
+            headers.add(ProductAttributeCache.NEXT_PAGE_TOKEN_HEADER, Integer.toString(to));
+        }
+        return ResponseEntity.ok().headers(headers).body(new ArrayList<>(items.subList(from, to)));
+    }
+
+    private final class StubProductClient implements ProductClient {
+
+        @Override
+        public ResponseEntity<List<ProductSnapshot>> getProducts(String pageToken, int limit) {
+            return page(new ArrayList<>(products.values()), pageToken, limit);
+        }
+
+        @Override
+        public ProductSnapshot getProduct(Long id) {
+            ProductSnapshot product = products.get(id);
+            if (product == null) {
+                throw new IllegalStateException("404");
+            }
+            return product;
+        }
+    }
+}